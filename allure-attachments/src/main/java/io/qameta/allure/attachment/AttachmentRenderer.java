@@ -24,4 +24,24 @@ public interface AttachmentRenderer<T extends AttachmentData> {
 
     AttachmentContent render(T attachmentData) throws AttachmentRenderException;
 
+    /**
+     * Returns content type of rendered attachments, so attachment can be added
+     * before its data is complete, e.g. while response body is streamed.
+     *
+     * @return the content type.
+     */
+    default String getContentType() {
+        return "text/html";
+    }
+
+    /**
+     * Returns file extension of rendered attachments.
+     *
+     * @return the file extension.
+     * @see #getContentType()
+     */
+    default String getFileExtension() {
+        return ".html";
+    }
+
 }
@@ -19,27 +19,35 @@ import io.qameta.allure.Allure;
 import io.qameta.allure.AllureLifecycle;
 
 import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
 
 /**
+ * Adds rendered attachments to the current test or step. Processor is thread-safe,
+ * so one instance can be shared between calls.
+ *
  * @author charlie (Dmitry Baev).
  */
 public class DefaultAttachmentProcessor implements AttachmentProcessor<AttachmentData> {
 
-    private final AllureLifecycle lifecycle;
+    private final Supplier<AllureLifecycle> lifecycle;
 
+    /**
+     * Creates processor that uses lifecycle returned by {@link Allure#getLifecycle()}
+     * at the moment attachment is added.
+     */
     public DefaultAttachmentProcessor() {
-        this(Allure.getLifecycle());
+        this.lifecycle = Allure::getLifecycle;
     }
 
     public DefaultAttachmentProcessor(final AllureLifecycle lifecycle) {
-        this.lifecycle = lifecycle;
+        this.lifecycle = () -> lifecycle;
     }
 
     @Override
     public void addAttachment(final AttachmentData attachmentData,
                               final AttachmentRenderer<AttachmentData> renderer) {
         final AttachmentContent content = renderer.render(attachmentData);
-        lifecycle.addAttachment(
+        lifecycle.get().addAttachment(
                 attachmentData.getName(),
                 content.getContentType(),
                 content.getFileExtension(),
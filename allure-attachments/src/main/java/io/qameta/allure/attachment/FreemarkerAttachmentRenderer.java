@@ -26,23 +26,29 @@ import java.io.Writer;
 import java.util.Collections;
 
 /**
+ * Renders attachments with FreeMarker templates. Renderer is thread-safe, so one instance
+ * can be shared between calls. Instances of this class share the same FreeMarker
+ * configuration, so each template is parsed once per class loader.
+ *
  * @author charlie (Dmitry Baev).
  */
 public class FreemarkerAttachmentRenderer implements AttachmentRenderer<AttachmentData> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FreemarkerAttachmentRenderer.class);
 
+    private static final String CONTENT_TYPE = "text/html";
+
+    private static final String FILE_EXTENSION = ".html";
+
     private final Configuration configuration;
 
     private final String templateName;
 
     public FreemarkerAttachmentRenderer(final String templateName) {
         this.templateName = templateName;
-        this.configuration = new Configuration(Configuration.VERSION_2_3_23);
-        this.configuration.setLocalizedLookup(false);
-        this.configuration.setTemplateUpdateDelayMilliseconds(0);
-        this.configuration.setTemplateExceptionHandler(TemplateExceptionHandler.HTML_DEBUG_HANDLER);
-        this.configuration.setClassLoaderForTemplateLoading(getClass().getClassLoader(), "tpl");
+        this.configuration = FreemarkerAttachmentRenderer.class.equals(getClass())
+                ? DefaultConfigurationHolder.CONFIGURATION
+                : createConfiguration(getClass().getClassLoader());
     }
 
     @Override
@@ -50,11 +56,41 @@ public class FreemarkerAttachmentRenderer implements AttachmentRenderer<Attachme
         try (Writer writer = new StringWriter()) {
             final Template template = configuration.getTemplate(templateName);
             template.process(Collections.singletonMap("data", data), writer);
-            return new DefaultAttachmentContent(writer.toString(), "text/html", ".html");
+            return new DefaultAttachmentContent(writer.toString(), getContentType(), getFileExtension());
         } catch (Exception e) {
             LOGGER.debug(data.toString());
             throw new AttachmentRenderException("Could't render http attachment file", e);
         }
     }
 
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return FILE_EXTENSION;
+    }
+
+    private static Configuration createConfiguration(final ClassLoader classLoader) {
+        final Configuration configuration = new Configuration(Configuration.VERSION_2_3_23);
+        configuration.setLocalizedLookup(false);
+        // templates are loaded from class path, so there is no need to check them for updates
+        configuration.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.HTML_DEBUG_HANDLER);
+        configuration.setClassLoaderForTemplateLoading(classLoader, "tpl");
+        return configuration;
+    }
+
+    /**
+     * Lazily created configuration, shared by all the instances of renderer.
+     */
+    private static final class DefaultConfigurationHolder {
+
+        private static final Configuration CONFIGURATION = createConfiguration(
+                FreemarkerAttachmentRenderer.class.getClassLoader()
+        );
+    }
+
 }
@@ -0,0 +1,142 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.attachment.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps first bytes or characters of a http body up to given limit, and counts the rest.
+ * Bytes are decoded only when the body is requested, characters written through readers
+ * and writers are kept as is. Instances are not thread-safe, the body of one message is
+ * expected to be written by one thread at a time.
+ */
+@SuppressWarnings("PMD.AvoidStringBufferField")
+public class BoundedBodyCapture extends OutputStream {
+
+    private final long limit;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final StringBuilder chars = new StringBuilder();
+
+    private long total;
+
+    /**
+     * Creates a new capture.
+     *
+     * @param limit the maximum number of bytes or characters to keep.
+     */
+    public BoundedBodyCapture(final long limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(final int b) {
+        total++;
+        if (remaining() > 0) {
+            bytes.write(b);
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        total += len;
+        final int count = (int) Math.min(len, remaining());
+        if (count > 0) {
+            bytes.write(b, off, count);
+        }
+    }
+
+    /**
+     * Captures remaining bytes of given buffer, the position of buffer is left unchanged.
+     *
+     * @param buffer the buffer to capture.
+     */
+    public void write(final ByteBuffer buffer) {
+        final int length = buffer.remaining();
+        total += length;
+        final int count = (int) Math.min(length, remaining());
+        if (count > 0) {
+            final byte[] captured = new byte[count];
+            buffer.duplicate().get(captured);
+            bytes.write(captured, 0, count);
+        }
+    }
+
+    /**
+     * Captures characters written through readers and writers.
+     *
+     * @param c   the characters.
+     * @param off the start offset.
+     * @param len the number of characters.
+     */
+    public void append(final char[] c, final int off, final int len) {
+        total += len;
+        final int count = (int) Math.min(len, remaining());
+        if (count > 0) {
+            chars.append(c, off, count);
+        }
+    }
+
+    /**
+     * Drops everything captured so far.
+     */
+    public void reset() {
+        bytes.reset();
+        chars.setLength(0);
+        total = 0;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * Returns captured body.
+     *
+     * @param charset the charset of captured bytes.
+     * @return the captured body, with note on truncated part if any.
+     */
+    public String getBody(final Charset charset) {
+        return getBody(charset, UnaryOperator.identity());
+    }
+
+    /**
+     * Returns captured body.
+     *
+     * @param charset  the charset of captured bytes.
+     * @param decoding the content decoding applied to captured bytes, e.g. gzip unpacking.
+     * @return the captured body, with note on truncated part if any.
+     */
+    public String getBody(final Charset charset, final UnaryOperator<byte[]> decoding) {
+        final String body = new String(decoding.apply(bytes.toByteArray()), charset) + chars;
+        final long truncated = total - bytes.size() - chars.length();
+        if (truncated <= 0) {
+            return body;
+        }
+        return String.format(
+                "%s%n... %d more %s truncated", body, truncated, chars.length() > 0 ? "characters" : "bytes"
+        );
+    }
+
+    private long remaining() {
+        return limit - bytes.size() - chars.length();
+    }
+}
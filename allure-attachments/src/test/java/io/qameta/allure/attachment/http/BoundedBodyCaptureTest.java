@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.attachment.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedBodyCaptureTest {
+
+    private static final byte[] BODY = "hello world".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void shouldKeepBodyWithinLimit() {
+        final BoundedBodyCapture capture = new BoundedBodyCapture(64);
+        capture.write(BODY, 0, 5);
+        capture.write(BODY, 5, BODY.length - 5);
+
+        assertThat(capture.getBody(StandardCharsets.UTF_8))
+                .isEqualTo("hello world");
+    }
+
+    @Test
+    void shouldCountTruncatedBytes() {
+        final BoundedBodyCapture capture = new BoundedBodyCapture(5);
+        capture.write(BODY, 0, BODY.length);
+        capture.write('!');
+
+        assertThat(capture.getBody(StandardCharsets.UTF_8))
+                .isEqualTo(String.format("hello%n... 7 more bytes truncated"));
+    }
+
+    @Test
+    void shouldCountTruncatedCharacters() {
+        final BoundedBodyCapture capture = new BoundedBodyCapture(5);
+        capture.append("hello world".toCharArray(), 0, 11);
+
+        assertThat(capture.getBody(StandardCharsets.UTF_8))
+                .isEqualTo(String.format("hello%n... 6 more characters truncated"));
+    }
+
+    @Test
+    void shouldNotMoveBufferPosition() {
+        final BoundedBodyCapture capture = new BoundedBodyCapture(5);
+        final ByteBuffer buffer = ByteBuffer.wrap(BODY);
+        capture.write(buffer);
+
+        assertThat(buffer.remaining()).isEqualTo(BODY.length);
+        assertThat(capture.getBody(StandardCharsets.UTF_8))
+                .startsWith("hello")
+                .endsWith("6 more bytes truncated");
+    }
+
+    @Test
+    void shouldApplyDecodingToCapturedBytes() {
+        final BoundedBodyCapture capture = new BoundedBodyCapture(64);
+        capture.write(BODY, 0, BODY.length);
+
+        assertThat(capture.getBody(StandardCharsets.UTF_8, bytes -> new byte[]{bytes[0]}))
+                .isEqualTo("h");
+    }
+
+    @Test
+    void shouldDropCapturedBodyOnReset() {
+        final BoundedBodyCapture capture = new BoundedBodyCapture(64);
+        capture.write(BODY, 0, BODY.length);
+        capture.reset();
+
+        assertThat(capture.isEmpty()).isTrue();
+        assertThat(capture.getBody(StandardCharsets.UTF_8)).isEmpty();
+    }
+}
@@ -16,6 +16,7 @@ dependencies {
     api(project(":allure-attachments"))
     implementation("io.grpc:grpc-core:$grpcVersion")
     implementation("com.google.protobuf:protobuf-java-util:$protobufVersion")
+    compileOnly(project(":allure-reader"))
 
     testImplementation("io.grpc:grpc-stub:$grpcVersion")
     testImplementation("io.grpc:grpc-protobuf:$grpcVersion")
@@ -28,6 +29,7 @@ dependencies {
     testImplementation("org.slf4j:slf4j-simple")
     testImplementation(project(":allure-java-commons-test"))
     testImplementation(project(":allure-junit-platform"))
+    testImplementation(project(":allure-reader"))
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
 }
 
@@ -27,6 +27,7 @@ import io.grpc.ForwardingClientCallListener;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
 import io.qameta.allure.attachment.AttachmentData;
 import io.qameta.allure.attachment.AttachmentProcessor;
 import io.qameta.allure.attachment.DefaultAttachmentProcessor;
@@ -39,7 +40,12 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 import static java.util.Objects.requireNonNull;
 
@@ -58,6 +64,18 @@ public class AllureGrpc implements ClientInterceptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AllureGrpc.class);
     private static final JsonFormat.Printer JSON_PRINTER = JsonFormat.printer();
+    private static final String REQUEST_ATTACHMENT_NAME = "gRPC request";
+    private static final String RESPONSE_ATTACHMENT_NAME = "gRPC response";
+
+    /**
+     * The default maximum number of messages captured per call in streaming mode.
+     */
+    public static final int DEFAULT_MAX_STREAM_MESSAGES = 100;
+
+    /**
+     * The default maximum total size of messages captured per call in streaming mode.
+     */
+    public static final long DEFAULT_MAX_STREAM_BYTES = 1024 * 1024;
 
     private String requestTemplatePath = "grpc-request.ftl";
     private String responseTemplatePath = "grpc-response.ftl";
@@ -65,6 +83,13 @@ public class AllureGrpc implements ClientInterceptor {
     private boolean markStepFailedOnNonZeroCode = true;
     private boolean interceptResponseMetadata;
 
+    private boolean streamMessages;
+    private boolean binaryMessages;
+    private int maxStreamMessages = DEFAULT_MAX_STREAM_MESSAGES;
+    private long maxStreamBytes = DEFAULT_MAX_STREAM_BYTES;
+    private int streamSampling = 1;
+    private Executor conversionExecutor = ForkJoinPool.commonPool();
+
     public AllureGrpc setRequestTemplate(final String templatePath) {
         this.requestTemplatePath = templatePath;
         return this;
@@ -85,11 +110,80 @@ public class AllureGrpc implements ClientInterceptor {
         return this;
     }
 
+    /**
+     * Enables streaming mode. In streaming mode every request and response message is
+     * attached separately as JSON, up to {@link #setMaxStreamMessages(int)} messages and
+     * {@link #setMaxStreamBytes(long)} bytes per call. Messages are converted to JSON
+     * by the conversion executor, so the transport thread is not blocked. Calls made
+     * while no test is running are passed through untouched.
+     *
+     * @param value true to enable streaming mode.
+     * @return self for method chaining.
+     */
+    public AllureGrpc streamMessages(final boolean value) {
+        this.streamMessages = value;
+        return this;
+    }
+
+    /**
+     * Attaches messages as serialized protobuf instead of JSON, see {@link GrpcProtobufAttachments}.
+     * Implies streaming mode. Messages are converted to JSON only if the step fails.
+     *
+     * @param value true to attach binary messages.
+     * @return self for method chaining.
+     */
+    public AllureGrpc binaryMessages(final boolean value) {
+        this.binaryMessages = value;
+        return this;
+    }
+
+    public AllureGrpc setMaxStreamMessages(final int maxStreamMessages) {
+        this.maxStreamMessages = maxStreamMessages;
+        return this;
+    }
+
+    public AllureGrpc setMaxStreamBytes(final long maxStreamBytes) {
+        this.maxStreamBytes = maxStreamBytes;
+        return this;
+    }
+
+    /**
+     * Captures only every n-th message in streaming mode.
+     *
+     * @param streamSampling the sampling rate, 1 captures all the messages.
+     * @return self for method chaining.
+     */
+    public AllureGrpc setStreamSampling(final int streamSampling) {
+        this.streamSampling = streamSampling;
+        return this;
+    }
+
+    /**
+     * Sets the executor that converts messages to JSON in streaming mode,
+     * {@link ForkJoinPool#commonPool()} by default. The call step is stopped once
+     * all its messages are written, so with asynchronous executor it may be stopped
+     * after the call returns, but never after the test is stopped, see
+     * {@link AllureGrpcListener}. Messages rejected by the executor are written in place.
+     *
+     * @param conversionExecutor the executor.
+     * @return self for method chaining.
+     */
+    public AllureGrpc setConversionExecutor(final Executor conversionExecutor) {
+        this.conversionExecutor = conversionExecutor;
+        return this;
+    }
+
     @SuppressWarnings({"PMD.MethodArgumentCouldBeFinal", "PMD.NPathComplexity"})
     @Override
     public <T, A> ClientCall<T, A> interceptCall(MethodDescriptor<T, A> method,
                                                  CallOptions callOptions,
                                                  Channel next) {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        final Optional<String> parentUuid = lifecycle.getCurrentTestCaseOrStep();
+        if ((streamMessages || binaryMessages) && !parentUuid.isPresent()) {
+            return next.newCall(method, callOptions);
+        }
+        final String testUuid = lifecycle.getCurrentTestCase().orElse(null);
         final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
 
         return new ForwardingClientCall.SimpleForwardingClientCall<T, A>(
@@ -97,19 +191,19 @@ public class AllureGrpc implements ClientInterceptor {
 
             private String stepUuid;
             private List<String> parsedResponses = new ArrayList<>();
+            private GrpcMessageCapture capture;
 
             @SuppressWarnings("PMD.MethodArgumentCouldBeFinal")
             @Override
             public void sendMessage(T message) {
-                stepUuid = UUID.randomUUID().toString();
-                Allure.getLifecycle().startStep(stepUuid, (new StepResult()).setName(
-                        "Send gRPC request to "
-                                + next.authority()
-                                + trimGrpcMethodName(method.getFullMethodName())
-                ));
+                if (streamMessages || binaryMessages) {
+                    sendStreamingMessage(message);
+                    return;
+                }
+                startStep();
                 try {
                     final GrpcRequestAttachment rpcRequestAttach = GrpcRequestAttachment.Builder
-                            .create("gRPC request", method.getFullMethodName())
+                            .create(REQUEST_ATTACHMENT_NAME, method.getFullMethodName())
                             .setBody(JSON_PRINTER.print((MessageOrBuilder) message))
                             .build();
                     processor.addAttachment(rpcRequestAttach, new FreemarkerAttachmentRenderer(requestTemplatePath));
@@ -117,13 +211,42 @@ public class AllureGrpc implements ClientInterceptor {
                 } catch (InvalidProtocolBufferException e) {
                     LOGGER.warn("Can`t parse gRPC request", e);
                 } catch (Throwable e) {
-                    Allure.getLifecycle().updateStep(stepResult ->
-                            stepResult.setStatus(ResultsUtils.getStatus(e).orElse(Status.BROKEN))
-                                    .setStatusDetails(ResultsUtils.getStatusDetails(e).orElse(null))
-                    );
+                    stopBrokenStep(e);
+                }
+            }
+
+            @SuppressWarnings("PMD.AvoidCatchingThrowable")
+            private void sendStreamingMessage(final T message) {
+                if (Objects.isNull(capture)) {
+                    capture = startCapture(lifecycle, parentUuid.get(), testUuid, getStepName());
+                }
+                try {
+                    capture.capture(REQUEST_ATTACHMENT_NAME, message);
+                    super.sendMessage(message);
+                } catch (Throwable e) {
+                    stopBrokenStep(e);
+                }
+            }
+
+            private void startStep() {
+                stepUuid = UUID.randomUUID().toString();
+                Allure.getLifecycle().startStep(stepUuid, new StepResult().setName(getStepName()));
+            }
+
+            private String getStepName() {
+                return "Send gRPC request to " + next.authority() + trimGrpcMethodName(method.getFullMethodName());
+            }
+
+            private void stopBrokenStep(final Throwable e) {
+                if (Objects.nonNull(capture)) {
+                    capture.captureJson();
+                    capture.stop(null, null, broken(e));
+                } else {
+                    Allure.getLifecycle().updateStep(broken(e));
                     Allure.getLifecycle().stopStep(stepUuid);
-                    stepUuid = null;
                 }
+                stepUuid = null;
+                capture = null;
             }
 
             @SuppressWarnings("PMD.MethodArgumentCouldBeFinal")
@@ -140,9 +263,11 @@ public class AllureGrpc implements ClientInterceptor {
                     public void onClose(io.grpc.Status status, Metadata trailers) {
                         GrpcResponseAttachment.Builder responseAttachmentBuilder = null;
 
-                        if (parsedResponses.size() == 1) {
+                        if (Objects.nonNull(capture)) {
+                            responseAttachmentBuilder = finishCapture(capture, status);
+                        } else if (parsedResponses.size() == 1) {
                             responseAttachmentBuilder = GrpcResponseAttachment.Builder
-                                    .create("gRPC response")
+                                    .create(RESPONSE_ATTACHMENT_NAME)
                                     .setBody(parsedResponses.iterator().next());
                         } else if (parsedResponses.size() > 1) {
                             responseAttachmentBuilder = GrpcResponseAttachment.Builder
@@ -168,18 +293,12 @@ public class AllureGrpc implements ClientInterceptor {
                                 );
                             }
                         }
-                        processor.addAttachment(
-                                requireNonNull(responseAttachmentBuilder).build(),
-                                new FreemarkerAttachmentRenderer(responseTemplatePath)
+                        stopStep(
+                                capture, stepUuid, processor, requireNonNull(responseAttachmentBuilder).build(),
+                                status.isOk() || !markStepFailedOnNonZeroCode ? Status.PASSED : Status.FAILED
                         );
-
-                        if (status.isOk() || !markStepFailedOnNonZeroCode) {
-                            Allure.getLifecycle().updateStep(stepUuid, step -> step.setStatus(Status.PASSED));
-                        } else {
-                            Allure.getLifecycle().updateStep(stepUuid, step -> step.setStatus(Status.FAILED));
-                        }
-                        Allure.getLifecycle().stopStep(stepUuid);
                         stepUuid = null;
+                        capture = null;
                         super.onClose(status, trailers);
                     }
 
@@ -187,26 +306,76 @@ public class AllureGrpc implements ClientInterceptor {
                     @Override
                     public void onMessage(A message) {
                         try {
-                            parsedResponses.add(JSON_PRINTER.print((MessageOrBuilder) message));
+                            if (Objects.nonNull(capture)) {
+                                capture.capture(RESPONSE_ATTACHMENT_NAME, message);
+                            } else {
+                                parsedResponses.add(JSON_PRINTER.print((MessageOrBuilder) message));
+                            }
                             super.onMessage(message);
                         } catch (InvalidProtocolBufferException e) {
                             LOGGER.warn("Can`t parse gRPC response", e);
                         } catch (Throwable e) {
-                            Allure.getLifecycle().updateStep(step ->
-                                    step.setStatus(ResultsUtils.getStatus(e).orElse(Status.BROKEN))
-                                            .setStatusDetails(ResultsUtils.getStatusDetails(e).orElse(null))
-                            );
-                            Allure.getLifecycle().stopStep(stepUuid);
-                            stepUuid = null;
+                            stopBrokenStep(e);
                         }
                     }
                 };
                 super.start(listener, headers);
             }
-
-            private String trimGrpcMethodName(final String source) {
-                return source.substring(source.lastIndexOf('/'));
-            }
         };
     }
+
+    /**
+     * Starts step of streaming call. The step is not bound to the calling thread,
+     * since it is stopped by gRPC or conversion executor thread once the call is closed
+     * and all the captured messages are written.
+     */
+    private GrpcMessageCapture startCapture(final AllureLifecycle lifecycle,
+                                            final String parentUuid,
+                                            final String testUuid,
+                                            final String name) {
+        final String stepUuid = UUID.randomUUID().toString();
+        lifecycle.startDetachedStep(parentUuid, stepUuid, new StepResult().setName(name));
+        return new GrpcMessageCapture(
+                lifecycle, testUuid, stepUuid,
+                maxStreamMessages, maxStreamBytes, streamSampling, conversionExecutor, binaryMessages
+        );
+    }
+
+    private GrpcResponseAttachment.Builder finishCapture(final GrpcMessageCapture capture,
+                                                         final io.grpc.Status status) {
+        if (!status.isOk() && markStepFailedOnNonZeroCode) {
+            capture.captureJson();
+        }
+        return GrpcResponseAttachment.Builder
+                .create(RESPONSE_ATTACHMENT_NAME)
+                .setBody(capture.getSummary());
+    }
+
+    /**
+     * Adds response attachment and stops the step. Step of streaming call is stopped
+     * once all its captured messages are written, without blocking the gRPC thread.
+     */
+    private void stopStep(final GrpcMessageCapture capture,
+                          final String stepUuid,
+                          final AttachmentProcessor<AttachmentData> processor,
+                          final GrpcResponseAttachment attachment,
+                          final Status status) {
+        final FreemarkerAttachmentRenderer renderer = new FreemarkerAttachmentRenderer(responseTemplatePath);
+        if (Objects.nonNull(capture)) {
+            capture.stop(attachment, renderer, step -> step.setStatus(status));
+            return;
+        }
+        processor.addAttachment(attachment, renderer);
+        Allure.getLifecycle().updateStep(stepUuid, step -> step.setStatus(status));
+        Allure.getLifecycle().stopStep(stepUuid);
+    }
+
+    private static Consumer<StepResult> broken(final Throwable e) {
+        return step -> step.setStatus(ResultsUtils.getStatus(e).orElse(Status.BROKEN))
+                .setStatusDetails(ResultsUtils.getStatusDetails(e).orElse(null));
+    }
+
+    private static String trimGrpcMethodName(final String source) {
+        return source.substring(source.lastIndexOf('/'));
+    }
 }
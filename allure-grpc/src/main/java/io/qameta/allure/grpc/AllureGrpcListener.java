@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.grpc;
+
+import io.qameta.allure.listener.TestLifecycleListener;
+import io.qameta.allure.model.TestResult;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Waits for steps of streaming calls captured by {@link AllureGrpc} and
+ * {@link AllureGrpcServer} before the test is stopped, so the test is never written
+ * with running steps. Steps of calls that are not closed yet are stopped as broken.
+ * Registered as {@link TestLifecycleListener} service.
+ */
+public class AllureGrpcListener implements TestLifecycleListener {
+
+    private static final Map<String, Set<GrpcMessageCapture>> PENDING = new ConcurrentHashMap<>();
+
+    @Override
+    public void beforeTestStop(final TestResult result) {
+        final Set<GrpcMessageCapture> captures = PENDING.remove(result.getUuid());
+        if (Objects.nonNull(captures)) {
+            captures.forEach(GrpcMessageCapture::finish);
+        }
+    }
+
+    static void track(final String testUuid, final GrpcMessageCapture capture) {
+        if (Objects.nonNull(testUuid)) {
+            PENDING.computeIfAbsent(testUuid, uuid -> ConcurrentHashMap.newKeySet()).add(capture);
+        }
+    }
+
+    static void untrack(final String testUuid, final GrpcMessageCapture capture) {
+        if (Objects.nonNull(testUuid)) {
+            PENDING.computeIfPresent(testUuid, (uuid, captures) -> {
+                captures.remove(capture);
+                return captures.isEmpty() ? null : captures;
+            });
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.grpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StatusDetails;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.util.ResultsUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Allure interceptor logger for gRPC services. Records every call handled while a test
+ * is running as a step of that test, with inbound and outbound messages attached
+ * one by one the same way as {@link AllureGrpc#streamMessages(boolean)} does.
+ * Calls handled while no test is running are passed through untouched.
+ *
+ * <p>The step is started by the thread that delivers the first call event, so for
+ * in-process servers use direct executor to get the steps nested into the calling test.
+ * Steps are started and stopped by uuid and never change the current step of gRPC
+ * threads, and the step is stopped once all its messages are written, without blocking
+ * the thread that closes the call.
+ */
+@SuppressWarnings({
+        "PMD.AvoidFieldNameMatchingMethodName",
+        "checkstyle:ClassFanOutComplexity",
+        "checkstyle:AnonInnerLength"
+})
+public class AllureGrpcServer implements ServerInterceptor {
+
+    private static final String REQUEST_ATTACHMENT_NAME = "gRPC request";
+    private static final String RESPONSE_ATTACHMENT_NAME = "gRPC response";
+
+    private AttachmentRenderer<AttachmentData> responseRenderer =
+            new FreemarkerAttachmentRenderer("grpc-response.ftl");
+
+    private boolean markStepFailedOnNonZeroCode = true;
+    private boolean interceptMetadata;
+    private boolean binaryMessages;
+
+    private int maxStreamMessages = AllureGrpc.DEFAULT_MAX_STREAM_MESSAGES;
+    private long maxStreamBytes = AllureGrpc.DEFAULT_MAX_STREAM_BYTES;
+    private int streamSampling = 1;
+    private Executor conversionExecutor = ForkJoinPool.commonPool();
+
+    public AllureGrpcServer setResponseTemplate(final String templatePath) {
+        this.responseRenderer = new FreemarkerAttachmentRenderer(templatePath);
+        return this;
+    }
+
+    public AllureGrpcServer markStepFailedOnNonZeroCode(final boolean value) {
+        this.markStepFailedOnNonZeroCode = value;
+        return this;
+    }
+
+    /**
+     * Adds request headers and response trailers to the response attachment.
+     *
+     * @param value true to record metadata.
+     * @return self for method chaining.
+     */
+    public AllureGrpcServer interceptMetadata(final boolean value) {
+        this.interceptMetadata = value;
+        return this;
+    }
+
+    /**
+     * Attaches messages as serialized protobuf instead of JSON, see {@link GrpcProtobufAttachments}.
+     * Messages are converted to JSON only if the step fails.
+     *
+     * @param value true to attach binary messages.
+     * @return self for method chaining.
+     */
+    public AllureGrpcServer binaryMessages(final boolean value) {
+        this.binaryMessages = value;
+        return this;
+    }
+
+    public AllureGrpcServer setMaxStreamMessages(final int maxStreamMessages) {
+        this.maxStreamMessages = maxStreamMessages;
+        return this;
+    }
+
+    public AllureGrpcServer setMaxStreamBytes(final long maxStreamBytes) {
+        this.maxStreamBytes = maxStreamBytes;
+        return this;
+    }
+
+    /**
+     * Captures only every n-th message of a call.
+     *
+     * @param streamSampling the sampling rate, 1 captures all the messages.
+     * @return self for method chaining.
+     */
+    public AllureGrpcServer setStreamSampling(final int streamSampling) {
+        this.streamSampling = streamSampling;
+        return this;
+    }
+
+    /**
+     * Sets the executor that converts messages to JSON,
+     * {@link ForkJoinPool#commonPool()} by default.
+     *
+     * @param conversionExecutor the executor.
+     * @return self for method chaining.
+     */
+    public AllureGrpcServer setConversionExecutor(final Executor conversionExecutor) {
+        this.conversionExecutor = conversionExecutor;
+        return this;
+    }
+
+    @Override
+    public <T, A> ServerCall.Listener<T> interceptCall(final ServerCall<T, A> call,
+                                                       final Metadata headers,
+                                                       final ServerCallHandler<T, A> next) {
+        final AllureServerCall<T, A> allureCall = new AllureServerCall<>(call, headers);
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<T>(
+                next.startCall(allureCall, headers)) {
+
+            @Override
+            public void onMessage(final T message) {
+                allureCall.capture(REQUEST_ATTACHMENT_NAME, message);
+                try {
+                    super.onMessage(message);
+                } catch (RuntimeException e) {
+                    allureCall.stopBroken(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                allureCall.start();
+                try {
+                    super.onHalfClose();
+                } catch (RuntimeException e) {
+                    allureCall.stopBroken(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                allureCall.stopBroken(new IllegalStateException("gRPC call is cancelled"));
+                super.onCancel();
+            }
+        };
+    }
+
+    private static Map<String, String> toMap(final Metadata metadata) {
+        final Map<String, String> result = new HashMap<>();
+        for (String key : metadata.keys()) {
+            if (!key.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
+                result.put(key, metadata.get(Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Server call that records its messages and status to the step.
+     *
+     * @param <T> the type of request message.
+     * @param <A> the type of response message.
+     */
+    private final class AllureServerCall<T, A> extends ForwardingServerCall.SimpleForwardingServerCall<T, A> {
+
+        private final AllureLifecycle lifecycle = Allure.getLifecycle();
+
+        private final Metadata headers;
+
+        private boolean started;
+
+        private GrpcMessageCapture capture;
+
+        private AllureServerCall(final ServerCall<T, A> delegate, final Metadata headers) {
+            super(delegate);
+            this.headers = headers;
+        }
+
+        @Override
+        public void sendMessage(final A message) {
+            capture(RESPONSE_ATTACHMENT_NAME, message);
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(final io.grpc.Status status, final Metadata trailers) {
+            // stop the step first, as client may be notified synchronously,
+            // it is stopped right away if all the messages are already written
+            stop(status, trailers);
+            super.close(status, trailers);
+        }
+
+        private void start() {
+            if (started) {
+                return;
+            }
+            started = true;
+            final Optional<String> parentUuid = lifecycle.getCurrentTestCaseOrStep();
+            if (!parentUuid.isPresent()) {
+                return;
+            }
+            final String stepUuid = UUID.randomUUID().toString();
+            lifecycle.startDetachedStep(parentUuid.get(), stepUuid, new StepResult().setName(
+                    "Receive gRPC request " + getMethodDescriptor().getFullMethodName()
+            ));
+            capture = new GrpcMessageCapture(
+                    lifecycle, lifecycle.getCurrentTestCase().orElse(null), stepUuid,
+                    maxStreamMessages, maxStreamBytes, streamSampling, conversionExecutor, binaryMessages
+            );
+        }
+
+        private void capture(final String name, final Object message) {
+            start();
+            if (Objects.nonNull(capture)) {
+                capture.capture(name, message);
+            }
+        }
+
+        private void stop(final io.grpc.Status status, final Metadata trailers) {
+            start();
+            if (Objects.isNull(capture)) {
+                return;
+            }
+            final boolean failed = !status.isOk() && markStepFailedOnNonZeroCode;
+            if (failed) {
+                capture.captureJson();
+            }
+            final GrpcResponseAttachment.Builder responseAttachmentBuilder = GrpcResponseAttachment.Builder
+                    .create(status.isOk() ? RESPONSE_ATTACHMENT_NAME : status.getCode().name())
+                    .setStatus(status.toString())
+                    .setBody(capture.getSummary());
+            if (interceptMetadata) {
+                responseAttachmentBuilder
+                        .addMetadata(toMap(headers))
+                        .addMetadata(toMap(trailers));
+            }
+            final Status stepStatus = failed ? Status.FAILED : Status.PASSED;
+            final StatusDetails details = Objects.isNull(status.getDescription())
+                    ? null
+                    : new StatusDetails().setMessage(status.getDescription());
+            stopStep(responseAttachmentBuilder.build(), step -> step.setStatus(stepStatus).setStatusDetails(details));
+        }
+
+        private void stopBroken(final Throwable e) {
+            if (Objects.nonNull(capture)) {
+                capture.captureJson();
+                stopStep(null, step -> step
+                        .setStatus(ResultsUtils.getStatus(e).orElse(Status.BROKEN))
+                        .setStatusDetails(ResultsUtils.getStatusDetails(e).orElse(null)));
+            }
+        }
+
+        private void stopStep(final AttachmentData response, final Consumer<StepResult> update) {
+            capture.stop(response, responseRenderer, update);
+            capture = null;
+        }
+    }
+}
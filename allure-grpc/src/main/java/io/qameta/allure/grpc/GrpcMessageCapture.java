@@ -0,0 +1,300 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.grpc;
+
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.util.JsonFormat;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StatusDetails;
+import io.qameta.allure.model.StepResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Captures messages of a single gRPC call as separate attachments of the call step.
+ * The calling thread only checks the limits and links the attachment to the step,
+ * messages are converted to JSON and written by the given executor one by one,
+ * so nothing but not yet written messages is kept in memory. If the executor rejects
+ * a message, it is written by the thread that completed the previous one instead.
+ * The step is stopped once all the messages are written, without blocking gRPC threads.
+ * Steps that are not stopped by the time their test is stopped are stopped by
+ * {@link AllureGrpcListener}, which waits for their messages.
+ *
+ * <p>In binary mode messages are written as serialized protobuf instead, see
+ * {@link GrpcProtobufAttachments}. Captured messages are then kept until the call is
+ * finished, so they can be converted to JSON if the call fails.
+ */
+class GrpcMessageCapture {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GrpcMessageCapture.class);
+
+    private static final JsonFormat.Printer JSON_PRINTER = JsonFormat.printer();
+
+    private static final String ATTACHMENT_SUFFIX = "-attachment";
+
+    private static final String NOT_CLOSED_MESSAGE = "gRPC call was not closed before the test was stopped";
+
+    private final Object lock = new Object();
+
+    private final AllureLifecycle lifecycle;
+
+    private final String testUuid;
+
+    private final String stepUuid;
+
+    private final int maxMessages;
+
+    private final long maxBytes;
+
+    private final int sampling;
+
+    private final Executor executor;
+
+    private final boolean binary;
+
+    private final List<Captured> retained = new ArrayList<>();
+
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+    private boolean stopping;
+
+    private int received;
+
+    private int captured;
+
+    private int skipped;
+
+    private long bytes;
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    GrpcMessageCapture(final AllureLifecycle lifecycle,
+                       final String testUuid,
+                       final String stepUuid,
+                       final int maxMessages,
+                       final long maxBytes,
+                       final int sampling,
+                       final Executor executor,
+                       final boolean binary) {
+        this.lifecycle = lifecycle;
+        this.testUuid = testUuid;
+        this.stepUuid = stepUuid;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.sampling = Math.max(1, sampling);
+        this.executor = executor;
+        this.binary = binary;
+        AllureGrpcListener.track(testUuid, this);
+    }
+
+    /**
+     * Adds message attachment to the step unless the message is skipped by sampling
+     * or exceeds the limits.
+     *
+     * @param name    the name of attachment.
+     * @param message the message.
+     */
+    void capture(final String name, final Object message) {
+        final long size = message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : 0L;
+        final Attachment attachment;
+        synchronized (lock) {
+            if (stopping) {
+                return;
+            }
+            received++;
+            if ((received - 1) % sampling != 0) {
+                skipped++;
+                return;
+            }
+            if (captured >= maxMessages || bytes + size > maxBytes) {
+                return;
+            }
+            captured++;
+            bytes += size;
+            if (binary) {
+                retained.add(new Captured(name, message));
+            }
+            attachment = enqueue(name, message, binary);
+        }
+        lifecycle.updateStep(stepUuid, step -> step.getAttachments().add(attachment));
+    }
+
+    /**
+     * Attaches captured messages as JSON in binary mode. Should be called when the call
+     * fails, before {@link #stop(AttachmentData, AttachmentRenderer, Consumer)}.
+     */
+    void captureJson() {
+        final List<Attachment> attachments = new ArrayList<>();
+        synchronized (lock) {
+            if (stopping) {
+                return;
+            }
+            for (Captured message : retained) {
+                attachments.add(enqueue(message.name + " (JSON)", message.message, false));
+            }
+            retained.clear();
+        }
+        lifecycle.updateStep(stepUuid, step -> step.getAttachments().addAll(attachments));
+    }
+
+    /**
+     * Renders attachment and adds it to the step. Unlike attachment processor it does
+     * not depend on the step of current thread, so can be called by any gRPC thread.
+     *
+     * @param data     the attachment data.
+     * @param renderer the renderer.
+     */
+    void attach(final AttachmentData data, final AttachmentRenderer<AttachmentData> renderer) {
+        final AttachmentContent content = renderer.render(data);
+        final Attachment attachment = new Attachment()
+                .setName(data.getName())
+                .setType(content.getContentType())
+                .setSource(UUID.randomUUID() + ATTACHMENT_SUFFIX + content.getFileExtension());
+        lifecycle.updateStep(stepUuid, step -> step.getAttachments().add(attachment));
+        lifecycle.writeAttachment(attachment.getSource(), new ByteArrayInputStream(
+                content.getContent().getBytes(StandardCharsets.UTF_8)
+        ));
+    }
+
+    /**
+     * Adds response attachment, updates and stops the step once all the captured messages
+     * are written. Does not block the calling thread, the step is stopped either by the
+     * thread that writes the last message or by the calling one if all are written.
+     * Only the first call has effect, messages captured after it are ignored.
+     *
+     * @param response the response attachment data, or null.
+     * @param renderer the renderer of response attachment.
+     * @param update   the update of step, e.g. its status.
+     */
+    void stop(final AttachmentData response,
+              final AttachmentRenderer<AttachmentData> renderer,
+              final Consumer<StepResult> update) {
+        final CompletableFuture<Void> current;
+        synchronized (lock) {
+            if (stopping) {
+                return;
+            }
+            stopping = true;
+            current = pending;
+        }
+        current.whenComplete((ignored, e) -> {
+            try {
+                if (Objects.nonNull(response)) {
+                    attach(response, renderer);
+                }
+                lifecycle.updateStep(stepUuid, update);
+                lifecycle.stopDetachedStep(stepUuid);
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Could not finish gRPC step {}", stepUuid, ex);
+            } finally {
+                AllureGrpcListener.untrack(testUuid, this);
+                stopped.complete(null);
+            }
+        });
+    }
+
+    /**
+     * Stops the step of the call that is not closed yet as broken, and waits until
+     * the step is stopped. Called when the test the step belongs to is stopped.
+     */
+    void finish() {
+        stop(null, null, step -> step
+                .setStatus(Status.BROKEN)
+                .setStatusDetails(new StatusDetails().setMessage(NOT_CLOSED_MESSAGE)));
+        stopped.join();
+    }
+
+    /**
+     * Returns the number of received, captured and dropped messages.
+     *
+     * @return the summary.
+     */
+    String getSummary() {
+        synchronized (lock) {
+            final int dropped = received - captured - skipped;
+            return String.format(
+                    "%d of %d messages captured, %d skipped by sampling, %d over the limits",
+                    captured, received, skipped, dropped
+            );
+        }
+    }
+
+    private Attachment enqueue(final String name, final Object message, final boolean asBinary) {
+        final Attachment attachment = new Attachment().setName(name);
+        if (asBinary) {
+            attachment.setType(GrpcProtobufAttachments.getContentType(message))
+                    .setSource(UUID.randomUUID() + ATTACHMENT_SUFFIX + GrpcProtobufAttachments.FILE_EXTENSION);
+        } else {
+            attachment.setType("application/json")
+                    .setSource(UUID.randomUUID() + ATTACHMENT_SUFFIX + ".json");
+        }
+        pending = pending.thenRunAsync(() -> write(attachment.getSource(), message, asBinary), this::execute);
+        return attachment;
+    }
+
+    private void execute(final Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("gRPC message conversion is rejected by executor, writing in place", e);
+            task.run();
+        }
+    }
+
+    private void write(final String source, final Object message, final boolean asBinary) {
+        try {
+            final byte[] content = asBinary
+                    ? ((MessageLite) message).toByteArray()
+                    : JSON_PRINTER.print((MessageOrBuilder) message).getBytes(StandardCharsets.UTF_8);
+            lifecycle.writeAttachment(source, new ByteArrayInputStream(content));
+        } catch (Exception e) {
+            LOGGER.warn("Can`t write gRPC message {}", source, e);
+        }
+    }
+
+    /**
+     * Message kept for JSON conversion.
+     */
+    private static final class Captured {
+
+        private final String name;
+
+        private final Object message;
+
+        private Captured(final String name, final Object message) {
+            this.name = name;
+            this.message = message;
+        }
+    }
+}
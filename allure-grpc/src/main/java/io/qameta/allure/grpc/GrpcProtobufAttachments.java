@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.reader.AllureResultsReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Binary protobuf attachments, written by gRPC interceptors in binary mode.
+ * Content of such attachment is the serialized message, and its content type
+ * contains the full name of message type, e.g.
+ * {@code application/x-protobuf; messageType=example.Request}.
+ *
+ * <p>Attachments can be converted to JSON offline by {@link #convert(Path, JsonFormat.TypeRegistry, Path)},
+ * which requires allure-reader on the classpath.
+ */
+public final class GrpcProtobufAttachments {
+
+    public static final String CONTENT_TYPE = "application/x-protobuf";
+
+    public static final String FILE_EXTENSION = ".pb";
+
+    private static final String MESSAGE_TYPE_PARAMETER = "; messageType=";
+
+    private GrpcProtobufAttachments() {
+        throw new IllegalStateException("Do not instance");
+    }
+
+    /**
+     * Returns the full name of message type of binary protobuf attachment.
+     *
+     * @param contentType the content type of attachment.
+     * @return the message type, or empty if attachment is not a binary protobuf message.
+     */
+    public static Optional<String> getMessageType(final String contentType) {
+        if (contentType == null || !contentType.startsWith(CONTENT_TYPE)) {
+            return Optional.empty();
+        }
+        final int index = contentType.indexOf(MESSAGE_TYPE_PARAMETER);
+        return index < 0
+                ? Optional.empty()
+                : Optional.of(contentType.substring(index + MESSAGE_TYPE_PARAMETER.length()).trim());
+    }
+
+    /**
+     * Converts content of binary protobuf attachment to JSON.
+     *
+     * @param registry    the registry of message types.
+     * @param contentType the content type of attachment.
+     * @param content     the content of attachment.
+     * @return the JSON representation of message.
+     * @throws InvalidProtocolBufferException if message type is unknown or content could not be parsed.
+     */
+    public static String toJson(final JsonFormat.TypeRegistry registry,
+                                final String contentType,
+                                final byte[] content) throws InvalidProtocolBufferException {
+        final String messageType = getMessageType(contentType).orElseThrow(() ->
+                new InvalidProtocolBufferException("Not a protobuf message attachment: " + contentType)
+        );
+        final Descriptors.Descriptor descriptor = registry.find(messageType);
+        if (descriptor == null) {
+            throw new InvalidProtocolBufferException("Unknown message type " + messageType);
+        }
+        return JsonFormat.printer()
+                .usingTypeRegistry(registry)
+                .print(DynamicMessage.parseFrom(descriptor, content));
+    }
+
+    /**
+     * Converts binary protobuf attachments of all test results and their steps to JSON
+     * files in given output directory. File of attachment {@code uuid-attachment.pb}
+     * is converted to {@code uuid-attachment.json}.
+     *
+     * @param resultsDirectory the allure results directory.
+     * @param registry         the registry of message types.
+     * @param outputDirectory  the directory to write JSON files to.
+     * @return the number of converted attachments.
+     * @throws IOException if results could not be read or JSON files could not be written.
+     */
+    public static long convert(final Path resultsDirectory,
+                               final JsonFormat.TypeRegistry registry,
+                               final Path outputDirectory) throws IOException {
+        final AllureResultsReader reader = new AllureResultsReader(resultsDirectory);
+        Files.createDirectories(outputDirectory);
+        long converted = 0;
+        try (Stream<TestResult> results = reader.readTestResults()) {
+            for (TestResult result : (Iterable<TestResult>) results::iterator) {
+                converted += convertAttachments(
+                        reader, result.getAttachments(), result.getSteps(), registry, outputDirectory
+                );
+            }
+        }
+        return converted;
+    }
+
+    static String getContentType(final Object message) {
+        return message instanceof Message
+                ? CONTENT_TYPE + MESSAGE_TYPE_PARAMETER + ((Message) message).getDescriptorForType().getFullName()
+                : CONTENT_TYPE;
+    }
+
+    private static long convertAttachments(final AllureResultsReader reader,
+                                           final List<Attachment> attachments,
+                                           final List<StepResult> steps,
+                                           final JsonFormat.TypeRegistry registry,
+                                           final Path outputDirectory) throws IOException {
+        long converted = 0;
+        for (Attachment attachment : attachments) {
+            if (!getMessageType(attachment.getType()).isPresent()) {
+                continue;
+            }
+            final byte[] content;
+            try (InputStream stream = reader.openAttachment(attachment)) {
+                content = ByteString.readFrom(stream).toByteArray();
+            }
+            final String source = attachment.getSource();
+            final String name = source.endsWith(FILE_EXTENSION)
+                    ? source.substring(0, source.length() - FILE_EXTENSION.length())
+                    : source;
+            Files.write(
+                    outputDirectory.resolve(name + ".json"),
+                    toJson(registry, attachment.getType(), content).getBytes(StandardCharsets.UTF_8)
+            );
+            converted++;
+        }
+        for (StepResult step : steps) {
+            converted += convertAttachments(reader, step.getAttachments(), step.getSteps(), registry, outputDirectory);
+        }
+        return converted;
+    }
+}
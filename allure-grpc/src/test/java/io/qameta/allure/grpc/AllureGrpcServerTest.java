@@ -0,0 +1,289 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.grpc;
+
+import com.google.protobuf.util.JsonFormat;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.test.AllureResults;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static io.qameta.allure.model.Status.PASSED;
+import static io.qameta.allure.test.RunUtils.runWithinTestContext;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+class AllureGrpcServerTest {
+
+    private static final String RESPONSE_MESSAGE = "Hello world!";
+
+    private static final JsonFormat.TypeRegistry REGISTRY = JsonFormat.TypeRegistry.newBuilder()
+            .add(Api.getDescriptor().getMessageTypes())
+            .build();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void shutdown() {
+        Optional.ofNullable(channel).ifPresent(ManagedChannel::shutdownNow);
+        Optional.ofNullable(server).ifPresent(Server::shutdownNow);
+    }
+
+    @Test
+    void shouldRecordUnaryCall() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer());
+
+        final AllureResults results = runWithinTestContext(
+                () -> stub.calculate(Request.newBuilder().setTopic("1").build())
+        );
+
+        assertThat(results.getTestResults().get(0).getSteps())
+                .extracting(StepResult::getName, StepResult::getStatus)
+                .containsExactly(tuple("Receive gRPC request TestService/Calculate", PASSED));
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getAttachments())
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", "gRPC response", "gRPC response");
+        assertThat(content(results, step.getAttachments().get(0)))
+                .contains("\"topic\": \"1\"");
+        assertThat(content(results, step.getAttachments().get(1)))
+                .contains(RESPONSE_MESSAGE);
+        assertThat(content(results, step.getAttachments().get(2)))
+                .contains("2 of 2 messages captured");
+    }
+
+    @Test
+    void shouldNotChangeCurrentStepOfCallingThread() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer());
+        final List<Optional<String>> current = new ArrayList<>();
+
+        final AllureResults results = runWithinTestContext(() -> {
+            final AllureLifecycle lifecycle = Allure.getLifecycle();
+            current.add(lifecycle.getCurrentTestCaseOrStep());
+            stub.calculate(Request.newBuilder().setTopic("1").build());
+            current.add(lifecycle.getCurrentTestCaseOrStep());
+        });
+
+        assertThat(current)
+                .hasSize(2)
+                .containsOnly(Optional.of(results.getTestResults().get(0).getUuid()));
+        assertThat(results.getTestResults().get(0).getSteps())
+                .extracting(StepResult::getStatus)
+                .containsExactly(PASSED);
+    }
+
+    @Test
+    void shouldStopStepBeforeTestWithDefaultConversionExecutor() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = serve(new AllureGrpcServer());
+
+        final AllureResults results = runWithinTestContext(() -> {
+            final Iterator<Response> responses = stub.calculateServerStream(
+                    Request.newBuilder().setTopic("5").build()
+            );
+            responses.forEachRemaining(response -> assertThat(response.getMessage()).isEqualTo(RESPONSE_MESSAGE));
+        });
+
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getStage()).isEqualTo(Stage.FINISHED);
+        assertThat(step.getStatus()).isEqualTo(PASSED);
+        assertThat(step.getAttachments())
+                .hasSize(7)
+                .allSatisfy(attachment -> assertThat(results.getAttachments()).containsKey(attachment.getSource()));
+    }
+
+    @Test
+    void shouldLimitServerStreamMessages() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(
+                new AllureGrpcServer().setMaxStreamMessages(3)
+        );
+
+        final AllureResults results = runWithinTestContext(() -> {
+            final Iterator<Response> responses = stub.calculateServerStream(
+                    Request.newBuilder().setTopic("5").build()
+            );
+            responses.forEachRemaining(response -> assertThat(response.getMessage()).isEqualTo(RESPONSE_MESSAGE));
+        });
+
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getAttachments())
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", "gRPC response", "gRPC response", "gRPC response");
+        assertThat(content(results, step.getAttachments().get(3)))
+                .contains("3 of 6 messages captured, 0 skipped by sampling, 3 over the limits");
+    }
+
+    @Test
+    void shouldMarkStepFailedOnNonZeroCode() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer());
+
+        final AllureResults results = runWithinTestContext(() -> assertThatExceptionOfType(StatusRuntimeException.class)
+                .isThrownBy(() -> stub.calculate(Request.newBuilder().setTopic("").build())));
+
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getStatus())
+                .isEqualTo(io.qameta.allure.model.Status.FAILED);
+        assertThat(step.getAttachments())
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", Status.Code.INVALID_ARGUMENT.name());
+    }
+
+    @Test
+    void shouldAttachBinaryMessages() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer().binaryMessages(true));
+
+        final AllureResults results = runWithinTestContext(
+                () -> stub.calculate(Request.newBuilder().setTopic("1").build())
+        );
+
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getAttachments())
+                .extracting(Attachment::getName, Attachment::getType)
+                .startsWith(
+                        tuple("gRPC request", "application/x-protobuf; messageType=Request"),
+                        tuple("gRPC response", "application/x-protobuf; messageType=Response")
+                );
+        final byte[] request = results.getAttachments().get(step.getAttachments().get(0).getSource());
+        assertThat(Request.parseFrom(request).getTopic())
+                .isEqualTo("1");
+        assertThat(GrpcProtobufAttachments.toJson(REGISTRY, step.getAttachments().get(0).getType(), request))
+                .contains("\"topic\": \"1\"");
+    }
+
+    @Test
+    void shouldConvertBinaryMessagesToJsonOnFailure() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer().binaryMessages(true));
+
+        final AllureResults results = runWithinTestContext(() -> assertThatExceptionOfType(StatusRuntimeException.class)
+                .isThrownBy(() -> stub.calculate(Request.newBuilder().setTopic("").build())));
+
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getAttachments())
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", "gRPC request (JSON)", Status.Code.INVALID_ARGUMENT.name());
+        assertThat(step.getAttachments().get(1).getType())
+                .isEqualTo("application/json");
+    }
+
+    @Test
+    void shouldConvertBinaryAttachmentsOffline(@TempDir final Path directory) throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer().binaryMessages(true));
+        final Path results = directory.resolve("allure-results");
+        final Path output = directory.resolve("json");
+
+        runWithinTestContext(
+                writer -> new AllureLifecycle(new FileSystemResultsWriter(results)),
+                () -> stub.calculate(Request.newBuilder().setTopic("1").build())
+        );
+
+        assertThat(GrpcProtobufAttachments.convert(results, REGISTRY, output))
+                .isEqualTo(2);
+        try (Stream<Path> files = Files.list(output)) {
+            assertThat(files.map(AllureGrpcServerTest::read))
+                    .anyMatch(json -> json.contains("\"topic\": \"1\""))
+                    .anyMatch(json -> json.contains(RESPONSE_MESSAGE));
+        }
+    }
+
+    @Test
+    void shouldPassThroughCallsOutsideOfTest() throws IOException {
+        final TestServiceGrpc.TestServiceBlockingStub stub = start(new AllureGrpcServer());
+
+        assertThat(stub.calculate(Request.newBuilder().setTopic("1").build()).getMessage())
+                .isEqualTo(RESPONSE_MESSAGE);
+    }
+
+    private TestServiceGrpc.TestServiceBlockingStub start(final AllureGrpcServer interceptor) throws IOException {
+        return serve(interceptor.setConversionExecutor(Runnable::run));
+    }
+
+    private TestServiceGrpc.TestServiceBlockingStub serve(final AllureGrpcServer interceptor) throws IOException {
+        final String name = UUID.randomUUID().toString();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new TestService(), interceptor))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name)
+                .directExecutor()
+                .build();
+        return TestServiceGrpc.newBlockingStub(channel);
+    }
+
+    private static String read(final Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String content(final AllureResults results, final Attachment attachment) {
+        return new String(results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replies with topic number of messages, fails on empty topic.
+     */
+    private static class TestService extends TestServiceGrpc.TestServiceImplBase {
+
+        @Override
+        public void calculate(final Request request, final StreamObserver<Response> responseObserver) {
+            if (request.getTopic().isEmpty()) {
+                responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("empty topic").asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(Response.newBuilder().setMessage(RESPONSE_MESSAGE).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void calculateServerStream(final Request request, final StreamObserver<Response> responseObserver) {
+            final int count = Integer.parseInt(request.getTopic());
+            for (int i = 0; i < count; i++) {
+                responseObserver.onNext(Response.newBuilder().setMessage(RESPONSE_MESSAGE).build());
+            }
+            responseObserver.onCompleted();
+        }
+    }
+}
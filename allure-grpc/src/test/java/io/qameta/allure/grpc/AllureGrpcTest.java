@@ -20,6 +20,7 @@ import io.grpc.ManagedChannelBuilder;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Stage;
 import io.qameta.allure.model.StepResult;
 import io.qameta.allure.test.AllureResults;
 import org.grpcmock.GrpcMock;
@@ -29,9 +30,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import static io.qameta.allure.test.RunUtils.runTests;
 import static io.qameta.allure.test.RunUtils.runWithinTestContext;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -132,6 +138,111 @@ class AllureGrpcTest {
                 .contains(status.getCode().name());
     }
 
+    @Test
+    void shouldAttachEveryStreamMessageInStreamingMode() {
+        blockingStub = TestServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(new AllureGrpc().streamMessages(true).setConversionExecutor(Runnable::run));
+        final Request request = Request.newBuilder()
+                .setTopic("1")
+                .build();
+
+        final AllureResults results = executeStreaming(request);
+
+        final List<Attachment> attachments = results.getTestResults().get(0).getSteps().stream()
+                .flatMap(step -> step.getAttachments().stream())
+                .collect(Collectors.toList());
+        assertThat(attachments)
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", "gRPC response", "gRPC response", "gRPC response");
+        assertThat(attachments.subList(0, 3))
+                .extracting(Attachment::getType)
+                .containsOnly("application/json");
+        assertThat(new String(results.getAttachments().get(attachments.get(1).getSource()), StandardCharsets.UTF_8))
+                .contains(RESPONSE_MESSAGE);
+        assertThat(new String(results.getAttachments().get(attachments.get(3).getSource()), StandardCharsets.UTF_8))
+                .contains("3 of 3 messages captured");
+    }
+
+    @Test
+    void shouldStopStreamingStepBeforeTestWithDefaultConversionExecutor() {
+        blockingStub = TestServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(new AllureGrpc().streamMessages(true));
+        final Request request = Request.newBuilder()
+                .setTopic("1")
+                .build();
+
+        final AllureResults results = executeStreaming(request);
+
+        final StepResult step = results.getTestResults().get(0).getSteps().get(0);
+        assertThat(step.getStage()).isEqualTo(Stage.FINISHED);
+        assertThat(step.getStatus()).isEqualTo(io.qameta.allure.model.Status.PASSED);
+        assertThat(step.getAttachments())
+                .hasSize(4)
+                .allSatisfy(attachment -> assertThat(results.getAttachments()).containsKey(attachment.getSource()));
+    }
+
+    @Test
+    void shouldPassThroughStreamingCallsOutsideOfTest() {
+        blockingStub = TestServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(new AllureGrpc().streamMessages(true));
+        final Request request = Request.newBuilder()
+                .setTopic("1")
+                .build();
+
+        final AllureResults results = runTests(lifecycle -> blockingStub.calculateServerStream(request)
+                .forEachRemaining(response -> assertThat(response.getMessage()).isEqualTo(RESPONSE_MESSAGE)));
+
+        assertThat(results.getTestResults()).isEmpty();
+        assertThat(results.getAttachments()).isEmpty();
+    }
+
+    @Test
+    void shouldLimitAndSampleStreamMessages() {
+        final Request request = Request.newBuilder()
+                .setTopic("1")
+                .build();
+
+        blockingStub = TestServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(new AllureGrpc().streamMessages(true).setMaxStreamMessages(2)
+                        .setConversionExecutor(Runnable::run));
+        final AllureResults limited = executeStreaming(request);
+
+        assertThat(limited.getTestResults().get(0).getSteps())
+                .flatExtracting(StepResult::getAttachments)
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", "gRPC response", "gRPC response");
+
+        blockingStub = TestServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(new AllureGrpc().streamMessages(true).setStreamSampling(2)
+                        .setConversionExecutor(Runnable::run));
+        final AllureResults sampled = executeStreaming(request);
+
+        assertThat(sampled.getTestResults().get(0).getSteps())
+                .flatExtracting(StepResult::getAttachments)
+                .extracting(Attachment::getName)
+                .containsExactly("gRPC request", "gRPC response", "gRPC response");
+        assertThat(sampled.getAttachments().values())
+                .extracting(bytes -> new String(bytes, StandardCharsets.UTF_8))
+                .anyMatch(content -> content.contains("2 of 3 messages captured, 1 skipped by sampling"));
+    }
+
+    @Test
+    void shouldAttachBinaryMessages() throws IOException {
+        blockingStub = TestServiceGrpc.newBlockingStub(channel)
+                .withInterceptors(new AllureGrpc().binaryMessages(true).setConversionExecutor(Runnable::run));
+        final Request request = Request.newBuilder()
+                .setTopic("1")
+                .build();
+
+        final AllureResults results = execute(request);
+
+        final Attachment attachment = results.getTestResults().get(0).getSteps().get(0).getAttachments().get(0);
+        assertThat(attachment.getType())
+                .isEqualTo("application/x-protobuf; messageType=Request");
+        assertThat(Request.parseFrom(results.getAttachments().get(attachment.getSource())))
+                .isEqualTo(request);
+    }
+
     protected final AllureResults execute(final Request request) {
         return runWithinTestContext(() -> {
             try {
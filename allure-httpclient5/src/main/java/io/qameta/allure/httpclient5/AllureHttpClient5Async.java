@@ -0,0 +1,264 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.httpclient5;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import io.qameta.allure.attachment.http.HttpRequestAttachment;
+import io.qameta.allure.attachment.http.HttpResponseAttachment;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Exec chain handler for async clients, that attaches requests and responses to the
+ * current test or step. Register it with
+ * {@code HttpAsyncClients.custom().addExecInterceptorFirst("allure", new AllureHttpClient5Async())}.
+ * <p>
+ * Attachments are linked on the thread that executes the request, while up to
+ * {@link #setBodyLimit(long) given number} of body bytes are recorded as they pass
+ * through the I/O reactor. Attachment content is written once the exchange is finished,
+ * so the bodies are never buffered as a whole. Requests executed outside of test
+ * context are passed through as is.
+ */
+public class AllureHttpClient5Async implements AsyncExecChainHandler {
+
+    public static final long DEFAULT_BODY_LIMIT = 64 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureHttpClient5Async.class);
+
+    private static final String NO_BODY = "No body present";
+
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+
+    private final AttachmentRenderer<AttachmentData> requestRenderer;
+
+    private final AttachmentRenderer<AttachmentData> responseRenderer;
+
+    private long bodyLimit = DEFAULT_BODY_LIMIT;
+
+    public AllureHttpClient5Async() {
+        this("http-request.ftl", "http-response.ftl");
+    }
+
+    public AllureHttpClient5Async(final String requestTemplate, final String responseTemplate) {
+        this(new FreemarkerAttachmentRenderer(requestTemplate), new FreemarkerAttachmentRenderer(responseTemplate));
+    }
+
+    public AllureHttpClient5Async(final AttachmentRenderer<AttachmentData> requestRenderer,
+                                  final AttachmentRenderer<AttachmentData> responseRenderer) {
+        this.requestRenderer = requestRenderer;
+        this.responseRenderer = responseRenderer;
+    }
+
+    /**
+     * Sets the maximum number of request and response body bytes to capture,
+     * the rest of the body is only counted.
+     *
+     * @param limit the maximum number of body bytes to capture.
+     * @return self for method chaining.
+     */
+    public AllureHttpClient5Async setBodyLimit(final long limit) {
+        this.bodyLimit = limit;
+        return this;
+    }
+
+    @Override
+    public void execute(final HttpRequest request,
+                        final AsyncEntityProducer entityProducer,
+                        final AsyncExecChain.Scope scope,
+                        final AsyncExecChain chain,
+                        final AsyncExecCallback asyncExecCallback) throws HttpException, IOException {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        if (!lifecycle.getCurrentTestCaseOrStep().isPresent()) {
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+            return;
+        }
+        final Exchange exchange = new Exchange(lifecycle, request, entityProducer);
+        chain.proceed(
+                request,
+                Objects.isNull(entityProducer)
+                        ? null
+                        : new CapturingAsyncEntityProducer(entityProducer, exchange.requestBody),
+                scope,
+                new CapturingExecCallback(asyncExecCallback, exchange)
+        );
+    }
+
+    /**
+     * State of a single request-response exchange.
+     */
+    private final class Exchange {
+
+        private final AllureLifecycle lifecycle;
+
+        private final String requestSource;
+
+        private final String responseSource;
+
+        private final HttpRequestAttachment.Builder requestBuilder;
+
+        private final HttpResponseAttachment.Builder responseBuilder = HttpResponseAttachment.Builder
+                .create(RESPONSE_ATTACHMENT_NAME);
+
+        private final BoundedBodyCapture requestBody = new BoundedBodyCapture(bodyLimit);
+
+        private final BoundedBodyCapture responseBody = new BoundedBodyCapture(bodyLimit);
+
+        private final EntityDetails requestEntity;
+
+        private final AtomicBoolean requestWritten = new AtomicBoolean();
+
+        private final AtomicBoolean responseWritten = new AtomicBoolean();
+
+        private EntityDetails responseEntity;
+
+        private Exchange(final AllureLifecycle lifecycle,
+                         final HttpRequest request,
+                         final EntityDetails requestEntity) {
+            this.lifecycle = lifecycle;
+            this.requestEntity = requestEntity;
+            final String name = String.format("Request_%s_%s", request.getMethod(), request.getRequestUri());
+            this.requestBuilder = HttpRequestAttachment.Builder.create(name, request.getRequestUri())
+                    .setMethod(request.getMethod());
+            Stream.of(request.getHeaders())
+                    .forEach(header -> requestBuilder.setHeader(header.getName(), header.getValue()));
+            this.requestSource = lifecycle.prepareAttachment(
+                    name, requestRenderer.getContentType(), requestRenderer.getFileExtension()
+            );
+            this.responseSource = lifecycle.prepareAttachment(
+                    RESPONSE_ATTACHMENT_NAME, responseRenderer.getContentType(), responseRenderer.getFileExtension()
+            );
+        }
+
+        private void onResponse(final HttpResponse response, final EntityDetails entity) {
+            responseBuilder.setResponseCode(response.getCode());
+            Stream.of(response.getHeaders())
+                    .forEach(header -> responseBuilder.setHeader(header.getName(), header.getValue()));
+            responseEntity = entity;
+        }
+
+        private void writeRequest() {
+            if (!requestWritten.compareAndSet(false, true)) {
+                return;
+            }
+            if (!requestBody.isEmpty()) {
+                requestBuilder.setBody(AllureHttpEntityUtils.getBody(
+                        requestBody, requestEntity.getContentType(), requestEntity.getContentEncoding()
+                ));
+            }
+            write(requestSource, requestRenderer, requestBuilder.build());
+        }
+
+        private void writeResponse(final Exception cause) {
+            writeRequest();
+            if (!responseWritten.compareAndSet(false, true)) {
+                return;
+            }
+            if (Objects.nonNull(cause)) {
+                responseBuilder.setBody(cause.toString());
+            } else if (Objects.isNull(responseEntity) || responseBody.isEmpty()) {
+                responseBuilder.setBody(NO_BODY);
+            } else {
+                responseBuilder.setBody(AllureHttpEntityUtils.getBody(
+                        responseBody, responseEntity.getContentType(), responseEntity.getContentEncoding()
+                ));
+            }
+            write(responseSource, responseRenderer, responseBuilder.build());
+        }
+
+        private void write(final String source,
+                           final AttachmentRenderer<AttachmentData> renderer,
+                           final AttachmentData data) {
+            try {
+                final AttachmentContent content = renderer.render(data);
+                lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                        content.getContent().getBytes(StandardCharsets.UTF_8)
+                ));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not write attachment {}", data.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Callback that records the response and writes attachments once the exchange is finished.
+     */
+    private static final class CapturingExecCallback implements AsyncExecCallback {
+
+        private final AsyncExecCallback delegate;
+
+        private final Exchange exchange;
+
+        private CapturingExecCallback(final AsyncExecCallback delegate, final Exchange exchange) {
+            this.delegate = delegate;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public AsyncDataConsumer handleResponse(final HttpResponse response,
+                                                final EntityDetails entityDetails)
+                throws HttpException, IOException {
+            exchange.onResponse(response, entityDetails);
+            exchange.writeRequest();
+            final AsyncDataConsumer consumer = delegate.handleResponse(response, entityDetails);
+            if (Objects.isNull(entityDetails) || Objects.isNull(consumer)) {
+                exchange.writeResponse(null);
+                return consumer;
+            }
+            return new CapturingAsyncDataConsumer(
+                    consumer, exchange.responseBody, () -> exchange.writeResponse(null)
+            );
+        }
+
+        @Override
+        public void handleInformationResponse(final HttpResponse response) throws HttpException, IOException {
+            delegate.handleInformationResponse(response);
+        }
+
+        @Override
+        public void completed() {
+            exchange.writeResponse(null);
+            delegate.completed();
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+            exchange.writeResponse(cause);
+            delegate.failed(cause);
+        }
+    }
+}
@@ -15,21 +15,27 @@
  */
 package io.qameta.allure.httpclient5;
 
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
 import io.qameta.allure.attachment.AttachmentData;
 import io.qameta.allure.attachment.AttachmentProcessor;
 import io.qameta.allure.attachment.AttachmentRenderer;
 import io.qameta.allure.attachment.DefaultAttachmentProcessor;
 import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
 import io.qameta.allure.attachment.http.HttpResponseAttachment;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.EntityDetails;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.HttpResponseInterceptor;
 import org.apache.hc.core5.http.io.entity.BufferedHttpEntity;
-import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.stream.Stream;
 
 import static io.qameta.allure.attachment.http.HttpResponseAttachment.Builder.create;
@@ -45,6 +51,8 @@ public class AllureHttpClient5Response implements HttpResponseInterceptor {
     private final AttachmentRenderer<AttachmentData> renderer;
     private final AttachmentProcessor<AttachmentData> processor;
     private static final String NO_BODY = "No body present";
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+    private long responseBodyLimit = -1;
 
     public AllureHttpClient5Response() {
         this("http-response.ftl");
@@ -60,6 +68,22 @@ public class AllureHttpClient5Response implements HttpResponseInterceptor {
         this.processor = processor;
     }
 
+    /**
+     * Enables streaming capture of response bodies. The entity is passed to the caller
+     * as is, up to given number of bytes is recorded while the caller reads it, and
+     * response attachment is written once the content is exhausted or closed, or once
+     * the test is stopped. Negative
+     * limit, that is the default, reads the whole entity into memory before returning
+     * the response.
+     *
+     * @param limit the maximum number of response body bytes to capture.
+     * @return self for method chaining.
+     */
+    public AllureHttpClient5Response setResponseBodyLimit(final long limit) {
+        this.responseBodyLimit = limit;
+        return this;
+    }
+
     /**
      * Processes the HTTP response and adds an attachment to the Allure Attachment processor.
      *
@@ -70,19 +94,23 @@ public class AllureHttpClient5Response implements HttpResponseInterceptor {
      */
     @Override
     public void process(HttpResponse response, EntityDetails entity, HttpContext context) throws IOException {
-        final HttpResponseAttachment.Builder builder = create("Response");
+        final HttpResponseAttachment.Builder builder = create(RESPONSE_ATTACHMENT_NAME);
         builder.setResponseCode(response.getCode());
 
         Stream.of(response.getHeaders()).forEach(header -> builder.setHeader(header.getName(), header.getValue()));
 
-        final HttpEntity originalHttpEntity = (HttpEntity) entity;
-        if (originalHttpEntity != null && !originalHttpEntity.isRepeatable()) {
-            // Looks like a bug or completely new logic. It's not enough to replace chaining EntityDetails entity.
-            // To read the response body twice, It needs to put in the context also
+        final ClassicHttpResponse classicResponse = getClassicResponse(response, context);
+        final HttpEntity originalHttpEntity = entity instanceof HttpEntity ? (HttpEntity) entity : null;
+        if (originalHttpEntity != null && classicResponse != null && responseBodyLimit >= 0) {
+            classicResponse.setEntity(capture(originalHttpEntity, builder));
+            return;
+        }
+
+        if (originalHttpEntity != null && classicResponse != null && !originalHttpEntity.isRepeatable()) {
+            // It's not enough to replace chaining EntityDetails entity.
+            // To read the response body twice, the buffered entity is set to the response itself
             entity = new BufferedHttpEntity(originalHttpEntity);
-            final BasicClassicHttpResponse responseEntity =
-                    (BasicClassicHttpResponse) context.getAttribute("http.response");
-            responseEntity.setEntity((HttpEntity) entity);
+            classicResponse.setEntity((HttpEntity) entity);
 
             final String responseBody = AllureHttpEntityUtils.getBody((HttpEntity) entity);
             if (responseBody == null || responseBody.isEmpty()) {
@@ -97,4 +125,27 @@ public class AllureHttpClient5Response implements HttpResponseInterceptor {
         processor.addAttachment(builder.build(), renderer);
     }
 
+    private HttpEntity capture(final HttpEntity entity, final HttpResponseAttachment.Builder builder) {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        final String source = lifecycle.prepareAttachment(
+                RESPONSE_ATTACHMENT_NAME, renderer.getContentType(), renderer.getFileExtension()
+        );
+        final String testUuid = lifecycle.getCurrentTestCase().orElse(null);
+        return new CapturingHttpEntity(entity, responseBodyLimit, testUuid, body -> {
+            builder.setBody(body.isEmpty() ? NO_BODY : body);
+            final AttachmentContent content = renderer.render(builder.build());
+            lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                    content.getContent().getBytes(StandardCharsets.UTF_8)
+            ));
+        });
+    }
+
+    private static ClassicHttpResponse getClassicResponse(final HttpResponse response, final HttpContext context) {
+        if (response instanceof ClassicHttpResponse) {
+            return (ClassicHttpResponse) response;
+        }
+        final Object attribute = context.getAttribute(HttpCoreContext.HTTP_RESPONSE);
+        return attribute instanceof ClassicHttpResponse ? (ClassicHttpResponse) attribute : null;
+    }
+
 }
@@ -16,15 +16,20 @@
 package io.qameta.allure.httpclient5;
 
 import io.qameta.allure.AllureResultsWriteException;
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -33,6 +38,8 @@ import java.util.zip.GZIPInputStream;
 @SuppressWarnings({"checkstyle:ParameterAssignment", "PMD.AssignmentInOperand"})
 public final class AllureHttpEntityUtils {
 
+    private static final int BUFFER_SIZE = 8192;
+
     private AllureHttpEntityUtils() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
@@ -46,11 +53,10 @@ public final class AllureHttpEntityUtils {
      */
     static String getBody(final HttpEntity httpEntity) {
         try {
-            final String contentEncoding = httpEntity.getContentEncoding();
-            if (contentEncoding != null && contentEncoding.contains("gzip")) {
+            if (isGzip(httpEntity.getContentEncoding())) {
                 return unpackGzipEntityString(httpEntity);
             } else {
-                return EntityUtils.toString(httpEntity, getContentEncoding(httpEntity.getContentEncoding()));
+                return EntityUtils.toString(httpEntity, getCharset(httpEntity.getContentType()));
             }
         } catch (IOException | ParseException e) {
             throw new AllureResultsWriteException("Can't read request message body to String", e);
@@ -58,15 +64,30 @@ public final class AllureHttpEntityUtils {
     }
 
     /**
-     * Retrieves the content encoding of the HTTP entity.
+     * Decodes the captured body. Gzip encoded bodies are unpacked as far as
+     * the captured bytes allow.
      *
-     * @param contentEncoding the content encoding value
-     * @return the charset corresponding to the content encoding, or UTF-8 if the encoding is invalid
+     * @param capture         the captured body
+     * @param contentType     the content type of the body, may be null
+     * @param contentEncoding the content encoding of the body, may be null
+     * @return the captured body with a note about truncated bytes if any
      */
-    static Charset getContentEncoding(final String contentEncoding) {
+    static String getBody(final BoundedBodyCapture capture, final String contentType, final String contentEncoding) {
+        return isGzip(contentEncoding)
+                ? capture.getBody(getCharset(contentType), AllureHttpEntityUtils::unpackGzip)
+                : capture.getBody(getCharset(contentType));
+    }
+
+    /**
+     * Retrieves the charset of the content type.
+     *
+     * @param contentType the content type value, may be null
+     * @return the charset of the content type, or UTF-8 if the charset is not specified or invalid
+     */
+    static Charset getCharset(final String contentType) {
         try {
-            return Charset.forName(contentEncoding);
-        } catch (IllegalArgumentException ignored) {
+            return ContentType.getCharset(ContentType.parseLenient(contentType), StandardCharsets.UTF_8);
+        } catch (UnsupportedCharsetException ignored) {
             return StandardCharsets.UTF_8;
         }
     }
@@ -79,18 +100,46 @@ public final class AllureHttpEntityUtils {
      * @throws IOException if an error occurs while unpacking the entity
      */
     static String unpackGzipEntityString(final HttpEntity entity) throws IOException {
-        final GZIPInputStream gis = new GZIPInputStream(entity.getContent());
-        final Charset contentEncoding = getContentEncoding(entity.getContentEncoding());
-        try (InputStreamReader inputStreamReader = new InputStreamReader(gis, contentEncoding)) {
-            try (BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
-                final StringBuilder outStr = new StringBuilder();
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    outStr.append(line);
-                }
-                return outStr.toString();
+        try (InputStream stream = new GZIPInputStream(entity.getContent())) {
+            return new String(readAll(stream), getCharset(entity.getContentType()));
+        }
+    }
+
+    /**
+     * Unpacks GZIP-encoded bytes. Truncated input is unpacked as far as possible,
+     * input that is not GZIP-encoded is returned as is.
+     *
+     * @param bytes the GZIP-encoded bytes
+     * @return the unpacked bytes
+     */
+    static byte[] unpackGzip(final byte[] bytes) {
+        final ByteArrayOutputStream unpacked = new ByteArrayOutputStream();
+        try (InputStream stream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                unpacked.write(buffer, 0, read);
             }
+        } catch (EOFException e) {
+            return unpacked.toByteArray();
+        } catch (IOException e) {
+            return unpacked.size() == 0 ? bytes : unpacked.toByteArray();
+        }
+        return unpacked.toByteArray();
+    }
+
+    private static boolean isGzip(final String contentEncoding) {
+        return contentEncoding != null && contentEncoding.contains("gzip");
+    }
+
+    private static byte[] readAll(final InputStream stream) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
         }
+        return result.toByteArray();
     }
 
 }
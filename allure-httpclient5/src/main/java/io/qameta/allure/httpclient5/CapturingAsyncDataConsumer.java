@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.httpclient5;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Data consumer that records the consumed bytes before passing them to the delegate,
+ * and runs the callback once the stream is ended, before the delegate completes.
+ */
+class CapturingAsyncDataConsumer implements AsyncDataConsumer {
+
+    private final AsyncDataConsumer delegate;
+
+    private final BoundedBodyCapture capture;
+
+    private final Runnable callback;
+
+    CapturingAsyncDataConsumer(final AsyncDataConsumer delegate,
+                               final BoundedBodyCapture capture,
+                               final Runnable callback) {
+        this.delegate = delegate;
+        this.capture = capture;
+        this.callback = callback;
+    }
+
+    @Override
+    public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+        delegate.updateCapacity(capacityChannel);
+    }
+
+    @Override
+    public void consume(final ByteBuffer src) throws IOException {
+        capture.write(src);
+        delegate.consume(src);
+    }
+
+    @Override
+    public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+        callback.run();
+        delegate.streamEnd(trailers);
+    }
+
+    @Override
+    public void releaseResources() {
+        delegate.releaseResources();
+    }
+}
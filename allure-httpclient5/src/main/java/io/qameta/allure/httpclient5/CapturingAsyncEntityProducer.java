@@ -0,0 +1,129 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.httpclient5;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entity producer that records the bytes written to the channel by the delegate.
+ */
+class CapturingAsyncEntityProducer implements AsyncEntityProducer {
+
+    private final AsyncEntityProducer delegate;
+
+    private final BoundedBodyCapture capture;
+
+    CapturingAsyncEntityProducer(final AsyncEntityProducer delegate, final BoundedBodyCapture capture) {
+        this.delegate = delegate;
+        this.capture = capture;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return delegate.isRepeatable();
+    }
+
+    @Override
+    public void failed(final Exception cause) {
+        delegate.failed(cause);
+    }
+
+    @Override
+    public int available() {
+        return delegate.available();
+    }
+
+    @Override
+    public void produce(final DataStreamChannel channel) throws IOException {
+        delegate.produce(new CapturingDataStreamChannel(channel));
+    }
+
+    @Override
+    public void releaseResources() {
+        delegate.releaseResources();
+    }
+
+    @Override
+    public long getContentLength() {
+        return delegate.getContentLength();
+    }
+
+    @Override
+    public String getContentType() {
+        return delegate.getContentType();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return delegate.getContentEncoding();
+    }
+
+    @Override
+    public boolean isChunked() {
+        return delegate.isChunked();
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return delegate.getTrailerNames();
+    }
+
+    /**
+     * Channel that records the bytes accepted by the underlying channel.
+     */
+    private final class CapturingDataStreamChannel implements DataStreamChannel {
+
+        private final DataStreamChannel channel;
+
+        private CapturingDataStreamChannel(final DataStreamChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void requestOutput() {
+            channel.requestOutput();
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            final ByteBuffer written = src.duplicate();
+            final int count = channel.write(src);
+            if (count > 0) {
+                written.limit(written.position() + count);
+                capture.write(written);
+            }
+            return count;
+        }
+
+        @Override
+        public void endStream() throws IOException {
+            channel.endStream();
+        }
+
+        @Override
+        public void endStream(final List<? extends Header> trailers) throws IOException {
+            channel.endStream(trailers);
+        }
+    }
+}
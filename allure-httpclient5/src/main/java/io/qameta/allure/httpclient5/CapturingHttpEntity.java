@@ -0,0 +1,169 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.httpclient5;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Entity that records up to given number of bytes while the caller reads the content,
+ * and passes them to the callback once the content is exhausted or closed, or once the
+ * test it was received in is stopped, see {@link AllureHttpClient5Listener}. The content
+ * is never buffered as a whole, so streaming responses keep streaming.
+ */
+class CapturingHttpEntity extends HttpEntityWrapper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapturingHttpEntity.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final BoundedBodyCapture capture;
+
+    private final Consumer<String> callback;
+
+    private final String testUuid;
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Creates capturing entity.
+     *
+     * @param delegate the response entity.
+     * @param limit    the maximum number of bytes to capture.
+     * @param testUuid the uuid of test to write attachment when stopped, or null.
+     * @param callback the callback to pass captured body to.
+     */
+    CapturingHttpEntity(final HttpEntity delegate, final long limit,
+                        final String testUuid, final Consumer<String> callback) {
+        super(delegate);
+        this.capture = new BoundedBodyCapture(limit);
+        this.testUuid = testUuid;
+        this.callback = callback;
+        if (Objects.nonNull(testUuid)) {
+            AllureHttpClient5Listener.track(testUuid, this);
+        }
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        final InputStream content = super.getContent();
+        if (Objects.isNull(content)) {
+            finish();
+            return null;
+        }
+        return new CapturingInputStream(content);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.AssignmentInOperand")
+    public void writeTo(final OutputStream output) throws IOException {
+        try (InputStream content = getContent()) {
+            if (Objects.nonNull(content)) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Passes the bytes captured so far to the callback. Only the first call has effect.
+     */
+    void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (Objects.nonNull(testUuid)) {
+            AllureHttpClient5Listener.untrack(testUuid, this);
+        }
+        final String body;
+        synchronized (capture) {
+            body = AllureHttpEntityUtils.getBody(capture, getContentType(), getContentEncoding());
+        }
+        try {
+            callback.accept(body);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not add response attachment", e);
+        }
+    }
+
+    /**
+     * Stream that captures the read bytes.
+     */
+    private final class CapturingInputStream extends FilterInputStream {
+
+        private CapturingInputStream(final InputStream delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int value = super.read();
+            if (value == -1) {
+                finish();
+            } else {
+                synchronized (capture) {
+                    capture.write(value);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            final int read = super.read(bytes, offset, length);
+            if (read == -1) {
+                finish();
+            } else {
+                synchronized (capture) {
+                    capture.write(bytes, offset, read);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finish();
+            }
+        }
+    }
+}
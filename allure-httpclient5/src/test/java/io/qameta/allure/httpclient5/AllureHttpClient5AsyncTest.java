@@ -0,0 +1,213 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.httpclient5;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.test.AllureResults;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.configureFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static io.qameta.allure.test.RunUtils.runWithinTestContext;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("PMD.JUnitTestContainsTooManyAsserts")
+class AllureHttpClient5AsyncTest {
+
+    private static final String BODY_STRING = "Hello world!";
+    private static final String REQUEST_BODY_STRING = "Request body";
+    private static final String HELLO_URL = "http://localhost:%d/hello";
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+    private static final String HELLO_PATH = "/hello";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String HANDLER_NAME = "allure";
+
+    private WireMockServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+        configureFor(server.port());
+
+        stubFor(get(HELLO_PATH).willReturn(
+                aResponse()
+                        .withHeader(CONTENT_TYPE, ContentType.TEXT_PLAIN.toString())
+                        .withBody(BODY_STRING)
+        ));
+        stubFor(post(HELLO_PATH).willReturn(
+                aResponse()
+                        .withStatus(201)
+                        .withHeader(CONTENT_TYPE, ContentType.TEXT_PLAIN.toString())
+                        .withBody(BODY_STRING)
+        ));
+        stubFor(get("/empty").willReturn(
+                aResponse()
+                        .withStatus(204)
+        ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (Objects.nonNull(server)) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void shouldCreateRequestAndResponseAttachments() {
+        final SimpleHttpRequest request = SimpleRequestBuilder.get(String.format(HELLO_URL, server.port()))
+                .build();
+
+        final AllureResults results = execute(new AllureHttpClient5Async(), request);
+
+        assertThat(results.getTestResults())
+                .flatExtracting(TestResult::getAttachments)
+                .extracting(Attachment::getName)
+                .containsExactly("Request_GET_/hello", RESPONSE_ATTACHMENT_NAME);
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Status code 200")
+                .contains(BODY_STRING);
+    }
+
+    @Test
+    void shouldCaptureRequestBody() {
+        final SimpleHttpRequest request = SimpleRequestBuilder.post(String.format(HELLO_URL, server.port()))
+                .setBody(REQUEST_BODY_STRING, ContentType.TEXT_PLAIN)
+                .build();
+
+        final AllureResults results = execute(new AllureHttpClient5Async(), request);
+
+        assertThat(getAttachmentContent(results, "Request_POST_/hello"))
+                .contains("POST")
+                .contains(REQUEST_BODY_STRING);
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Status code 201");
+    }
+
+    @Test
+    void shouldTruncateBodiesOverLimit() {
+        final SimpleHttpRequest request = SimpleRequestBuilder.get(String.format(HELLO_URL, server.port()))
+                .build();
+
+        final AllureResults results = execute(new AllureHttpClient5Async().setBodyLimit(5), request);
+
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Hello")
+                .contains("7 more bytes truncated")
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldCreateResponseAttachmentWithEmptyBody() {
+        final SimpleHttpRequest request = SimpleRequestBuilder
+                .get(String.format("http://localhost:%d/empty", server.port()))
+                .build();
+
+        final AllureResults results = execute(new AllureHttpClient5Async(), request);
+
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Status code 204")
+                .contains("No body present");
+    }
+
+    @Test
+    void shouldCaptureConcurrentRequests() {
+        final int count = 20;
+        final AllureResults results = runWithinTestContext(() -> {
+            try (CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                    .addExecInterceptorFirst(HANDLER_NAME, new AllureHttpClient5Async())
+                    .build()) {
+                client.start();
+                final List<Future<SimpleHttpResponse>> futures = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    futures.add(client.execute(
+                            SimpleRequestBuilder.get(String.format(HELLO_URL, server.port())).build(), null
+                    ));
+                }
+                for (Future<SimpleHttpResponse> future : futures) {
+                    assertThat(future.get(10, TimeUnit.SECONDS).getBodyText()).isEqualTo(BODY_STRING);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not execute requests", e);
+            }
+        });
+
+        final List<Attachment> attachments = results.getTestResults().get(0).getAttachments();
+        assertThat(attachments).hasSize(count * 2);
+        assertThat(attachments)
+                .extracting(Attachment::getSource)
+                .allSatisfy(source -> assertThat(results.getAttachments()).containsKey(source));
+    }
+
+    @Test
+    void shouldPassThroughRequestsOutsideOfTestContext() throws Exception {
+        try (CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .addExecInterceptorFirst(HANDLER_NAME, new AllureHttpClient5Async())
+                .build()) {
+            client.start();
+            final SimpleHttpResponse response = client.execute(
+                    SimpleRequestBuilder.get(String.format(HELLO_URL, server.port())).build(), null
+            ).get(10, TimeUnit.SECONDS);
+            assertThat(response.getBodyText()).isEqualTo(BODY_STRING);
+        }
+    }
+
+    private static AllureResults execute(final AllureHttpClient5Async handler, final SimpleHttpRequest request) {
+        return runWithinTestContext(() -> {
+            try (CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                    .addExecInterceptorFirst(HANDLER_NAME, handler)
+                    .build()) {
+                client.start();
+                client.execute(request, null).get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not execute request " + request, e);
+            }
+        });
+    }
+
+    private static String getAttachmentContent(final AllureResults results, final String name) {
+        final Attachment attachment = results.getTestResults().stream()
+                .flatMap(result -> result.getAttachments().stream())
+                .filter(item -> name.equals(item.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no attachment " + name));
+        assertThat(results.getAttachments())
+                .containsKey(attachment.getSource());
+        return new String(results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
+}
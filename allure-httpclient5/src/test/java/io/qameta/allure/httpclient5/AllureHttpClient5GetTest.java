@@ -19,15 +19,22 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import io.qameta.allure.attachment.AttachmentData;
 import io.qameta.allure.attachment.AttachmentProcessor;
 import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.test.AllureResults;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
@@ -35,6 +42,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.configureFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static io.qameta.allure.test.RunUtils.runWithinTestContext;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.eq;
@@ -52,6 +60,11 @@ class AllureHttpClient5GetTest {
     private static final String HELLO_RESOURCE_PATH = "/hello";
     private static final String HELLO_GET_RETURN_BODY = "http://localhost:%d/hello";
     private static final String HELLO_GET_201_NO_BODY = "http://localhost:%d/empty";
+    private static final String MULTILINE_BODY_STRING = "first line\nsecond line\n";
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BODY_PROPERTY = "body";
+    private static final String STATUS_CODE_200 = "Status code 200";
 
 
     private WireMockServer server;
@@ -64,9 +77,14 @@ class AllureHttpClient5GetTest {
 
         stubFor(get(HELLO_RESOURCE_PATH).willReturn(
                 aResponse()
-                        .withHeader("Content-Type", "application/json")
+                        .withHeader(CONTENT_TYPE, "application/json")
                         .withBody(BODY_STRING)
         ));
+        stubFor(get("/lines").willReturn(
+                aResponse()
+                        .withHeader(CONTENT_TYPE, "text/plain; charset=UTF-8")
+                        .withBody(MULTILINE_BODY_STRING)
+        ));
         stubFor(get("/empty").willReturn(
                 aResponse()
                         .withStatus(200))
@@ -170,7 +188,119 @@ class AllureHttpClient5GetTest {
 
         assertThat(captor.getAllValues())
                 .hasSize(1)
-                .extracting("body")
+                .extracting(BODY_PROPERTY)
                 .containsExactly("No body present");
     }
+
+    @Test
+    void shouldKeepLineBreaksOfGzipResponseBody() throws Exception {
+        final AttachmentRenderer<AttachmentData> renderer = mock(AttachmentRenderer.class);
+        final AttachmentProcessor<AttachmentData> processor = mock(AttachmentProcessor.class);
+
+        final HttpClientBuilder builder = HttpClientBuilder.create()
+                .addResponseInterceptorLast(new AllureHttpClient5Response(renderer, processor));
+
+        try (CloseableHttpClient httpClient = builder.build()) {
+            final HttpGet httpGet = new HttpGet(String.format("http://localhost:%d/lines", server.port()));
+            httpClient.execute(httpGet, response -> {
+                assertThat(EntityUtils.toString(response.getEntity())).isEqualTo(MULTILINE_BODY_STRING);
+                return response;
+            });
+        }
+
+        final ArgumentCaptor<AttachmentData> captor = ArgumentCaptor.forClass(AttachmentData.class);
+        verify(processor, times(1))
+                .addAttachment(captor.capture(), eq(renderer));
+
+        assertThat(captor.getAllValues())
+                .extracting(BODY_PROPERTY)
+                .containsExactly(MULTILINE_BODY_STRING);
+    }
+
+    @Test
+    void shouldCaptureStreamingGzipResponseBody() {
+        final AllureResults results = executeWithinTestContext(
+                HttpClientBuilder.create(),
+                new AllureHttpClient5Response().setResponseBodyLimit(1024),
+                response -> assertThat(EntityUtils.toString(response.getEntity())).isEqualTo(BODY_STRING)
+        );
+
+        assertThat(getAttachmentContent(results))
+                .contains("Content-Encoding: gzip")
+                .contains(BODY_STRING)
+                .doesNotContain("truncated");
+    }
+
+    @Test
+    void shouldCaptureStreamingResponseBodyUpToLimit() {
+        final AllureResults results = executeWithinTestContext(
+                HttpClientBuilder.create().disableContentCompression(),
+                new AllureHttpClient5Response().setResponseBodyLimit(5),
+                response -> assertThat(EntityUtils.toString(response.getEntity())).isEqualTo(BODY_STRING)
+        );
+
+        assertThat(getAttachmentContent(results))
+                .contains(STATUS_CODE_200)
+                .contains("Hello")
+                .contains("7 more bytes truncated")
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldWriteStreamingResponseAttachmentWhenEntityIsNotRead() {
+        final AllureResults results = executeWithinTestContext(
+                HttpClientBuilder.create(),
+                new AllureHttpClient5Response().setResponseBodyLimit(1024),
+                response -> assertThat(response.getCode()).isEqualTo(200)
+        );
+
+        assertThat(getAttachmentContent(results))
+                .contains(STATUS_CODE_200)
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldWriteStreamingResponseAttachmentWhenResponseIsNotClosedBeforeTestStop() throws IOException {
+        try (CloseableHttpClient httpClient = HttpClientBuilder.create()
+                .addResponseInterceptorLast(new AllureHttpClient5Response().setResponseBodyLimit(1024))
+                .build()) {
+            final AllureResults results = runWithinTestContext(() -> {
+                try {
+                    final ClassicHttpResponse response = httpClient.executeOpen(
+                            null, new HttpGet(String.format(HELLO_GET_RETURN_BODY, server.port())), null
+                    );
+                    assertThat(response.getCode()).isEqualTo(200);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            assertThat(getAttachmentContent(results))
+                    .contains(STATUS_CODE_200)
+                    .doesNotContain(BODY_STRING);
+        }
+    }
+
+    private AllureResults executeWithinTestContext(final HttpClientBuilder builder,
+                                                   final AllureHttpClient5Response interceptor,
+                                                   final HttpClientResponseHandler<?> handler) {
+        builder.addResponseInterceptorLast(interceptor);
+
+        return runWithinTestContext(() -> {
+            try (CloseableHttpClient httpClient = builder.build()) {
+                httpClient.execute(new HttpGet(String.format(HELLO_GET_RETURN_BODY, server.port())), handler);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static String getAttachmentContent(final AllureResults results) {
+        final Attachment attachment = results.getTestResults().stream()
+                .flatMap(result -> result.getAttachments().stream())
+                .filter(item -> RESPONSE_ATTACHMENT_NAME.equals(item.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no response attachment"));
+        return new String(results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
 }
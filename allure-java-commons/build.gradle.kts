@@ -9,6 +9,8 @@ dependencies {
     api(project(":allure-model"))
     compileOnly("org.aspectj:aspectjrt")
     internal("com.fasterxml.jackson.core:jackson-databind")
+    internal("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+    internal("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
     testImplementation("io.github.benas:random-beans")
     testImplementation("io.github.glytching:junit-extensions")
     testImplementation("org.apache.commons:commons-lang3")
@@ -19,6 +21,7 @@ dependencies {
     testImplementation("org.slf4j:slf4j-simple")
     testImplementation(project(":allure-java-commons-test"))
     testImplementation(project(":allure-junit-platform"))
+    testImplementation(project(":allure-reader"))
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
 }
 
@@ -44,6 +47,7 @@ tasks {
         relocate("com.fasterxml.jackson", "io.qameta.allure.internal.shadowed.jackson")
         dependencies {
             include(dependency("com.fasterxml.jackson.core::"))
+            include(dependency("com.fasterxml.jackson.dataformat::"))
         }
         exclude("**/module-info.class")
         exclude("META-INF/LICENSE*.md")
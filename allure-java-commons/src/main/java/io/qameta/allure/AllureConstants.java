@@ -30,6 +30,14 @@ public final class AllureConstants {
 
     public static final String TEST_RESULT_CONTAINER_FILE_GLOB = "*-container.json";
 
+    public static final String TEST_RESULT_SMILE_FILE_SUFFIX = "-result.smile";
+
+    public static final String TEST_RESULT_CONTAINER_SMILE_FILE_SUFFIX = "-container.smile";
+
+    public static final String TEST_RESULT_CBOR_FILE_SUFFIX = "-result.cbor";
+
+    public static final String TEST_RESULT_CONTAINER_CBOR_FILE_SUFFIX = "-container.cbor";
+
     public static final String ATTACHMENT_FILE_SUFFIX = "-attachment";
 
     public static final String ATTACHMENT_FILE_GLOB = "*-attachment*";
@@ -15,6 +15,8 @@
  */
 package io.qameta.allure;
 
+import io.qameta.allure.internal.AllureStepBudget;
+import io.qameta.allure.internal.AllureStepSpill;
 import io.qameta.allure.internal.AllureStorage;
 import io.qameta.allure.internal.AllureThreadContext;
 import io.qameta.allure.listener.ContainerLifecycleListener;
@@ -62,6 +64,10 @@ public class AllureLifecycle {
 
     private final LifecycleNotifier notifier;
 
+    private final AllureStepBudget stepBudget;
+
+    private final AllureStepSpill stepSpill;
+
     /**
      * Creates a new lifecycle with default results writer. Shortcut
      * for {@link #AllureLifecycle(AllureResultsWriter)}
@@ -86,10 +92,25 @@ public class AllureLifecycle {
      * @param writer the results writer.
      */
     AllureLifecycle(final AllureResultsWriter writer, final LifecycleNotifier lifecycleNotifier) {
+        this(writer, lifecycleNotifier, PropertiesUtils.loadAllureProperties());
+    }
+
+    /**
+     * Creates a new lifecycle instance with specified {@link AllureResultsWriter},
+     * {@link LifecycleNotifier} and steps storage configuration.
+     *
+     * @param writer            the results writer.
+     * @param lifecycleNotifier the lifecycle notifier.
+     * @param properties        the properties to configure steps limit and spilling.
+     */
+    AllureLifecycle(final AllureResultsWriter writer, final LifecycleNotifier lifecycleNotifier,
+                    final Properties properties) {
         this.notifier = lifecycleNotifier;
         this.writer = writer;
         this.storage = new AllureStorage();
         this.threadContext = new AllureThreadContext();
+        this.stepBudget = AllureStepBudget.fromProperties(properties);
+        this.stepSpill = AllureStepSpill.fromProperties(properties);
     }
 
     /**
@@ -276,6 +297,7 @@ public class AllureLifecycle {
         fixture.setStop(System.currentTimeMillis());
 
         storage.remove(uuid);
+        stepBudget.release(uuid);
         threadContext.clear();
 
         notifier.afterFixtureStop(fixture);
@@ -439,9 +461,19 @@ public class AllureLifecycle {
 
         final TestResult testResult = found.get();
         notifier.beforeTestWrite(testResult);
-        writer.write(testResult);
-        storage.remove(uuid);
-        notifier.afterTestWrite(testResult);
+        try {
+            writer.write(testResult);
+        } catch (RuntimeException e) {
+            stepSpill.restore(testResult);
+            throw e;
+        }
+        try {
+            storage.remove(uuid);
+            stepBudget.release(uuid);
+            notifier.afterTestWrite(testResult);
+        } finally {
+            stepSpill.release(testResult);
+        }
     }
 
     /**
@@ -469,23 +501,46 @@ public class AllureLifecycle {
      * @param result     the step.
      */
     public void startStep(final String parentUuid, final String uuid, final StepResult result) {
+        startStep(parentUuid, uuid, result, true);
+    }
+
+    private void startStep(final String parentUuid, final String uuid, final StepResult result,
+                           final boolean attached) {
         notifier.beforeStepStart(result);
 
         result.setStage(Stage.RUNNING);
         result.setStart(System.currentTimeMillis());
 
-        threadContext.start(uuid);
+        if (attached) {
+            threadContext.start(uuid);
+        }
 
         storage.put(uuid, result);
         storage.get(parentUuid, WithSteps.class).ifPresent(parentStep -> {
             synchronized (storage) {
+                stepSpill.start(parentUuid, uuid, parentStep);
                 parentStep.getSteps().add(result);
             }
+            stepBudget.start(parentUuid, uuid, parentStep);
         });
 
         notifier.afterStepStart(result);
     }
 
+    /**
+     * Start a new step as child of specified parent, same as {@link #startStep(String, String, StepResult)},
+     * but does not make it current step of the calling thread. Such step can be started, updated and
+     * stopped by different threads, e.g. by callbacks of asynchronous clients, and should be stopped
+     * by {@link #stopDetachedStep(String)}.
+     *
+     * @param parentUuid the uuid of parent test case or step.
+     * @param uuid       the uuid of step.
+     * @param result     the step.
+     */
+    public void startDetachedStep(final String parentUuid, final String uuid, final StepResult result) {
+        startStep(parentUuid, uuid, result, false);
+    }
+
     /**
      * Updates current step. Shortcut for {@link #updateStep(String, Consumer)}.
      *
@@ -542,6 +597,10 @@ public class AllureLifecycle {
      * @param uuid the uuid of step to stop.
      */
     public void stopStep(final String uuid) {
+        stopStep(uuid, true);
+    }
+
+    private void stopStep(final String uuid, final boolean attached) {
         final Optional<StepResult> found = storage.getStep(uuid);
         if (!found.isPresent()) {
             LOGGER.error("Could not stop step: step with uuid {} not found", uuid);
@@ -554,12 +613,30 @@ public class AllureLifecycle {
         step.setStage(Stage.FINISHED);
         step.setStop(System.currentTimeMillis());
 
+        if (stepBudget.isEnabled()) {
+            synchronized (storage) {
+                stepBudget.stop(uuid, step);
+            }
+        }
+        stepSpill.stop(uuid);
         storage.remove(uuid);
-        threadContext.stop();
+        if (attached) {
+            threadContext.stop();
+        }
 
         notifier.afterStepStop(step);
     }
 
+    /**
+     * Stops step started by {@link #startDetachedStep(String, String, StepResult)}. Unlike
+     * {@link #stopStep(String)} does not change current step of the calling thread.
+     *
+     * @param uuid the uuid of step to stop.
+     */
+    public void stopDetachedStep(final String uuid) {
+        stopStep(uuid, false);
+    }
+
     /**
      * Adds attachment into current test or step if any exists. Shortcut
      * for {@link #addAttachment(String, String, String, InputStream)}
@@ -596,27 +673,42 @@ public class AllureLifecycle {
      * @param fileExtension the attachment file extension
      * @return the source of added attachment
      */
-    @SuppressWarnings({"PMD.NullAssignment", "PMD.UseObjectForClearerAPI"})
+    @SuppressWarnings("PMD.UseObjectForClearerAPI")
     public String prepareAttachment(final String name, final String type, final String fileExtension) {
-        final String extension = Optional.ofNullable(fileExtension)
-                .filter(ext -> !ext.isEmpty())
-                .map(ext -> ext.charAt(0) == '.' ? ext : "." + ext)
-                .orElse("");
-        final String source = UUID.randomUUID() + ATTACHMENT_FILE_SUFFIX + extension;
-
         final Optional<String> current = threadContext.getCurrent();
         if (!current.isPresent()) {
             LOGGER.error("Could not add attachment: no test is running");
             //backward compatibility: return source even if no attachment is going to be written.
-            return source;
+            return createAttachmentSource(fileExtension);
         }
+        return prepareAttachment(current.get(), name, type, fileExtension);
+    }
+
+    /**
+     * Adds attachment to test case, fixture or step with given uuid, and returns source.
+     * Unlike {@link #prepareAttachment(String, String, String)} does not depend on the
+     * current thread, so can be used from callbacks of asynchronous clients. In order
+     * to store attachment content use {@link #writeAttachment(String, InputStream)} method.
+     *
+     * @param uuid          the uuid of test case, fixture or step
+     * @param name          the name of attachment
+     * @param type          the content type of attachment
+     * @param fileExtension the attachment file extension
+     * @return the source of added attachment
+     */
+    @SuppressWarnings({"PMD.NullAssignment", "PMD.UseObjectForClearerAPI"})
+    public String prepareAttachment(final String uuid, final String name,
+                                    final String type, final String fileExtension) {
         final Attachment attachment = new Attachment()
                 .setName(isEmpty(name) ? null : name)
                 .setType(isEmpty(type) ? null : type)
-                .setSource(source);
+                .setSource(createAttachmentSource(fileExtension));
 
-        final String uuid = current.get();
-        storage.get(uuid, WithAttachments.class).ifPresent(withAttachments -> {
+        final Optional<WithAttachments> found = storage.get(uuid, WithAttachments.class);
+        if (!found.isPresent()) {
+            LOGGER.error("Could not add attachment: test case, fixture or step with uuid {} not found", uuid);
+        }
+        found.ifPresent(withAttachments -> {
             synchronized (storage) {
                 withAttachments.getAttachments().add(attachment);
             }
@@ -641,7 +733,16 @@ public class AllureLifecycle {
     private static FileSystemResultsWriter getDefaultWriter() {
         final Properties properties = PropertiesUtils.loadAllureProperties();
         final String path = properties.getProperty("allure.results.directory", "allure-results");
-        return new FileSystemResultsWriter(Paths.get(path));
+        final AllureResultsFormat format = AllureResultsFormat.fromName(
+                properties.getProperty(AllureResultsFormat.FORMAT_PROPERTY_NAME)
+        );
+        final AllureResultsLayout layout = AllureResultsLayout.fromName(
+                properties.getProperty(AllureResultsLayout.LAYOUT_PROPERTY_NAME)
+        );
+        final boolean atomic = Boolean.parseBoolean(
+                properties.getProperty(FileSystemResultsWriter.ATOMIC_PROPERTY_NAME)
+        );
+        return new FileSystemResultsWriter(Paths.get(path), format, layout, atomic);
     }
 
     private static LifecycleNotifier getDefaultNotifier() {
@@ -653,4 +754,12 @@ public class AllureLifecycle {
                 load(StepLifecycleListener.class, classLoader)
         );
     }
+
+    private static String createAttachmentSource(final String fileExtension) {
+        final String extension = Optional.ofNullable(fileExtension)
+                .filter(ext -> !ext.isEmpty())
+                .map(ext -> ext.charAt(0) == '.' ? ext : "." + ext)
+                .orElse("");
+        return UUID.randomUUID() + ATTACHMENT_FILE_SUFFIX + extension;
+    }
 }
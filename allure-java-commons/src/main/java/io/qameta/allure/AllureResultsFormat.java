@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Encoding of test results and containers written by {@link FileSystemResultsWriter}.
+ * Binary formats are readable by allure-reader only.
+ */
+public enum AllureResultsFormat {
+
+    JSON(AllureConstants.TEST_RESULT_FILE_SUFFIX, AllureConstants.TEST_RESULT_CONTAINER_FILE_SUFFIX),
+    SMILE(AllureConstants.TEST_RESULT_SMILE_FILE_SUFFIX, AllureConstants.TEST_RESULT_CONTAINER_SMILE_FILE_SUFFIX),
+    CBOR(AllureConstants.TEST_RESULT_CBOR_FILE_SUFFIX, AllureConstants.TEST_RESULT_CONTAINER_CBOR_FILE_SUFFIX);
+
+    public static final String FORMAT_PROPERTY_NAME = "allure.results.format";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureResultsFormat.class);
+
+    private final String testResultSuffix;
+
+    private final String testResultContainerSuffix;
+
+    AllureResultsFormat(final String testResultSuffix, final String testResultContainerSuffix) {
+        this.testResultSuffix = testResultSuffix;
+        this.testResultContainerSuffix = testResultContainerSuffix;
+    }
+
+    public String getTestResultSuffix() {
+        return testResultSuffix;
+    }
+
+    public String getTestResultContainerSuffix() {
+        return testResultContainerSuffix;
+    }
+
+    /**
+     * Returns format by its name ignoring case. Returns {@link #JSON} for empty
+     * names, and for unknown names with a warning.
+     *
+     * @param name the name of format.
+     * @return the format.
+     */
+    public static AllureResultsFormat fromName(final String name) {
+        if (Objects.isNull(name)) {
+            return JSON;
+        }
+        final String trimmed = name.trim().toUpperCase(Locale.ENGLISH);
+        for (AllureResultsFormat format : values()) {
+            if (format.name().equals(trimmed)) {
+                return format;
+            }
+        }
+        if (!trimmed.isEmpty()) {
+            LOGGER.warn("Unknown value of {} property: {}, expected one of {}, using {}",
+                    FORMAT_PROPERTY_NAME, name, Arrays.toString(values()), JSON);
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure;
+
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Layout of files written by {@link FileSystemResultsWriter}. The sharded layout
+ * distributes files over two levels of two hex characters directories derived from
+ * the file name, e.g. {@code 3f/a2/3fa2...-result.json}, and is readable by
+ * allure-reader only. Attachment sources stay plain file names in both layouts.
+ */
+public enum AllureResultsLayout {
+
+    FLAT,
+    SHARDED;
+
+    public static final String LAYOUT_PROPERTY_NAME = "allure.results.layout";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureResultsLayout.class);
+
+    private static final int SHARD_LENGTH = 2;
+
+    /**
+     * Returns directory to write file with given name to.
+     *
+     * @param root the results directory.
+     * @param name the name of file.
+     * @return the directory for file.
+     */
+    public Path getDirectory(final Path root, final String name) {
+        if (this == FLAT) {
+            return root;
+        }
+        final String prefix = shardPrefix(name);
+        return root.resolve(prefix.substring(0, SHARD_LENGTH))
+                .resolve(prefix.substring(SHARD_LENGTH));
+    }
+
+    /**
+     * Returns layout by its name ignoring case. Returns {@link #FLAT} for empty
+     * names, and for unknown names with a warning.
+     *
+     * @param name the name of layout.
+     * @return the layout.
+     */
+    public static AllureResultsLayout fromName(final String name) {
+        if (Objects.isNull(name)) {
+            return FLAT;
+        }
+        final String trimmed = name.trim().toUpperCase(Locale.ENGLISH);
+        for (AllureResultsLayout layout : values()) {
+            if (layout.name().equals(trimmed)) {
+                return layout;
+            }
+        }
+        if (!trimmed.isEmpty()) {
+            LOGGER.warn("Unknown value of {} property: {}, expected one of {}, using {}",
+                    LAYOUT_PROPERTY_NAME, name, Arrays.toString(values()), FLAT);
+        }
+        return FLAT;
+    }
+
+    /**
+     * Uses first four characters of names starting with uuid, and hash of name otherwise.
+     */
+    private static String shardPrefix(final String name) {
+        final int length = SHARD_LENGTH * 2;
+        if (name.length() >= length) {
+            final String prefix = name.substring(0, length).toLowerCase(Locale.ENGLISH);
+            if (isHex(prefix)) {
+                return prefix;
+            }
+        }
+        return String.format("%04x", name.hashCode() & 0xFFFF);
+    }
+
+    private static boolean isHex(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -17,6 +17,7 @@ package io.qameta.allure;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.qameta.allure.internal.Allure2ModelJackson;
+import io.qameta.allure.internal.AllureResultsCommitter;
 import io.qameta.allure.model.TestResult;
 import io.qameta.allure.model.TestResultContainer;
 
@@ -25,31 +26,75 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author charlie (Dmitry Baev).
  */
 public class FileSystemResultsWriter implements AllureResultsWriter {
 
+    public static final String ATOMIC_PROPERTY_NAME = "allure.results.atomic";
+
     private final Path outputDirectory;
 
+    private final AllureResultsFormat format;
+
+    private final AllureResultsLayout layout;
+
     private final ObjectMapper mapper;
 
+    private final AllureResultsCommitter committer;
+
+    private final Set<Path> shardDirectories = ConcurrentHashMap.newKeySet();
+
     public FileSystemResultsWriter(final Path outputDirectory) {
+        this(outputDirectory, AllureResultsFormat.JSON);
+    }
+
+    public FileSystemResultsWriter(final Path outputDirectory, final AllureResultsFormat format) {
+        this(outputDirectory, format, AllureResultsLayout.FLAT);
+    }
+
+    public FileSystemResultsWriter(final Path outputDirectory,
+                                   final AllureResultsFormat format,
+                                   final AllureResultsLayout layout) {
+        this(outputDirectory, format, layout, false);
+    }
+
+    /**
+     * Creates a new writer. In atomic mode files are written to hidden temporary files
+     * first, and moved to results directory in batches by a background thread, that
+     * syncs the files and the directory once per batch. So report generator never
+     * sees half-written files. Use {@link #flush()} to wait for pending files.
+     * Files that could not be synced or moved are reported by the next write
+     * or flush with {@link AllureResultsWriteException}. Writers of the same results
+     * directory share the background thread.
+     *
+     * @param outputDirectory the results directory.
+     * @param format          the format of test results and containers.
+     * @param layout          the layout of results directory.
+     * @param atomic          true to enable atomic mode.
+     */
+    public FileSystemResultsWriter(final Path outputDirectory,
+                                   final AllureResultsFormat format,
+                                   final AllureResultsLayout layout,
+                                   final boolean atomic) {
         this.outputDirectory = outputDirectory;
-        this.mapper = Allure2ModelJackson.createMapper();
+        this.format = format;
+        this.layout = layout;
+        this.mapper = Allure2ModelJackson.createMapper(format);
+        this.committer = atomic ? AllureResultsCommitter.forDirectory(outputDirectory) : null;
     }
 
     @Override
     public void write(final TestResult testResult) {
-        final String testResultName = Objects.isNull(testResult.getUuid())
-                ? generateTestResultName()
-                : generateTestResultName(testResult.getUuid());
-        createDirectories(outputDirectory);
-        final Path file = outputDirectory.resolve(testResultName);
+        final String testResultName = (Objects.isNull(testResult.getUuid())
+                ? UUID.randomUUID().toString()
+                : testResult.getUuid()) + format.getTestResultSuffix();
         try {
-            mapper.writeValue(file.toFile(), testResult);
+            writeFile(testResultName, file -> mapper.writeValue(file.toFile(), testResult));
         } catch (IOException e) {
             throw new AllureResultsWriteException("Could not write Allure test result", e);
         }
@@ -57,13 +102,11 @@ public class FileSystemResultsWriter implements AllureResultsWriter {
 
     @Override
     public void write(final TestResultContainer testResultContainer) {
-        final String testResultContainerName = Objects.isNull(testResultContainer.getUuid())
-                ? generateTestResultContainerName()
-                : generateTestResultContainerName(testResultContainer.getUuid());
-        createDirectories(outputDirectory);
-        final Path file = outputDirectory.resolve(testResultContainerName);
+        final String testResultContainerName = (Objects.isNull(testResultContainer.getUuid())
+                ? UUID.randomUUID().toString()
+                : testResultContainer.getUuid()) + format.getTestResultContainerSuffix();
         try {
-            mapper.writeValue(file.toFile(), testResultContainer);
+            writeFile(testResultContainerName, file -> mapper.writeValue(file.toFile(), testResultContainer));
         } catch (IOException e) {
             throw new AllureResultsWriteException("Could not write Allure test result container", e);
         }
@@ -71,15 +114,56 @@ public class FileSystemResultsWriter implements AllureResultsWriter {
 
     @Override
     public void write(final String source, final InputStream attachment) {
-        createDirectories(outputDirectory);
-        final Path file = outputDirectory.resolve(source);
         try (InputStream is = attachment) {
-            Files.copy(is, file);
+            writeFile(source, file -> Files.copy(is, file));
         } catch (IOException e) {
             throw new AllureResultsWriteException("Could not write Allure attachment", e);
         }
     }
 
+    /**
+     * Waits until all the files written in atomic mode are moved to results directory.
+     * Does nothing if atomic mode is disabled.
+     *
+     * @throws InterruptedException        if interrupted while waiting.
+     * @throws AllureResultsWriteException if some files could not be moved to results directory.
+     */
+    public void flush() throws InterruptedException {
+        if (Objects.nonNull(committer)) {
+            committer.flush();
+        }
+    }
+
+    private void writeFile(final String name, final FileContent content) throws IOException {
+        final Path file = resolve(name);
+        if (Objects.isNull(committer)) {
+            content.writeTo(file);
+            return;
+        }
+        committer.checkFailures();
+        final Path temp = file.resolveSibling("." + name + ".tmp");
+        try {
+            content.writeTo(temp);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        committer.commit(temp, file);
+    }
+
+    private Path resolve(final String name) {
+        if (layout == AllureResultsLayout.FLAT) {
+            createDirectories(outputDirectory);
+            return outputDirectory.resolve(name);
+        }
+        final Path directory = layout.getDirectory(outputDirectory, name);
+        if (!shardDirectories.contains(directory)) {
+            createDirectories(directory);
+            shardDirectories.add(directory);
+        }
+        return directory.resolve(name);
+    }
+
     private void createDirectories(final Path directory) {
         try {
             Files.createDirectories(directory);
@@ -103,4 +187,14 @@ public class FileSystemResultsWriter implements AllureResultsWriter {
     protected static String generateTestResultContainerName(final String uuid) {
         return uuid + AllureConstants.TEST_RESULT_CONTAINER_FILE_SUFFIX;
     }
+
+    /**
+     * Writes content of results file.
+     */
+    @FunctionalInterface
+    private interface FileContent {
+
+        void writeTo(Path file) throws IOException;
+
+    }
 }
@@ -18,9 +18,14 @@ package io.qameta.allure.internal;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.qameta.allure.AllureResultsFormat;
 import io.qameta.allure.model.Parameter;
 import io.qameta.allure.model.Stage;
 import io.qameta.allure.model.Status;
@@ -47,17 +52,37 @@ public final class Allure2ModelJackson {
     }
 
     public static ObjectMapper createMapper() {
-        return JsonMapper
+        return createMapper(JsonMapper
                 .builder()
+                .configure(INDENT_OUTPUT, Boolean.getBoolean(INDENT_OUTPUT_PROPERTY_NAME))
+        );
+    }
+
+    public static ObjectMapper createMapper(final AllureResultsFormat format) {
+        switch (format) {
+            case SMILE:
+                return createMapper(SmileMapper.builder());
+            case CBOR:
+                return createMapper(CBORMapper
+                        .builder()
+                        .enable(CBORGenerator.Feature.WRITE_TYPE_HEADER)
+                );
+            default:
+                return createMapper();
+        }
+    }
+
+    private static ObjectMapper createMapper(final MapperBuilder<?, ?> builder) {
+        return builder
                 .configure(USE_WRAPPER_NAME_AS_PROPERTY_NAME, true)
                 .serializationInclusion(NON_NULL)
-                .configure(INDENT_OUTPUT, Boolean.getBoolean(INDENT_OUTPUT_PROPERTY_NAME))
                 .build()
                 .registerModule(new SimpleModule()
                         .addSerializer(Status.class, new StatusSerializer())
                         .addSerializer(Stage.class, new StageSerializer())
                         .addSerializer(Parameter.Mode.class, new ParameterModeSerializer())
-                );
+                )
+                .registerModule(Allure2ModelSerializers.module());
     }
 
     /**
@@ -0,0 +1,502 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.ExecutableItem;
+import io.qameta.allure.model.FixtureResult;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Link;
+import io.qameta.allure.model.Parameter;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StatusDetails;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import io.qameta.allure.model.WithStatusDetails;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Streaming serializers for Allure model. Serializers write fields in the same order
+ * and with the same inclusion rules as bean serialization configured
+ * in {@link Allure2ModelJackson#createMapper()}, but without reflection and
+ * with precomputed field names.
+ */
+@SuppressWarnings("PMD.ClassNamingConventions")
+public final class Allure2ModelSerializers {
+
+    private static final SerializableString UUID = new SerializedString("uuid");
+    private static final SerializableString HISTORY_ID = new SerializedString("historyId");
+    private static final SerializableString TEST_CASE_ID = new SerializedString("testCaseId");
+    private static final SerializableString TEST_CASE_NAME = new SerializedString("testCaseName");
+    private static final SerializableString FULL_NAME = new SerializedString("fullName");
+    private static final SerializableString LABELS = new SerializedString("labels");
+    private static final SerializableString LINKS = new SerializedString("links");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString STATUS_DETAILS = new SerializedString("statusDetails");
+    private static final SerializableString STAGE = new SerializedString("stage");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString DESCRIPTION_HTML = new SerializedString("descriptionHtml");
+    private static final SerializableString STEPS = new SerializedString("steps");
+    private static final SerializableString ATTACHMENTS = new SerializedString("attachments");
+    private static final SerializableString PARAMETERS = new SerializedString("parameters");
+    private static final SerializableString START = new SerializedString("start");
+    private static final SerializableString STOP = new SerializedString("stop");
+    private static final SerializableString CHILDREN = new SerializedString("children");
+    private static final SerializableString BEFORES = new SerializedString("befores");
+    private static final SerializableString AFTERS = new SerializedString("afters");
+    private static final SerializableString VALUE = new SerializedString("value");
+    private static final SerializableString EXCLUDED = new SerializedString("excluded");
+    private static final SerializableString MODE = new SerializedString("mode");
+    private static final SerializableString URL = new SerializedString("url");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString SOURCE = new SerializedString("source");
+    private static final SerializableString KNOWN = new SerializedString("known");
+    private static final SerializableString MUTED = new SerializedString("muted");
+    private static final SerializableString FLAKY = new SerializedString("flaky");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString TRACE = new SerializedString("trace");
+
+    private static final Map<Status, SerializableString> STATUSES = lowerCaseNames(Status.class);
+    private static final Map<Stage, SerializableString> STAGES = lowerCaseNames(Stage.class);
+    private static final Map<Parameter.Mode, SerializableString> MODES = lowerCaseNames(Parameter.Mode.class);
+
+    private Allure2ModelSerializers() {
+        throw new IllegalStateException("Do not instance Allure2ModelSerializers");
+    }
+
+    /**
+     * Returns module with serializers for all the Allure model objects.
+     *
+     * @return the module.
+     */
+    public static SimpleModule module() {
+        return new SimpleModule()
+                .addSerializer(TestResult.class, new TestResultSerializer())
+                .addSerializer(TestResultContainer.class, new TestResultContainerSerializer())
+                .addSerializer(FixtureResult.class, new FixtureResultSerializer())
+                .addSerializer(StepResult.class, new StepResultSerializer())
+                .addSerializer(StatusDetails.class, new StatusDetailsSerializer())
+                .addSerializer(Attachment.class, new AttachmentSerializer())
+                .addSerializer(Label.class, new LabelSerializer())
+                .addSerializer(Link.class, new LinkSerializer())
+                .addSerializer(Parameter.class, new ParameterSerializer());
+    }
+
+    private static void writeTestResult(final TestResult value, final JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        writeString(gen, UUID, value.getUuid());
+        writeString(gen, HISTORY_ID, value.getHistoryId());
+        writeString(gen, TEST_CASE_ID, value.getTestCaseId());
+        writeString(gen, TEST_CASE_NAME, value.getTestCaseName());
+        writeString(gen, FULL_NAME, value.getFullName());
+        if (Objects.nonNull(value.getLabels())) {
+            gen.writeFieldName(LABELS);
+            gen.writeStartArray();
+            for (Label label : value.getLabels()) {
+                writeLabel(label, gen);
+            }
+            gen.writeEndArray();
+        }
+        writeLinks(gen, value.getLinks());
+        writeString(gen, NAME, value.getName());
+        writeStatus(value, gen);
+        writeStage(value.getStage(), gen);
+        writeString(gen, DESCRIPTION, value.getDescription());
+        writeString(gen, DESCRIPTION_HTML, value.getDescriptionHtml());
+        writeExecutableItem(value, gen);
+        writeLong(gen, START, value.getStart());
+        writeLong(gen, STOP, value.getStop());
+        gen.writeEndObject();
+    }
+
+    private static void writeTestResultContainer(final TestResultContainer value,
+                                                 final JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        writeString(gen, UUID, value.getUuid());
+        writeString(gen, NAME, value.getName());
+        if (Objects.nonNull(value.getChildren())) {
+            gen.writeFieldName(CHILDREN);
+            gen.writeStartArray();
+            for (String child : value.getChildren()) {
+                gen.writeString(child);
+            }
+            gen.writeEndArray();
+        }
+        writeString(gen, DESCRIPTION, value.getDescription());
+        writeString(gen, DESCRIPTION_HTML, value.getDescriptionHtml());
+        writeFixtures(gen, BEFORES, value.getBefores());
+        writeFixtures(gen, AFTERS, value.getAfters());
+        writeLinks(gen, value.getLinks());
+        writeLong(gen, START, value.getStart());
+        writeLong(gen, STOP, value.getStop());
+        gen.writeEndObject();
+    }
+
+    private static void writeFixtures(final JsonGenerator gen,
+                                      final SerializableString name,
+                                      final List<FixtureResult> fixtures) throws IOException {
+        if (Objects.nonNull(fixtures)) {
+            gen.writeFieldName(name);
+            gen.writeStartArray();
+            for (FixtureResult fixture : fixtures) {
+                writeFixtureResult(fixture, gen);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void writeFixtureResult(final FixtureResult value, final JsonGenerator gen) throws IOException {
+        if (Objects.isNull(value)) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        writeString(gen, NAME, value.getName());
+        writeStatus(value, gen);
+        writeStage(value.getStage(), gen);
+        writeString(gen, DESCRIPTION, value.getDescription());
+        writeString(gen, DESCRIPTION_HTML, value.getDescriptionHtml());
+        writeExecutableItem(value, gen);
+        writeLong(gen, START, value.getStart());
+        writeLong(gen, STOP, value.getStop());
+        gen.writeEndObject();
+    }
+
+    private static void writeStepResult(final StepResult value, final JsonGenerator gen) throws IOException {
+        if (Objects.isNull(value)) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        writeString(gen, NAME, value.getName());
+        writeStatus(value, gen);
+        writeStage(value.getStage(), gen);
+        writeString(gen, DESCRIPTION, value.getDescription());
+        writeString(gen, DESCRIPTION_HTML, value.getDescriptionHtml());
+        writeExecutableItem(value, gen);
+        writeLong(gen, START, value.getStart());
+        writeLong(gen, STOP, value.getStop());
+        gen.writeEndObject();
+    }
+
+    private static void writeStatus(final WithStatusDetails value, final JsonGenerator gen) throws IOException {
+        if (Objects.nonNull(value.getStatus())) {
+            gen.writeFieldName(STATUS);
+            gen.writeString(STATUSES.get(value.getStatus()));
+        }
+        if (Objects.nonNull(value.getStatusDetails())) {
+            gen.writeFieldName(STATUS_DETAILS);
+            writeStatusDetails(value.getStatusDetails(), gen);
+        }
+    }
+
+    private static void writeStage(final Stage stage, final JsonGenerator gen) throws IOException {
+        if (Objects.nonNull(stage)) {
+            gen.writeFieldName(STAGE);
+            gen.writeString(STAGES.get(stage));
+        }
+    }
+
+    private static void writeExecutableItem(final ExecutableItem value, final JsonGenerator gen) throws IOException {
+        if (Objects.nonNull(value.getSteps())) {
+            gen.writeFieldName(STEPS);
+            gen.writeStartArray();
+            for (StepResult step : value.getSteps()) {
+                writeStepResult(step, gen);
+            }
+            gen.writeEndArray();
+        }
+        if (Objects.nonNull(value.getAttachments())) {
+            gen.writeFieldName(ATTACHMENTS);
+            gen.writeStartArray();
+            for (Attachment attachment : value.getAttachments()) {
+                writeAttachment(attachment, gen);
+            }
+            gen.writeEndArray();
+        }
+        if (Objects.nonNull(value.getParameters())) {
+            gen.writeFieldName(PARAMETERS);
+            gen.writeStartArray();
+            for (Parameter parameter : value.getParameters()) {
+                writeParameter(parameter, gen);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void writeStatusDetails(final StatusDetails value, final JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(KNOWN);
+        gen.writeBoolean(value.isKnown());
+        gen.writeFieldName(MUTED);
+        gen.writeBoolean(value.isMuted());
+        gen.writeFieldName(FLAKY);
+        gen.writeBoolean(value.isFlaky());
+        writeString(gen, MESSAGE, value.getMessage());
+        writeString(gen, TRACE, value.getTrace());
+        gen.writeEndObject();
+    }
+
+    private static void writeAttachment(final Attachment value, final JsonGenerator gen) throws IOException {
+        if (Objects.isNull(value)) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        writeString(gen, NAME, value.getName());
+        writeString(gen, SOURCE, value.getSource());
+        writeString(gen, TYPE, value.getType());
+        gen.writeEndObject();
+    }
+
+    private static void writeLabel(final Label value, final JsonGenerator gen) throws IOException {
+        if (Objects.isNull(value)) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        writeString(gen, NAME, value.getName());
+        writeString(gen, VALUE, value.getValue());
+        gen.writeEndObject();
+    }
+
+    private static void writeLinks(final JsonGenerator gen, final List<Link> links) throws IOException {
+        if (Objects.nonNull(links)) {
+            gen.writeFieldName(LINKS);
+            gen.writeStartArray();
+            for (Link link : links) {
+                writeLink(link, gen);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void writeLink(final Link value, final JsonGenerator gen) throws IOException {
+        if (Objects.isNull(value)) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        writeString(gen, NAME, value.getName());
+        writeString(gen, URL, value.getUrl());
+        writeString(gen, TYPE, value.getType());
+        gen.writeEndObject();
+    }
+
+    private static void writeParameter(final Parameter value, final JsonGenerator gen) throws IOException {
+        if (Objects.isNull(value)) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        writeString(gen, NAME, value.getName());
+        writeString(gen, VALUE, value.getValue());
+        if (Objects.nonNull(value.getExcluded())) {
+            gen.writeFieldName(EXCLUDED);
+            gen.writeBoolean(value.getExcluded());
+        }
+        if (Objects.nonNull(value.getMode())) {
+            gen.writeFieldName(MODE);
+            gen.writeString(MODES.get(value.getMode()));
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeString(final JsonGenerator gen,
+                                    final SerializableString name,
+                                    final String value) throws IOException {
+        if (Objects.nonNull(value)) {
+            gen.writeFieldName(name);
+            gen.writeString(value);
+        }
+    }
+
+    private static void writeLong(final JsonGenerator gen,
+                                  final SerializableString name,
+                                  final Long value) throws IOException {
+        if (Objects.nonNull(value)) {
+            gen.writeFieldName(name);
+            gen.writeNumber(value);
+        }
+    }
+
+    private static <T extends Enum<T>> Map<T, SerializableString> lowerCaseNames(final Class<T> type) {
+        final Map<T, SerializableString> names = new EnumMap<>(type);
+        for (T constant : type.getEnumConstants()) {
+            names.put(constant, new SerializedString(constant.name().toLowerCase(Locale.ENGLISH)));
+        }
+        return names;
+    }
+
+    /**
+     * Test result serializer.
+     */
+    private static class TestResultSerializer extends StdSerializer<TestResult> {
+        protected TestResultSerializer() {
+            super(TestResult.class);
+        }
+
+        @Override
+        public void serialize(final TestResult value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeTestResult(value, gen);
+        }
+    }
+
+    /**
+     * Test result container serializer.
+     */
+    private static class TestResultContainerSerializer extends StdSerializer<TestResultContainer> {
+        protected TestResultContainerSerializer() {
+            super(TestResultContainer.class);
+        }
+
+        @Override
+        public void serialize(final TestResultContainer value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeTestResultContainer(value, gen);
+        }
+    }
+
+    /**
+     * Fixture result serializer.
+     */
+    private static class FixtureResultSerializer extends StdSerializer<FixtureResult> {
+        protected FixtureResultSerializer() {
+            super(FixtureResult.class);
+        }
+
+        @Override
+        public void serialize(final FixtureResult value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeFixtureResult(value, gen);
+        }
+    }
+
+    /**
+     * Step result serializer.
+     */
+    private static class StepResultSerializer extends StdSerializer<StepResult> {
+        protected StepResultSerializer() {
+            super(StepResult.class);
+        }
+
+        @Override
+        public void serialize(final StepResult value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeStepResult(value, gen);
+        }
+    }
+
+    /**
+     * Status details serializer.
+     */
+    private static class StatusDetailsSerializer extends StdSerializer<StatusDetails> {
+        protected StatusDetailsSerializer() {
+            super(StatusDetails.class);
+        }
+
+        @Override
+        public void serialize(final StatusDetails value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeStatusDetails(value, gen);
+        }
+    }
+
+    /**
+     * Attachment serializer.
+     */
+    private static class AttachmentSerializer extends StdSerializer<Attachment> {
+        protected AttachmentSerializer() {
+            super(Attachment.class);
+        }
+
+        @Override
+        public void serialize(final Attachment value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeAttachment(value, gen);
+        }
+    }
+
+    /**
+     * Label serializer.
+     */
+    private static class LabelSerializer extends StdSerializer<Label> {
+        protected LabelSerializer() {
+            super(Label.class);
+        }
+
+        @Override
+        public void serialize(final Label value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeLabel(value, gen);
+        }
+    }
+
+    /**
+     * Link serializer.
+     */
+    private static class LinkSerializer extends StdSerializer<Link> {
+        protected LinkSerializer() {
+            super(Link.class);
+        }
+
+        @Override
+        public void serialize(final Link value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeLink(value, gen);
+        }
+    }
+
+    /**
+     * Parameter serializer.
+     */
+    private static class ParameterSerializer extends StdSerializer<Parameter> {
+        protected ParameterSerializer() {
+            super(Parameter.class);
+        }
+
+        @Override
+        public void serialize(final Parameter value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            writeParameter(value, gen);
+        }
+    }
+}
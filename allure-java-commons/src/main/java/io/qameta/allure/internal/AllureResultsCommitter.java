@@ -0,0 +1,398 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import io.qameta.allure.AllureResultsWriteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves written temporary files to their target paths in batches. For each batch
+ * the files are synced concurrently first, then atomically moved, and then the
+ * directories they were moved to are synced once per batch. So files appear in
+ * results directory complete, a crash never leaves half-written results, and
+ * writing threads never wait for fsync. Files that could not be committed are
+ * reported by the next {@link #checkFailures()} or {@link #flush()} call.
+ *
+ * <p>Writers of the same results directory share one committer, see
+ * {@link #forDirectory(Path)}. Committer threads are started on demand and stop
+ * once there is nothing to commit for a while, and a single shutdown hook commits
+ * files still pending when JVM exits, so committers never pile up threads or hooks.
+ */
+public class AllureResultsCommitter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureResultsCommitter.class);
+
+    private static final long BATCH_INTERVAL_MILLIS = 10;
+
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private static final int SYNC_THREADS = 8;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final long IDLE_TIMEOUT_SECONDS = 5;
+
+    private static final Map<Path, AllureResultsCommitter> COMMITTERS = new ConcurrentHashMap<>();
+
+    private static final Set<AllureResultsCommitter> ACTIVE = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicBoolean SHUTDOWN_HOOK = new AtomicBoolean();
+
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+    private final Object lock = new Object();
+
+    private long submitted;
+
+    private long committed;
+
+    private final ThreadPoolExecutor syncers;
+
+    private Thread thread;
+
+    public AllureResultsCommitter() {
+        syncers = new ThreadPoolExecutor(
+                SYNC_THREADS, SYNC_THREADS, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread syncer = new Thread(runnable, "allure-results-syncer");
+                    syncer.setDaemon(true);
+                    return syncer;
+                }
+        );
+        syncers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the committer shared by all the writers of given results directory.
+     *
+     * @param directory the results directory.
+     * @return the committer.
+     */
+    public static AllureResultsCommitter forDirectory(final Path directory) {
+        return COMMITTERS.computeIfAbsent(
+                directory.toAbsolutePath().normalize(), key -> new AllureResultsCommitter()
+        );
+    }
+
+    /**
+     * Schedules the move of temporary file to its target path. The target file
+     * appears after the batch containing it is committed.
+     *
+     * @param temp   the written temporary file.
+     * @param target the target path, should be in the same file store as temporary file.
+     */
+    public void commit(final Path temp, final Path target) {
+        synchronized (lock) {
+            submitted++;
+            pending.add(new Pending(temp, target));
+            if (Objects.isNull(thread)) {
+                if (SHUTDOWN_HOOK.compareAndSet(false, true)) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(AllureResultsCommitter::flushActive));
+                }
+                ACTIVE.add(this);
+                thread = new Thread(this::run, "allure-results-committer");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    /**
+     * Waits until all the files scheduled before this call are committed.
+     *
+     * @throws InterruptedException        if interrupted while waiting.
+     * @throws AllureResultsWriteException if some files could not be committed.
+     */
+    public void flush() throws InterruptedException {
+        flush(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Waits at most given time until all the files scheduled before this call are committed.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the time unit of timeout.
+     * @return true if all the files are committed, false if timeout elapsed.
+     * @throws InterruptedException        if interrupted while waiting.
+     * @throws AllureResultsWriteException if some files could not be committed.
+     */
+    public boolean flush(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2);
+        synchronized (lock) {
+            final long expected = submitted;
+            while (committed < expected) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+        checkFailures();
+        return true;
+    }
+
+    /**
+     * Throws an exception if some files scheduled earlier could not be committed.
+     * Each failure is reported once.
+     *
+     * @throws AllureResultsWriteException if some files could not be committed.
+     */
+    public void checkFailures() {
+        Failure failure = failures.poll();
+        if (Objects.isNull(failure)) {
+            return;
+        }
+        final AllureResultsWriteException exception = new AllureResultsWriteException(
+                "Could not write Allure results file " + failure.target, failure.cause
+        );
+        failure = failures.poll();
+        while (Objects.nonNull(failure)) {
+            exception.addSuppressed(failure.cause);
+            failure = failures.poll();
+        }
+        throw exception;
+    }
+
+    private static void flushActive() {
+        ACTIVE.forEach(AllureResultsCommitter::flushQuietly);
+    }
+
+    private void flushQuietly() {
+        try {
+            if (!flush(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Allure results are not committed in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (AllureResultsWriteException e) {
+            LOGGER.error("Could not write Allure results", e);
+        }
+    }
+
+    private void run() {
+        final List<Pending> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final Pending first = pending.poll(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (Objects.isNull(first)) {
+                    if (stopIfIdle()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                try {
+                    commitBatch(batch);
+                } catch (RuntimeException | Error e) {
+                    fail(batch, e);
+                } finally {
+                    synchronized (lock) {
+                        committed += batch.size();
+                        lock.notifyAll();
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (lock) {
+                if (Thread.currentThread().equals(thread)) {
+                    thread = null;
+                    ACTIVE.remove(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds files scheduled within batch interval to the batch.
+     */
+    private void fillBatch(final List<Pending> batch) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_INTERVAL_MILLIS);
+        while (batch.size() < MAX_BATCH_SIZE) {
+            final Pending next = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (Objects.isNull(next)) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Lets the committer thread exit unless there are files to commit, new files
+     * are committed by a new thread.
+     */
+    private boolean stopIfIdle() {
+        synchronized (lock) {
+            if (!pending.isEmpty()) {
+                return false;
+            }
+            thread = null;
+            ACTIVE.remove(this);
+            return true;
+        }
+    }
+
+    private void fail(final List<Pending> batch, final Throwable cause) {
+        LOGGER.error("Could not commit Allure results", cause);
+        for (Pending file : batch) {
+            if (Files.exists(file.temp)) {
+                discard(file, new IOException("Could not commit Allure results file", cause));
+            }
+        }
+    }
+
+    private void commitBatch(final List<Pending> batch) throws InterruptedException {
+        final List<Pending> synced = syncAll(batch);
+        final Set<Path> directories = new LinkedHashSet<>();
+        for (Pending file : synced) {
+            try {
+                move(file.temp, file.target);
+                directories.add(file.target.getParent());
+            } catch (IOException e) {
+                discard(file, e);
+            }
+        }
+        for (Path directory : directories) {
+            try {
+                sync(directory, StandardOpenOption.READ);
+            } catch (IOException e) {
+                // directories can't be opened on some platforms, e.g. Windows
+                LOGGER.debug("Could not sync Allure results directory {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Syncs files concurrently, so file system can combine them into fewer journal commits.
+     */
+    private List<Pending> syncAll(final List<Pending> batch) throws InterruptedException {
+        final List<Future<Boolean>> futures = new ArrayList<>(batch.size());
+        for (Pending file : batch) {
+            futures.add(syncers.submit(() -> syncTemp(file)));
+        }
+        final List<Pending> synced = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (getQuietly(batch.get(i), futures.get(i))) {
+                synced.add(batch.get(i));
+            }
+        }
+        return synced;
+    }
+
+    private boolean getQuietly(final Pending file, final Future<Boolean> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            discard(file, new IOException("Could not sync Allure results file", e.getCause()));
+            return false;
+        }
+    }
+
+    private boolean syncTemp(final Pending file) {
+        try {
+            sync(file.temp, StandardOpenOption.WRITE);
+            return true;
+        } catch (IOException e) {
+            discard(file, e);
+            return false;
+        }
+    }
+
+    private static void sync(final Path path, final StandardOpenOption option) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, option)) {
+            channel.force(true);
+        }
+    }
+
+    private static void move(final Path temp, final Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void discard(final Pending file, final IOException cause) {
+        LOGGER.error("Could not write Allure results file {}", file.target, cause);
+        failures.add(new Failure(file.target, cause));
+        try {
+            Files.deleteIfExists(file.temp);
+        } catch (IOException e) {
+            LOGGER.warn("Could not remove temporary file {}", file.temp, e);
+        }
+    }
+
+    /**
+     * File that could not be committed.
+     */
+    private static final class Failure {
+
+        private final Path target;
+
+        private final Throwable cause;
+
+        private Failure(final Path target, final Throwable cause) {
+            this.target = target;
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Temporary file waiting to be committed.
+     */
+    private static final class Pending {
+
+        private final Path temp;
+
+        private final Path target;
+
+        private Pending(final Path temp, final Path target) {
+            this.temp = temp;
+            this.target = target;
+        }
+    }
+}
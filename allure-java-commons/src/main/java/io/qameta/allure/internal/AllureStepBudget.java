@@ -0,0 +1,251 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import io.qameta.allure.model.Parameter;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.WithSteps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of steps stored per test case or fixture. Once the limit is
+ * reached, consecutive sibling steps with the same name are collapsed into the first
+ * one, which gets the number of repetitions and min/max/total duration as parameters.
+ * Failed and broken steps are never collapsed.
+ */
+public class AllureStepBudget {
+
+    public static final String STEPS_LIMIT_PROPERTY_NAME = "allure.steps.limit";
+
+    public static final String REPETITIONS_PARAMETER = "repetitions";
+
+    public static final String MIN_DURATION_PARAMETER = "min duration (ms)";
+
+    public static final String MAX_DURATION_PARAMETER = "max duration (ms)";
+
+    public static final String TOTAL_DURATION_PARAMETER = "total duration (ms)";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureStepBudget.class);
+
+    private final int limit;
+
+    private final Map<String, Root> roots = new ConcurrentHashMap<>();
+
+    private final Map<String, RunningStep> running = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new budget.
+     *
+     * @param limit the maximum number of steps per test case or fixture, non-positive
+     *              value disables the budget.
+     */
+    public AllureStepBudget(final int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Creates a budget configured by {@link #STEPS_LIMIT_PROPERTY_NAME} property.
+     *
+     * @param properties the allure properties.
+     * @return the budget.
+     */
+    public static AllureStepBudget fromProperties(final Properties properties) {
+        final String limit = properties.getProperty(STEPS_LIMIT_PROPERTY_NAME, "0");
+        try {
+            return new AllureStepBudget(Integer.parseInt(limit.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid value of {} property: {}", STEPS_LIMIT_PROPERTY_NAME, limit);
+            return new AllureStepBudget(0);
+        }
+    }
+
+    public boolean isEnabled() {
+        return limit > 0;
+    }
+
+    /**
+     * Registers started step.
+     *
+     * @param parentUuid the uuid of parent test case, fixture or step.
+     * @param uuid       the uuid of started step.
+     * @param parent     the parent test case, fixture or step.
+     */
+    public void start(final String parentUuid, final String uuid, final WithSteps parent) {
+        if (!isEnabled()) {
+            return;
+        }
+        final RunningStep parentStep = running.get(parentUuid);
+        final String rootUuid = Objects.isNull(parentStep) ? parentUuid : parentStep.rootUuid;
+        final Root root = roots.computeIfAbsent(rootUuid, key -> new Root());
+        root.count.incrementAndGet();
+        running.put(uuid, new RunningStep(rootUuid, parent));
+    }
+
+    /**
+     * Collapses stopped step into its previous sibling if the budget of test case
+     * or fixture is exceeded. Callers should hold the storage lock.
+     *
+     * @param uuid the uuid of stopped step.
+     * @param step the stopped step.
+     */
+    public void stop(final String uuid, final StepResult step) {
+        if (!isEnabled()) {
+            return;
+        }
+        final RunningStep current = running.remove(uuid);
+        final Root root = Objects.isNull(current) ? null : roots.get(current.rootUuid);
+        if (Objects.isNull(root) || root.count.get() <= limit) {
+            return;
+        }
+        final List<StepResult> siblings = current.parent.getSteps();
+        final int size = siblings.size();
+        if (size > 1 && isLast(siblings, step)) {
+            final StepResult previous = siblings.get(size - 2);
+            if (isCollapsible(previous) && isCollapsible(step)
+                    && Objects.equals(previous.getName(), step.getName())) {
+                siblings.remove(size - 1);
+                collapse(root, previous, step);
+            }
+        }
+    }
+
+    /**
+     * Removes all the data stored for given test case or fixture, including
+     * the steps that were started but never stopped.
+     *
+     * @param rootUuid the uuid of test case or fixture.
+     */
+    public void release(final String rootUuid) {
+        if (isEnabled()) {
+            roots.remove(rootUuid);
+            running.values().removeIf(step -> Objects.equals(step.rootUuid, rootUuid));
+        }
+    }
+
+    private void collapse(final Root root, final StepResult target, final StepResult step) {
+        final Repetitions repetitions = root.repetitions
+                .computeIfAbsent(target, first -> new Repetitions(duration(first)));
+        repetitions.add(duration(step));
+        target.setStop(step.getStop());
+        target.getAttachments().addAll(step.getAttachments());
+        repetitions.updateParameters(target.getParameters());
+    }
+
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    private static boolean isLast(final List<StepResult> steps, final StepResult step) {
+        // step equality is based on name and status only, so compare references
+        return steps.get(steps.size() - 1) == step;
+    }
+
+    private static boolean isCollapsible(final StepResult step) {
+        return step.getStage() == Stage.FINISHED
+                && step.getStatus() != Status.FAILED
+                && step.getStatus() != Status.BROKEN;
+    }
+
+    private static long duration(final StepResult step) {
+        return Objects.isNull(step.getStart()) || Objects.isNull(step.getStop())
+                ? 0L
+                : step.getStop() - step.getStart();
+    }
+
+    /**
+     * Steps counter of test case or fixture.
+     */
+    private static final class Root {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final Map<StepResult, Repetitions> repetitions = new IdentityHashMap<>();
+
+    }
+
+    /**
+     * Information about not finished step.
+     */
+    private static final class RunningStep {
+
+        private final String rootUuid;
+
+        private final WithSteps parent;
+
+        private RunningStep(final String rootUuid, final WithSteps parent) {
+            this.rootUuid = rootUuid;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Statistics of collapsed steps.
+     */
+    private static final class Repetitions {
+
+        private long count;
+
+        private long min;
+
+        private long max;
+
+        private long total;
+
+        private final List<Parameter> parameters = new ArrayList<>();
+
+        private Repetitions(final long duration) {
+            this.count = 1;
+            this.min = duration;
+            this.max = duration;
+            this.total = duration;
+        }
+
+        private void add(final long duration) {
+            count++;
+            min = Math.min(min, duration);
+            max = Math.max(max, duration);
+            total += duration;
+        }
+
+        /**
+         * Adds statistics parameters to the given list on first call and updates
+         * their values afterwards. Parameters are tracked by identity, so user
+         * parameters with the same names are left untouched.
+         */
+        private void updateParameters(final List<Parameter> target) {
+            if (parameters.isEmpty()) {
+                parameters.add(new Parameter().setName(REPETITIONS_PARAMETER));
+                parameters.add(new Parameter().setName(MIN_DURATION_PARAMETER));
+                parameters.add(new Parameter().setName(MAX_DURATION_PARAMETER));
+                parameters.add(new Parameter().setName(TOTAL_DURATION_PARAMETER));
+                target.addAll(parameters);
+            }
+            parameters.get(0).setValue(String.valueOf(count));
+            parameters.get(1).setValue(String.valueOf(min));
+            parameters.get(2).setValue(String.valueOf(max));
+            parameters.get(3).setValue(String.valueOf(total));
+        }
+    }
+}
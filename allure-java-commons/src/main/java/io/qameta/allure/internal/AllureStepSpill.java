@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import io.qameta.allure.AllureResultsWriter;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.WithSteps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.Boolean.parseBoolean;
+
+/**
+ * Moves finished top level steps of test cases to temporary spill files, so only
+ * the steps that are still running are kept in memory. Spilled steps are read back
+ * one by one while test case is serialized, and dropped along with the spill file
+ * once test case is written.
+ */
+public class AllureStepSpill {
+
+    public static final String SPILL_ENABLED_PROPERTY_NAME = "allure.steps.spill.enabled";
+
+    public static final String SPILL_DIRECTORY_PROPERTY_NAME = "allure.steps.spill.directory";
+
+    private static final String REMOVE_ERROR_MESSAGE = "Could not remove steps spill file of test case {}";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureStepSpill.class);
+
+    private final Path directory;
+
+    private final Map<String, SpilledStepList> running = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new spill.
+     *
+     * @param directory the directory to store spill files in, null disables spilling.
+     */
+    public AllureStepSpill(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Creates a spill configured by {@link #SPILL_ENABLED_PROPERTY_NAME} and
+     * {@link #SPILL_DIRECTORY_PROPERTY_NAME} properties.
+     *
+     * @param properties the allure properties.
+     * @return the spill.
+     */
+    public static AllureStepSpill fromProperties(final Properties properties) {
+        if (!parseBoolean(properties.getProperty(SPILL_ENABLED_PROPERTY_NAME))) {
+            return new AllureStepSpill(null);
+        }
+        final String path = properties.getProperty(
+                SPILL_DIRECTORY_PROPERTY_NAME, System.getProperty("java.io.tmpdir")
+        );
+        return new AllureStepSpill(Paths.get(path));
+    }
+
+    public boolean isEnabled() {
+        return Objects.nonNull(directory);
+    }
+
+    /**
+     * Registers started step. Callers should hold the storage lock, since steps
+     * of test case may be replaced.
+     *
+     * @param parentUuid the uuid of parent test case, fixture or step.
+     * @param uuid       the uuid of started step.
+     * @param parent     the parent test case, fixture or step.
+     */
+    public void start(final String parentUuid, final String uuid, final WithSteps parent) {
+        if (!isEnabled() || !(parent instanceof TestResult)) {
+            return;
+        }
+        final TestResult testResult = (TestResult) parent;
+        final List<StepResult> steps = testResult.getSteps();
+        final SpilledStepList spilled;
+        if (steps instanceof SpilledStepList) {
+            spilled = (SpilledStepList) steps;
+        } else {
+            spilled = new SpilledStepList(directory, "allure-steps-" + parentUuid, steps);
+            testResult.setSteps(spilled);
+        }
+        running.put(uuid, spilled);
+    }
+
+    /**
+     * Spills finished top level steps of test case when one of them is stopped.
+     *
+     * @param uuid the uuid of stopped step.
+     */
+    public void stop(final String uuid) {
+        if (!isEnabled()) {
+            return;
+        }
+        final SpilledStepList spilled = running.remove(uuid);
+        if (Objects.nonNull(spilled)) {
+            try {
+                spilled.spill();
+            } catch (IOException e) {
+                LOGGER.warn("Could not spill steps to {}, keeping them in memory", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Removes spill file of written test case. Spilled steps are not read back, so
+     * the steps of test case are dropped by this call and writers are expected to
+     * serialize the test case before {@link AllureResultsWriter#write(TestResult)}
+     * returns.
+     *
+     * @param testResult the written test case.
+     */
+    public void release(final TestResult testResult) {
+        if (isEnabled() && testResult.getSteps() instanceof SpilledStepList) {
+            final SpilledStepList spilled = (SpilledStepList) testResult.getSteps();
+            forget(spilled);
+            testResult.setSteps(new ArrayList<>());
+            try {
+                spilled.close();
+            } catch (IOException e) {
+                LOGGER.warn(REMOVE_ERROR_MESSAGE, testResult.getUuid(), e);
+            }
+        }
+    }
+
+    /**
+     * Removes spill file of test case that could not be written. The steps of test
+     * case are read back and replaced with a plain list, so the test case can be
+     * written again.
+     *
+     * @param testResult the test case.
+     */
+    public void restore(final TestResult testResult) {
+        if (isEnabled() && testResult.getSteps() instanceof SpilledStepList) {
+            final SpilledStepList spilled = (SpilledStepList) testResult.getSteps();
+            forget(spilled);
+            try {
+                testResult.setSteps(spilled.restore());
+            } catch (IOException e) {
+                LOGGER.warn(REMOVE_ERROR_MESSAGE, testResult.getUuid(), e);
+            }
+        }
+    }
+
+    boolean isRunning(final String uuid) {
+        return running.containsKey(uuid);
+    }
+
+    /**
+     * Removes the steps of given list that were started but never stopped.
+     */
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    private void forget(final SpilledStepList spilled) {
+        // lists equality is based on content, so compare references
+        running.values().removeIf(list -> list == spilled);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.StepResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * List of test case steps that keeps finished steps in a temporary spill file.
+ * Iterators read spilled steps back one by one, so the list can be iterated
+ * during serialization without loading all the steps into memory. Changes made
+ * to steps returned by an iterator are not stored, use {@link #get(int)} instead:
+ * it keeps the returned step in memory until the next {@link #spill()}, which
+ * writes the step again only if it was changed.
+ */
+class SpilledStepList extends AbstractList<StepResult> {
+
+    private static final String READ_ERROR_MESSAGE = "Could not read spilled step";
+
+    private final Path directory;
+
+    private final String prefix;
+
+    private final List<Object> entries;
+
+    private Path file;
+
+    private FileChannel channel;
+
+    SpilledStepList(final Path directory, final String prefix, final Collection<StepResult> steps) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.entries = new ArrayList<>(steps);
+    }
+
+    @Override
+    public StepResult get(final int index) {
+        synchronized (entries) {
+            final Object entry = entries.get(index);
+            if (entry instanceof Spilled) {
+                final StepResult step = read((Spilled) entry);
+                entries.set(index, new Loaded(step, (Spilled) entry));
+                return step;
+            }
+            return entry instanceof Loaded
+                    ? ((Loaded) entry).step
+                    : (StepResult) entry;
+        }
+    }
+
+    @Override
+    public Iterator<StepResult> iterator() {
+        return new SnapshotIterator();
+    }
+
+    @Override
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public StepResult set(final int index, final StepResult element) {
+        synchronized (entries) {
+            final StepResult previous = get(index);
+            entries.set(index, element);
+            return previous;
+        }
+    }
+
+    @Override
+    public void add(final int index, final StepResult element) {
+        synchronized (entries) {
+            entries.add(index, element);
+            modCount++;
+        }
+    }
+
+    @Override
+    public StepResult remove(final int index) {
+        synchronized (entries) {
+            final StepResult previous = get(index);
+            entries.remove(index);
+            modCount++;
+            return previous;
+        }
+    }
+
+    /**
+     * Writes all finished in-memory steps except the last one to the spill file.
+     * The last step is kept in memory, so it still can be updated. Steps read back
+     * by {@link #get(int)} are written again only if they were changed.
+     *
+     * @throws IOException if steps could not be written.
+     */
+    void spill() throws IOException {
+        synchronized (entries) {
+            final int last = entries.size() - 1;
+            for (int i = 0; i < last; i++) {
+                final Object entry = entries.get(i);
+                if (entry instanceof Loaded) {
+                    entries.set(i, rewrite((Loaded) entry));
+                } else if (entry instanceof StepResult && ((StepResult) entry).getStage() == Stage.FINISHED) {
+                    entries.set(i, write(serialize((StepResult) entry)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads all the spilled steps back and removes spill file.
+     *
+     * @return the plain list of all the steps.
+     * @throws IOException if spill file could not be removed.
+     */
+    List<StepResult> restore() throws IOException {
+        synchronized (entries) {
+            try {
+                final List<StepResult> steps = new ArrayList<>(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    steps.add(snapshot(i));
+                }
+                return steps;
+            } finally {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Removes spill file. Spilled steps are not available after this call.
+     *
+     * @throws IOException if spill file could not be removed.
+     */
+    void close() throws IOException {
+        synchronized (entries) {
+            if (Objects.nonNull(channel)) {
+                channel.close();
+                channel = null;
+            }
+            if (Objects.nonNull(file)) {
+                Files.deleteIfExists(file);
+                file = null;
+            }
+        }
+    }
+
+    private Spilled rewrite(final Loaded loaded) throws IOException {
+        final byte[] bytes = serialize(loaded.step);
+        return bytes.length == loaded.spilled.length && checksum(bytes) == loaded.spilled.checksum
+                ? loaded.spilled
+                : write(bytes);
+    }
+
+    private Spilled write(final byte[] bytes) throws IOException {
+        if (Objects.isNull(channel)) {
+            file = Files.createTempFile(directory, prefix, ".steps");
+            file.toFile().deleteOnExit();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final long position = channel.size();
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+        return new Spilled(position, bytes.length, checksum(bytes));
+    }
+
+    private static byte[] serialize(final StepResult step) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(step);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long checksum(final byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    private StepResult snapshot(final int index) {
+        synchronized (entries) {
+            final Object entry = entries.get(index);
+            if (entry instanceof Spilled) {
+                return read((Spilled) entry);
+            }
+            return entry instanceof Loaded
+                    ? ((Loaded) entry).step
+                    : (StepResult) entry;
+        }
+    }
+
+    private StepResult read(final Spilled spilled) {
+        final ByteBuffer buffer = ByteBuffer.allocate(spilled.length);
+        try {
+            long offset = spilled.position;
+            while (buffer.hasRemaining()) {
+                final int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of spill file " + file);
+                }
+                offset += read;
+            }
+            try (ObjectInputStream stream = new ObjectInputStream(
+                    new ByteArrayInputStream(buffer.array()))) {
+                return (StepResult) stream.readObject();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(READ_ERROR_MESSAGE, e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(READ_ERROR_MESSAGE, e);
+        }
+    }
+
+    /**
+     * Iterator that reads spilled steps without keeping them in memory.
+     */
+    private final class SnapshotIterator implements Iterator<StepResult> {
+
+        private int cursor;
+
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size();
+        }
+
+        @Override
+        public StepResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = cursor;
+            cursor++;
+            return snapshot(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            SpilledStepList.this.remove(last);
+            cursor = last;
+            last = -1;
+        }
+    }
+
+    /**
+     * Location of spilled step in the spill file.
+     */
+    private static final class Spilled {
+
+        private final long position;
+
+        private final int length;
+
+        private final long checksum;
+
+        private Spilled(final long position, final int length, final long checksum) {
+            this.position = position;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Spilled step read back by {@link #get(int)}, that may have been changed since.
+     */
+    private static final class Loaded {
+
+        private final StepResult step;
+
+        private final Spilled spilled;
+
+        private Loaded(final StepResult step, final Spilled spilled) {
+            this.step = step;
+            this.spilled = spilled;
+        }
+    }
+}
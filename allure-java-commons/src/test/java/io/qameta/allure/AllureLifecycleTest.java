@@ -15,8 +15,16 @@
  */
 package io.qameta.allure;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.internal.AllureStepBudget;
+import io.qameta.allure.internal.AllureStepSpill;
+import io.qameta.allure.listener.LifecycleNotifier;
 import io.qameta.allure.model.Attachment;
 import io.qameta.allure.model.FixtureResult;
+import io.qameta.allure.model.Parameter;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.Status;
 import io.qameta.allure.model.StepResult;
 import io.qameta.allure.model.TestResult;
 import io.qameta.allure.model.TestResultContainer;
@@ -24,17 +32,20 @@ import io.qameta.allure.test.AllureResults;
 import io.qameta.allure.test.RunUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -51,8 +62,11 @@ import static io.qameta.allure.test.TestData.randomName;
 import static io.qameta.allure.test.TestData.randomString;
 import static java.util.concurrent.CompletableFuture.allOf;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentCaptor.forClass;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -182,6 +196,35 @@ class AllureLifecycleTest {
                 .containsExactly(firstStepName, secondStepName);
     }
 
+    @Test
+    void shouldNotChangeCurrentStepByDetachedSteps() throws Exception {
+        final String uuid = randomId();
+        lifecycle.scheduleTestCase(new TestResult().setUuid(uuid));
+        lifecycle.startTestCase(uuid);
+
+        final String stepUuid = randomId();
+        final String stepName = randomName();
+        lifecycle.startDetachedStep(uuid, stepUuid, new StepResult().setName(stepName));
+        assertThat(lifecycle.getCurrentTestCaseOrStep()).hasValue(uuid);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> lifecycle.stopDetachedStep(stepUuid)).get();
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(lifecycle.getCurrentTestCaseOrStep()).hasValue(uuid);
+
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+
+        final ArgumentCaptor<TestResult> captor = forClass(TestResult.class);
+        verify(writer, times(1)).write(captor.capture());
+        assertThat(captor.getValue().getSteps())
+                .extracting(StepResult::getName, StepResult::getStage)
+                .containsExactly(tuple(stepName, Stage.FINISHED));
+    }
+
     @Test
     void shouldUpdateTest() {
         final String uuid = randomId();
@@ -295,6 +338,36 @@ class AllureLifecycleTest {
                 .containsExactly(firstStepName, secondStepName);
     }
 
+    @Test
+    void shouldPrepareAttachmentOfGivenTestCase() {
+        final String uuid = randomId();
+        final TestResult result = new TestResult().setUuid(uuid);
+        lifecycle.scheduleTestCase(result);
+        lifecycle.startTestCase(uuid);
+
+        final String stepUuid = randomId();
+        lifecycle.startStep(uuid, stepUuid, new StepResult().setName(randomName()));
+
+        final String attachmentName = randomName();
+        final String source = lifecycle.prepareAttachment(uuid, attachmentName, "text/plain", "txt");
+
+        lifecycle.stopStep(stepUuid);
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+
+        final ArgumentCaptor<TestResult> captor = forClass(TestResult.class);
+        verify(writer, times(1)).write(captor.capture());
+
+        assertThat(source)
+                .endsWith("-attachment.txt");
+        assertThat(captor.getValue().getAttachments())
+                .extracting(Attachment::getName, Attachment::getSource)
+                .containsExactly(tuple(attachmentName, source));
+        assertThat(captor.getValue().getSteps())
+                .flatExtracting(StepResult::getAttachments)
+                .isEmpty();
+    }
+
     @Test
     void shouldAttachAsync() {
         final List<CompletableFuture<InputStream>> features = new CopyOnWriteArrayList<>();
@@ -434,6 +507,182 @@ class AllureLifecycleTest {
 
     }
 
+    @Test
+    void shouldCollapseRepeatedStepsWhenStepsLimitExceeded() {
+        final AllureLifecycle limited = new AllureLifecycle(
+                writer,
+                new LifecycleNotifier(List.of(), List.of(), List.of(), List.of()),
+                properties(AllureStepBudget.STEPS_LIMIT_PROPERTY_NAME, "3")
+        );
+        final String uuid = randomId();
+        limited.scheduleTestCase(new TestResult().setUuid(uuid).setName(randomName()));
+        limited.startTestCase(uuid);
+
+        for (int i = 0; i < 10; i++) {
+            namedStep(limited, "poll", null);
+        }
+        namedStep(limited, "poll", Status.FAILED);
+        namedStep(limited, "poll", null);
+        namedStep(limited, "poll", null);
+
+        limited.stopTestCase(uuid);
+        limited.writeTestCase(uuid);
+
+        final ArgumentCaptor<TestResult> captor = forClass(TestResult.class);
+        verify(writer, times(1)).write(captor.capture());
+
+        final List<StepResult> steps = captor.getValue().getSteps();
+        assertThat(steps)
+                .extracting(StepResult::getName, StepResult::getStatus)
+                .containsExactly(
+                        tuple("poll", Status.PASSED),
+                        tuple("poll", Status.PASSED),
+                        tuple("poll", Status.PASSED),
+                        tuple("poll", Status.FAILED),
+                        tuple("poll", Status.PASSED)
+                );
+
+        assertThat(steps.get(0).getParameters()).isEmpty();
+        assertThat(steps.get(1).getParameters()).isEmpty();
+        assertThat(steps.get(2).getParameters())
+                .extracting(Parameter::getName, Parameter::getValue)
+                .contains(tuple(AllureStepBudget.REPETITIONS_PARAMETER, "8"));
+        assertThat(steps.get(3).getParameters()).isEmpty();
+        assertThat(steps.get(4).getParameters())
+                .extracting(Parameter::getName, Parameter::getValue)
+                .contains(tuple(AllureStepBudget.REPETITIONS_PARAMETER, "2"));
+    }
+
+    @Test
+    void shouldKeepUserParametersOfCollapsedSteps() {
+        final AllureLifecycle limited = new AllureLifecycle(
+                writer,
+                new LifecycleNotifier(List.of(), List.of(), List.of(), List.of()),
+                properties(AllureStepBudget.STEPS_LIMIT_PROPERTY_NAME, "1")
+        );
+        final String uuid = randomId();
+        limited.scheduleTestCase(new TestResult().setUuid(uuid).setName(randomName()));
+        limited.startTestCase(uuid);
+
+        for (int i = 0; i < 3; i++) {
+            final String stepUuid = randomId();
+            limited.startStep(stepUuid, new StepResult().setName("poll").setParameters(new ArrayList<>(List.of(
+                    new Parameter().setName(AllureStepBudget.REPETITIONS_PARAMETER).setValue("user")
+            ))));
+            limited.updateStep(stepUuid, step -> step.setStatus(Status.PASSED));
+            limited.stopStep(stepUuid);
+        }
+
+        limited.stopTestCase(uuid);
+        limited.writeTestCase(uuid);
+
+        final ArgumentCaptor<TestResult> captor = forClass(TestResult.class);
+        verify(writer, times(1)).write(captor.capture());
+
+        final List<StepResult> steps = captor.getValue().getSteps();
+        assertThat(steps).hasSize(1);
+        assertThat(steps.get(0).getParameters())
+                .extracting(Parameter::getName, Parameter::getValue)
+                .containsSubsequence(
+                        tuple(AllureStepBudget.REPETITIONS_PARAMETER, "user"),
+                        tuple(AllureStepBudget.REPETITIONS_PARAMETER, "3")
+                );
+    }
+
+    @Test
+    void shouldSpillFinishedStepsToDisk(@TempDir final Path results, @TempDir final Path spill) throws Exception {
+        final Properties properties = properties(AllureStepSpill.SPILL_ENABLED_PROPERTY_NAME, "true");
+        properties.setProperty(AllureStepSpill.SPILL_DIRECTORY_PROPERTY_NAME, spill.toString());
+        final AllureLifecycle spilling = new AllureLifecycle(
+                new FileSystemResultsWriter(results),
+                new LifecycleNotifier(List.of(), List.of(), List.of(), List.of()),
+                properties
+        );
+        final String uuid = randomId();
+        spilling.scheduleTestCase(new TestResult().setUuid(uuid).setName(randomName()));
+        spilling.startTestCase(uuid);
+
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final String stepUuid = randomId();
+            final String name = randomName();
+            names.add(name);
+            spilling.startStep(stepUuid, new StepResult().setName(name));
+            final String childUuid = randomId();
+            spilling.startStep(stepUuid, childUuid, new StepResult().setName(randomName()));
+            spilling.stopStep(childUuid);
+            spilling.stopStep(stepUuid);
+        }
+
+        assertThat(spill).isDirectoryContaining(file -> file.getFileName().toString().endsWith(".steps"));
+
+        spilling.stopTestCase(uuid);
+        spilling.writeTestCase(uuid);
+
+        assertThat(spill).isEmptyDirectory();
+
+        final JsonNode written = new ObjectMapper()
+                .readTree(results.resolve(FileSystemResultsWriter.generateTestResultName(uuid)).toFile());
+        final List<String> actual = new ArrayList<>();
+        written.get("steps").forEach(step -> {
+            actual.add(step.get("name").asText());
+            assertThat(step.get("steps")).hasSize(1);
+        });
+        assertThat(actual).containsExactlyElementsOf(names);
+    }
+
+    @Test
+    void shouldReleaseSpilledStepsWhenWriteFails(@TempDir final Path spill) {
+        final Properties properties = properties(AllureStepSpill.SPILL_ENABLED_PROPERTY_NAME, "true");
+        properties.setProperty(AllureStepSpill.SPILL_DIRECTORY_PROPERTY_NAME, spill.toString());
+        final AllureLifecycle spilling = new AllureLifecycle(
+                writer,
+                new LifecycleNotifier(List.of(), List.of(), List.of(), List.of()),
+                properties
+        );
+        doThrow(new AllureResultsWriteException("expected", null)).when(writer).write(any(TestResult.class));
+
+        final String uuid = randomId();
+        final TestResult result = new TestResult().setUuid(uuid).setName(randomName());
+        spilling.scheduleTestCase(result);
+        spilling.startTestCase(uuid);
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final String stepUuid = randomId();
+            final String name = randomName();
+            names.add(name);
+            spilling.startStep(stepUuid, new StepResult().setName(name));
+            spilling.stopStep(stepUuid);
+        }
+        final String renamed = randomName();
+        spilling.updateTestCase(uuid, testResult -> testResult.getSteps().get(0).setName(renamed));
+        names.set(0, renamed);
+
+        assertThat(spill).isDirectoryContaining(file -> file.getFileName().toString().endsWith(".steps"));
+
+        spilling.stopTestCase(uuid);
+        assertThatThrownBy(() -> spilling.writeTestCase(uuid))
+                .isInstanceOf(AllureResultsWriteException.class);
+
+        assertThat(spill).isEmptyDirectory();
+        assertThat(result.getSteps())
+                .extracting(StepResult::getName)
+                .containsExactlyElementsOf(names);
+    }
+
+    private static Properties properties(final String name, final String value) {
+        final Properties properties = new Properties();
+        properties.setProperty(name, value);
+        return properties;
+    }
+
+    private void namedStep(final AllureLifecycle lifecycle, final String name, final Status status) {
+        final String uuid = randomId();
+        lifecycle.startStep(uuid, new StepResult().setName(name));
+        lifecycle.updateStep(uuid, step -> step.setStatus(Objects.isNull(status) ? Status.PASSED : status));
+        lifecycle.stopStep(uuid);
+    }
+
     private String randomStep(String parentUuid) {
         final String uuid = randomId();
         final String name = randomName();
@@ -16,15 +16,26 @@
 package io.qameta.allure;
 
 import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import io.qameta.allure.reader.AllureObjectMapperFactory;
+import io.qameta.allure.reader.AllureResultsDirectory;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static io.qameta.allure.FileSystemResultsWriter.generateTestResultName;
 import static io.qameta.allure.test.ThreadLocalEnhancedRandom.current;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author charlie (Dmitry Baev).
@@ -53,4 +64,151 @@ public class FileSystemResultsWriterTest {
         assertThat(folder.resolve(fileName))
                 .isRegularFile();
     }
+
+    @Test
+    void shouldParseFormatName() {
+        assertThat(AllureResultsFormat.fromName(" smile ")).isEqualTo(AllureResultsFormat.SMILE);
+        assertThat(AllureResultsFormat.fromName(null)).isEqualTo(AllureResultsFormat.JSON);
+        assertThat(AllureResultsFormat.fromName("yaml")).isEqualTo(AllureResultsFormat.JSON);
+    }
+
+    @Test
+    void shouldParseLayoutName() {
+        assertThat(AllureResultsLayout.fromName("Sharded")).isEqualTo(AllureResultsLayout.SHARDED);
+        assertThat(AllureResultsLayout.fromName("")).isEqualTo(AllureResultsLayout.FLAT);
+        assertThat(AllureResultsLayout.fromName("nested")).isEqualTo(AllureResultsLayout.FLAT);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = AllureResultsFormat.class, names = {"SMILE", "CBOR"})
+    void shouldWriteBinaryTestResult(final AllureResultsFormat format,
+                                     @TempDir final Path folder) throws IOException {
+        FileSystemResultsWriter writer = new FileSystemResultsWriter(folder, format);
+        final String uuid = UUID.randomUUID().toString();
+        final TestResult testResult = current().nextObject(TestResult.class, "steps").setUuid(uuid);
+        writer.write(testResult);
+
+        final Path file = folder.resolve(uuid + format.getTestResultSuffix());
+        assertThat(file)
+                .isRegularFile();
+
+        final Path renamed = Files.move(file, folder.resolve(uuid + ".bin"));
+        final TestResult actual = AllureObjectMapperFactory.createMapper(renamed)
+                .readValue(renamed.toFile(), TestResult.class);
+        assertThat(actual)
+                .usingRecursiveComparison()
+                .isEqualTo(testResult);
+    }
+
+    @Test
+    void shouldWriteShardedResults(@TempDir final Path folder) throws IOException {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.JSON, AllureResultsLayout.SHARDED
+        );
+        final String uuid = "3fa2b1c4-" + UUID.randomUUID().toString().substring(9);
+        writer.write(current().nextObject(TestResult.class, "steps").setUuid(uuid));
+        writer.write(new TestResultContainer().setUuid(UUID.randomUUID().toString()));
+        writer.write("custom.txt", new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+
+        final Path shard = folder.resolve("3f").resolve("a2");
+        assertThat(shard.resolve(generateTestResultName(uuid)))
+                .isRegularFile();
+
+        final AllureResultsDirectory directory = new AllureResultsDirectory(folder);
+        assertThat(directory.resolveAttachment("custom.txt"))
+                .hasContent("hello");
+
+        final Path flat = folder.resolve(generateTestResultName());
+        Files.write(flat, "{}".getBytes(StandardCharsets.UTF_8));
+
+        try (Stream<Path> results = directory.listTestResults()) {
+            assertThat(results)
+                    .containsExactlyInAnyOrder(shard.resolve(generateTestResultName(uuid)), flat);
+        }
+        try (Stream<Path> containers = directory.listTestResultContainers()) {
+            assertThat(containers)
+                    .hasSize(1);
+        }
+        try (Stream<Path> files = directory.listFiles()) {
+            assertThat(files)
+                    .hasSize(4);
+        }
+    }
+
+    @Test
+    void shouldWriteResultsAtomically(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.JSON, AllureResultsLayout.FLAT, true
+        );
+        final String uuid = UUID.randomUUID().toString();
+        final TestResult testResult = current().nextObject(TestResult.class, "steps").setUuid(uuid);
+        writer.write(testResult);
+        writer.write(uuid + "-attachment.txt", new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+        writer.flush();
+
+        try (Stream<Path> files = Files.list(folder)) {
+            assertThat(files)
+                    .containsExactlyInAnyOrder(
+                            folder.resolve(generateTestResultName(uuid)),
+                            folder.resolve(uuid + "-attachment.txt")
+                    );
+        }
+        final TestResult actual = AllureObjectMapperFactory.createMapper()
+                .readValue(folder.resolve(generateTestResultName(uuid)).toFile(), TestResult.class);
+        assertThat(actual)
+                .usingRecursiveComparison()
+                .isEqualTo(testResult);
+    }
+
+    @Test
+    void shouldReportFilesThatCouldNotBeCommitted(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.JSON, AllureResultsLayout.FLAT, true
+        );
+        final String blocked = UUID.randomUUID() + "-attachment.txt";
+        Files.createDirectories(folder.resolve(blocked).resolve("child"));
+
+        writer.write(blocked, new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+        assertThatThrownBy(writer::flush)
+                .isInstanceOf(AllureResultsWriteException.class)
+                .hasMessageContaining(blocked);
+
+        writer.write(blocked, new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+        final Path temp = folder.resolve("." + blocked + ".tmp");
+        while (Files.exists(temp)) {
+            Thread.sleep(10);
+        }
+        final TestResult testResult = new TestResult().setUuid(UUID.randomUUID().toString());
+        assertThatThrownBy(() -> writer.write(testResult))
+                .isInstanceOf(AllureResultsWriteException.class)
+                .hasMessageContaining(blocked);
+
+        writer.write(testResult);
+        writer.flush();
+        assertThat(folder.resolve(generateTestResultName(testResult.getUuid()))).exists();
+    }
+
+    @Test
+    void shouldShareCommitterBetweenWritersOfDirectory(@TempDir final Path folder) throws Exception {
+        final long before = countCommitterThreads();
+        for (int i = 0; i < 20; i++) {
+            final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                    folder, AllureResultsFormat.JSON, AllureResultsLayout.FLAT, true
+            );
+            writer.write(new TestResult().setUuid(UUID.randomUUID().toString()));
+            writer.flush();
+        }
+
+        assertThat(countCommitterThreads())
+                .isLessThanOrEqualTo(before + 1);
+        try (Stream<Path> files = Files.list(folder)) {
+            assertThat(files).hasSize(20);
+        }
+    }
+
+    private static long countCommitterThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> "allure-results-committer".equals(thread.getName()))
+                .count();
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.qameta.allure.model.FixtureResult;
+import io.qameta.allure.model.Link;
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import io.qameta.allure.reader.AllureObjectMapperFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+import static com.fasterxml.jackson.databind.MapperFeature.USE_WRAPPER_NAME_AS_PROPERTY_NAME;
+import static io.qameta.allure.test.ThreadLocalEnhancedRandom.current;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Allure2ModelSerializersTest {
+
+    private final ObjectMapper mapper = Allure2ModelJackson.createMapper();
+
+    private final ObjectMapper beanMapper = JsonMapper.builder()
+            .configure(USE_WRAPPER_NAME_AS_PROPERTY_NAME, true)
+            .serializationInclusion(NON_NULL)
+            .build()
+            .registerModule(new SimpleModule()
+                    .addSerializer(Status.class, new LowerCaseSerializer<>(Status.class))
+                    .addSerializer(Stage.class, new LowerCaseSerializer<>(Stage.class))
+                    .addSerializer(io.qameta.allure.model.Parameter.Mode.class,
+                            new LowerCaseSerializer<>(io.qameta.allure.model.Parameter.Mode.class))
+            );
+
+    @Test
+    void shouldWriteTestResultSameAsBeanSerializer() throws IOException {
+        final TestResult result = randomTestResult();
+
+        assertThat(mapper.writeValueAsString(result))
+                .isEqualTo(beanMapper.writeValueAsString(result));
+    }
+
+    @Test
+    void shouldWriteEmptyTestResultSameAsBeanSerializer() throws IOException {
+        final TestResult result = new TestResult()
+                .setSteps(Arrays.asList(new StepResult(), null))
+                .setLabels(null);
+
+        assertThat(mapper.writeValueAsString(result))
+                .isEqualTo(beanMapper.writeValueAsString(result));
+    }
+
+    @Test
+    void shouldWriteTestResultContainerSameAsBeanSerializer() throws IOException {
+        final TestResultContainer container = current()
+                .nextObject(TestResultContainer.class, "befores", "afters");
+        container.setBefores(new ArrayList<>(Arrays.asList(randomFixture(), randomFixture())));
+        container.setAfters(new ArrayList<>(Arrays.asList(randomFixture())));
+
+        assertThat(mapper.writeValueAsString(container))
+                .isEqualTo(beanMapper.writeValueAsString(container));
+
+        final TestResultContainer empty = new TestResultContainer();
+        assertThat(mapper.writeValueAsString(empty))
+                .isEqualTo(beanMapper.writeValueAsString(empty));
+    }
+
+    @Test
+    void shouldReadWrittenResultsWithAllureReader() throws IOException {
+        final ObjectMapper reader = AllureObjectMapperFactory.createMapper();
+        final TestResult result = randomTestResult();
+
+        final TestResult actual = reader.readValue(mapper.writeValueAsBytes(result), TestResult.class);
+
+        assertThat(actual)
+                .usingRecursiveComparison()
+                .isEqualTo(result);
+
+        final TestResultContainer container = current()
+                .nextObject(TestResultContainer.class, "befores", "afters");
+        container.getLinks().add(new Link().setName("link"));
+        container.setBefores(new ArrayList<>(Arrays.asList(randomFixture())));
+
+        assertThat(reader.readValue(mapper.writeValueAsBytes(container), TestResultContainer.class))
+                .usingRecursiveComparison()
+                .isEqualTo(container);
+    }
+
+    private static TestResult randomTestResult() {
+        final TestResult result = current().nextObject(TestResult.class, "steps");
+        final StepResult parent = randomStep();
+        parent.getSteps().add(randomStep());
+        parent.getSteps().add(randomStep().setStatus(null).setStatusDetails(null));
+        result.setSteps(new ArrayList<>(Arrays.asList(parent, randomStep())));
+        return result;
+    }
+
+    private static StepResult randomStep() {
+        return current().nextObject(StepResult.class, "steps");
+    }
+
+    private static FixtureResult randomFixture() {
+        final FixtureResult fixture = current().nextObject(FixtureResult.class, "steps");
+        fixture.getSteps().add(randomStep());
+        return fixture;
+    }
+
+    /**
+     * Serializes enums same way as {@link Allure2ModelJackson} does.
+     */
+    private static class LowerCaseSerializer<T extends Enum<T>> extends StdSerializer<T> {
+        protected LowerCaseSerializer(final Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public void serialize(final T value,
+                              final JsonGenerator gen,
+                              final SerializerProvider provider) throws IOException {
+            gen.writeString(value.name().toLowerCase(Locale.ENGLISH));
+        }
+    }
+}
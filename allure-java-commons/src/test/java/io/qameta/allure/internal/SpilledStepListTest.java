@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.internal;
+
+import io.qameta.allure.model.Stage;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpilledStepListTest {
+
+    @Test
+    void shouldNotWriteUnchangedStepsTwice(@TempDir final Path directory) throws IOException {
+        final SpilledStepList steps = new SpilledStepList(directory, "test", new ArrayList<>());
+        steps.add(finished("first"));
+        steps.add(finished("second"));
+        steps.spill();
+        final long size = spillFileSize(directory);
+
+        assertThat(steps.get(0).getName()).isEqualTo("first");
+        steps.spill();
+
+        assertThat(spillFileSize(directory)).isEqualTo(size);
+    }
+
+    @Test
+    void shouldWriteChangedStepsAgain(@TempDir final Path directory) throws IOException {
+        final SpilledStepList steps = new SpilledStepList(directory, "test", new ArrayList<>());
+        steps.add(finished("first"));
+        steps.add(finished("second"));
+        steps.spill();
+        final long size = spillFileSize(directory);
+
+        steps.get(0).setName("renamed");
+        steps.spill();
+
+        assertThat(spillFileSize(directory)).isGreaterThan(size);
+        assertThat(steps)
+                .extracting(StepResult::getName)
+                .containsExactly("renamed", "second");
+    }
+
+    @Test
+    void shouldForgetNotStoppedStepsOnRelease(@TempDir final Path directory) {
+        final AllureStepSpill spill = new AllureStepSpill(directory);
+        final String testUuid = UUID.randomUUID().toString();
+        final String stepUuid = UUID.randomUUID().toString();
+        final TestResult testResult = new TestResult().setUuid(testUuid);
+
+        spill.start(testUuid, stepUuid, testResult);
+        assertThat(spill.isRunning(stepUuid)).isTrue();
+
+        spill.release(testResult);
+
+        assertThat(spill.isRunning(stepUuid)).isFalse();
+        assertThat(testResult.getSteps()).isEmpty();
+    }
+
+    private static StepResult finished(final String name) {
+        return new StepResult().setName(name).setStage(Stage.FINISHED);
+    }
+
+    private static long spillFileSize(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            final Path file = files.findFirst()
+                    .orElseThrow(() -> new AssertionError("no spill file"));
+            return Files.size(file);
+        }
+    }
+}
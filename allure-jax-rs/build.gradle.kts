@@ -1,13 +1,15 @@
 description = "Allure JAX-RS Filter Integration"
 
 val javaxWsRsApiVersion = "2.1.1"
+// later versions implement jakarta.ws.rs
+val resteasyClientVersion = "4.7.9.Final"
 
 dependencies {
     api(project(":allure-attachments"))
     implementation("javax.ws.rs:javax.ws.rs-api:$javaxWsRsApiVersion")
     testImplementation("com.github.tomakehurst:wiremock")
     testImplementation("org.assertj:assertj-core")
-    testImplementation("org.jboss.resteasy:resteasy-client")
+    testImplementation("org.jboss.resteasy:resteasy-client:$resteasyClientVersion")
     testImplementation("org.junit.jupiter:junit-jupiter-api")
     testImplementation("org.mockito:mockito-core")
     testImplementation("org.slf4j:slf4j-simple")
@@ -27,24 +27,36 @@ import javax.ws.rs.client.ClientRequestContext;
 import javax.ws.rs.client.ClientRequestFilter;
 import javax.ws.rs.client.ClientResponseContext;
 import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
- * JAX-RS compatible filter.
+ * JAX-RS compatible filter. Supports async and reactive invocations: Allure context
+ * is captured in request filter, see {@link AllureJaxRsContext}, so response attachments
+ * are added to the same test or step even if response filter is called on another thread.
  */
 public class AllureJaxRs implements ClientRequestFilter, ClientResponseFilter {
 
+    /**
+     * The name of request property that holds {@link AllureJaxRsContext}.
+     */
+    public static final String CONTEXT_PROPERTY = AllureJaxRsContext.class.getName();
+
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+
     private final AttachmentRenderer<AttachmentData> requestRenderer;
     private final AttachmentRenderer<AttachmentData> responseRenderer;
     private final AttachmentProcessor<AttachmentData> processor;
+    private long responseBodyLimit = -1;
 
     @SuppressWarnings("unused")
     public AllureJaxRs() {
@@ -63,8 +75,25 @@ public class AllureJaxRs implements ClientRequestFilter, ClientResponseFilter {
         this.processor = processor;
     }
 
+    /**
+     * Enables streaming capture of response entities. The entity stream is passed to
+     * the caller as is, up to given number of bytes is recorded while the caller reads
+     * it, and response attachment is written once the stream is exhausted or closed,
+     * or once the test is stopped. Negative limit, that is the default, reads the whole
+     * entity into memory in response filter.
+     *
+     * @param limit the maximum number of response body bytes to capture.
+     * @return self for method chaining.
+     */
+    public AllureJaxRs setResponseBodyLimit(final long limit) {
+        this.responseBodyLimit = limit;
+        return this;
+    }
+
     @Override
     public void filter(final ClientRequestContext requestContext) {
+        final AllureJaxRsContext context = getContext(requestContext);
+        requestContext.setProperty(CONTEXT_PROPERTY, context);
 
         final String requestUrl = requestContext.getUri().toString();
         final Object requestBody = requestContext.getEntity();
@@ -78,35 +107,88 @@ public class AllureJaxRs implements ClientRequestFilter, ClientResponseFilter {
             requestAttachmentBuilder.setBody(requestBody.toString());
         }
 
-        final HttpRequestAttachment responseAttachment = requestAttachmentBuilder.build();
-        processor.addAttachment(responseAttachment, requestRenderer);
+        final HttpRequestAttachment requestAttachment = requestAttachmentBuilder.build();
+        addAttachment(context, requestAttachment, requestRenderer);
     }
 
     @Override
     public void filter(final ClientRequestContext requestContext,
                        final ClientResponseContext responseContext) throws IOException {
+        final AllureJaxRsContext context = getContext(requestContext);
 
         final HttpResponseAttachment.Builder responseAttachmentBuilder = HttpResponseAttachment.Builder
-                .create("Response")
+                .create(RESPONSE_ATTACHMENT_NAME)
                 .setResponseCode(responseContext.getStatus())
-                .setHeaders(toMapConverter(requestContext.getHeaders()));
+                .setHeaders(toMapConverter(responseContext.getHeaders()));
+
+        final InputStream entityStream = responseContext.getEntityStream();
+        final Charset charset = getCharset(responseContext);
+        if (Objects.nonNull(entityStream) && responseBodyLimit >= 0) {
+            final String source = context.prepareAttachment(
+                    RESPONSE_ATTACHMENT_NAME, responseRenderer.getContentType(), responseRenderer.getFileExtension()
+            );
+            responseContext.setEntityStream(new CapturingInputStream(
+                    entityStream, responseBodyLimit, charset, context.getTestUuid(),
+                    body -> context.writeAttachment(
+                            source, responseAttachmentBuilder.setBody(body).build(), responseRenderer
+                    )
+            ));
+            return;
+        }
 
-        if (Objects.nonNull(responseContext.getEntityStream())) {
-            responseAttachmentBuilder.setBody(getBody(responseContext));
+        if (Objects.nonNull(entityStream)) {
+            responseAttachmentBuilder.setBody(getBody(responseContext, charset));
         }
 
         final HttpResponseAttachment responseAttachment = responseAttachmentBuilder.build();
-        processor.addAttachment(responseAttachment, responseRenderer);
+        addAttachment(context, responseAttachment, responseRenderer);
     }
 
-    private static Map<String, String> toMapConverter(final MultivaluedMap<String, Object> map) {
+    private void addAttachment(final AllureJaxRsContext context,
+                               final AttachmentData data,
+                               final AttachmentRenderer<AttachmentData> renderer) {
+        if (context.isCurrent()) {
+            processor.addAttachment(data, renderer);
+        } else {
+            context.addAttachment(data, renderer);
+        }
+    }
+
+    private static AllureJaxRsContext getContext(final ClientRequestContext requestContext) {
+        final Object context = requestContext.getProperty(CONTEXT_PROPERTY);
+        return context instanceof AllureJaxRsContext
+                ? (AllureJaxRsContext) context
+                : AllureJaxRsContext.current();
+    }
+
+    private static Map<String, String> toMapConverter(final MultivaluedMap<String, ?> map) {
         return map.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toString()));
     }
 
-    private String getBody(final ClientResponseContext responseContext) throws IOException {
-        try (InputStream stream = responseContext.getEntityStream();
-             ByteArrayOutputStream result = new ByteArrayOutputStream()) {
+    /**
+     * Reads the entity and replaces it with in-memory copy. The original stream is left
+     * to the client to close, as some clients close the whole response along with it.
+     */
+    private static Charset getCharset(final ClientResponseContext responseContext) {
+        final MediaType mediaType = responseContext.getMediaType();
+        final String charset = Objects.isNull(mediaType)
+                ? null
+                : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        if (Objects.isNull(charset)) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(charset);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private String getBody(final ClientResponseContext responseContext,
+                           final Charset charset) throws IOException {
+        final InputStream stream = responseContext.getEntityStream();
+        try (ByteArrayOutputStream result = new ByteArrayOutputStream()) {
             final byte[] buffer = new byte[1024];
 
             int length = stream.read(buffer);
@@ -115,7 +197,7 @@ public class AllureJaxRs implements ClientRequestFilter, ClientResponseFilter {
                 length = stream.read(buffer);
             }
             responseContext.setEntityStream(new ByteArrayInputStream(result.toByteArray()));
-            return result.toString(StandardCharsets.UTF_8.toString());
+            return result.toString(charset.name());
         }
     }
 }
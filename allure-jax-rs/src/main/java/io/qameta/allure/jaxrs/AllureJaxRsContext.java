@@ -0,0 +1,127 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.jaxrs;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Snapshot of Allure context taken when request is sent. Response filters of async
+ * invocations are called on client pool threads, that either have no Allure context
+ * or have the context of another test, so attachments are added to the test or step
+ * stored in the snapshot instead.
+ *
+ * <p>{@link AllureJaxRs} takes the snapshot in request filter. If request filters
+ * are called on pool threads as well, as RESTEasy does, take the snapshot on the
+ * calling thread and pass it as request property:
+ * {@code target.request().property(AllureJaxRs.CONTEXT_PROPERTY, AllureJaxRsContext.current()).async().get()}.
+ */
+public final class AllureJaxRsContext {
+
+    private final AllureLifecycle lifecycle;
+
+    private final String uuid;
+
+    private final String testUuid;
+
+    private AllureJaxRsContext(final AllureLifecycle lifecycle, final String uuid, final String testUuid) {
+        this.lifecycle = lifecycle;
+        this.uuid = uuid;
+        this.testUuid = testUuid;
+    }
+
+    /**
+     * Takes snapshot of Allure context of the current thread.
+     *
+     * @return the snapshot.
+     */
+    public static AllureJaxRsContext current() {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        return new AllureJaxRsContext(
+                lifecycle,
+                lifecycle.getCurrentTestCaseOrStep().orElse(null),
+                lifecycle.getCurrentTestCase().orElse(null)
+        );
+    }
+
+    /**
+     * Returns uuid of the test case or step that was running when the snapshot was taken.
+     *
+     * @return the uuid, empty if no test was running.
+     */
+    public Optional<String> getUuid() {
+        return Optional.ofNullable(uuid);
+    }
+
+    /**
+     * Returns uuid of the test case that was running when the snapshot was taken, or null.
+     */
+    String getTestUuid() {
+        return testUuid;
+    }
+
+    /**
+     * Checks whether the current thread has the same Allure context.
+     */
+    boolean isCurrent() {
+        return Objects.equals(uuid, lifecycle.getCurrentTestCaseOrStep().orElse(null));
+    }
+
+    /**
+     * Links attachment to the test case or step of the snapshot.
+     *
+     * @return the source of attachment.
+     */
+    String prepareAttachment(final String name, final String type, final String fileExtension) {
+        return Objects.isNull(uuid)
+                ? lifecycle.prepareAttachment(name, type, fileExtension)
+                : lifecycle.prepareAttachment(uuid, name, type, fileExtension);
+    }
+
+    /**
+     * Renders and adds attachment to the test case or step of the snapshot.
+     */
+    void addAttachment(final AttachmentData data, final AttachmentRenderer<AttachmentData> renderer) {
+        final AttachmentContent content = renderer.render(data);
+        final String source = prepareAttachment(
+                data.getName(), content.getContentType(), content.getFileExtension()
+        );
+        write(source, content);
+    }
+
+    /**
+     * Renders and writes content of prepared attachment.
+     */
+    void writeAttachment(final String source,
+                         final AttachmentData data,
+                         final AttachmentRenderer<AttachmentData> renderer) {
+        write(source, renderer.render(data));
+    }
+
+    private void write(final String source, final AttachmentContent content) {
+        lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                content.getContent().getBytes(StandardCharsets.UTF_8)
+        ));
+    }
+}
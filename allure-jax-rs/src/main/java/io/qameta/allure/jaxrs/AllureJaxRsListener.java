@@ -0,0 +1,54 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.jaxrs;
+
+import io.qameta.allure.listener.TestLifecycleListener;
+import io.qameta.allure.model.TestResult;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes response attachments of entity streams captured by {@link AllureJaxRs} that
+ * were neither read to the end nor closed by the time the test is stopped, so attachment
+ * contains the response with the part of body read so far. Registered as
+ * {@link TestLifecycleListener} service.
+ */
+public class AllureJaxRsListener implements TestLifecycleListener {
+
+    private static final Map<String, Set<CapturingInputStream>> PENDING = new ConcurrentHashMap<>();
+
+    @Override
+    public void beforeTestStop(final TestResult result) {
+        final Set<CapturingInputStream> streams = PENDING.remove(result.getUuid());
+        if (Objects.nonNull(streams)) {
+            streams.forEach(CapturingInputStream::finish);
+        }
+    }
+
+    static void track(final String testUuid, final CapturingInputStream stream) {
+        PENDING.computeIfAbsent(testUuid, uuid -> ConcurrentHashMap.newKeySet()).add(stream);
+    }
+
+    static void untrack(final String testUuid, final CapturingInputStream stream) {
+        PENDING.computeIfPresent(testUuid, (uuid, streams) -> {
+            streams.remove(stream);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.jaxrs;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Entity stream that records up to given number of bytes while the caller reads it,
+ * and passes them to the callback once the stream is exhausted or closed, or once the
+ * test it was received in is stopped, see {@link AllureJaxRsListener}. The entity
+ * is never buffered as a whole, so streaming responses keep streaming.
+ */
+class CapturingInputStream extends FilterInputStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapturingInputStream.class);
+
+    private final BoundedBodyCapture captured;
+
+    private final Charset charset;
+
+    private final Consumer<String> callback;
+
+    private final String testUuid;
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Creates capturing stream.
+     *
+     * @param delegate the entity stream.
+     * @param limit    the maximum number of bytes to capture.
+     * @param charset  the charset to decode captured bytes with.
+     * @param testUuid the uuid of test to write attachment when stopped, or null.
+     * @param callback the callback to pass captured body to.
+     */
+    CapturingInputStream(final InputStream delegate,
+                         final long limit,
+                         final Charset charset,
+                         final String testUuid,
+                         final Consumer<String> callback) {
+        super(delegate);
+        this.captured = new BoundedBodyCapture(limit);
+        this.charset = charset;
+        this.testUuid = testUuid;
+        this.callback = callback;
+        if (Objects.nonNull(testUuid)) {
+            AllureJaxRsListener.track(testUuid, this);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+        if (value == -1) {
+            finish();
+        } else {
+            synchronized (captured) {
+                captured.write(value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        final int read = super.read(bytes, offset, length);
+        if (read == -1) {
+            finish();
+        } else {
+            synchronized (captured) {
+                captured.write(bytes, offset, read);
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Passes the bytes captured so far to the callback. Only the first call has effect.
+     */
+    void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (Objects.nonNull(testUuid)) {
+            AllureJaxRsListener.untrack(testUuid, this);
+        }
+        final String body;
+        synchronized (captured) {
+            body = captured.getBody(charset);
+        }
+        try {
+            callback.accept(body);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not add response attachment", e);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.jaxrs;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentProcessor;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.test.AllureResults;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.client.Invocation;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static io.qameta.allure.test.RunUtils.runWithinTestContext;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Sends concurrent async and reactive invocations through a real client. Client pool
+ * threads are started outside of test context, so they don't inherit it, and filters
+ * of each invocation are called on them rather than on the calling thread.
+ */
+@SuppressWarnings("PMD.JUnitTestContainsTooManyAsserts")
+class AllureJaxRsAsyncTest {
+
+    private static final int IN_FLIGHT = 200;
+    private static final int POOL_SIZE = 16;
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final String RESPONSE_BODY = "Response body ";
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String LATIN_BODY = "Größe";
+    private static final String LATIN_PATH = "latin";
+
+    private WireMockServer server;
+
+    private ExecutorService pool;
+
+    private ThreadRecorder threads;
+
+    private Client client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new WireMockServer(options().dynamicPort());
+        server.start();
+        server.stubFor(get(urlPathMatching("/hello/\\d+")).willReturn(aResponse()
+                .withHeader(CONTENT_TYPE, "text/plain; charset=UTF-8")
+                .withBody(RESPONSE_BODY + "{{request.pathSegments.[1]}}")
+                .withTransformers("response-template")));
+        server.stubFor(get(urlPathEqualTo("/" + LATIN_PATH)).willReturn(aResponse()
+                .withHeader(CONTENT_TYPE, "text/plain; charset=ISO-8859-1")
+                .withBody(LATIN_BODY.getBytes(StandardCharsets.ISO_8859_1))));
+
+        pool = Executors.newFixedThreadPool(POOL_SIZE);
+        // start pool threads outside of test context, so they don't inherit it
+        final CountDownLatch started = new CountDownLatch(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool.execute(() -> {
+                started.countDown();
+                awaitQuietly(started);
+            });
+        }
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        threads = new ThreadRecorder();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (Objects.nonNull(client)) {
+            client.close();
+        }
+        pool.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    void shouldAttachResponsesOfConcurrentAsyncInvocations() {
+        final AllureJaxRs filter = new AllureJaxRs();
+
+        final AllureResults results = runWithinTestContext(() -> invokeConcurrently(filter));
+
+        assertAttachedToTest(results);
+        assertThat(getResponseContents(results))
+                .containsExactlyInAnyOrderElementsOf(expectedBodies());
+        assertFiltersCalledOnPool();
+    }
+
+    @Test
+    void shouldCaptureBoundedEntityStreamsOfConcurrentAsyncInvocations() {
+        final AllureJaxRs filter = new AllureJaxRs().setResponseBodyLimit(RESPONSE_BODY.length());
+
+        final AllureResults results = runWithinTestContext(() -> invokeConcurrently(filter));
+
+        assertAttachedToTest(results);
+        assertThat(getResponseContents(results))
+                .allSatisfy(content -> assertThat(content)
+                        .contains(RESPONSE_BODY)
+                        .containsPattern("\\d+ more bytes truncated"));
+        assertFiltersCalledOnPool();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void shouldUseProcessorForSynchronousInvocations() {
+        final AttachmentRenderer<AttachmentData> requestRenderer = mock(AttachmentRenderer.class);
+        final AttachmentRenderer<AttachmentData> responseRenderer = mock(AttachmentRenderer.class);
+        final AttachmentProcessor<AttachmentData> processor = mock(AttachmentProcessor.class);
+        final AllureJaxRs filter = new AllureJaxRs(requestRenderer, responseRenderer, processor);
+
+        assertThat(request(filter, 0).get(String.class)).isEqualTo(RESPONSE_BODY + 0);
+
+        verify(processor, times(1)).addAttachment(any(AttachmentData.class), eq(requestRenderer));
+        verify(processor, times(1)).addAttachment(any(AttachmentData.class), eq(responseRenderer));
+    }
+
+    @Test
+    void shouldDecodeResponseBodyWithContentTypeCharset() {
+        assertLatinBodyAttached(new AllureJaxRs());
+    }
+
+    @Test
+    void shouldDecodeCapturedEntityStreamWithContentTypeCharset() {
+        assertLatinBodyAttached(new AllureJaxRs().setResponseBodyLimit(1024));
+    }
+
+    @Test
+    void shouldWriteResponseAttachmentWhenEntityIsNotReadBeforeTestStop() {
+        final AllureJaxRs filter = new AllureJaxRs().setResponseBodyLimit(1024);
+
+        final AllureResults results = runWithinTestContext(() -> assertThat(
+                request(filter, 0).get().getStatus()
+        ).isEqualTo(200));
+
+        assertThat(getResponseContents(results))
+                .hasSize(1)
+                .allSatisfy(content -> assertThat(content)
+                        .contains("200")
+                        .doesNotContain(RESPONSE_BODY));
+    }
+
+    private void assertLatinBodyAttached(final AllureJaxRs filter) {
+        final AllureResults results = runWithinTestContext(() -> assertThat(
+                request(filter, LATIN_PATH).get(String.class)
+        ).isEqualTo(LATIN_BODY));
+
+        assertThat(getResponseContents(results))
+                .hasSize(1)
+                .allSatisfy(content -> assertThat(content).contains(LATIN_BODY));
+    }
+
+    /**
+     * Sends half of invocations with {@code async()} and half with {@code rx()}. RESTEasy
+     * calls request filters on pool threads too, so the context is passed as request property.
+     */
+    private void invokeConcurrently(final AllureJaxRs filter) {
+        final List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            final Invocation.Builder request = request(filter, i)
+                    .property(AllureJaxRs.CONTEXT_PROPERTY, AllureJaxRsContext.current());
+            futures.add(i % 2 == 0
+                    ? toCompletable(request.async().get(String.class))
+                    : request.rx().get(String.class).toCompletableFuture());
+        }
+        assertThat(futures)
+                .extracting(future -> future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .containsExactlyInAnyOrderElementsOf(expectedBodies());
+    }
+
+    private Invocation.Builder request(final AllureJaxRs filter, final int index) {
+        return request(filter, "hello/" + index);
+    }
+
+    private Invocation.Builder request(final AllureJaxRs filter, final String path) {
+        if (Objects.isNull(client)) {
+            client = ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+                    .connectionPoolSize(POOL_SIZE)
+                    .maxPooledPerRoute(POOL_SIZE)
+                    .executorService(pool)
+                    .register(threads)
+                    .register(filter)
+                    .build();
+        }
+        return client.target(server.baseUrl())
+                .path(path)
+                .request();
+    }
+
+    private void assertFiltersCalledOnPool() {
+        assertThat(threads.requestThreads)
+                .hasSize(IN_FLIGHT)
+                .doesNotContainValue(threads.callingThread);
+        assertThat(threads.responseThreads)
+                .hasSize(IN_FLIGHT)
+                .doesNotContainValue(threads.callingThread);
+        assertThat(new HashSet<>(threads.requestThreads.values()))
+                .hasSizeGreaterThan(1);
+    }
+
+    private static CompletableFuture<String> toCompletable(final Future<String> future) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void assertAttachedToTest(final AllureResults results) {
+        assertThat(results.getTestResults())
+                .hasSize(1)
+                .extracting(TestResult::getStatus)
+                .containsOnlyNulls();
+        final List<Attachment> attachments = results.getTestResults().get(0).getAttachments();
+        assertThat(attachments)
+                .hasSize(IN_FLIGHT * 2)
+                .extracting(Attachment::getSource)
+                .allSatisfy(source -> assertThat(results.getAttachments()).containsKey(source));
+        assertThat(attachments)
+                .filteredOn(attachment -> RESPONSE_ATTACHMENT_NAME.equals(attachment.getName()))
+                .hasSize(IN_FLIGHT);
+    }
+
+    private static List<String> getResponseContents(final AllureResults results) {
+        return results.getTestResults().get(0).getAttachments().stream()
+                .filter(attachment -> RESPONSE_ATTACHMENT_NAME.equals(attachment.getName()))
+                .map(attachment -> new String(
+                        results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8
+                ))
+                .map(AllureJaxRsAsyncTest::extractBody)
+                .collect(Collectors.toList());
+    }
+
+    private static String extractBody(final String content) {
+        final int start = content.indexOf(RESPONSE_BODY);
+        return start < 0 ? content : content.substring(start, content.indexOf('<', start)).trim();
+    }
+
+    private static List<String> expectedBodies() {
+        return IntStream.range(0, IN_FLIGHT)
+                .mapToObj(index -> RESPONSE_BODY + index)
+                .collect(Collectors.toList());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records threads request and response filters of each invocation are called on.
+     */
+    private static final class ThreadRecorder implements ClientRequestFilter, ClientResponseFilter {
+
+        private final Thread callingThread = Thread.currentThread();
+
+        private final Map<String, Thread> requestThreads = new ConcurrentHashMap<>();
+
+        private final Map<String, Thread> responseThreads = new ConcurrentHashMap<>();
+
+        @Override
+        public void filter(final ClientRequestContext requestContext) {
+            requestThreads.put(requestContext.getUri().getPath(), Thread.currentThread());
+        }
+
+        @Override
+        public void filter(final ClientRequestContext requestContext, final ClientResponseContext responseContext) {
+            responseThreads.put(requestContext.getUri().getPath(), Thread.currentThread());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.junitplatform;
+
+import io.qameta.allure.testfilter.TestOrder;
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Orders test classes by {@link TestOrder}, so classes with tests that failed in
+ * previous run are executed first. Can be enabled with
+ * {@code junit.jupiter.testclass.order.default=io.qameta.allure.junitplatform.AllureClassOrderer}
+ * configuration parameter.
+ */
+public class AllureClassOrderer implements ClassOrderer {
+
+    private final TestOrder order;
+
+    public AllureClassOrderer() {
+        this(TestOrder.load());
+    }
+
+    public AllureClassOrderer(final TestOrder order) {
+        this.order = order;
+    }
+
+    @Override
+    public void orderClasses(final ClassOrdererContext context) {
+        if (!order.isEnabled()) {
+            return;
+        }
+        final Map<ClassDescriptor, Long> ranks = new IdentityHashMap<>();
+        for (ClassDescriptor descriptor : context.getClassDescriptors()) {
+            ranks.put(descriptor, order.getRank(descriptor.getTestClass()));
+        }
+        context.getClassDescriptors().sort(Comparator.comparingLong(ranks::get));
+    }
+}
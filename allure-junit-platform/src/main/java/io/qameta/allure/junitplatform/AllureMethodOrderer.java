@@ -0,0 +1,57 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.junitplatform;
+
+import io.qameta.allure.testfilter.TestOrder;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Orders test methods by {@link TestOrder}, so tests that failed in previous run
+ * are executed first. Can be enabled with
+ * {@code junit.jupiter.testmethod.order.default=io.qameta.allure.junitplatform.AllureMethodOrderer}
+ * configuration parameter.
+ */
+public class AllureMethodOrderer implements MethodOrderer {
+
+    private final TestOrder order;
+
+    public AllureMethodOrderer() {
+        this(TestOrder.load());
+    }
+
+    public AllureMethodOrderer(final TestOrder order) {
+        this.order = order;
+    }
+
+    @Override
+    public void orderMethods(final MethodOrdererContext context) {
+        if (!order.isEnabled()) {
+            return;
+        }
+        final Class<?> testClass = context.getTestClass();
+        final Map<MethodDescriptor, Long> ranks = new IdentityHashMap<>();
+        for (MethodDescriptor descriptor : context.getMethodDescriptors()) {
+            ranks.put(descriptor, order.getRank(testClass, descriptor.getMethod()));
+        }
+        context.getMethodDescriptors().sort(Comparator.comparingLong(ranks::get));
+    }
+}
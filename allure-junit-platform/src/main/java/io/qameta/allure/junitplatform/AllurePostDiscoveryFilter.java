@@ -18,7 +18,7 @@ package io.qameta.allure.junitplatform;
 import io.qameta.allure.model.Label;
 import io.qameta.allure.testfilter.FileTestPlanSupplier;
 import io.qameta.allure.testfilter.TestPlan;
-import io.qameta.allure.testfilter.TestPlanV1_0;
+import io.qameta.allure.testfilter.TestShard;
 import io.qameta.allure.util.AnnotationUtils;
 import org.junit.platform.engine.FilterResult;
 import org.junit.platform.engine.TestDescriptor;
@@ -27,10 +27,14 @@ import org.junit.platform.launcher.PostDiscoveryFilter;
 
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static io.qameta.allure.util.ResultsUtils.ALLURE_ID_LABEL_NAME;
 
@@ -43,56 +47,83 @@ public class AllurePostDiscoveryFilter implements PostDiscoveryFilter {
 
     private final TestPlan testPlan;
 
+    private final TestShard shard;
+
+    private final AtomicReference<Selection> selection = new AtomicReference<>();
+
     public AllurePostDiscoveryFilter() {
-        this(new FileTestPlanSupplier().supply().orElse(null));
+        this(new FileTestPlanSupplier().supply().orElse(null), TestShard.load());
     }
 
     public AllurePostDiscoveryFilter(final TestPlan testPlan) {
+        this(testPlan, TestShard.ALL);
+    }
+
+    public AllurePostDiscoveryFilter(final TestPlan testPlan, final TestShard shard) {
         this.testPlan = testPlan;
+        this.shard = shard;
     }
 
     @Override
     public FilterResult apply(final TestDescriptor object) {
-        if (Objects.isNull(testPlan)) {
+        if (Objects.isNull(testPlan) && shard.isSelectingAll()) {
             return FilterResult.included("test plan is empty");
         }
         if (!object.getChildren().isEmpty()) {
             return FilterResult.included("filter only applied for tests");
         }
 
-        final String allureId = findAllureId(object);
-        final String uniqueId = object.getUniqueId().toString();
-        final String fullName = object.getSource()
-                .flatMap(AllureJunitPlatformUtils::getFullName)
-                .orElse(null);
-
+        if (!isInTestPlan(object)) {
+            return FilterResult.excluded("test is not in test plan");
+        }
         return FilterResult.includedIf(
-                isIncluded(testPlan, allureId, uniqueId, fullName)
+                shard.isSelectingAll() || getSelection(object).contains(getShardKey(object))
+        );
+    }
+
+    private boolean isInTestPlan(final TestDescriptor object) {
+        return Objects.isNull(testPlan) || testPlan.getIndex().isSelected(
+                findAllureId(object), object.getUniqueId().toString(), findFullName(object)
+        );
+    }
+
+    private String getShardKey(final TestDescriptor object) {
+        final String fullName = findFullName(object);
+        return TestShard.getKey(
+                findAllureId(object),
+                Objects.isNull(fullName) ? object.getUniqueId().toString() : fullName
         );
     }
 
-    private boolean isIncluded(final TestPlan testPlan,
-                               final String allureId,
-                               final String uniqueId,
-                               final String fullName) {
-        if (testPlan instanceof TestPlanV1_0) {
-            final TestPlanV1_0 tp = (TestPlanV1_0) testPlan;
-            return Objects.isNull(tp.getTests()) || tp.getTests()
-                    .stream()
-                    .filter(Objects::nonNull)
-                    .anyMatch(tc -> match(tc, allureId, uniqueId, fullName));
+    /**
+     * Shards all the tests of discovered engine at once, when the first of them
+     * is filtered, so tests are balanced among the tests that are going to run.
+     */
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    private Set<String> getSelection(final TestDescriptor object) {
+        TestDescriptor root = object;
+        while (root.getParent().isPresent()) {
+            root = root.getParent().get();
+        }
+        final Selection current = selection.get();
+        // descriptors do not override equals, so compare references
+        if (Objects.nonNull(current) && current.root == root) {
+            return current.keys;
         }
-        return true;
+        final List<String> keys = root.getDescendants().stream()
+                .filter(descriptor -> descriptor.getChildren().isEmpty())
+                .filter(this::isInTestPlan)
+                .map(this::getShardKey)
+                .collect(Collectors.toList());
+        final Selection created = new Selection(root, shard.select(keys));
+        selection.set(created);
+        return created.keys;
     }
 
-    @SuppressWarnings("BooleanExpressionComplexity")
-    private boolean match(final TestPlanV1_0.TestCase tc,
-                          final String allureId,
-                          final String uniqueId,
-                          final String fullName) {
-        return Objects.nonNull(tc.getId()) && tc.getId().equals(allureId)
-                || Objects.nonNull(tc.getSelector()) && tc.getSelector().equals(uniqueId)
-                || Objects.nonNull(tc.getSelector()) && tc.getSelector().equals(fullName);
+    private String findFullName(final TestDescriptor object) {
+        return object.getSource()
+                .flatMap(AllureJunitPlatformUtils::getFullName)
+                .orElse(null);
     }
 
     private String findAllureId(final TestDescriptor object) {
@@ -125,4 +156,19 @@ public class AllurePostDiscoveryFilter implements PostDiscoveryFilter {
                 .findAny();
     }
 
+    /**
+     * Tests of shard among the tests of discovered engine.
+     */
+    private static final class Selection {
+
+        private final TestDescriptor root;
+
+        private final Set<String> keys;
+
+        private Selection(final TestDescriptor root, final Set<String> keys) {
+            this.root = root;
+            this.keys = keys;
+        }
+    }
+
 }
@@ -19,6 +19,7 @@ import io.qameta.allure.Step;
 import io.qameta.allure.test.AllureResults;
 import io.qameta.allure.test.RunUtils;
 import io.qameta.allure.testfilter.TestPlan;
+import io.qameta.allure.testfilter.TestShard;
 import org.junit.platform.engine.discovery.ClassSelector;
 import org.junit.platform.engine.discovery.DiscoverySelectors;
 import org.junit.platform.launcher.Launcher;
@@ -45,13 +46,20 @@ public final class AllureJunitPlatformTestUtils {
 
     @Step("Run classes {classes}")
     public static AllureResults runClasses(final TestPlan testPlan, final Class<?>... classes) {
+        return runClasses(testPlan, TestShard.ALL, classes);
+    }
+
+    @Step("Run classes {classes}")
+    public static AllureResults runClasses(final TestPlan testPlan,
+                                           final TestShard shard,
+                                           final Class<?>... classes) {
         return RunUtils.runTests(lifecycle -> {
             final ClassSelector[] classSelectors = Stream.of(classes)
                     .map(DiscoverySelectors::selectClass)
                     .toArray(ClassSelector[]::new);
 
             final LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
-                    .filters(new AllurePostDiscoveryFilter(testPlan))
+                    .filters(new AllurePostDiscoveryFilter(testPlan, shard))
                     .selectors(classSelectors)
                     .build();
 
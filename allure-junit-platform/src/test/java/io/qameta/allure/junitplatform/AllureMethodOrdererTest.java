@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.junitplatform;
+
+import io.qameta.allure.junitplatform.features.FilterSimpleTests;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.testfilter.TestHistory;
+import io.qameta.allure.testfilter.TestOrder;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllureMethodOrdererTest {
+
+    @Test
+    void shouldRunUnstableTestsFirst() {
+        final TestHistory history = new TestHistory.Builder()
+                .add(testResult("10", "first", 100, Status.PASSED))
+                .add(testResult("20", "second", 500, Status.FAILED))
+                .build();
+
+        assertThat(order(new TestOrder(history)))
+                .containsExactly("second", "third", "first");
+    }
+
+    @Test
+    void shouldRunFasterTestsFirst() {
+        final TestHistory history = new TestHistory.Builder()
+                .add(testResult("10", "first", 300, Status.PASSED))
+                .add(testResult("20", "second", 200, Status.PASSED))
+                .add(testResult(null, "third", 100, Status.PASSED))
+                .build();
+
+        assertThat(order(new TestOrder(history)))
+                .containsExactly("third", "second", "first");
+    }
+
+    @Test
+    void shouldKeepOrderIfNoHistoryProvided() {
+        assertThat(order(TestOrder.NONE))
+                .containsExactly("first", "second", "third");
+    }
+
+    private static List<String> order(final TestOrder order) {
+        final Context context = new Context(FilterSimpleTests.class, "first", "second", "third");
+        new AllureMethodOrderer(order).orderMethods(context);
+        return context.descriptors.stream()
+                .map(descriptor -> descriptor.getMethod().getName())
+                .collect(Collectors.toList());
+    }
+
+    private static TestResult testResult(final String allureId, final String method,
+                                         final long duration, final Status status) {
+        final TestResult result = new TestResult()
+                .setUuid(method)
+                .setFullName(String.format("%s.%s", FilterSimpleTests.class.getName(), method))
+                .setStatus(status)
+                .setStart(0L)
+                .setStop(duration);
+        if (allureId != null) {
+            result.getLabels().add(new Label().setName("AS_ID").setValue(allureId));
+        }
+        return result;
+    }
+
+    private static class Context implements MethodOrdererContext {
+
+        private final Class<?> testClass;
+
+        private final List<Descriptor> descriptors;
+
+        Context(final Class<?> testClass, final String... methods) {
+            this.testClass = testClass;
+            this.descriptors = Arrays.stream(methods)
+                    .map(name -> new Descriptor(getMethod(testClass, name)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        @Override
+        public Class<?> getTestClass() {
+            return testClass;
+        }
+
+        @Override
+        public List<? extends MethodDescriptor> getMethodDescriptors() {
+            return descriptors;
+        }
+
+        @Override
+        public Optional<String> getConfigurationParameter(final String key) {
+            return Optional.empty();
+        }
+
+        private static Method getMethod(final Class<?> testClass, final String name) {
+            try {
+                return testClass.getDeclaredMethod(name);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class Descriptor implements MethodDescriptor {
+
+        private final Method method;
+
+        Descriptor(final Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return method.getName();
+        }
+
+        @Override
+        public boolean isAnnotated(final Class<? extends Annotation> annotationType) {
+            return method.isAnnotationPresent(annotationType);
+        }
+
+        @Override
+        public <A extends Annotation> Optional<A> findAnnotation(final Class<A> annotationType) {
+            return Optional.ofNullable(method.getAnnotation(annotationType));
+        }
+
+        @Override
+        public <A extends Annotation> List<A> findRepeatableAnnotations(final Class<A> annotationType) {
+            return Arrays.asList(method.getAnnotationsByType(annotationType));
+        }
+    }
+}
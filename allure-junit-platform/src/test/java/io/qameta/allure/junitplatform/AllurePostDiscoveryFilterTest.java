@@ -15,14 +15,22 @@
  */
 package io.qameta.allure.junitplatform;
 
+import io.qameta.allure.junitplatform.features.FilterHashCollisionTests;
 import io.qameta.allure.junitplatform.features.FilterParameterizedTests;
 import io.qameta.allure.junitplatform.features.FilterSimpleTests;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.TestResult;
 import io.qameta.allure.test.AllureResults;
+import io.qameta.allure.testfilter.TestHistory;
 import io.qameta.allure.testfilter.TestPlan;
 import io.qameta.allure.testfilter.TestPlanV1_0;
+import io.qameta.allure.testfilter.TestShard;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static io.qameta.allure.junitplatform.AllureJunitPlatformTestUtils.runClasses;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -134,6 +142,111 @@ public class AllurePostDiscoveryFilterTest {
                 .hasSize(4);
     }
 
+    @Test
+    void shouldSelectTestsWithCollidingAllureIdHash() {
+        final TestPlan testPlan = new TestPlanV1_0().setTests(Arrays.asList(
+                new TestPlanV1_0.TestCase()
+                        .setId("\u4EF8\u4E80\u4E19\u4E3B\u4EA2\u4EC4\u4EDC\u4ECC")
+        ));
+
+        final AllureResults results = runClasses(testPlan, FilterHashCollisionTests.class);
+        assertThat(results.getTestResults())
+                .extracting(TestResult::getName)
+                .containsExactly("colliding()");
+    }
+
+    @Test
+    void shouldSplitTestsBetweenShards() {
+        final List<String> fullNames = new ArrayList<>();
+        final int count = 3;
+        for (int index = 0; index < count; index++) {
+            final AllureResults results = runClasses(
+                    null, TestShard.of(index, count), FilterParameterizedTests.class
+            );
+            results.getTestResults().stream()
+                    .map(TestResult::getFullName)
+                    .forEach(fullNames::add);
+        }
+
+        assertThat(fullNames)
+                .hasSize(6)
+                .containsAll(runClasses(FilterParameterizedTests.class).getTestResults().stream()
+                        .map(TestResult::getFullName)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    void shouldApplyTestPlanBeforeSharding() {
+        final TestPlan testPlan = new TestPlanV1_0().setTests(Arrays.asList(
+                new TestPlanV1_0.TestCase()
+                        .setId("10")
+        ));
+
+        final AllureResults first = runClasses(testPlan, TestShard.of(0, 2), FilterSimpleTests.class);
+        final AllureResults second = runClasses(testPlan, TestShard.of(1, 2), FilterSimpleTests.class);
+
+        assertThat(first.getTestResults().size() + second.getTestResults().size())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldBalanceShardsByTestDurations() {
+        final TestHistory history = new TestHistory.Builder()
+                .add(testResult("10", "first", 100))
+                .add(testResult("20", "second", 60))
+                .add(testResult(null, "third", 50))
+                .build();
+
+        final AllureResults first = runClasses(
+                null, TestShard.of(0, 2).withHistory(history), FilterSimpleTests.class
+        );
+        final AllureResults second = runClasses(
+                null, TestShard.of(1, 2).withHistory(history), FilterSimpleTests.class
+        );
+
+        assertThat(first.getTestResults())
+                .extracting(TestResult::getName)
+                .containsExactly("first()");
+        assertThat(second.getTestResults())
+                .extracting(TestResult::getName)
+                .containsExactlyInAnyOrder("second()", "third()");
+    }
+
+    @Test
+    void shouldBalanceOnlyDiscoveredTests() {
+        final TestHistory history = new TestHistory.Builder()
+                .add(testResult(null, "removed", 1000))
+                .add(testResult("10", "first", 100))
+                .add(testResult("20", "second", 60))
+                .add(testResult(null, "third", 50))
+                .build();
+
+        final AllureResults first = runClasses(
+                null, TestShard.of(0, 2).withHistory(history), FilterSimpleTests.class
+        );
+        final AllureResults second = runClasses(
+                null, TestShard.of(1, 2).withHistory(history), FilterSimpleTests.class
+        );
+
+        assertThat(first.getTestResults())
+                .extracting(TestResult::getName)
+                .containsExactly("first()");
+        assertThat(second.getTestResults())
+                .extracting(TestResult::getName)
+                .containsExactlyInAnyOrder("second()", "third()");
+    }
+
+    private TestResult testResult(final String allureId, final String method, final long duration) {
+        final TestResult result = new TestResult()
+                .setUuid(method)
+                .setFullName(String.format("%s.%s", FilterSimpleTests.class.getCanonicalName(), method))
+                .setStart(0L)
+                .setStop(duration);
+        if (allureId != null) {
+            result.getLabels().add(new Label().setName("AS_ID").setValue(allureId));
+        }
+        return result;
+    }
 
     private String testId(final Class<?> testClass, String method) {
         return String.format("[engine:%s]/[class:%s]/[method:%s()]",
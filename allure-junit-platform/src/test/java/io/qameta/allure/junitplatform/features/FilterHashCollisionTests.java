@@ -0,0 +1,36 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.junitplatform.features;
+
+import io.qameta.allure.AllureId;
+import org.junit.jupiter.api.Test;
+
+public class FilterHashCollisionTests {
+
+    /**
+     * The id has the same 64-bit hash as {@code "\u4EF8\u4E80\u4E19\u4E3B\u4EA2\u4EC4\u4EDC\u4ECC"}.
+     */
+    @Test
+    @AllureId("\u4E6C\u4E45\u4E39\u4EE9\u4ECD\u4E79\u4E8F\u4EE6")
+    void colliding() {
+    }
+
+    @Test
+    @AllureId("40")
+    void other() {
+    }
+
+}
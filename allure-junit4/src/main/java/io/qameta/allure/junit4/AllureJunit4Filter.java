@@ -18,7 +18,6 @@ package io.qameta.allure.junit4;
 import io.qameta.allure.model.Label;
 import io.qameta.allure.testfilter.FileTestPlanSupplier;
 import io.qameta.allure.testfilter.TestPlan;
-import io.qameta.allure.testfilter.TestPlanV1_0;
 import io.qameta.allure.util.AnnotationUtils;
 import org.junit.runner.Description;
 import org.junit.runner.manipulation.Filter;
@@ -56,7 +55,7 @@ public class AllureJunit4Filter extends Filter {
         final String fullName = AllureJunit4Utils.getFullName(description);
         final String allureId = findAllureId(description).orElse(null);
 
-        return isIncluded(testPlan, allureId, fullName);
+        return testPlan.getIndex().isSelected(allureId, fullName);
     }
 
     @Override
@@ -64,27 +63,6 @@ public class AllureJunit4Filter extends Filter {
         return "allure testplan filter";
     }
 
-    private boolean isIncluded(final TestPlan testPlan,
-                               final String allureId,
-                               final String fullName) {
-        if (testPlan instanceof TestPlanV1_0) {
-            final TestPlanV1_0 tp = (TestPlanV1_0) testPlan;
-            return Objects.isNull(tp.getTests()) || tp.getTests()
-                    .stream()
-                    .filter(Objects::nonNull)
-                    .anyMatch(tc -> match(tc, allureId, fullName));
-        }
-        return true;
-    }
-
-    @SuppressWarnings("BooleanExpressionComplexity")
-    private boolean match(final TestPlanV1_0.TestCase tc,
-                          final String allureId,
-                          final String fullName) {
-        return Objects.nonNull(tc.getId()) && tc.getId().equals(allureId)
-               || Objects.nonNull(tc.getSelector()) && tc.getSelector().equals(fullName);
-    }
-
     private static Optional<String> findAllureId(final Description description) {
         return AnnotationUtils.getLabels(description.getAnnotations())
                 .stream()
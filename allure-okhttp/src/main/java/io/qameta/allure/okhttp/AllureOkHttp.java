@@ -17,6 +17,7 @@ package io.qameta.allure.okhttp;
 
 import io.qameta.allure.attachment.AttachmentData;
 import io.qameta.allure.attachment.AttachmentProcessor;
+import io.qameta.allure.attachment.AttachmentRenderer;
 import io.qameta.allure.attachment.DefaultAttachmentProcessor;
 import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
 import io.qameta.allure.attachment.http.HttpRequestAttachment;
@@ -40,16 +41,18 @@ import okio.Buffer;
  */
 public class AllureOkHttp implements Interceptor {
 
-    private String requestTemplatePath = "http-request.ftl";
-    private String responseTemplatePath = "http-response.ftl";
+    private final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
+
+    private AttachmentRenderer<AttachmentData> requestRenderer = new FreemarkerAttachmentRenderer("http-request.ftl");
+    private AttachmentRenderer<AttachmentData> responseRenderer = new FreemarkerAttachmentRenderer("http-response.ftl");
 
     public AllureOkHttp setRequestTemplate(final String templatePath) {
-        this.requestTemplatePath = templatePath;
+        this.requestRenderer = new FreemarkerAttachmentRenderer(templatePath);
         return this;
     }
 
     public AllureOkHttp setResponseTemplate(final String templatePath) {
-        this.responseTemplatePath = templatePath;
+        this.responseRenderer = new FreemarkerAttachmentRenderer(templatePath);
         return this;
     }
 
@@ -73,8 +76,6 @@ public class AllureOkHttp implements Interceptor {
 
     @Override
     public Response intercept(final Chain chain) throws IOException {
-        final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
-
         final Request request = chain.request();
         final String requestUrl = request.url().toString();
         final HttpRequestAttachment.Builder requestAttachmentBuilder = HttpRequestAttachment.Builder
@@ -87,7 +88,7 @@ public class AllureOkHttp implements Interceptor {
             requestAttachmentBuilder.setBody(readRequestBody(requestBody));
         }
         final HttpRequestAttachment requestAttachment = requestAttachmentBuilder.build();
-        processor.addAttachment(requestAttachment, new FreemarkerAttachmentRenderer(requestTemplatePath));
+        processor.addAttachment(requestAttachment, requestRenderer);
 
         final Response response = chain.proceed(request);
         final HttpResponseAttachment.Builder responseAttachmentBuilder = HttpResponseAttachment.Builder
@@ -106,7 +107,7 @@ public class AllureOkHttp implements Interceptor {
         }
 
         final HttpResponseAttachment responseAttachment = responseAttachmentBuilder.build();
-        processor.addAttachment(responseAttachment, new FreemarkerAttachmentRenderer(responseTemplatePath));
+        processor.addAttachment(responseAttachment, responseRenderer);
 
         return responseBuilder.build();
     }
@@ -15,8 +15,12 @@
  */
 package io.qameta.allure.okhttp3;
 
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
 import io.qameta.allure.attachment.AttachmentData;
 import io.qameta.allure.attachment.AttachmentProcessor;
+import io.qameta.allure.attachment.AttachmentRenderer;
 import io.qameta.allure.attachment.DefaultAttachmentProcessor;
 import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
 import io.qameta.allure.attachment.http.HttpRequestAttachment;
@@ -28,6 +32,7 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -40,16 +45,37 @@ import java.util.Objects;
  */
 public class AllureOkHttp3 implements Interceptor {
 
-    private String requestTemplatePath = "http-request.ftl";
-    private String responseTemplatePath = "http-response.ftl";
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+
+    private final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
+
+    private AttachmentRenderer<AttachmentData> requestRenderer = new FreemarkerAttachmentRenderer("http-request.ftl");
+    private AttachmentRenderer<AttachmentData> responseRenderer = new FreemarkerAttachmentRenderer("http-response.ftl");
+    private long responseBodyLimit = -1;
 
     public AllureOkHttp3 setRequestTemplate(final String templatePath) {
-        this.requestTemplatePath = templatePath;
+        this.requestRenderer = new FreemarkerAttachmentRenderer(templatePath);
         return this;
     }
 
     public AllureOkHttp3 setResponseTemplate(final String templatePath) {
-        this.responseTemplatePath = templatePath;
+        this.responseRenderer = new FreemarkerAttachmentRenderer(templatePath);
+        return this;
+    }
+
+    /**
+     * Enables streaming capture of response bodies. The body is passed to the caller
+     * as is, up to given number of bytes is recorded while the caller reads it, and
+     * response attachment is written once the body is exhausted or closed, or once
+     * the test is stopped if the body is not consumed by then. Negative
+     * limit, that is the default, reads the whole body into memory before returning
+     * the response.
+     *
+     * @param limit the maximum number of response body bytes to capture.
+     * @return self for method chaining.
+     */
+    public AllureOkHttp3 setResponseBodyLimit(final long limit) {
+        this.responseBodyLimit = limit;
         return this;
     }
 
@@ -73,8 +99,6 @@ public class AllureOkHttp3 implements Interceptor {
 
     @Override
     public Response intercept(final Chain chain) throws IOException {
-        final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
-
         final Request request = chain.request();
         final String requestUrl = request.url().toString();
         final HttpRequestAttachment.Builder requestAttachmentBuilder = HttpRequestAttachment.Builder
@@ -87,11 +111,11 @@ public class AllureOkHttp3 implements Interceptor {
             requestAttachmentBuilder.setBody(readRequestBody(requestBody));
         }
         final HttpRequestAttachment requestAttachment = requestAttachmentBuilder.build();
-        processor.addAttachment(requestAttachment, new FreemarkerAttachmentRenderer(requestTemplatePath));
+        processor.addAttachment(requestAttachment, requestRenderer);
 
         final Response response = chain.proceed(request);
         final HttpResponseAttachment.Builder responseAttachmentBuilder = HttpResponseAttachment.Builder
-                .create("Response")
+                .create(RESPONSE_ATTACHMENT_NAME)
                 .setResponseCode(response.code())
                 .setHeaders(toMapConverter(response.headers().toMultimap()));
 
@@ -99,6 +123,22 @@ public class AllureOkHttp3 implements Interceptor {
 
         final ResponseBody responseBody = response.body();
 
+        if (Objects.nonNull(responseBody) && responseBodyLimit >= 0) {
+            final AllureLifecycle lifecycle = Allure.getLifecycle();
+            final AttachmentRenderer<AttachmentData> renderer = responseRenderer;
+            final String source = lifecycle.prepareAttachment(
+                    RESPONSE_ATTACHMENT_NAME, renderer.getContentType(), renderer.getFileExtension()
+            );
+            final String testUuid = lifecycle.getCurrentTestCase().orElse(null);
+            responseBuilder.body(new CapturingResponseBody(responseBody, responseBodyLimit, testUuid, body -> {
+                final AttachmentContent content = renderer.render(responseAttachmentBuilder.setBody(body).build());
+                lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                        content.getContent().getBytes(StandardCharsets.UTF_8)
+                ));
+            }));
+            return responseBuilder.build();
+        }
+
         if (Objects.nonNull(responseBody)) {
             final byte[] bytes = responseBody.bytes();
             responseAttachmentBuilder.setBody(new String(bytes, StandardCharsets.UTF_8));
@@ -106,7 +146,7 @@ public class AllureOkHttp3 implements Interceptor {
         }
 
         final HttpResponseAttachment responseAttachment = responseAttachmentBuilder.build();
-        processor.addAttachment(responseAttachment, new FreemarkerAttachmentRenderer(responseTemplatePath));
+        processor.addAttachment(responseAttachment, responseRenderer);
 
         return responseBuilder.build();
     }
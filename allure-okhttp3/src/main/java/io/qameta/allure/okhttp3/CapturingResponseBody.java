@@ -0,0 +1,148 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.okhttp3;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Response body that records up to given number of bytes while the caller reads
+ * the body, and passes them to the callback once the body is exhausted or closed,
+ * or once the test it was received in is stopped, see {@link AllureOkHttp3Listener}.
+ * The body is never buffered as a whole, so streaming responses keep streaming.
+ */
+class CapturingResponseBody extends ResponseBody {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapturingResponseBody.class);
+
+    private final ResponseBody delegate;
+
+    private final BufferedSource source;
+
+    private final BoundedBodyCapture captured;
+
+    private final Consumer<String> callback;
+
+    private final String testUuid;
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Creates capturing body.
+     *
+     * @param delegate the response body.
+     * @param limit    the maximum number of bytes to capture.
+     * @param testUuid the uuid of test to write attachment when stopped, or null.
+     * @param callback the callback to pass captured body to.
+     */
+    CapturingResponseBody(final ResponseBody delegate, final long limit,
+                          final String testUuid, final Consumer<String> callback) {
+        this.delegate = delegate;
+        this.captured = new BoundedBodyCapture(limit);
+        this.testUuid = testUuid;
+        this.callback = callback;
+        this.source = Okio.buffer(new CapturingSource(delegate.source()));
+        if (Objects.nonNull(testUuid)) {
+            AllureOkHttp3Listener.track(testUuid, this);
+        }
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+        return source;
+    }
+
+    private void capture(final Buffer sink, final long read) throws IOException {
+        synchronized (captured) {
+            sink.copyTo(captured, sink.size() - read, read);
+        }
+    }
+
+    /**
+     * Passes the bytes captured so far to the callback. Only the first call has effect.
+     */
+    void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (Objects.nonNull(testUuid)) {
+            AllureOkHttp3Listener.untrack(testUuid, this);
+        }
+        final String body;
+        synchronized (captured) {
+            body = captured.getBody(StandardCharsets.UTF_8);
+        }
+        try {
+            callback.accept(body);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not add response attachment", e);
+        }
+    }
+
+    /**
+     * Source that captures the read bytes.
+     */
+    private final class CapturingSource extends ForwardingSource {
+
+        private CapturingSource(final Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(final Buffer sink, final long byteCount) throws IOException {
+            final long read = super.read(sink, byteCount);
+            if (read == -1) {
+                finish();
+            } else {
+                capture(sink, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finish();
+            }
+        }
+    }
+}
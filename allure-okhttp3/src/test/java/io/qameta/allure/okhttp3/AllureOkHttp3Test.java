@@ -28,6 +28,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -97,10 +98,70 @@ class AllureOkHttp3Test {
                 .contains("Response");
     }
 
+    @Test
+    void shouldCaptureLimitedResponseBodyWhileStreaming() {
+        final Request request = new Request.Builder()
+                .url(server.url("hello"))
+                .build();
+
+        final AllureResults results = execute(
+                new AllureOkHttp3().setResponseBodyLimit(5), request, checkBody(BODY_STRING)
+        );
+
+        assertThat(results.getTestResults())
+                .flatExtracting(TestResult::getAttachments)
+                .extracting(Attachment::getName)
+                .containsExactly("Request", "Response");
+
+        final String response = getAttachmentContent(results, "Response");
+        assertThat(response)
+                .contains("Hello")
+                .contains("7 more bytes truncated")
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldWriteResponseAttachmentWhenBodyIsClosed() {
+        final Request request = new Request.Builder()
+                .url(server.url("hello"))
+                .build();
+
+        final AllureResults results = execute(
+                new AllureOkHttp3().setResponseBodyLimit(1024), request, Response::close
+        );
+
+        assertThat(getAttachmentContent(results, "Response"))
+                .contains("Status code 200")
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldWriteResponseAttachmentWhenBodyIsNotReadBeforeTestStop() {
+        final Request request = new Request.Builder()
+                .url(server.url("hello"))
+                .build();
+
+        final AllureResults results = execute(
+                new AllureOkHttp3().setResponseBodyLimit(1024), request, response -> {
+                }
+        );
+
+        assertThat(getAttachmentContent(results, "Response"))
+                .contains("Status code 200")
+                .doesNotContain(BODY_STRING);
+    }
+
     @SafeVarargs
     protected final AllureResults execute(final Request request, final Consumer<Response>... matchers) {
+        return execute(new AllureOkHttp3(), request, matchers);
+    }
+
+    @SafeVarargs
+    protected final AllureResults execute(final AllureOkHttp3 interceptor,
+                                          final Request request,
+                                          final Consumer<Response>... matchers) {
         final OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(new AllureOkHttp3())
+                .addInterceptor(interceptor)
                 .build();
 
         return runWithinTestContext(() -> {
@@ -113,6 +174,17 @@ class AllureOkHttp3Test {
         });
     }
 
+    private static String getAttachmentContent(final AllureResults results, final String name) {
+        final Attachment attachment = results.getTestResults().stream()
+                .flatMap(result -> result.getAttachments().stream())
+                .filter(item -> name.equals(item.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no attachment " + name));
+        assertThat(results.getAttachments())
+                .containsKey(attachment.getSource());
+        return new String(results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
+
     protected Consumer<Response> checkBody(final String expectedBody) {
         return response -> {
             try {
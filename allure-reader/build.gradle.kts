@@ -2,7 +2,10 @@ description = "Allure Model Reader Module"
 
 dependencies {
     api(project(":allure-model"))
+    implementation(project(":allure-java-commons"))
     implementation("com.fasterxml.jackson.core:jackson-databind")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
     testImplementation("org.assertj:assertj-core")
     testImplementation("org.junit.jupiter:junit-jupiter-api")
     testImplementation("org.mockito:mockito-core")
@@ -18,19 +18,121 @@ package io.qameta.allure.reader;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * @author charlie (Dmitry Baev).
  */
 public final class AllureObjectMapperFactory {
 
+    private static final String JSON_SUFFIX = ".json";
+
+    private static final String SMILE_SUFFIX = ".smile";
+
+    private static final String CBOR_SUFFIX = ".cbor";
+
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    private static final byte[] CBOR_HEADER = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+
     private AllureObjectMapperFactory() {
         throw new IllegalStateException("do not instance");
     }
 
     public static ObjectMapper createMapper() {
-        return JsonMapper.builder()
+        return configure(JsonMapper.builder());
+    }
+
+    /**
+     * Creates mapper for given results file. The format is detected by file suffix
+     * (.json, .smile or .cbor), or by the first bytes of file for other suffixes.
+     * Consider caching returned mappers, since mapper creation is expensive.
+     *
+     * @param file the results file.
+     * @return the mapper that can read given file.
+     * @throws IOException if file could not be read.
+     */
+    public static ObjectMapper createMapper(final Path file) throws IOException {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(JSON_SUFFIX)) {
+            return createMapper();
+        }
+        if (name.endsWith(SMILE_SUFFIX)) {
+            return createSmileMapper();
+        }
+        if (name.endsWith(CBOR_SUFFIX)) {
+            return createCborMapper();
+        }
+        final byte[] header = new byte[3];
+        final int read;
+        try (InputStream stream = Files.newInputStream(file)) {
+            read = stream.read(header);
+        }
+        return createMapper(header, read);
+    }
+
+    /**
+     * Creates mapper for content with given first bytes. Smile content is detected by
+     * <code>:)\n</code> header, CBOR content by self-describe tag. Any other content
+     * is considered as JSON.
+     *
+     * @param header the first bytes of content.
+     * @param length the number of available bytes.
+     * @return the mapper that can read content.
+     */
+    public static ObjectMapper createMapper(final byte[] header, final int length) {
+        if (startsWith(header, length, SMILE_HEADER)) {
+            return createSmileMapper();
+        }
+        if (startsWith(header, length, CBOR_HEADER)) {
+            return createCborMapper();
+        }
+        return createMapper();
+    }
+
+    /**
+     * Checks if format of given results file is detected by its suffix only,
+     * so the mapper returned by {@link #createMapper(Path)} can be reused for
+     * all the files with the same suffix.
+     *
+     * @param file the results file.
+     * @return true if the file has one of known suffixes.
+     */
+    static boolean hasFormatSuffix(final Path file) {
+        final String name = file.getFileName().toString();
+        return name.endsWith(JSON_SUFFIX) || name.endsWith(SMILE_SUFFIX) || name.endsWith(CBOR_SUFFIX);
+    }
+
+    public static ObjectMapper createSmileMapper() {
+        return configure(SmileMapper.builder());
+    }
+
+    public static ObjectMapper createCborMapper() {
+        return configure(CBORMapper.builder());
+    }
+
+    private static boolean startsWith(final byte[] header, final int length, final byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ObjectMapper configure(final MapperBuilder<?, ?> builder) {
+        return builder
                 .enable(MapperFeature.USE_WRAPPER_NAME_AS_PROPERTY_NAME)
                 .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
                 .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
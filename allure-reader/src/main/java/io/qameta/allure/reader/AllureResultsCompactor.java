@@ -0,0 +1,341 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.internal.Allure2ModelJackson;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import io.qameta.allure.model.WithAttachments;
+import io.qameta.allure.model.WithSteps;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compacts results directory into zip archive of flat layout, that can be unpacked
+ * and passed to report generator. Only the latest results of each history id are
+ * kept, as well as the containers having kept results or kept containers as children,
+ * the attachments they reference and other files of results directory, like environment.properties.
+ * Smile and CBOR results are converted to JSON, since report generator reads JSON only.
+ * Result files are read one by one, but uuids of kept results and containers, sources of
+ * kept attachments and the links between containers are held in memory, so memory used
+ * grows with the number of results and containers.
+ */
+public class AllureResultsCompactor {
+
+    private static final String ATTACHMENT_MARKER = "-attachment";
+
+    private static final String JSON_SUFFIX = ".json";
+
+    private final ObjectMapper jsonMapper = Allure2ModelJackson.createMapper();
+
+    private final AllureResultsReader reader;
+
+    private final int keepPerHistoryId;
+
+    /**
+     * Creates a new compactor.
+     *
+     * @param reader           the reader of results directory.
+     * @param keepPerHistoryId the number of latest results to keep for each history id,
+     *                         1 keeps only the last retry.
+     */
+    public AllureResultsCompactor(final AllureResultsReader reader, final int keepPerHistoryId) {
+        if (keepPerHistoryId <= 0) {
+            throw new IllegalArgumentException("At least one result per history id should be kept");
+        }
+        this.reader = reader;
+        this.keepPerHistoryId = keepPerHistoryId;
+    }
+
+    /**
+     * Writes compacted results to given zip file.
+     *
+     * @param zip the zip file to create.
+     * @return the compaction summary.
+     * @throws IOException          if results could not be read or written.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Summary compact(final Path zip) throws IOException, InterruptedException {
+        final Map<String, Set<Candidate>> latest = new ConcurrentHashMap<>();
+        reader.forEachTestResult(result -> {
+            if (Objects.nonNull(result.getHistoryId())) {
+                final Set<Candidate> candidates = latest.computeIfAbsent(
+                        result.getHistoryId(), key -> new TreeSet<>()
+                );
+                synchronized (candidates) {
+                    candidates.add(new Candidate(result));
+                    if (candidates.size() > keepPerHistoryId) {
+                        final Iterator<Candidate> oldest = candidates.iterator();
+                        oldest.next();
+                        oldest.remove();
+                    }
+                }
+            }
+        });
+        final Summary summary = new Summary();
+        try (ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zip)))) {
+            final Set<String> kept = new HashSet<>();
+            final Set<String> attachments = new HashSet<>();
+            writeTestResults(output, latest, kept, attachments, summary);
+            writeContainers(output, collectContainers(kept), attachments, summary);
+            for (String source : attachments) {
+                final Path file = reader.getDirectory().resolveAttachment(source);
+                if (Files.isRegularFile(file)) {
+                    write(output, source, file);
+                    summary.attachments++;
+                }
+            }
+            writeOtherFiles(output);
+        }
+        return summary;
+    }
+
+    private void writeTestResults(final ZipOutputStream output,
+                                  final Map<String, Set<Candidate>> latest,
+                                  final Set<String> kept,
+                                  final Set<String> attachments,
+                                  final Summary summary) throws IOException {
+        try (Stream<Path> files = reader.getDirectory().listTestResults()) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                final Optional<TestResult> result = reader.read(file, TestResult.class);
+                if (result.isPresent() && isLatest(latest, result.get())) {
+                    kept.add(result.get().getUuid());
+                    collectAttachments(result.get(), attachments);
+                    writeJson(output, file, result.get());
+                    summary.keptTestResults++;
+                } else {
+                    summary.droppedTestResults++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns uuids of containers having kept results as children, directly or
+     * through other containers, so parent containers keep their fixtures.
+     */
+    private Set<String> collectContainers(final Set<String> kept) throws IOException {
+        final Set<String> result = new HashSet<>();
+        final Map<String, List<String>> parents = new HashMap<>();
+        final Deque<String> queue = new ArrayDeque<>();
+        try (Stream<Path> files = reader.getDirectory().listTestResultContainers()) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                reader.read(file, TestResultContainer.class)
+                        .filter(container -> Objects.nonNull(container.getUuid()))
+                        .ifPresent(container -> {
+                            final List<String> children = getChildren(container);
+                            if (children.stream().anyMatch(kept::contains)) {
+                                result.add(container.getUuid());
+                                queue.add(container.getUuid());
+                            } else {
+                                children.forEach(child -> parents
+                                        .computeIfAbsent(child, key -> new ArrayList<>())
+                                        .add(container.getUuid()));
+                            }
+                        });
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (String parent : parents.getOrDefault(queue.poll(), Collections.emptyList())) {
+                if (result.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void writeContainers(final ZipOutputStream output,
+                                 final Set<String> kept,
+                                 final Set<String> attachments,
+                                 final Summary summary) throws IOException {
+        try (Stream<Path> files = reader.getDirectory().listTestResultContainers()) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                final Optional<TestResultContainer> container = reader.read(file, TestResultContainer.class);
+                if (container.isPresent() && kept.contains(container.get().getUuid())) {
+                    container.get().getBefores().forEach(fixture -> collectAttachments(fixture, attachments));
+                    container.get().getAfters().forEach(fixture -> collectAttachments(fixture, attachments));
+                    writeJson(output, file, container.get());
+                    summary.keptContainers++;
+                } else {
+                    summary.droppedContainers++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies files like environment.properties or categories.json.
+     */
+    private void writeOtherFiles(final ZipOutputStream output) throws IOException {
+        final Path root = reader.getDirectory().getRoot();
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                final String name = file.getFileName().toString();
+                if (Files.isRegularFile(file)
+                        && !AllureResultsDirectory.isResultsFile(file)
+                        && !name.contains(ATTACHMENT_MARKER)
+                        && !name.startsWith(".")) {
+                    write(output, name, file);
+                }
+            }
+        }
+    }
+
+    private static List<String> getChildren(final TestResultContainer container) {
+        return Objects.isNull(container.getChildren()) ? Collections.emptyList() : container.getChildren();
+    }
+
+    private static boolean isLatest(final Map<String, Set<Candidate>> latest, final TestResult result) {
+        if (Objects.isNull(result.getHistoryId())) {
+            return true;
+        }
+        final Set<Candidate> candidates = latest.get(result.getHistoryId());
+        return Objects.nonNull(candidates) && candidates.contains(new Candidate(result));
+    }
+
+    private static void collectAttachments(final Object item, final Set<String> sources) {
+        final Deque<Object> queue = new ArrayDeque<>();
+        queue.add(item);
+        while (!queue.isEmpty()) {
+            final Object current = queue.poll();
+            if (current instanceof WithAttachments) {
+                for (Attachment attachment : ((WithAttachments) current).getAttachments()) {
+                    if (Objects.nonNull(attachment.getSource())) {
+                        sources.add(attachment.getSource());
+                    }
+                }
+            }
+            if (current instanceof WithSteps) {
+                for (StepResult step : ((WithSteps) current).getSteps()) {
+                    queue.add(step);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies JSON files as is and writes results read from Smile or CBOR files as JSON,
+     * replacing file extension with .json.
+     */
+    private void writeJson(final ZipOutputStream output, final Path file, final Object value) throws IOException {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(JSON_SUFFIX)) {
+            write(output, name, file);
+            return;
+        }
+        output.putNextEntry(new ZipEntry(name.substring(0, name.lastIndexOf('.')) + JSON_SUFFIX));
+        output.write(jsonMapper.writeValueAsBytes(value));
+        output.closeEntry();
+    }
+
+    private static void write(final ZipOutputStream output, final String name, final Path file) throws IOException {
+        output.putNextEntry(new ZipEntry(name));
+        Files.copy(file, output);
+        output.closeEntry();
+    }
+
+    /**
+     * Result competing to be kept for its history id. Ordered by stop time, so the
+     * first candidate is the oldest one.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+
+        private final long stop;
+
+        private final String uuid;
+
+        private Candidate(final TestResult result) {
+            this.stop = Objects.isNull(result.getStop()) ? 0L : result.getStop();
+            this.uuid = String.valueOf(result.getUuid());
+        }
+
+        @Override
+        public int compareTo(final Candidate other) {
+            final int byStop = Long.compare(stop, other.stop);
+            return byStop == 0 ? uuid.compareTo(other.uuid) : byStop;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Candidate && compareTo((Candidate) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stop, uuid);
+        }
+    }
+
+    /**
+     * Numbers of kept and dropped files.
+     */
+    public static final class Summary {
+
+        private long keptTestResults;
+
+        private long droppedTestResults;
+
+        private long keptContainers;
+
+        private long droppedContainers;
+
+        private long attachments;
+
+        public long getKeptTestResults() {
+            return keptTestResults;
+        }
+
+        public long getDroppedTestResults() {
+            return droppedTestResults;
+        }
+
+        public long getKeptContainers() {
+            return keptContainers;
+        }
+
+        public long getDroppedContainers() {
+            return droppedContainers;
+        }
+
+        public long getAttachments() {
+            return attachments;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.AllureResultsLayout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Allure results directory. Enumerates files written in both flat layout and
+ * sharded layout, where files are placed into two levels of two hex characters
+ * directories, e.g. {@code 3f/a2/3fa2...-result.json}.
+ */
+public final class AllureResultsDirectory {
+
+    private static final String[] TEST_RESULT_SUFFIXES = {
+        "-result.json", "-result.smile", "-result.cbor",
+    };
+
+    private static final String[] TEST_RESULT_CONTAINER_SUFFIXES = {
+        "-container.json", "-container.smile", "-container.cbor",
+    };
+
+    private static final int SHARD_LENGTH = 2;
+
+    private final Path root;
+
+    public AllureResultsDirectory(final Path root) {
+        this.root = root;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns all the files of results directory. The returned stream is sequential
+     * and should be closed after use.
+     *
+     * @return the stream of files.
+     * @throws IOException if results directory could not be listed.
+     */
+    public Stream<Path> listFiles() throws IOException {
+        final List<Path> shards;
+        try (Stream<Path> entries = Files.list(root)) {
+            shards = entries.filter(AllureResultsDirectory::isShard).collect(Collectors.toList());
+        }
+        final Stream<Path> flat = Files.list(root)
+                .filter(path -> !isShard(path));
+        if (shards.isEmpty()) {
+            return flat;
+        }
+        final Stream<Path> sharded = shards.stream()
+                .flatMap(AllureResultsDirectory::list)
+                .filter(AllureResultsDirectory::isShard)
+                .flatMap(AllureResultsDirectory::list);
+        return Stream.concat(flat, sharded);
+    }
+
+    /**
+     * Returns all the test result files in results directory.
+     * The returned stream should be closed after use.
+     *
+     * @return the stream of test result files.
+     * @throws IOException if results directory could not be listed.
+     */
+    public Stream<Path> listTestResults() throws IOException {
+        return listFiles().filter(AllureResultsDirectory::isTestResult);
+    }
+
+    /**
+     * Returns all the test result container files in results directory.
+     * The returned stream should be closed after use.
+     *
+     * @return the stream of test result container files.
+     * @throws IOException if results directory could not be listed.
+     */
+    public Stream<Path> listTestResultContainers() throws IOException {
+        return listFiles().filter(path -> hasSuffix(path, TEST_RESULT_CONTAINER_SUFFIXES));
+    }
+
+    /**
+     * Resolves attachment by its source. Looks for the attachment in results directory
+     * first, and then in the shard directory the source belongs to.
+     *
+     * @param source the attachment source.
+     * @return the attachment file, it may not exist.
+     */
+    public Path resolveAttachment(final String source) {
+        final Path flat = root.resolve(source);
+        if (Files.exists(flat)) {
+            return flat;
+        }
+        return AllureResultsLayout.SHARDED.getDirectory(root, source).resolve(source);
+    }
+
+    private static Stream<Path> list(final Path directory) {
+        try {
+            return Files.list(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list results directory " + directory, e);
+        }
+    }
+
+    static boolean isResultsFile(final Path path) {
+        return hasSuffix(path, TEST_RESULT_SUFFIXES) || hasSuffix(path, TEST_RESULT_CONTAINER_SUFFIXES);
+    }
+
+    static boolean isTestResult(final Path path) {
+        return hasSuffix(path, TEST_RESULT_SUFFIXES);
+    }
+
+    private static boolean hasSuffix(final Path path, final String... suffixes) {
+        final String name = path.getFileName().toString();
+        for (String suffix : suffixes) {
+            if (name.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isShard(final Path path) {
+        final String name = path.getFileName().toString();
+        return name.length() == SHARD_LENGTH && isHex(name) && Files.isDirectory(path);
+    }
+
+    private static boolean isHex(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.model.Status;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Column oriented in-memory index of test results. Strings are interned into a
+ * dictionary, and every label value and history id keeps the sorted rows it occurs
+ * in, statuses are stored as dictionary ids of their values. Index can be stored
+ * and reused instead of parsing results again. Use {@link AllureResultsIndexBuilder}
+ * to create an index, and {@link #query()} to filter and group results.
+ */
+public final class AllureResultsIndex {
+
+    private static final int MAGIC = 0x41524958;
+
+    private static final int VERSION = 1;
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final int[] NO_ROWS = {};
+
+    private final String[] dictionary;
+
+    private final String[] uuids;
+
+    private final int[] statuses;
+
+    private final long[] starts;
+
+    private final long[] stops;
+
+    private final Map<Integer, int[]> historyIds;
+
+    private final Map<Integer, Map<Integer, int[]>> labels;
+
+    private final Map<String, Integer> ids;
+
+    private final Map<Integer, Status> statusIds;
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    AllureResultsIndex(final String[] dictionary,
+                       final String[] uuids,
+                       final int[] statuses,
+                       final long[] starts,
+                       final long[] stops,
+                       final Map<Integer, int[]> historyIds,
+                       final Map<Integer, Map<Integer, int[]>> labels) {
+        this.dictionary = dictionary;
+        this.uuids = uuids;
+        this.statuses = statuses;
+        this.starts = starts;
+        this.stops = stops;
+        this.historyIds = historyIds;
+        this.labels = labels;
+        this.ids = createIds(dictionary);
+        this.statusIds = new HashMap<>();
+        for (Status status : Status.values()) {
+            final Integer id = ids.get(status.value());
+            if (Objects.nonNull(id)) {
+                statusIds.put(id, status);
+            }
+        }
+    }
+
+    /**
+     * Reads index stored by {@link #writeTo(Path)}.
+     *
+     * @param file the index file.
+     * @return the index.
+     * @throws IOException if index could not be read.
+     */
+    public static AllureResultsIndex readFrom(final Path file) throws IOException {
+        try (DataInputStream stream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+                throw new IOException("Unsupported Allure results index " + file);
+            }
+            final String[] dictionary = readStrings(stream);
+            final String[] uuids = readStrings(stream);
+            final int[] statuses = readInts(stream);
+            final long[] starts = readLongs(stream);
+            final long[] stops = readLongs(stream);
+            final Map<Integer, int[]> historyIds = readRows(stream);
+            final int labelsCount = stream.readInt();
+            final Map<Integer, Map<Integer, int[]>> labels = new HashMap<>(labelsCount * 2);
+            for (int i = 0; i < labelsCount; i++) {
+                labels.put(stream.readInt(), readRows(stream));
+            }
+            return new AllureResultsIndex(dictionary, uuids, statuses, starts, stops, historyIds, labels);
+        }
+    }
+
+    /**
+     * Stores index to given file.
+     *
+     * @param file the index file.
+     * @throws IOException if index could not be written.
+     */
+    public void writeTo(final Path file) throws IOException {
+        try (DataOutputStream stream = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            writeStrings(stream, dictionary);
+            writeStrings(stream, uuids);
+            writeInts(stream, statuses);
+            writeLongs(stream, starts);
+            writeLongs(stream, stops);
+            writeRows(stream, historyIds);
+            stream.writeInt(labels.size());
+            for (Map.Entry<Integer, Map<Integer, int[]>> entry : labels.entrySet()) {
+                stream.writeInt(entry.getKey());
+                writeRows(stream, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns query matching all the indexed results.
+     *
+     * @return the query.
+     */
+    public AllureResultsQuery query() {
+        final BitSet rows = new BitSet(size());
+        rows.set(0, size());
+        return new AllureResultsQuery(this, rows);
+    }
+
+    public int size() {
+        return uuids.length;
+    }
+
+    String getUuid(final int row) {
+        return uuids[row];
+    }
+
+    Status getStatus(final int row) {
+        return statusIds.get(statuses[row]);
+    }
+
+    long getStart(final int row) {
+        return starts[row];
+    }
+
+    long getStop(final int row) {
+        return stops[row];
+    }
+
+    String getString(final int id) {
+        return dictionary[id];
+    }
+
+    int[] getHistoryIdRows(final String historyId) {
+        final Integer id = ids.get(historyId);
+        return Objects.isNull(id) ? NO_ROWS : historyIds.getOrDefault(id, NO_ROWS);
+    }
+
+    Map<Integer, int[]> getHistoryIdRows() {
+        return historyIds;
+    }
+
+    int[] getLabelRows(final String name, final String value) {
+        final Map<Integer, int[]> values = getLabelRows(name);
+        final Integer id = ids.get(value);
+        return Objects.isNull(id) ? NO_ROWS : values.getOrDefault(id, NO_ROWS);
+    }
+
+    Map<Integer, int[]> getLabelRows(final String name) {
+        final Integer id = ids.get(name);
+        return Objects.isNull(id)
+                ? Collections.emptyMap()
+                : labels.getOrDefault(id, Collections.emptyMap());
+    }
+
+    private static Map<String, Integer> createIds(final String... dictionary) {
+        final Map<String, Integer> result = new HashMap<>(dictionary.length * 2);
+        for (int i = 0; i < dictionary.length; i++) {
+            result.put(dictionary[i], i);
+        }
+        return result;
+    }
+
+    private static void writeStrings(final DataOutputStream stream, final String... values) throws IOException {
+        stream.writeInt(values.length);
+        for (String value : values) {
+            if (Objects.isNull(value)) {
+                stream.writeInt(NULL_LENGTH);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                stream.writeInt(bytes.length);
+                stream.write(bytes);
+            }
+        }
+    }
+
+    private static String[] readStrings(final DataInputStream stream) throws IOException {
+        final String[] values = new String[stream.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            final int length = stream.readInt();
+            if (length != NULL_LENGTH) {
+                final byte[] bytes = new byte[length];
+                stream.readFully(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    private static void writeInts(final DataOutputStream stream, final int... values) throws IOException {
+        stream.writeInt(values.length);
+        for (int value : values) {
+            stream.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(final DataInputStream stream) throws IOException {
+        final int[] values = new int[stream.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = stream.readInt();
+        }
+        return values;
+    }
+
+    private static void writeLongs(final DataOutputStream stream, final long... values) throws IOException {
+        stream.writeInt(values.length);
+        for (long value : values) {
+            stream.writeLong(value);
+        }
+    }
+
+    private static long[] readLongs(final DataInputStream stream) throws IOException {
+        final long[] values = new long[stream.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = stream.readLong();
+        }
+        return values;
+    }
+
+    private static void writeRows(final DataOutputStream stream, final Map<Integer, int[]> rows) throws IOException {
+        stream.writeInt(rows.size());
+        for (Map.Entry<Integer, int[]> entry : rows.entrySet()) {
+            stream.writeInt(entry.getKey());
+            writeInts(stream, entry.getValue());
+        }
+    }
+
+    private static Map<Integer, int[]> readRows(final DataInputStream stream) throws IOException {
+        final int size = stream.readInt();
+        final Map<Integer, int[]> rows = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            rows.put(stream.readInt(), readInts(stream));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.TestResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds {@link AllureResultsIndex}. Builder is thread-safe, so it can be fed
+ * by {@link AllureResultsReader#forEachTestResult(java.util.function.Consumer)}.
+ */
+public class AllureResultsIndexBuilder {
+
+    private final Object lock = new Object();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final List<String> dictionary = new ArrayList<>();
+
+    private final List<String> uuids = new ArrayList<>();
+
+    private int[] statuses = new int[16];
+
+    private long[] starts = new long[16];
+
+    private long[] stops = new long[16];
+
+    private final Map<Integer, Rows> historyIds = new HashMap<>();
+
+    private final Map<Integer, Map<Integer, Rows>> labels = new HashMap<>();
+
+    /**
+     * Adds all the test results of given reader to the index.
+     *
+     * @param reader the results reader.
+     * @return self for method chaining.
+     * @throws IOException          if results directory could not be listed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public AllureResultsIndexBuilder addAll(final AllureResultsReader reader)
+            throws IOException, InterruptedException {
+        reader.forEachTestResult(this::add);
+        return this;
+    }
+
+    public AllureResultsIndexBuilder add(final TestResult result) {
+        synchronized (lock) {
+            final int row = uuids.size();
+            uuids.add(result.getUuid());
+            ensureCapacity(row + 1);
+            statuses[row] = Objects.isNull(result.getStatus()) ? -1 : intern(result.getStatus().value());
+            starts[row] = Objects.isNull(result.getStart()) ? 0 : result.getStart();
+            stops[row] = Objects.isNull(result.getStop()) ? 0 : result.getStop();
+            if (Objects.nonNull(result.getHistoryId())) {
+                historyIds.computeIfAbsent(intern(result.getHistoryId()), id -> new Rows()).add(row);
+            }
+            if (Objects.nonNull(result.getLabels())) {
+                result.getLabels().forEach(label -> addLabel(row, label));
+            }
+            return this;
+        }
+    }
+
+    public AllureResultsIndex build() {
+        synchronized (lock) {
+            final int size = uuids.size();
+            final Map<Integer, Map<Integer, int[]>> labelRows = new HashMap<>();
+            labels.forEach((name, values) -> labelRows.put(name, toArrays(values)));
+            return new AllureResultsIndex(
+                    dictionary.toArray(new String[0]),
+                    uuids.toArray(new String[0]),
+                    Arrays.copyOf(statuses, size),
+                    Arrays.copyOf(starts, size),
+                    Arrays.copyOf(stops, size),
+                    toArrays(historyIds),
+                    labelRows
+            );
+        }
+    }
+
+    private void addLabel(final int row, final Label label) {
+        if (Objects.nonNull(label) && Objects.nonNull(label.getName()) && Objects.nonNull(label.getValue())) {
+            labels.computeIfAbsent(intern(label.getName()), id -> new HashMap<>())
+                    .computeIfAbsent(intern(label.getValue()), id -> new Rows())
+                    .add(row);
+        }
+    }
+
+    private int intern(final String value) {
+        return ids.computeIfAbsent(value, key -> {
+            dictionary.add(key);
+            return dictionary.size() - 1;
+        });
+    }
+
+    private void ensureCapacity(final int size) {
+        if (size > statuses.length) {
+            final int capacity = Math.max(size, statuses.length * 2);
+            statuses = Arrays.copyOf(statuses, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+        }
+    }
+
+    private static Map<Integer, int[]> toArrays(final Map<Integer, Rows> rows) {
+        final Map<Integer, int[]> result = new HashMap<>(rows.size() * 2);
+        rows.forEach((id, value) -> result.put(id, value.toArray()));
+        return result;
+    }
+
+    /**
+     * Growable sorted list of rows.
+     */
+    private static final class Rows {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        private void add(final int row) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = row;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
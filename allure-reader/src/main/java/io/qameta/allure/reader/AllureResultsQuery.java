@@ -0,0 +1,165 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.model.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable query over {@link AllureResultsIndex}. Every filter returns a new query
+ * matching the intersection of this query and the filter.
+ */
+public final class AllureResultsQuery {
+
+    private final AllureResultsIndex index;
+
+    private final BitSet rows;
+
+    AllureResultsQuery(final AllureResultsIndex index, final BitSet rows) {
+        this.index = index;
+        this.rows = rows;
+    }
+
+    public AllureResultsQuery withStatus(final Status... statuses) {
+        final Set<Status> expected = statuses.length == 0
+                ? EnumSet.noneOf(Status.class)
+                : EnumSet.copyOf(Arrays.asList(statuses));
+        final BitSet result = new BitSet(index.size());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            final Status status = index.getStatus(row);
+            if (status != null && expected.contains(status)) {
+                result.set(row);
+            }
+        }
+        return new AllureResultsQuery(index, result);
+    }
+
+    public AllureResultsQuery withLabel(final String name, final String value) {
+        return intersect(index.getLabelRows(name, value));
+    }
+
+    public AllureResultsQuery withHistoryId(final String historyId) {
+        return intersect(index.getHistoryIdRows(historyId));
+    }
+
+    /**
+     * Matches results started in given time range.
+     *
+     * @param from the start of range in milliseconds, inclusive.
+     * @param to   the end of range in milliseconds, exclusive.
+     * @return the query.
+     */
+    public AllureResultsQuery startedBetween(final long from, final long to) {
+        final BitSet result = new BitSet(index.size());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            final long start = index.getStart(row);
+            if (start >= from && start < to) {
+                result.set(row);
+            }
+        }
+        return new AllureResultsQuery(index, result);
+    }
+
+    public int count() {
+        return rows.cardinality();
+    }
+
+    public List<String> getUuids() {
+        final List<String> result = new ArrayList<>(count());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            result.add(index.getUuid(row));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the total duration of matched results.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getTotalDuration() {
+        long result = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            result += Math.max(0, index.getStop(row) - index.getStart(row));
+        }
+        return result;
+    }
+
+    public Map<Status, Integer> countByStatus() {
+        final Map<Status, Integer> result = new HashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            final Status status = index.getStatus(row);
+            if (status != null) {
+                result.merge(status, 1, Integer::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts matched results for each value of given label. Results having
+     * several values of the label are counted for each of them.
+     *
+     * @param name the name of label, e.g. owner or feature.
+     * @return the number of matched results by label value.
+     */
+    public Map<String, Integer> countByLabel(final String name) {
+        return countBy(index.getLabelRows(name));
+    }
+
+    public Map<String, Integer> countByHistoryId() {
+        return countBy(index.getHistoryIdRows());
+    }
+
+    private Map<String, Integer> countBy(final Map<Integer, int[]> postings) {
+        final Map<String, Integer> result = new HashMap<>();
+        postings.forEach((id, postingRows) -> {
+            final int count = countMatched(postingRows);
+            if (count > 0) {
+                result.put(index.getString(id), count);
+            }
+        });
+        return result;
+    }
+
+    private int countMatched(final int... postingRows) {
+        int count = 0;
+        for (int row : postingRows) {
+            if (rows.get(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private AllureResultsQuery intersect(final int... postingRows) {
+        final BitSet result = new BitSet(index.size());
+        for (int row : postingRows) {
+            if (rows.get(row)) {
+                result.set(row);
+            }
+        }
+        return new AllureResultsQuery(index, result);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads test results and containers from Allure results directory of flat or sharded
+ * layout, in any of JSON, Smile or CBOR formats. Files are parsed one by one as the
+ * returned streams are consumed, so only the files being processed are kept in memory.
+ * Attachments are never read unless requested. Files that could not be read are
+ * passed to error handler, which fails reading by default.
+ */
+public class AllureResultsReader {
+
+    private static final int MIN_PARALLELISM = 2;
+
+    private final AllureResultsDirectory directory;
+
+    private final ForkJoinPool pool;
+
+    private final BiConsumer<Path, IOException> errorHandler;
+
+    private final Map<String, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public AllureResultsReader(final Path directory) {
+        this(directory, ForkJoinPool.commonPool(), AllureResultsReader::fail);
+    }
+
+    /**
+     * Creates a new reader.
+     *
+     * @param directory    the results directory.
+     * @param pool         the pool to parse files in by forEach methods. Files are
+     *                     parsed in the calling thread if pool parallelism is 1.
+     * @param errorHandler the handler of files that could not be read. Reading is
+     *                     continued after handler returns.
+     */
+    public AllureResultsReader(final Path directory,
+                               final ForkJoinPool pool,
+                               final BiConsumer<Path, IOException> errorHandler) {
+        this.directory = new AllureResultsDirectory(directory);
+        this.pool = pool;
+        this.errorHandler = errorHandler;
+    }
+
+    public AllureResultsDirectory getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns lazy stream of test results. The stream can be made parallel, and
+     * should be closed after use.
+     *
+     * @return the stream of test results.
+     * @throws IOException if results directory could not be listed.
+     */
+    public Stream<TestResult> readTestResults() throws IOException {
+        return read(directory.listTestResults(), TestResult.class);
+    }
+
+    /**
+     * Returns lazy stream of test result containers. The stream can be made parallel,
+     * and should be closed after use.
+     *
+     * @return the stream of test result containers.
+     * @throws IOException if results directory could not be listed.
+     */
+    public Stream<TestResultContainer> readTestResultContainers() throws IOException {
+        return read(directory.listTestResultContainers(), TestResultContainer.class);
+    }
+
+    /**
+     * Parses test results in parallel on the pool of reader and passes them to
+     * given consumer, that should be thread-safe.
+     *
+     * @param consumer the consumer of test results.
+     * @throws IOException          if results directory could not be listed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void forEachTestResult(final Consumer<? super TestResult> consumer)
+            throws IOException, InterruptedException {
+        forEach(readTestResults(), consumer);
+    }
+
+    /**
+     * Parses test result containers in parallel on the pool of reader and passes them
+     * to given consumer, that should be thread-safe.
+     *
+     * @param consumer the consumer of test result containers.
+     * @throws IOException          if results directory could not be listed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void forEachTestResultContainer(final Consumer<? super TestResultContainer> consumer)
+            throws IOException, InterruptedException {
+        forEach(readTestResultContainers(), consumer);
+    }
+
+    /**
+     * Opens content of given attachment.
+     *
+     * @param attachment the attachment of test result, fixture or step.
+     * @return the stream of attachment content, should be closed by caller.
+     * @throws IOException if attachment could not be opened.
+     */
+    public InputStream openAttachment(final Attachment attachment) throws IOException {
+        return Files.newInputStream(directory.resolveAttachment(attachment.getSource()));
+    }
+
+    /**
+     * Reads single results file.
+     *
+     * @param file the results file.
+     * @param type the type of results file.
+     * @param <T>  the type of results file.
+     * @return the parsed file, or empty if file could not be read.
+     */
+    public <T> Optional<T> read(final Path file, final Class<T> type) {
+        try {
+            return Optional.of(readValue(file, type));
+        } catch (IOException e) {
+            errorHandler.accept(file, e);
+            return Optional.empty();
+        }
+    }
+
+    private <T> Stream<T> read(final Stream<Path> files, final Class<T> type) {
+        return files.map(file -> read(file, type).orElse(null))
+                .filter(Objects::nonNull);
+    }
+
+    void handleError(final Path file, final IOException e) {
+        errorHandler.accept(file, e);
+    }
+
+    <T> T readValue(final Path file, final Class<T> type) throws IOException {
+        return readerFor(file).forType(type).readValue(file.toFile());
+    }
+
+    private <T> void forEach(final Stream<T> results, final Consumer<? super T> consumer)
+            throws InterruptedException {
+        try (Stream<T> stream = results) {
+            if (pool.getParallelism() < MIN_PARALLELISM) {
+                stream.forEach(consumer);
+                return;
+            }
+            pool.submit(() -> stream.parallel().forEach(consumer)).get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Could not read Allure results", e);
+        }
+    }
+
+    private ObjectReader readerFor(final Path file) throws IOException {
+        if (!AllureObjectMapperFactory.hasFormatSuffix(file)) {
+            return AllureObjectMapperFactory.createMapper(file).reader();
+        }
+        final String name = file.getFileName().toString();
+        final String suffix = name.substring(name.lastIndexOf('.'));
+        final ObjectReader cached = readers.get(suffix);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        final ObjectReader reader = AllureObjectMapperFactory.createMapper(file).reader();
+        final ObjectReader previous = readers.putIfAbsent(suffix, reader);
+        return Objects.isNull(previous) ? reader : previous;
+    }
+
+    private static void fail(final Path file, final IOException e) {
+        throw new UncheckedIOException("Could not read Allure results file " + file, e);
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.model.TestResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Tails results directory of running tests. Emits test results existing in the
+ * directory first, and then each new test result once it is completely written.
+ * Results directory and its shard directories are watched with {@link WatchService},
+ * so the cost is proportional to the number of new files. Files that can not be
+ * parsed yet are considered to be still written and retried later, less and less
+ * often. Files that still can not be parsed after many attempts are passed to error
+ * handler of reader once, and are retried until they are parsed or deleted. Each file
+ * is emitted once as long as its size and modification time do not change, so
+ * rescans after lost events never emit delivered results again. Deleted files are
+ * forgotten.
+ */
+public class AllureResultsTailer implements Closeable {
+
+    private static final long POLL_MILLIS = 200;
+
+    private static final int REPORT_ATTEMPTS = 10;
+
+    private static final long MAX_RETRY_MILLIS = 10_000;
+
+    private static final long CLOCK_SLACK_MILLIS = 2000;
+
+    private final AllureResultsReader reader;
+
+    private final Path root;
+
+    private final Map<Path, Retry> pending = new HashMap<>();
+
+    private final Map<Path, FileVersion> delivered = new HashMap<>();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private WatchService watcher;
+
+    private long lastPoll;
+
+    public AllureResultsTailer(final AllureResultsReader reader) {
+        this.reader = reader;
+        this.root = reader.getDirectory().getRoot();
+    }
+
+    /**
+     * Passes test results to given consumer until tailer is closed. Should be called once.
+     *
+     * @param consumer the consumer of test results.
+     * @throws IOException          if results directory could not be watched.
+     * @throws InterruptedException if interrupted while waiting for new results.
+     */
+    public void tail(final Consumer<? super TestResult> consumer) throws IOException, InterruptedException {
+        synchronized (closed) {
+            if (closed.get()) {
+                return;
+            }
+            Files.createDirectories(root);
+            watcher = root.getFileSystem().newWatchService();
+        }
+        try (WatchService service = watcher) {
+            register(root, consumer);
+            while (!closed.get()) {
+                lastPoll = System.currentTimeMillis();
+                final WatchKey key = service.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handle(key, consumer);
+                }
+                retryPending(consumer);
+            }
+        } catch (ClosedWatchServiceException e) {
+            // watch service is closed by close() call
+            closed.set(true);
+        }
+    }
+
+    /**
+     * Stops tailing. Results already being emitted are completed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (closed) {
+            closed.set(true);
+            if (watcher != null) {
+                watcher.close();
+            }
+        }
+    }
+
+    private void handle(final WatchKey key, final Consumer<? super TestResult> consumer) throws IOException {
+        final Path directory = (Path) key.watchable();
+        final Set<Path> changed = new LinkedHashSet<>();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (StandardWatchEventKinds.OVERFLOW.equals(event.kind())) {
+                overflow = true;
+            } else if (StandardWatchEventKinds.ENTRY_DELETE.equals(event.kind())) {
+                forget(directory.resolve((Path) event.context()));
+            } else {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        if (!key.reset()) {
+            forget(directory);
+            return;
+        }
+        if (overflow) {
+            // delete events could be lost as well
+            delivered.keySet().removeIf(path -> path.startsWith(directory) && Files.notExists(path));
+            rescan(directory, consumer);
+        }
+        for (Path path : changed) {
+            if (AllureResultsDirectory.isShard(path)) {
+                register(path, consumer);
+            } else if (AllureResultsDirectory.isTestResult(path)) {
+                tryRead(path, consumer);
+            }
+        }
+    }
+
+    /**
+     * Watches given directory, and reads results written before it is watched.
+     */
+    private void register(final Path directory, final Consumer<? super TestResult> consumer) throws IOException {
+        directory.register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+        );
+        for (Path path : list(directory)) {
+            if (AllureResultsDirectory.isShard(path)) {
+                register(path, consumer);
+            } else if (AllureResultsDirectory.isTestResult(path)) {
+                tryRead(path, consumer);
+            }
+        }
+    }
+
+    /**
+     * Reads results modified since last poll, when some events were lost.
+     */
+    private void rescan(final Path directory, final Consumer<? super TestResult> consumer) throws IOException {
+        for (Path path : list(directory)) {
+            if (AllureResultsDirectory.isShard(path)) {
+                rescan(path, consumer);
+            } else if (AllureResultsDirectory.isTestResult(path)
+                    && Files.getLastModifiedTime(path).toMillis() >= lastPoll - CLOCK_SLACK_MILLIS) {
+                tryRead(path, consumer);
+            }
+        }
+    }
+
+    /**
+     * Forgets given file, or all the files of given directory.
+     */
+    private void forget(final Path path) {
+        delivered.keySet().removeIf(known -> known.startsWith(path));
+        pending.keySet().removeIf(known -> known.startsWith(path));
+    }
+
+    private void retryPending(final Consumer<? super TestResult> consumer) {
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<Path, Retry> entry : new ArrayList<>(pending.entrySet())) {
+            if (entry.getValue().nextAttempt <= now) {
+                tryRead(entry.getKey(), consumer);
+            }
+        }
+    }
+
+    private void tryRead(final Path path, final Consumer<? super TestResult> consumer) {
+        final TestResult result;
+        final FileVersion version;
+        try {
+            final FileVersion known = delivered.get(path);
+            if (Objects.nonNull(known) && known.equals(FileVersion.of(path))) {
+                return;
+            }
+            result = reader.readValue(path, TestResult.class);
+            // the file is complete once parsed, so its version does not change anymore
+            version = FileVersion.of(path);
+        } catch (NoSuchFileException e) {
+            pending.remove(path);
+            return;
+        } catch (IOException e) {
+            final Retry retry = pending.computeIfAbsent(path, key -> new Retry());
+            if (retry.failed() == REPORT_ATTEMPTS) {
+                // let error handler of reader decide, it may stop tailing by throwing
+                reader.handleError(path, e);
+            }
+            return;
+        }
+        pending.remove(path);
+        delivered.put(path, version);
+        consumer.accept(result);
+    }
+
+    private static Iterable<Path> list(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            final Set<Path> result = new LinkedHashSet<>();
+            files.forEach(result::add);
+            return result;
+        }
+    }
+
+    /**
+     * Failed attempts to parse a file. The file is retried on each poll first, and then
+     * delay between attempts doubles up to {@link #MAX_RETRY_MILLIS}.
+     */
+    private static final class Retry {
+
+        private int attempts;
+
+        private long nextAttempt;
+
+        private int failed() {
+            attempts++;
+            final long delay = attempts < REPORT_ATTEMPTS
+                    ? 0
+                    : Math.min(POLL_MILLIS << Math.min(attempts - REPORT_ATTEMPTS, 16), MAX_RETRY_MILLIS);
+            nextAttempt = System.currentTimeMillis() + delay;
+            return attempts;
+        }
+    }
+
+    /**
+     * Size and modification time of delivered file.
+     */
+    private static final class FileVersion {
+
+        private final long size;
+
+        private final long lastModified;
+
+        private FileVersion(final long size, final long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private static FileVersion of(final Path path) throws IOException {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final FileVersion that = (FileVersion) o;
+            return size == that.size && lastModified == that.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.qameta.allure.AllureResultsFormat;
+import io.qameta.allure.AllureResultsLayout;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.FixtureResult;
+import io.qameta.allure.model.StepResult;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AllureResultsCompactorTest {
+
+    private static final String HISTORY_ID = "history";
+
+    private static final String ENVIRONMENT = "environment.properties";
+
+    private static final String OLD = "old";
+
+    private static final String NEW = "new";
+
+    private static final String CLASS = "class";
+
+    private static final String SUITE = "suite";
+
+    private static final String OLD_ATTACHMENT = "old-attachment.txt";
+
+    private static final String STEP_ATTACHMENT = "step-attachment.txt";
+
+    private static final String BEFORE_ATTACHMENT = "before-attachment.txt";
+
+    private static final String AFTER_ATTACHMENT = "after-attachment.txt";
+
+    @Test
+    void shouldKeepLatestResultsWithTheirContainersAndAttachments(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.JSON, AllureResultsLayout.SHARDED
+        );
+        writer.write(new TestResult().setUuid(OLD).setHistoryId(HISTORY_ID).setStop(1L)
+                .setAttachments(attachments(OLD_ATTACHMENT)));
+        writer.write(new TestResult().setUuid(NEW).setHistoryId(HISTORY_ID).setStop(2L)
+                .setSteps(Collections.singletonList(new StepResult()
+                        .setAttachments(attachments(STEP_ATTACHMENT)))));
+        writer.write(new TestResult().setUuid("other"));
+        writer.write(new TestResultContainer().setUuid(CLASS).setChildren(Arrays.asList(OLD, NEW))
+                .setBefores(Collections.singletonList(new FixtureResult()
+                        .setAttachments(attachments(BEFORE_ATTACHMENT)))));
+        writer.write(new TestResultContainer().setUuid(SUITE).setChildren(Collections.singletonList(CLASS))
+                .setAfters(Collections.singletonList(new FixtureResult()
+                        .setAttachments(attachments(AFTER_ATTACHMENT)))));
+        writer.write(new TestResultContainer().setUuid("root").setChildren(Collections.singletonList(SUITE)));
+        writer.write(new TestResultContainer().setUuid("dropped").setChildren(Collections.singletonList(OLD)));
+        for (String source : Arrays.asList(
+                OLD_ATTACHMENT, STEP_ATTACHMENT, BEFORE_ATTACHMENT, AFTER_ATTACHMENT)) {
+            writer.write(source, new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        Files.write(folder.resolve(ENVIRONMENT), "a=b".getBytes(StandardCharsets.UTF_8));
+
+        final Path zip = folder.resolveSibling(folder.getFileName() + ".zip");
+        final AllureResultsCompactor.Summary summary = new AllureResultsCompactor(new AllureResultsReader(folder), 1)
+                .compact(zip);
+
+        assertThat(summary.getKeptTestResults()).isEqualTo(2);
+        assertThat(summary.getDroppedTestResults()).isEqualTo(1);
+        assertThat(summary.getKeptContainers()).isEqualTo(3);
+        assertThat(summary.getDroppedContainers()).isEqualTo(1);
+        assertThat(summary.getAttachments()).isEqualTo(3);
+        assertThat(entries(zip)).containsExactlyInAnyOrder(
+                "new-result.json",
+                "other-result.json",
+                "class-container.json",
+                "suite-container.json",
+                "root-container.json",
+                STEP_ATTACHMENT,
+                BEFORE_ATTACHMENT,
+                AFTER_ATTACHMENT,
+                ENVIRONMENT
+        );
+        Files.delete(zip);
+    }
+
+    @Test
+    void shouldConvertBinaryResultsToJson(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.SMILE, AllureResultsLayout.FLAT
+        );
+        writer.write(new TestResult().setUuid(NEW).setHistoryId(HISTORY_ID).setName(NEW));
+        writer.write(new TestResultContainer().setUuid(CLASS).setChildren(Collections.singletonList(NEW)));
+
+        final Path zip = folder.resolveSibling(folder.getFileName() + ".zip");
+        new AllureResultsCompactor(new AllureResultsReader(folder), 1).compact(zip);
+
+        assertThat(entries(zip)).containsExactlyInAnyOrder("new-result.json", "class-container.json");
+        final ObjectMapper mapper = AllureObjectMapperFactory.createMapper();
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            try (InputStream stream = file.getInputStream(file.getEntry("new-result.json"))) {
+                assertThat(mapper.readValue(stream, TestResult.class))
+                        .extracting(TestResult::getUuid, TestResult::getName)
+                        .containsExactly(NEW, NEW);
+            }
+            try (InputStream stream = file.getInputStream(file.getEntry("class-container.json"))) {
+                assertThat(mapper.readValue(stream, TestResultContainer.class).getChildren())
+                        .containsExactly(NEW);
+            }
+        }
+        Files.delete(zip);
+    }
+
+    @Test
+    void shouldRequireAtLeastOneResultPerHistoryId(@TempDir final Path folder) {
+        final AllureResultsReader reader = new AllureResultsReader(folder);
+        assertThatThrownBy(() -> new AllureResultsCompactor(reader, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Attachment> attachments(final String source) {
+        return new ArrayList<>(Collections.singletonList(new Attachment().setSource(source)));
+    }
+
+    private static List<String> entries(final Path zip) throws IOException {
+        final List<String> result = new ArrayList<>();
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            for (ZipEntry entry : Collections.list(file.entries())) {
+                result.add(entry.getName());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.AllureResultsFormat;
+import io.qameta.allure.AllureResultsLayout;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllureResultsDirectoryTest {
+
+    private static final String CONTENT = "content";
+
+    private static final String RESULT_SUFFIX = "-result.json";
+
+    @Test
+    void shouldListFlatAndShardedFilesSequentially(@TempDir final Path folder) throws IOException {
+        final String flat = UUID.randomUUID().toString();
+        final String sharded = UUID.randomUUID().toString();
+        final String container = UUID.randomUUID().toString();
+        writer(folder, AllureResultsLayout.FLAT).write(new TestResult().setUuid(flat));
+        final FileSystemResultsWriter shardedWriter = writer(folder, AllureResultsLayout.SHARDED);
+        shardedWriter.write(new TestResult().setUuid(sharded));
+        shardedWriter.write(new TestResultContainer().setUuid(container));
+        Files.createDirectories(folder.resolve("not-a-shard"));
+
+        final AllureResultsDirectory directory = new AllureResultsDirectory(folder);
+        try (Stream<Path> files = directory.listFiles()) {
+            assertThat(files.isParallel()).isFalse();
+        }
+        try (Stream<Path> files = directory.listTestResults()) {
+            assertThat(files)
+                    .extracting(file -> file.getFileName().toString())
+                    .containsExactlyInAnyOrder(flat + RESULT_SUFFIX, sharded + RESULT_SUFFIX);
+        }
+        try (Stream<Path> files = directory.listTestResultContainers()) {
+            assertThat(files)
+                    .extracting(file -> file.getFileName().toString())
+                    .containsExactly(container + "-container.json");
+        }
+    }
+
+    @Test
+    void shouldResolveFlatAndShardedAttachments(@TempDir final Path folder) throws IOException {
+        final String flat = UUID.randomUUID() + "-attachment.txt";
+        final String sharded = "screenshot-" + UUID.randomUUID() + "-attachment.png";
+        writer(folder, AllureResultsLayout.FLAT).write(flat, content());
+        writer(folder, AllureResultsLayout.SHARDED).write(sharded, content());
+
+        final AllureResultsDirectory directory = new AllureResultsDirectory(folder);
+        assertThat(directory.resolveAttachment(flat))
+                .isEqualTo(folder.resolve(flat))
+                .hasContent(CONTENT);
+        assertThat(directory.resolveAttachment(sharded))
+                .isEqualTo(AllureResultsLayout.SHARDED.getDirectory(folder, sharded).resolve(sharded))
+                .hasContent(CONTENT);
+    }
+
+    private static FileSystemResultsWriter writer(final Path folder, final AllureResultsLayout layout) {
+        return new FileSystemResultsWriter(folder, AllureResultsFormat.JSON, layout);
+    }
+
+    private static ByteArrayInputStream content() {
+        return new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class AllureResultsIndexTest {
+
+    private static final String SUITE = "suite";
+
+    private static final String FIRST = "first";
+
+    private static final String SECOND = "second";
+
+    private static final String HISTORY_ID = "history";
+
+    private static final String INDEX_FILE = "index.bin";
+
+    private static final String A = "a";
+
+    private static final String B = "b";
+
+    private static final String C = "c";
+
+    @Test
+    void shouldQueryIndexedResults() {
+        final AllureResultsIndex index = createIndex();
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.query().withLabel(SUITE, FIRST).getUuids())
+                .containsExactly(A, B);
+        assertThat(index.query().withStatus(Status.FAILED).getUuids())
+                .containsExactly(B);
+        assertThat(index.query().withHistoryId(HISTORY_ID).withStatus(Status.PASSED).getUuids())
+                .containsExactly(A);
+        assertThat(index.query().withLabel(SUITE, "unknown").count()).isZero();
+        assertThat(index.query().startedBetween(150, 350).getUuids())
+                .containsExactly(B, C);
+        assertThat(index.query().withLabel(SUITE, FIRST).getTotalDuration()).isEqualTo(20);
+        assertThat(index.query().countByStatus())
+                .containsOnly(entry(Status.PASSED, 2), entry(Status.FAILED, 1));
+        assertThat(index.query().countByLabel(SUITE))
+                .containsOnly(entry(FIRST, 2), entry(SECOND, 1));
+        assertThat(index.query().countByHistoryId())
+                .containsOnly(entry(HISTORY_ID, 2));
+    }
+
+    @Test
+    void shouldStoreAndReadIndex(@TempDir final Path folder) throws IOException {
+        final AllureResultsIndex index = createIndex();
+        final Path file = folder.resolve(INDEX_FILE);
+        index.writeTo(file);
+
+        final AllureResultsIndex actual = AllureResultsIndex.readFrom(file);
+        assertThat(actual.size()).isEqualTo(index.size());
+        assertThat(actual.query().getUuids()).isEqualTo(index.query().getUuids());
+        assertThat(actual.query().countByStatus()).isEqualTo(index.query().countByStatus());
+        assertThat(actual.query().countByLabel(SUITE)).isEqualTo(index.query().countByLabel(SUITE));
+        assertThat(actual.query().withHistoryId(HISTORY_ID).getUuids()).containsExactly(A, B);
+        assertThat(actual.query().startedBetween(0, 1000).getTotalDuration())
+                .isEqualTo(index.query().startedBetween(0, 1000).getTotalDuration());
+    }
+
+    @Test
+    void shouldRejectUnknownIndexFile(@TempDir final Path folder) throws IOException {
+        final Path file = folder.resolve(INDEX_FILE);
+        Files.write(file, "not an index file".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> AllureResultsIndex.readFrom(file))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldIndexResultsDirectory(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(folder);
+        writer.write(result(A, Status.PASSED, 100)
+                .setLabels(Arrays.asList(new Label().setName(SUITE).setValue(FIRST))));
+        writer.write(result(B, Status.BROKEN, 200));
+
+        final Map<Status, Integer> statuses = new AllureResultsIndexBuilder()
+                .addAll(new AllureResultsReader(folder))
+                .build()
+                .query()
+                .countByStatus();
+        assertThat(statuses).containsOnly(entry(Status.PASSED, 1), entry(Status.BROKEN, 1));
+    }
+
+    private static AllureResultsIndex createIndex() {
+        return new AllureResultsIndexBuilder()
+                .add(result(A, Status.PASSED, 100)
+                        .setHistoryId(HISTORY_ID)
+                        .setLabels(Arrays.asList(new Label().setName(SUITE).setValue(FIRST), null)))
+                .add(result(B, Status.FAILED, 200)
+                        .setHistoryId(HISTORY_ID)
+                        .setLabels(Arrays.asList(new Label().setName(SUITE).setValue(FIRST))))
+                .add(result(C, Status.PASSED, 300)
+                        .setLabels(Arrays.asList(new Label().setName(SUITE).setValue(SECOND))))
+                .add(result("d", null, 400).setLabels(null))
+                .build();
+    }
+
+    private static TestResult result(final String uuid, final Status status, final long start) {
+        return new TestResult().setUuid(uuid).setStatus(status).setStart(start).setStop(start + 10);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.AllureResultsFormat;
+import io.qameta.allure.AllureResultsLayout;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.model.TestResultContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AllureResultsReaderTest {
+
+    private static final String BROKEN_RESULT = "broken-result.json";
+
+    private static final String BROKEN_CONTENT = "{";
+
+    private static final String CHILD = "child";
+
+    private static final String HELLO = "hello";
+
+    @Test
+    void shouldReadResultsOfAllFormatsAndLayouts(@TempDir final Path folder) throws IOException {
+        final List<String> expected = new ArrayList<>();
+        for (AllureResultsFormat format : AllureResultsFormat.values()) {
+            for (AllureResultsLayout layout : AllureResultsLayout.values()) {
+                final String uuid = UUID.randomUUID().toString();
+                new FileSystemResultsWriter(folder, format, layout)
+                        .write(new TestResult().setUuid(uuid).setName(format + " " + layout).setStatus(Status.PASSED));
+                expected.add(uuid);
+            }
+        }
+
+        try (Stream<TestResult> results = new AllureResultsReader(folder).readTestResults()) {
+            assertThat(results)
+                    .allSatisfy(result -> assertThat(result.getStatus()).isEqualTo(Status.PASSED))
+                    .extracting(TestResult::getUuid)
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void shouldReadContainers(@TempDir final Path folder) throws IOException {
+        final String uuid = UUID.randomUUID().toString();
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(folder);
+        writer.write(new TestResult().setUuid(UUID.randomUUID().toString()));
+        writer.write(new TestResultContainer().setUuid(uuid).setChildren(List.of(CHILD)));
+
+        try (Stream<TestResultContainer> containers = new AllureResultsReader(folder).readTestResultContainers()) {
+            assertThat(containers)
+                    .singleElement()
+                    .satisfies(container -> {
+                        assertThat(container.getUuid()).isEqualTo(uuid);
+                        assertThat(container.getChildren()).containsExactly(CHILD);
+                    });
+        }
+    }
+
+    @Test
+    void shouldParseResultsOnGivenPool(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.JSON, AllureResultsLayout.SHARDED
+        );
+        final Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            final String uuid = UUID.randomUUID().toString();
+            writer.write(new TestResult().setUuid(uuid));
+            expected.add(uuid);
+        }
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Map<String, String> actual = new ConcurrentHashMap<>();
+            new AllureResultsReader(folder, pool, (file, e) -> {
+            }).forEachTestResult(result -> actual.put(result.getUuid(), Thread.currentThread().getName()));
+            assertThat(actual.keySet()).isEqualTo(expected);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldReadSequentiallyOnSingleThreadPool(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(folder);
+        for (int i = 0; i < 10; i++) {
+            writer.write(new TestResult().setUuid(UUID.randomUUID().toString()));
+        }
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            final Set<String> threads = ConcurrentHashMap.newKeySet();
+            new AllureResultsReader(folder, pool, (file, e) -> {
+            }).forEachTestResultContainer(container -> threads.add(Thread.currentThread().getName()));
+            new AllureResultsReader(folder, pool, (file, e) -> {
+            }).forEachTestResult(result -> threads.add(Thread.currentThread().getName()));
+            assertThat(threads).containsExactly(Thread.currentThread().getName());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldPassUnreadableFilesToErrorHandler(@TempDir final Path folder) throws IOException {
+        final String uuid = UUID.randomUUID().toString();
+        new FileSystemResultsWriter(folder).write(new TestResult().setUuid(uuid));
+        Files.write(folder.resolve(BROKEN_RESULT), BROKEN_CONTENT.getBytes(StandardCharsets.UTF_8));
+
+        final List<Path> errors = new ArrayList<>();
+        final AllureResultsReader reader = new AllureResultsReader(
+                folder, ForkJoinPool.commonPool(), (file, e) -> errors.add(file)
+        );
+        try (Stream<TestResult> results = reader.readTestResults()) {
+            assertThat(results.map(TestResult::getUuid).collect(Collectors.toList()))
+                    .containsExactly(uuid);
+        }
+        assertThat(errors).containsExactly(folder.resolve(BROKEN_RESULT));
+    }
+
+    @Test
+    void shouldFailOnUnreadableFilesByDefault(@TempDir final Path folder) throws IOException {
+        Files.write(folder.resolve(BROKEN_RESULT), BROKEN_CONTENT.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> new AllureResultsReader(folder).forEachTestResult(result -> {
+        }))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining(BROKEN_RESULT);
+    }
+
+    @Test
+    void shouldDetectFormatOfFilesWithUnknownSuffix(@TempDir final Path folder) throws IOException {
+        final String uuid = UUID.randomUUID().toString();
+        new FileSystemResultsWriter(folder, AllureResultsFormat.SMILE, AllureResultsLayout.FLAT)
+                .write(new TestResult().setUuid(uuid));
+        final Path file = folder.resolve(uuid + "-result.bin");
+        Files.move(folder.resolve(uuid + AllureResultsFormat.SMILE.getTestResultSuffix()), file);
+
+        assertThat(new AllureResultsReader(folder).read(file, TestResult.class))
+                .hasValueSatisfying(result -> assertThat(result.getUuid()).isEqualTo(uuid));
+    }
+
+    @Test
+    void shouldOpenShardedAttachment(@TempDir final Path folder) throws IOException {
+        final String source = UUID.randomUUID() + "-attachment.txt";
+        new FileSystemResultsWriter(folder, AllureResultsFormat.JSON, AllureResultsLayout.SHARDED)
+                .write(source, new ByteArrayInputStream(HELLO.getBytes(StandardCharsets.UTF_8)));
+
+        try (InputStream stream = new AllureResultsReader(folder).openAttachment(new Attachment().setSource(source))) {
+            assertThat(stream).hasContent(HELLO);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.reader;
+
+import io.qameta.allure.AllureResultsFormat;
+import io.qameta.allure.AllureResultsLayout;
+import io.qameta.allure.FileSystemResultsWriter;
+import io.qameta.allure.model.TestResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllureResultsTailerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final String PARTIAL = "partial";
+
+    @Test
+    void shouldEmitExistingAndNewResultsOnce(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter flat = new FileSystemResultsWriter(folder);
+        final FileSystemResultsWriter sharded = new FileSystemResultsWriter(
+                folder, AllureResultsFormat.JSON, AllureResultsLayout.SHARDED, true
+        );
+        final String existing = write(flat);
+
+        final BlockingQueue<String> emitted = new LinkedBlockingQueue<>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AllureResultsTailer tailer = new AllureResultsTailer(new AllureResultsReader(folder))) {
+            final Future<?> tailing = executor.submit(() -> {
+                tailer.tail(result -> emitted.add(result.getUuid()));
+                return null;
+            });
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(existing);
+
+            final List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                expected.add(write(flat));
+                expected.add(write(sharded));
+            }
+            sharded.flush();
+            assertThat(take(emitted, expected.size())).containsExactlyInAnyOrderElementsOf(expected);
+
+            tailer.close();
+            tailing.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(emitted).isEmpty();
+    }
+
+    @Test
+    void shouldNotEmitDeliveredResultsAgain(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(folder);
+        final BlockingQueue<String> emitted = new LinkedBlockingQueue<>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AllureResultsTailer tailer = new AllureResultsTailer(new AllureResultsReader(folder))) {
+            executor.submit(() -> {
+                tailer.tail(result -> emitted.add(result.getUuid()));
+                return null;
+            });
+            final String touched = write(writer);
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(touched);
+
+            final Path file = folder.resolve(touched + AllureResultsFormat.JSON.getTestResultSuffix());
+            final FileTime modified = Files.getLastModifiedTime(file);
+            Files.setLastModifiedTime(file, modified);
+
+            final Path partial = folder.resolve(PARTIAL + AllureResultsFormat.JSON.getTestResultSuffix());
+            Files.write(partial, "{\"uuid\":\"partial\",\"na".getBytes(StandardCharsets.UTF_8));
+            final String next = write(writer);
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(next);
+
+            Files.write(partial, "{\"uuid\":\"partial\"}".getBytes(StandardCharsets.UTF_8));
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(PARTIAL);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(emitted).isEmpty();
+    }
+
+    @Test
+    void shouldEmitRecreatedResultsAgain(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(folder);
+        final BlockingQueue<String> emitted = new LinkedBlockingQueue<>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AllureResultsTailer tailer = new AllureResultsTailer(new AllureResultsReader(folder))) {
+            executor.submit(() -> {
+                tailer.tail(result -> emitted.add(result.getUuid()));
+                return null;
+            });
+            final String uuid = write(writer);
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(uuid);
+
+            final Path file = folder.resolve(uuid + AllureResultsFormat.JSON.getTestResultSuffix());
+            final byte[] content = Files.readAllBytes(file);
+            final FileTime modified = Files.getLastModifiedTime(file);
+            Files.delete(file);
+            final String next = write(writer);
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(next);
+
+            // recreate the file with the same size and modification time at once
+            final Path copy = Files.createDirectory(folder.resolve(".copy")).resolve(file.getFileName());
+            Files.write(copy, content);
+            Files.setLastModifiedTime(copy, modified);
+            Files.move(copy, file, StandardCopyOption.ATOMIC_MOVE);
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(uuid);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(emitted).isEmpty();
+    }
+
+    @Test
+    void shouldReportBrokenResultsAndKeepTailing(@TempDir final Path folder) throws Exception {
+        final FileSystemResultsWriter writer = new FileSystemResultsWriter(folder);
+        final BlockingQueue<String> emitted = new LinkedBlockingQueue<>();
+        final BlockingQueue<Path> failed = new LinkedBlockingQueue<>();
+        final AllureResultsReader reader = new AllureResultsReader(
+                folder, ForkJoinPool.commonPool(), (path, e) -> failed.add(path)
+        );
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AllureResultsTailer tailer = new AllureResultsTailer(reader)) {
+            final Future<?> tailing = executor.submit(() -> {
+                tailer.tail(result -> emitted.add(result.getUuid()));
+                return null;
+            });
+            final Path broken = folder.resolve(PARTIAL + AllureResultsFormat.JSON.getTestResultSuffix());
+            Files.write(broken, "{\"uuid\":".getBytes(StandardCharsets.UTF_8));
+            assertThat(failed.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(broken);
+
+            final String next = write(writer);
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(next);
+            assertThat(tailing).isNotDone();
+
+            Files.write(broken, "{\"uuid\":\"partial\"}".getBytes(StandardCharsets.UTF_8));
+            assertThat(emitted.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isEqualTo(PARTIAL);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(failed).isEmpty();
+        assertThat(emitted).isEmpty();
+    }
+
+    private static String write(final FileSystemResultsWriter writer) {
+        final String uuid = UUID.randomUUID().toString();
+        writer.write(new TestResult().setUuid(uuid));
+        return uuid;
+    }
+
+    private static List<String> take(final BlockingQueue<String> queue, final int count) throws InterruptedException {
+        final List<String> result = new ArrayList<>();
+        while (result.size() < count) {
+            final String next = queue.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (next == null) {
+                break;
+            }
+            result.add(next);
+        }
+        return result;
+    }
+}
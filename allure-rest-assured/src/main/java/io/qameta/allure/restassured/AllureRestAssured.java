@@ -15,6 +15,10 @@
  */
 package io.qameta.allure.restassured;
 
+import io.qameta.allure.Allure;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentProcessor;
+import io.qameta.allure.attachment.AttachmentRenderer;
 import io.qameta.allure.attachment.DefaultAttachmentProcessor;
 import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
 import io.qameta.allure.attachment.http.HttpRequestAttachment;
@@ -27,9 +31,12 @@ import io.restassured.response.Response;
 import io.restassured.specification.FilterableRequestSpecification;
 import io.restassured.specification.FilterableResponseSpecification;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static io.qameta.allure.attachment.http.HttpRequestAttachment.Builder.create;
 import static io.qameta.allure.attachment.http.HttpResponseAttachment.Builder.create;
@@ -40,18 +47,27 @@ import static java.util.Optional.ofNullable;
  */
 public class AllureRestAssured implements OrderedFilter {
 
-    private String requestTemplatePath = "http-request.ftl";
-    private String responseTemplatePath = "http-response.ftl";
+    /**
+     * The default length of body, above which body is attached as is.
+     */
+    public static final int DEFAULT_PRETTIFY_LIMIT = 1024 * 1024;
+
+    private final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
+
+    private AttachmentRenderer<AttachmentData> requestRenderer = new FreemarkerAttachmentRenderer("http-request.ftl");
+    private AttachmentRenderer<AttachmentData> responseRenderer = new FreemarkerAttachmentRenderer("http-response.ftl");
     private String requestAttachmentName = "Request";
     private String responseAttachmentName;
+    private PrettifyPolicy prettifyPolicy = PrettifyPolicy.ALWAYS;
+    private int prettifyLimit = DEFAULT_PRETTIFY_LIMIT;
 
     public AllureRestAssured setRequestTemplate(final String templatePath) {
-        this.requestTemplatePath = templatePath;
+        this.requestRenderer = new FreemarkerAttachmentRenderer(templatePath);
         return this;
     }
 
     public AllureRestAssured setResponseTemplate(final String templatePath) {
-        this.responseTemplatePath = templatePath;
+        this.responseRenderer = new FreemarkerAttachmentRenderer(templatePath);
         return this;
     }
 
@@ -65,6 +81,29 @@ public class AllureRestAssured implements OrderedFilter {
         return this;
     }
 
+    /**
+     * Sets when request and response bodies are prettified, {@link PrettifyPolicy#ALWAYS} by default.
+     *
+     * @param prettifyPolicy the policy.
+     * @return self for method chaining.
+     */
+    public AllureRestAssured setPrettifyPolicy(final PrettifyPolicy prettifyPolicy) {
+        this.prettifyPolicy = prettifyPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the maximum length of body that can be prettified. Longer bodies are
+     * attached as is, without parsing. Default is {@link #DEFAULT_PRETTIFY_LIMIT}.
+     *
+     * @param prettifyLimit the maximum length of prettified body.
+     * @return self for method chaining.
+     */
+    public AllureRestAssured setPrettifyLimit(final int prettifyLimit) {
+        this.prettifyLimit = prettifyLimit;
+        return this;
+    }
+
     /**
      * @deprecated use {@link #setRequestTemplate(String)} instead.
      * Scheduled for removal in 3.0 release.
@@ -94,40 +133,69 @@ public class AllureRestAssured implements OrderedFilter {
                 .setHeaders(toMapConverter(requestSpec.getHeaders()))
                 .setCookies(toMapConverter(requestSpec.getCookies()));
 
-        if (Objects.nonNull(requestSpec.getBody())) {
-            requestAttachmentBuilder.setBody(prettifier.getPrettifiedBodyIfPossible(requestSpec));
-        }
-
         if (Objects.nonNull(requestSpec.getFormParams())) {
             requestAttachmentBuilder.setFormParams(requestSpec.getFormParams());
         }
 
-        final HttpRequestAttachment requestAttachment = requestAttachmentBuilder.build();
-
-        new DefaultAttachmentProcessor().addAttachment(
-                requestAttachment,
-                new FreemarkerAttachmentRenderer(requestTemplatePath)
-        );
+        final Object requestBody = requestSpec.getBody();
+        if (Objects.nonNull(requestBody)) {
+            addAttachment(
+                    requestAttachmentName,
+                    body -> requestAttachmentBuilder.setBody(body).build(),
+                    requestRenderer,
+                    toString(requestBody),
+                    requestSpec.getContentType(),
+                    () -> prettifier.getPrettifiedBodyIfPossible(requestSpec)
+            );
+        } else {
+            processor.addAttachment(requestAttachmentBuilder.build(), requestRenderer);
+        }
 
         final Response response = filterContext.next(requestSpec, responseSpec);
 
         final String attachmentName = ofNullable(responseAttachmentName)
                 .orElse(response.getStatusLine());
 
-        final HttpResponseAttachment responseAttachment = create(attachmentName)
+        final HttpResponseAttachment.Builder responseAttachmentBuilder = create(attachmentName)
                 .setResponseCode(response.getStatusCode())
-                .setHeaders(toMapConverter(response.getHeaders()))
-                .setBody(prettifier.getPrettifiedBodyIfPossible(response, response.getBody()))
-                .build();
-
-        new DefaultAttachmentProcessor().addAttachment(
-                responseAttachment,
-                new FreemarkerAttachmentRenderer(responseTemplatePath)
+                .setHeaders(toMapConverter(response.getHeaders()));
+
+        addAttachment(
+                attachmentName,
+                body -> responseAttachmentBuilder.setBody(body).build(),
+                responseRenderer,
+                response.getBody().asString(),
+                response.getContentType(),
+                () -> prettifier.getPrettifiedBodyIfPossible(response, response.getBody())
         );
 
         return response;
     }
 
+    private void addAttachment(final String name,
+                               final Function<String, AttachmentData> attachment,
+                               final AttachmentRenderer<AttachmentData> renderer,
+                               final String rawBody,
+                               final String contentType,
+                               final Supplier<String> prettyBody) {
+        if (prettifyPolicy == PrettifyPolicy.NEVER || rawBody.length() > prettifyLimit) {
+            processor.addAttachment(attachment.apply(rawBody), renderer);
+            return;
+        }
+        final boolean deferred = prettifyPolicy == PrettifyPolicy.ON_FAILURE && AllureRestAssuredListener.defer(
+                Allure.getLifecycle(), name, attachment, renderer, rawBody, contentType
+        );
+        if (!deferred) {
+            processor.addAttachment(attachment.apply(prettyBody.get()), renderer);
+        }
+    }
+
+    private static String toString(final Object body) {
+        return body instanceof byte[]
+                ? new String((byte[]) body, StandardCharsets.UTF_8)
+                : String.valueOf(body);
+    }
+
     private static Map<String, String> toMapConverter(final Iterable<? extends NameAndValue> items) {
         final Map<String, String> result = new HashMap<>();
         items.forEach(h -> result.put(h.getName(), h.getValue()));
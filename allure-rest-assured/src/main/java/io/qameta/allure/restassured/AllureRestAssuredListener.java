@@ -0,0 +1,168 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.restassured;
+
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.listener.TestLifecycleListener;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import io.restassured.internal.support.Prettifier;
+import io.restassured.parsing.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Writes attachments deferred by {@link PrettifyPolicy#ON_FAILURE} policy once
+ * the test is stopped. Only raw body and its content type are kept until then,
+ * and body is prettified from them if test is failed. Attachments of tests that
+ * are written without being stopped are discarded. Registered as
+ * {@link TestLifecycleListener} service.
+ */
+public class AllureRestAssuredListener implements TestLifecycleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureRestAssuredListener.class);
+
+    private static final Set<String> RUNNING = ConcurrentHashMap.newKeySet();
+
+    private static final Map<String, List<Deferred>> DEFERRED = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterTestStart(final TestResult result) {
+        RUNNING.add(result.getUuid());
+    }
+
+    @Override
+    public void beforeTestStop(final TestResult result) {
+        RUNNING.remove(result.getUuid());
+        final List<Deferred> deferred = DEFERRED.remove(result.getUuid());
+        if (Objects.isNull(deferred)) {
+            return;
+        }
+        final boolean failed = result.getStatus() == Status.FAILED || result.getStatus() == Status.BROKEN;
+        deferred.forEach(attachment -> attachment.write(failed));
+    }
+
+    @Override
+    public void afterTestWrite(final TestResult result) {
+        RUNNING.remove(result.getUuid());
+        DEFERRED.remove(result.getUuid());
+    }
+
+    /**
+     * Adds attachment to current test or step, and defers writing of its content
+     * until the test is stopped.
+     *
+     * @param lifecycle  the lifecycle.
+     * @param name       the name of attachment.
+     * @param attachment the function that creates attachment data with given body.
+     * @param renderer   the renderer of attachment.
+     * @param rawBody     the raw body.
+     * @param contentType the content type of body, used to prettify it.
+     * @return false if there is no running test, so attachment could not be deferred.
+     */
+    static boolean defer(final AllureLifecycle lifecycle,
+                         final String name,
+                         final Function<String, AttachmentData> attachment,
+                         final AttachmentRenderer<AttachmentData> renderer,
+                         final String rawBody,
+                         final String contentType) {
+        final Optional<String> testUuid = lifecycle.getCurrentTestCase().filter(RUNNING::contains);
+        if (!testUuid.isPresent()) {
+            return false;
+        }
+        final String source = lifecycle.prepareAttachment(
+                name, renderer.getContentType(), renderer.getFileExtension()
+        );
+        DEFERRED.computeIfAbsent(testUuid.get(), uuid -> new CopyOnWriteArrayList<>())
+                .add(new Deferred(lifecycle, source, attachment, renderer, rawBody, contentType));
+        return true;
+    }
+
+    static boolean hasDeferred(final String testUuid) {
+        return DEFERRED.containsKey(testUuid);
+    }
+
+    private static String prettify(final String body, final String contentType) {
+        if (Objects.isNull(contentType) || contentType.isEmpty()) {
+            return body;
+        }
+        try {
+            final Parser parser = Parser.fromContentType(contentType);
+            return Objects.isNull(parser) ? body : new Prettifier().prettify(body, parser);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not prettify body of {} content type", contentType, e);
+            return body;
+        }
+    }
+
+    /**
+     * Attachment which content is not written yet.
+     */
+    private static final class Deferred {
+
+        private final AllureLifecycle lifecycle;
+
+        private final String source;
+
+        private final Function<String, AttachmentData> attachment;
+
+        private final AttachmentRenderer<AttachmentData> renderer;
+
+        private final String rawBody;
+
+        private final String contentType;
+
+        private Deferred(final AllureLifecycle lifecycle,
+                         final String source,
+                         final Function<String, AttachmentData> attachment,
+                         final AttachmentRenderer<AttachmentData> renderer,
+                         final String rawBody,
+                         final String contentType) {
+            this.lifecycle = lifecycle;
+            this.source = source;
+            this.attachment = attachment;
+            this.renderer = renderer;
+            this.rawBody = rawBody;
+            this.contentType = contentType;
+        }
+
+        private void write(final boolean prettify) {
+            try {
+                final String body = prettify ? prettify(rawBody, contentType) : rawBody;
+                final AttachmentContent content = renderer.render(attachment.apply(body));
+                lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                        content.getContent().getBytes(StandardCharsets.UTF_8)
+                ));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not write attachment {}", source, e);
+            }
+        }
+    }
+}
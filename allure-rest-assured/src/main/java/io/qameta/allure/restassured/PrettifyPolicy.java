@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.restassured;
+
+/**
+ * Defines when request and response bodies are prettified by {@link AllureRestAssured}.
+ */
+public enum PrettifyPolicy {
+
+    /**
+     * Bodies are prettified when request is sent and response is received.
+     */
+    ALWAYS,
+
+    /**
+     * Raw bodies are kept until the test is stopped. Bodies are prettified only
+     * if the test is failed or broken, and are attached as is otherwise.
+     */
+    ON_FAILURE,
+
+    /**
+     * Bodies are always attached as is.
+     */
+    NEVER
+}
@@ -21,6 +21,7 @@ import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.google.common.collect.ImmutableList;
 import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.Status;
 import io.qameta.allure.model.TestResult;
 import io.qameta.allure.test.AllureResults;
 import io.restassured.RestAssured;
@@ -32,12 +33,16 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.ArgumentsProvider;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static io.qameta.allure.test.RunUtils.runTests;
 import static io.qameta.allure.test.RunUtils.runWithinTestContext;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
@@ -61,6 +66,12 @@ class AttachmentArgumentProvider implements ArgumentsProvider {
 @SuppressWarnings("unchecked")
 class AllureRestAssuredTest {
 
+    private static final String RAW_JSON_BODY = "{\"allure\":\"rest\"}";
+
+    private static final String RAW_JSON_CONTENT = "{&quot;allure&quot;:&quot;rest&quot;}";
+
+    private static final String PRETTY_JSON_CONTENT = "{\n    &quot;allure&quot;: &quot;rest&quot;\n}";
+
     @ParameterizedTest
     @ArgumentsSource(AttachmentArgumentProvider.class)
     void shouldCreateAttachment(final List<String> attachmentNames, final AllureRestAssured filter) {
@@ -132,13 +143,94 @@ class AllureRestAssuredTest {
                 .doesNotContainNull();
     }
 
+    @Test
+    void shouldAttachBodyAsIsWhenLimitIsExceeded() {
+        RestAssured.replaceFiltersWith(new AllureRestAssured().setPrettifyLimit(5));
+        final AllureResults results = executeWithStub(jsonResponse());
+
+        assertThat(getResponseContent(results))
+                .contains(RAW_JSON_CONTENT)
+                .doesNotContain(PRETTY_JSON_CONTENT);
+    }
+
+    @Test
+    void shouldNotPrettifyBodyOfPassedTestOnFailurePolicy() {
+        RestAssured.replaceFiltersWith(new AllureRestAssured().setPrettifyPolicy(PrettifyPolicy.ON_FAILURE));
+        final AllureResults results = executeWithStub(jsonResponse());
+
+        assertThat(results.getTestResults())
+                .flatExtracting(TestResult::getAttachments)
+                .hasSize(2);
+        assertThat(getResponseContent(results))
+                .contains(RAW_JSON_CONTENT)
+                .doesNotContain(PRETTY_JSON_CONTENT);
+    }
+
+    @Test
+    void shouldPrettifyBodyOfFailedTestOnFailurePolicy() {
+        RestAssured.replaceFiltersWith(new AllureRestAssured().setPrettifyPolicy(PrettifyPolicy.ON_FAILURE));
+        final AllureResults results = executeWithStub(jsonResponse(), 404);
+
+        assertThat(results.getTestResults())
+                .extracting(TestResult::getStatus)
+                .containsExactly(Status.FAILED);
+        assertThat(getResponseContent(results))
+                .contains(PRETTY_JSON_CONTENT);
+    }
+
+    @Test
+    void shouldDiscardDeferredAttachmentsOfTestWrittenWithoutStop() {
+        final String uuid = UUID.randomUUID().toString();
+        final WireMockServer server = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        final AtomicBoolean deferred = new AtomicBoolean();
+        RestAssured.replaceFiltersWith(new AllureRestAssured().setPrettifyPolicy(PrettifyPolicy.ON_FAILURE));
+
+        runTests(lifecycle -> {
+            server.start();
+            try {
+                WireMock.configureFor(server.port());
+                WireMock.stubFor(WireMock.get(WireMock.urlEqualTo("/hello")).willReturn(jsonResponse()));
+                lifecycle.scheduleTestCase(new TestResult().setUuid(uuid));
+                lifecycle.startTestCase(uuid);
+                RestAssured.get(server.url("/hello"));
+                deferred.set(AllureRestAssuredListener.hasDeferred(uuid));
+                lifecycle.writeTestCase(uuid);
+            } finally {
+                server.stop();
+                RestAssured.replaceFiltersWith(ImmutableList.of());
+            }
+        });
+
+        assertThat(deferred).isTrue();
+        assertThat(AllureRestAssuredListener.hasDeferred(uuid)).isFalse();
+    }
+
+    private static ResponseDefinitionBuilder jsonResponse() {
+        return WireMock.aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody(RAW_JSON_BODY);
+    }
+
+    private static String getResponseContent(final AllureResults results) {
+        final Attachment response = results.getTestResults().stream()
+                .map(TestResult::getAttachments)
+                .flatMap(Collection::stream)
+                .filter(attachment -> attachment.getName().startsWith("HTTP"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no response attachment"));
+        return new String(results.getAttachments().get(response.getSource()), StandardCharsets.UTF_8);
+    }
+
     protected final AllureResults execute() {
         return executeWithStub(WireMock.aResponse().withBody("some body"));
     }
 
     protected final AllureResults executeWithStub(ResponseDefinitionBuilder responseBuilder) {
+        return executeWithStub(responseBuilder, responseBuilder.build().getStatus());
+    }
+
+    protected final AllureResults executeWithStub(ResponseDefinitionBuilder responseBuilder, int statusCode) {
         final WireMockServer server = new WireMockServer(WireMockConfiguration.options().dynamicPort());
-        final int statusCode = responseBuilder.build().getStatus();
 
         return runWithinTestContext(() -> {
             server.start();
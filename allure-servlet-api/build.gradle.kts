@@ -5,6 +5,13 @@ var servletApiVersion = "4.0.1"
 dependencies {
     api(project(":allure-attachments"))
     implementation("javax.servlet:javax.servlet-api:$servletApiVersion")
+    testImplementation("org.assertj:assertj-core")
+    testImplementation("org.junit.jupiter:junit-jupiter-api")
+    testImplementation("org.mockito:mockito-core")
+    testImplementation("org.slf4j:slf4j-simple")
+    testImplementation(project(":allure-java-commons-test"))
+    testImplementation(project(":allure-junit-platform"))
+    testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
 }
 
 tasks.jar {
@@ -14,3 +21,7 @@ tasks.jar {
         ))
     }
 }
+
+tasks.test {
+    useJUnitPlatform()
+}
@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.servletapi;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * Request wrapper that captures up to given number of bytes or characters of request
+ * body while the application reads it. Body is neither consumed nor buffered by the
+ * wrapper, so the application gets the same content it would get without it.
+ */
+public class AllureHttpServletRequestWrapper extends HttpServletRequestWrapper {
+
+    private final BoundedBodyCapture capture;
+
+    private ServletInputStream inputStream;
+
+    private BufferedReader reader;
+
+    public AllureHttpServletRequestWrapper(final HttpServletRequest request, final int limit) {
+        super(request);
+        this.capture = new BoundedBodyCapture(limit);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (Objects.isNull(inputStream)) {
+            inputStream = new CapturingInputStream(super.getInputStream(), capture);
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (Objects.isNull(reader)) {
+            reader = new BufferedReader(new CapturingReader(super.getReader(), capture));
+        }
+        return reader;
+    }
+
+    /**
+     * Returns the part of body read by the application so far.
+     *
+     * @return the captured body.
+     */
+    public String getCapturedBody() {
+        return capture.getBody(HttpServletAttachmentBuilder.getCharset(getCharacterEncoding()));
+    }
+
+    /**
+     * Input stream that copies read bytes to capture.
+     */
+    private static final class CapturingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+
+        private final BoundedBodyCapture capture;
+
+        private CapturingInputStream(final ServletInputStream delegate, final BoundedBodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = delegate.read();
+            if (b >= 0) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = delegate.read(b, off, len);
+            if (read > 0) {
+                capture.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Reader that copies read characters to capture.
+     */
+    private static final class CapturingReader extends Reader {
+
+        private final Reader delegate;
+
+        private final BoundedBodyCapture capture;
+
+        private CapturingReader(final Reader delegate, final BoundedBodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            final int read = delegate.read(cbuf, off, len);
+            if (read > 0) {
+                capture.append(cbuf, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
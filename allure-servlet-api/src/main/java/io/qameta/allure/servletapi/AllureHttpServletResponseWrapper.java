@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.servletapi;
+
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Objects;
+
+/**
+ * Response wrapper that captures up to given number of bytes or characters of response
+ * body while the application writes it. Content is passed to the response as is, so
+ * streaming responses are not buffered by the wrapper.
+ */
+public class AllureHttpServletResponseWrapper extends HttpServletResponseWrapper {
+
+    private final BoundedBodyCapture capture;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    public AllureHttpServletResponseWrapper(final HttpServletResponse response, final int limit) {
+        super(response);
+        this.capture = new BoundedBodyCapture(limit);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (Objects.isNull(outputStream)) {
+            outputStream = new CapturingOutputStream(super.getOutputStream(), capture);
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (Objects.isNull(writer)) {
+            writer = new PrintWriter(new CapturingWriter(super.getWriter(), capture));
+        }
+        return writer;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        capture.reset();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        capture.reset();
+    }
+
+    /**
+     * Returns the part of body written by the application so far.
+     *
+     * @return the captured body.
+     */
+    public String getCapturedBody() {
+        if (Objects.nonNull(writer)) {
+            writer.flush();
+        }
+        return capture.getBody(HttpServletAttachmentBuilder.getCharset(getCharacterEncoding()));
+    }
+
+    /**
+     * Output stream that copies written bytes to capture.
+     */
+    private static final class CapturingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private final BoundedBodyCapture capture;
+
+        private CapturingOutputStream(final ServletOutputStream delegate, final BoundedBodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            delegate.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            delegate.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    /**
+     * Writer that copies written characters to capture.
+     */
+    private static final class CapturingWriter extends Writer {
+
+        private final Writer delegate;
+
+        private final BoundedBodyCapture capture;
+
+        private CapturingWriter(final Writer delegate, final BoundedBodyCapture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+            delegate.write(cbuf, off, len);
+            capture.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
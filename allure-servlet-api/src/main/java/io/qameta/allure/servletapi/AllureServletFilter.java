@@ -0,0 +1,191 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.servletapi;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentProcessor;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.attachment.DefaultAttachmentProcessor;
+import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Servlet filter that attaches requests handled while a test is running, along with
+ * responses, to the current test or step. Bodies are captured by
+ * {@link AllureHttpServletRequestWrapper} and {@link AllureHttpServletResponseWrapper}
+ * up to {@link #BODY_LIMIT_PARAMETER} bytes each. Requests handled while no test is
+ * running, e.g. by server threads of a standalone container, are passed through untouched.
+ */
+public class AllureServletFilter implements Filter {
+
+    public static final String BODY_LIMIT_PARAMETER = "bodyLimit";
+
+    public static final int DEFAULT_BODY_LIMIT = 64 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllureServletFilter.class);
+
+    private final AttachmentProcessor<AttachmentData> processor = new DefaultAttachmentProcessor();
+
+    private final AttachmentRenderer<AttachmentData> requestRenderer =
+            new FreemarkerAttachmentRenderer("http-request.ftl");
+
+    private final AttachmentRenderer<AttachmentData> responseRenderer =
+            new FreemarkerAttachmentRenderer("http-response.ftl");
+
+    private int bodyLimit;
+
+    public AllureServletFilter() {
+        this(DEFAULT_BODY_LIMIT);
+    }
+
+    public AllureServletFilter(final int bodyLimit) {
+        this.bodyLimit = bodyLimit;
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) {
+        final String limit = filterConfig.getInitParameter(BODY_LIMIT_PARAMETER);
+        if (Objects.nonNull(limit)) {
+            this.bodyLimit = parseBodyLimit(limit);
+        }
+    }
+
+    private static int parseBodyLimit(final String limit) {
+        try {
+            final int value = Integer.parseInt(limit.trim());
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            LOGGER.debug("Could not parse {} init parameter", BODY_LIMIT_PARAMETER, e);
+        }
+        LOGGER.warn("Invalid value of {} init parameter: {}, using default {}",
+                BODY_LIMIT_PARAMETER, limit, DEFAULT_BODY_LIMIT);
+        return DEFAULT_BODY_LIMIT;
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+                         final ServletResponse response,
+                         final FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)
+                || !Allure.getLifecycle().getCurrentTestCaseOrStep().isPresent()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        final AllureHttpServletRequestWrapper requestWrapper =
+                new AllureHttpServletRequestWrapper((HttpServletRequest) request, bodyLimit);
+        final AllureHttpServletResponseWrapper responseWrapper =
+                new AllureHttpServletResponseWrapper((HttpServletResponse) response, bodyLimit);
+        try {
+            chain.doFilter(requestWrapper, responseWrapper);
+        } finally {
+            if (requestWrapper.isAsyncStarted()) {
+                attachOnComplete(requestWrapper, responseWrapper);
+            } else {
+                processor.addAttachment(buildRequest(requestWrapper), requestRenderer);
+                processor.addAttachment(buildResponse(responseWrapper), responseRenderer);
+            }
+        }
+    }
+
+    /**
+     * Links attachments to the current test or step right away, and writes their
+     * content once the asynchronous request is completed by another thread.
+     */
+    private void attachOnComplete(final AllureHttpServletRequestWrapper request,
+                                  final AllureHttpServletResponseWrapper response) {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        final String requestSource = lifecycle.prepareAttachment(
+                "Request", requestRenderer.getContentType(), requestRenderer.getFileExtension()
+        );
+        final String responseSource = lifecycle.prepareAttachment(
+                "Response", responseRenderer.getContentType(), responseRenderer.getFileExtension()
+        );
+        request.getAsyncContext().addListener(new OnCompleteListener(() -> {
+            write(lifecycle, requestSource, requestRenderer.render(buildRequest(request)));
+            write(lifecycle, responseSource, responseRenderer.render(buildResponse(response)));
+        }));
+    }
+
+    private static AttachmentData buildRequest(final AllureHttpServletRequestWrapper request) {
+        return HttpServletAttachmentBuilder.buildRequest(request, request.getCapturedBody());
+    }
+
+    private static AttachmentData buildResponse(final AllureHttpServletResponseWrapper response) {
+        return HttpServletAttachmentBuilder.buildResponse(response, response.getCapturedBody());
+    }
+
+    private static void write(final AllureLifecycle lifecycle,
+                              final String source,
+                              final AttachmentContent content) {
+        lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                content.getContent().getBytes(StandardCharsets.UTF_8)
+        ));
+    }
+
+    /**
+     * Runs given action when asynchronous request is completed.
+     */
+    private static final class OnCompleteListener implements AsyncListener {
+
+        private final Runnable action;
+
+        private OnCompleteListener(final Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            action.run();
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            // request is completed after timeout anyway
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            // request is completed after error anyway
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            // listeners are not kept when async is started again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
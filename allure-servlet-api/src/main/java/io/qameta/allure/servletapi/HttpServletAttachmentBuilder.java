@@ -24,7 +24,13 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import static io.qameta.allure.attachment.http.HttpRequestAttachment.Builder.create;
@@ -38,33 +44,69 @@ public final class HttpServletAttachmentBuilder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpServletAttachmentBuilder.class);
 
+    private static final int BUFFER_SIZE = 8192;
+
     private HttpServletAttachmentBuilder() {
         throw new IllegalStateException();
     }
 
     public static HttpRequestAttachment buildRequest(final HttpServletRequest request) {
-        final HttpRequestAttachment.Builder requestBuilder = create("Request", request.getRequestURI());
+        return buildRequest(request, getBody(request));
+    }
+
+    /**
+     * Builds request attachment with given body, without reading the request.
+     *
+     * @param request the request.
+     * @param body    the request body.
+     * @return the request attachment.
+     */
+    public static HttpRequestAttachment buildRequest(final HttpServletRequest request, final String body) {
+        final HttpRequestAttachment.Builder requestBuilder = create("Request", request.getRequestURI())
+                .setMethod(request.getMethod());
         Collections.list(request.getHeaderNames())
                 .forEach(name -> {
                     final String value = request.getHeader(name);
                     requestBuilder.setHeader(name, value);
                 });
 
-        Stream.of(request.getCookies())
+        Optional.ofNullable(request.getCookies())
+                .map(Stream::of)
+                .orElseGet(Stream::empty)
                 .forEach(cookie -> requestBuilder.setCookie(cookie.getName(), cookie.getValue()));
-        requestBuilder.setBody(getBody(request));
+        requestBuilder.setBody(body);
         return requestBuilder.build();
     }
 
     public static HttpResponseAttachment buildResponse(final HttpServletResponse response) {
-        final HttpResponseAttachment.Builder responseBuilder = create("Response");
-        response.getHeaderNames()
-                .forEach(name -> response.getHeaders(name)
-                        .forEach(value -> responseBuilder.setHeader(name, value)));
-        return responseBuilder.build();
+        return createResponse(response).build();
     }
 
+    /**
+     * Builds response attachment with given body.
+     *
+     * @param response the response.
+     * @param body     the response body.
+     * @return the response attachment.
+     */
+    public static HttpResponseAttachment buildResponse(final HttpServletResponse response, final String body) {
+        return createResponse(response)
+                .setResponseCode(response.getStatus())
+                .setBody(body)
+                .build();
+    }
+
+    /**
+     * Returns request body. Body captured by {@link AllureHttpServletRequestWrapper} is
+     * returned as is, otherwise the request is read to the end.
+     *
+     * @param request the request.
+     * @return the request body.
+     */
     public static String getBody(final HttpServletRequest request) {
+        if (request instanceof AllureHttpServletRequestWrapper) {
+            return ((AllureHttpServletRequestWrapper) request).getCapturedBody();
+        }
         final StringBuilder sb = new StringBuilder();
         try (BufferedReader reader = request.getReader()) {
             readBody(sb, reader);
@@ -77,9 +119,36 @@ public final class HttpServletAttachmentBuilder {
     @SuppressWarnings("PMD.AssignmentInOperand")
     public static void readBody(final StringBuilder sb,
                                 final BufferedReader reader) throws IOException {
-        String line;
-        while ((line = reader.readLine()) != null) {
-            sb.append(line);
+        final char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
         }
     }
+
+    /**
+     * Returns charset of request or response body.
+     *
+     * @param charsetName the character encoding of request or response.
+     * @return the charset, ISO-8859-1 if not specified or not supported, as servlet
+     * specification requires.
+     */
+    static Charset getCharset(final String charsetName) {
+        if (Objects.isNull(charsetName)) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        try {
+            return Charset.forName(charsetName);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+
+    private static HttpResponseAttachment.Builder createResponse(final HttpServletResponse response) {
+        final HttpResponseAttachment.Builder responseBuilder = create("Response");
+        response.getHeaderNames()
+                .forEach(name -> response.getHeaders(name)
+                        .forEach(value -> responseBuilder.setHeader(name, value)));
+        return responseBuilder;
+    }
 }
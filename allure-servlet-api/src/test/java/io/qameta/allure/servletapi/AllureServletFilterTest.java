@@ -0,0 +1,274 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.servletapi;
+
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.test.AllureResults;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.qameta.allure.test.RunUtils.runTests;
+import static io.qameta.allure.test.RunUtils.runWithinTestContext;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AllureServletFilterTest {
+
+    private static final String REQUEST_BODY = "request-body";
+
+    private static final String RESPONSE_BODY = "response-body";
+
+    @Test
+    void shouldAttachRequestAndResponse() throws Exception {
+        final HttpServletRequest request = request();
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+
+        final AllureResults results = runWithinTestContext(
+                () -> doFilter(new AllureServletFilter(), request, response)
+        );
+
+        assertThat(results.getTestResults().get(0).getAttachments())
+                .extracting(Attachment::getName)
+                .containsExactly("Request", "Response");
+        assertThat(getAttachmentContent(results, "Request"))
+                .contains("/hello", REQUEST_BODY);
+        assertThat(getAttachmentContent(results, "Response"))
+                .contains(RESPONSE_BODY);
+    }
+
+    @Test
+    void shouldPassBodiesToApplicationUnchanged() throws Exception {
+        final HttpServletRequest request = request();
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(written);
+        final AtomicReference<String> read = new AtomicReference<>();
+
+        runWithinTestContext(() -> doFilter(new AllureServletFilter(4), request, response, read));
+
+        assertThat(read.get()).isEqualTo(REQUEST_BODY);
+        assertThat(new String(written.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(RESPONSE_BODY);
+    }
+
+    @Test
+    void shouldTruncateBodiesOverLimit() throws Exception {
+        final AllureServletFilter filter = new AllureServletFilter();
+        filter.init(config("4"));
+
+        final HttpServletRequest request = request();
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+
+        final AllureResults results = runWithinTestContext(() -> doFilter(filter, request, response));
+
+        assertThat(getAttachmentContent(results, "Request"))
+                .contains("requ")
+                .contains("8 more bytes truncated")
+                .doesNotContain(REQUEST_BODY);
+        assertThat(getAttachmentContent(results, "Response"))
+                .contains("9 more bytes truncated")
+                .doesNotContain(RESPONSE_BODY);
+    }
+
+    @Test
+    void shouldUseDefaultLimitForInvalidInitParameter() throws Exception {
+        final AllureServletFilter invalid = new AllureServletFilter(4);
+        invalid.init(config("64k"));
+        final AllureServletFilter negative = new AllureServletFilter(4);
+        negative.init(config("-1"));
+
+        final HttpServletRequest first = request();
+        final HttpServletRequest second = request();
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+
+        final AllureResults results = runWithinTestContext(() -> {
+            doFilter(invalid, first, response);
+            doFilter(negative, second, response);
+        });
+
+        assertThat(results.getTestResults().get(0).getAttachments())
+                .hasSize(4)
+                .allSatisfy(attachment -> assertThat(getContent(results, attachment))
+                        .doesNotContain("truncated"));
+    }
+
+    @Test
+    void shouldPassThroughRequestsOutsideOfTest() throws Exception {
+        final HttpServletRequest request = request();
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+        final FilterChain chain = mock(FilterChain.class);
+
+        final AllureResults results = runTests(lifecycle -> new AllureServletFilter().doFilter(request, response, chain));
+
+        verify(chain).doFilter(request, response);
+        assertThat(results.getAttachments()).isEmpty();
+    }
+
+    private static void doFilter(final AllureServletFilter filter,
+                                 final HttpServletRequest request,
+                                 final HttpServletResponse response) {
+        doFilter(filter, request, response, new AtomicReference<>());
+    }
+
+    private static void doFilter(final AllureServletFilter filter,
+                                 final HttpServletRequest request,
+                                 final HttpServletResponse response,
+                                 final AtomicReference<String> read) {
+        try {
+            filter.doFilter(request, response, (req, res) -> handle(req, res, read));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ServletException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void handle(final ServletRequest request,
+                               final ServletResponse response,
+                               final AtomicReference<String> read) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[5];
+        final InputStream input = request.getInputStream();
+        int count = input.read(buffer, 0, buffer.length);
+        while (count != -1) {
+            body.write(buffer, 0, count);
+            count = input.read(buffer, 0, buffer.length);
+        }
+        read.set(new String(body.toByteArray(), StandardCharsets.UTF_8));
+        response.getOutputStream().write(RESPONSE_BODY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HttpServletRequest request() throws IOException {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/hello");
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+        when(request.getHeaderNames()).thenReturn(Collections.emptyEnumeration());
+        when(request.getInputStream())
+                .thenReturn(new BytesInputStream(REQUEST_BODY.getBytes(StandardCharsets.UTF_8)));
+        return request;
+    }
+
+    private static HttpServletResponse response(final ByteArrayOutputStream written) throws IOException {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        when(response.getHeaderNames()).thenReturn(Collections.emptyList());
+        when(response.getOutputStream()).thenReturn(new BytesOutputStream(written));
+        return response;
+    }
+
+    private static FilterConfig config(final String bodyLimit) {
+        final FilterConfig config = mock(FilterConfig.class);
+        when(config.getInitParameter(any())).thenReturn(null);
+        when(config.getInitParameter(AllureServletFilter.BODY_LIMIT_PARAMETER)).thenReturn(bodyLimit);
+        return config;
+    }
+
+    private static String getAttachmentContent(final AllureResults results, final String name) {
+        final Attachment attachment = results.getTestResults().stream()
+                .flatMap(result -> result.getAttachments().stream())
+                .filter(item -> name.equals(item.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no attachment " + name));
+        return getContent(results, attachment);
+    }
+
+    private static String getContent(final AllureResults results, final Attachment attachment) {
+        assertThat(results.getAttachments())
+                .containsKey(attachment.getSource());
+        return new String(results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Servlet input stream over given bytes.
+     */
+    private static final class BytesInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        private BytesInputStream(final byte[] bytes) {
+            this.delegate = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Servlet output stream that writes to given stream.
+     */
+    private static final class BytesOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream delegate;
+
+        private BytesOutputStream(final ByteArrayOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int b) {
+            delegate.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
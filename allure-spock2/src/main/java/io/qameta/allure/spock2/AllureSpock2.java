@@ -28,7 +28,6 @@ import io.qameta.allure.model.TestResult;
 import io.qameta.allure.model.TestResultContainer;
 import io.qameta.allure.testfilter.FileTestPlanSupplier;
 import io.qameta.allure.testfilter.TestPlan;
-import io.qameta.allure.testfilter.TestPlanV1_0;
 import io.qameta.allure.util.AnnotationUtils;
 import io.qameta.allure.util.ExceptionUtils;
 import io.qameta.allure.util.ResultsUtils;
@@ -259,18 +258,10 @@ public class AllureSpock2 extends AbstractRunListener implements IGlobalExtensio
         if (Objects.isNull(this.testPlan)) {
             return false;
         }
-        if (this.testPlan instanceof TestPlanV1_0) {
-            final TestPlanV1_0 tp = (TestPlanV1_0) testPlan;
-            return !Objects.isNull(tp.getTests()) && tp.getTests()
-                    .stream()
-                    .filter(Objects::nonNull)
-                    .noneMatch(tc -> this.match(
-                            tc,
-                            this.getAllureId(featureInfo),
-                            this.getQualifiedName(featureInfo))
-                    );
-        }
-        return false;
+        return !testPlan.getIndex().isSelected(
+                this.getAllureId(featureInfo),
+                this.getQualifiedName(featureInfo)
+        );
     }
 
     private String getAllureId(final FeatureInfo featureInfo) {
@@ -281,10 +272,6 @@ public class AllureSpock2 extends AbstractRunListener implements IGlobalExtensio
         return null;
     }
 
-    private boolean match(final TestPlanV1_0.TestCase tc, final String allureId, final String qualifiedName) {
-        return Objects.equals(allureId, tc.getId()) || Objects.equals(qualifiedName, tc.getSelector());
-    }
-
     @Override
     public void error(final ErrorInfo error) {
         final String uuid = testResults.get();
@@ -41,6 +41,7 @@ import io.qameta.allure.spock2.samples.TestWithAnnotations;
 import io.qameta.allure.spock2.samples.TestWithAnnotationsOnClass;
 import io.qameta.allure.spock2.samples.TestWithCustomAnnotations;
 import io.qameta.allure.spock2.samples.TestWithSteps;
+import io.qameta.allure.spock2.samples.TestsWithCollidingIdForFilter;
 import io.qameta.allure.spock2.samples.TestsWithIdForFilter;
 import io.qameta.allure.test.AllureFeatures;
 import io.qameta.allure.test.AllureResults;
@@ -596,6 +597,54 @@ class AllureSpock2Test {
                 );
     }
 
+    @Test
+    @AllureFeatures.Filtration
+    public void onlySelector() {
+        TestPlanV1_0 plan = new TestPlanV1_0().setTests(Collections.singletonList(
+                new TestPlanV1_0.TestCase()
+                        .setSelector("io.qameta.allure.spock2.samples.TestsWithIdForFilter.test 3")
+        ));
+        List<TestResult> testResults = runClasses(plan, TestsWithIdForFilter.class).getTestResults();
+
+        assertThat(testResults)
+                .extracting(TestResult::getName, TestResult::getStatus)
+                .containsExactly(
+                        tuple("test 3", Status.PASSED)
+                );
+    }
+
+    @Test
+    @AllureFeatures.Filtration
+    public void testCaseWithoutIdDoesNotSelectFeaturesWithoutId() {
+        TestPlanV1_0 plan = new TestPlanV1_0().setTests(Collections.singletonList(
+                new TestPlanV1_0.TestCase()
+                        .setSelector("io.qameta.allure.spock2.samples.TestsWithIdForFilter.test 1")
+        ));
+        List<TestResult> testResults = runClasses(plan, TestsWithIdForFilter.class).getTestResults();
+
+        assertThat(testResults)
+                .extracting(TestResult::getName, TestResult::getStatus)
+                .containsExactly(
+                        tuple("test 1", Status.PASSED)
+                );
+    }
+
+    @Test
+    @AllureFeatures.Filtration
+    public void collidingIdHash() {
+        TestPlanV1_0 plan = new TestPlanV1_0().setTests(Collections.singletonList(
+                new TestPlanV1_0.TestCase()
+                        .setId("\u4EF8\u4E80\u4E19\u4E3B\u4EA2\u4EC4\u4EDC\u4ECC")
+        ));
+        List<TestResult> testResults = runClasses(plan, TestsWithCollidingIdForFilter.class).getTestResults();
+
+        assertThat(testResults)
+                .extracting(TestResult::getName, TestResult::getStatus)
+                .containsExactly(
+                        tuple("colliding test", Status.PASSED)
+                );
+    }
+
     @Step("Run classes {classes}")
     public static AllureResults runClasses(final Class<?>... classes) {
         return runClasses(null, classes);
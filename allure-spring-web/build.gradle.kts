@@ -5,12 +5,14 @@ val springWebVersion = "5.3.20"
 dependencies {
     api(project(":allure-attachments"))
     implementation("org.springframework:spring-web:$springWebVersion")
+    compileOnly("org.springframework:spring-webflux:$springWebVersion")
     testImplementation("com.github.tomakehurst:wiremock")
     testImplementation("org.assertj:assertj-core")
     testImplementation("org.jboss.resteasy:resteasy-client")
     testImplementation("org.junit.jupiter:junit-jupiter-api")
     testImplementation("org.junit.jupiter:junit-jupiter-params")
     testImplementation("org.mockito:mockito-core")
+    testImplementation("org.springframework:spring-webflux:$springWebVersion")
     testImplementation("org.slf4j:slf4j-simple")
     testImplementation(project(":allure-java-commons-test"))
     testImplementation(project(":allure-junit-platform"))
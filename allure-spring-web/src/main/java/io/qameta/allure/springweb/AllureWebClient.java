@@ -0,0 +1,160 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.springweb;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.attachment.FreemarkerAttachmentRenderer;
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+/**
+ * Allure filter for spring web client. Does not block the event loop: request and
+ * response attachments are linked to the current test or step when the exchange is
+ * subscribed, bodies are recorded up to the {@link #setBodyLimit(long) limit} as data
+ * buffers pass through, and attachments are rendered by the
+ * {@link #setRenderExecutor(Executor) render executor}.
+ *
+ * <p>Exchanges subscribed on threads without Allure context, e.g. from reactor
+ * schedulers, are attached to the test or step stored in subscriber context, see
+ * {@link #currentContext()}. Other exchanges are passed through as is.
+ */
+public class AllureWebClient implements ExchangeFilterFunction {
+
+    /**
+     * The key of reactor context entry that holds uuid of the test or step.
+     */
+    public static final String CONTEXT_KEY = AllureWebClient.class.getName() + ".uuid";
+
+    /**
+     * The key of reactor context entry that holds uuid of the test.
+     */
+    public static final String TEST_CONTEXT_KEY = AllureWebClient.class.getName() + ".testUuid";
+
+    public static final long DEFAULT_BODY_LIMIT = 64 * 1024;
+
+    private String requestTemplatePath = "http-request.ftl";
+    private String responseTemplatePath = "http-response.ftl";
+    private long bodyLimit = DEFAULT_BODY_LIMIT;
+    private Executor renderExecutor = Schedulers.boundedElastic()::schedule;
+
+    public String getRequestTemplatePath() {
+        return requestTemplatePath;
+    }
+
+    public String getResponseTemplatePath() {
+        return responseTemplatePath;
+    }
+
+    public AllureWebClient setRequestTemplate(final String templatePath) {
+        this.requestTemplatePath = templatePath;
+        return this;
+    }
+
+    public AllureWebClient setResponseTemplate(final String templatePath) {
+        this.responseTemplatePath = templatePath;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of request and response body bytes to capture,
+     * the rest of the body is only counted.
+     *
+     * @param limit the maximum number of body bytes to capture.
+     * @return self for method chaining.
+     */
+    public AllureWebClient setBodyLimit(final long limit) {
+        this.bodyLimit = limit;
+        return this;
+    }
+
+    /**
+     * Sets the executor to render and write attachments, by default
+     * {@link Schedulers#boundedElastic()} is used.
+     *
+     * @param executor the executor.
+     * @return self for method chaining.
+     */
+    public AllureWebClient setRenderExecutor(final Executor executor) {
+        this.renderExecutor = executor;
+        return this;
+    }
+
+    protected AttachmentRenderer<AttachmentData> getRequestRenderer() {
+        return new FreemarkerAttachmentRenderer(getRequestTemplatePath());
+    }
+
+    protected AttachmentRenderer<AttachmentData> getResponseRenderer() {
+        return new FreemarkerAttachmentRenderer(getResponseTemplatePath());
+    }
+
+    /**
+     * Returns reactor context that holds uuids of the current test and step, so exchanges
+     * subscribed on other threads are attached to the step, and are completed when the test
+     * is stopped:
+     * {@code webClient.get().retrieve().bodyToMono(String.class).contextWrite(AllureWebClient.currentContext())}.
+     *
+     * @return the context, empty if there is no test running.
+     */
+    public static Context currentContext() {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        final Optional<String> test = lifecycle.getCurrentTestCase();
+        return lifecycle.getCurrentTestCaseOrStep()
+                .map(uuid -> test
+                        .map(testUuid -> Context.of(CONTEXT_KEY, uuid, TEST_CONTEXT_KEY, testUuid))
+                        .orElseGet(() -> Context.of(CONTEXT_KEY, uuid)))
+                .orElseGet(Context::empty);
+    }
+
+    @Override
+    @NonNull
+    public Mono<ClientResponse> filter(@NonNull final ClientRequest request, @NonNull final ExchangeFunction next) {
+        return Mono.deferContextual(view -> {
+            final AllureLifecycle lifecycle = Allure.getLifecycle();
+            final Optional<String> current = lifecycle.getCurrentTestCaseOrStep();
+            final Optional<String> parent = current.isPresent() ? current : view.getOrEmpty(CONTEXT_KEY);
+            if (!parent.isPresent()) {
+                return next.exchange(request);
+            }
+            final Optional<String> test = current.isPresent()
+                    ? lifecycle.getCurrentTestCase()
+                    : view.getOrEmpty(TEST_CONTEXT_KEY);
+            final WebClientExchange exchange = new WebClientExchange(
+                    lifecycle, test.orElse(null), parent.get(), request, bodyLimit, renderExecutor,
+                    getRequestRenderer(), getResponseRenderer()
+            );
+            return next.exchange(exchange.capture(request))
+                    .map(exchange::capture)
+                    .doOnError(exchange::fail)
+                    .doOnCancel(exchange::cancel)
+                    .contextWrite(context -> test
+                            .map(testUuid -> context.put(TEST_CONTEXT_KEY, testUuid))
+                            .orElse(context)
+                            .put(CONTEXT_KEY, parent.get()));
+        });
+    }
+}
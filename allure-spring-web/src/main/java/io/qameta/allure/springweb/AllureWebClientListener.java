@@ -0,0 +1,53 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.springweb;
+
+import io.qameta.allure.listener.TestLifecycleListener;
+import io.qameta.allure.model.TestResult;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes attachments of exchanges captured by {@link AllureWebClient} whose response
+ * body was not consumed by the time the test is stopped, so attachments contain the
+ * part of bodies recorded so far. Registered as {@link TestLifecycleListener} service.
+ */
+public class AllureWebClientListener implements TestLifecycleListener {
+
+    private static final Map<String, Set<WebClientExchange>> PENDING = new ConcurrentHashMap<>();
+
+    @Override
+    public void beforeTestStop(final TestResult result) {
+        final Set<WebClientExchange> exchanges = PENDING.remove(result.getUuid());
+        if (Objects.nonNull(exchanges)) {
+            exchanges.forEach(WebClientExchange::finish);
+        }
+    }
+
+    static void track(final String testUuid, final WebClientExchange exchange) {
+        PENDING.computeIfAbsent(testUuid, uuid -> ConcurrentHashMap.newKeySet()).add(exchange);
+    }
+
+    static void untrack(final String testUuid, final WebClientExchange exchange) {
+        PENDING.computeIfPresent(testUuid, (uuid, exchanges) -> {
+            exchanges.remove(exchange);
+            return exchanges.isEmpty() ? null : exchanges;
+        });
+    }
+}
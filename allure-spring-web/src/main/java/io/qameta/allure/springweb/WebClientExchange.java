@@ -0,0 +1,254 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.springweb;
+
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.attachment.AttachmentContent;
+import io.qameta.allure.attachment.AttachmentData;
+import io.qameta.allure.attachment.AttachmentRenderer;
+import io.qameta.allure.attachment.http.BoundedBodyCapture;
+import io.qameta.allure.attachment.http.HttpRequestAttachment;
+import io.qameta.allure.attachment.http.HttpResponseAttachment;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.qameta.allure.springweb.AllureRestTemplate.toMapConverter;
+
+/**
+ * State of a single WebClient exchange. Attachments are linked to the test case or
+ * step when the exchange is created, bodies are recorded as data buffers pass through,
+ * and attachments are rendered and written by the given executor once the request
+ * is sent and the response body is consumed. Exchanges not completed by the time the
+ * test is stopped are written right away, see {@link AllureWebClientListener}.
+ */
+class WebClientExchange {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebClientExchange.class);
+
+    private static final String REQUEST_ATTACHMENT_NAME = "Request";
+
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+
+    private final AllureLifecycle lifecycle;
+
+    private final Executor executor;
+
+    private final AttachmentRenderer<AttachmentData> requestRenderer;
+
+    private final AttachmentRenderer<AttachmentData> responseRenderer;
+
+    private final String requestSource;
+
+    private final String responseSource;
+
+    private final HttpRequestAttachment.Builder requestBuilder;
+
+    private final HttpResponseAttachment.Builder responseBuilder;
+
+    private final Charset requestCharset;
+
+    private final BoundedBodyCapture requestBody;
+
+    private final BoundedBodyCapture responseBody;
+
+    private final AtomicBoolean requestWritten = new AtomicBoolean();
+
+    private final AtomicBoolean responseWritten = new AtomicBoolean();
+
+    private final AtomicReference<Charset> responseCharset = new AtomicReference<>(StandardCharsets.UTF_8);
+
+    private final AtomicBoolean received = new AtomicBoolean();
+
+    private final AtomicBoolean finishing = new AtomicBoolean();
+
+    private final String testUuid;
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    WebClientExchange(final AllureLifecycle lifecycle,
+                      final String testUuid,
+                      final String parentUuid,
+                      final ClientRequest request,
+                      final long bodyLimit,
+                      final Executor executor,
+                      final AttachmentRenderer<AttachmentData> requestRenderer,
+                      final AttachmentRenderer<AttachmentData> responseRenderer) {
+        this.lifecycle = lifecycle;
+        this.testUuid = testUuid;
+        this.executor = executor;
+        this.requestRenderer = requestRenderer;
+        this.responseRenderer = responseRenderer;
+        this.requestBody = new BoundedBodyCapture(bodyLimit);
+        this.responseBody = new BoundedBodyCapture(bodyLimit);
+        this.requestBuilder = HttpRequestAttachment.Builder
+                .create(REQUEST_ATTACHMENT_NAME, request.url().toString())
+                .setMethod(request.method().name())
+                .setHeaders(toMapConverter(request.headers()));
+        this.responseBuilder = HttpResponseAttachment.Builder.create(RESPONSE_ATTACHMENT_NAME);
+        this.requestCharset = getCharset(request.headers().getContentType());
+        this.requestSource = lifecycle.prepareAttachment(parentUuid, REQUEST_ATTACHMENT_NAME,
+                requestRenderer.getContentType(), requestRenderer.getFileExtension()
+        );
+        this.responseSource = lifecycle.prepareAttachment(parentUuid, RESPONSE_ATTACHMENT_NAME,
+                responseRenderer.getContentType(), responseRenderer.getFileExtension()
+        );
+        if (Objects.nonNull(testUuid)) {
+            AllureWebClientListener.track(testUuid, this);
+        }
+    }
+
+    /**
+     * Returns copy of the request that records the body while it is written.
+     */
+    ClientRequest capture(final ClientRequest request) {
+        final BodyInserter<?, ? super ClientHttpRequest> body = request.body();
+        return ClientRequest.from(request)
+                .body((outputMessage, context) -> body.insert(new CapturingRequest(outputMessage), context))
+                .build();
+    }
+
+    /**
+     * Returns copy of the response that records the body while it is consumed,
+     * and writes attachments once the body is completed, failed or cancelled.
+     */
+    ClientResponse capture(final ClientResponse response) {
+        received.set(true);
+        responseBuilder.setResponseCode(response.rawStatusCode())
+                .setHeaders(toMapConverter(response.headers().asHttpHeaders()));
+        responseCharset.set(getCharset(response.headers().contentType().orElse(null)));
+        writeRequest();
+        return response.mutate()
+                .body(body -> body
+                        .doOnNext(buffer -> responseBody.write(buffer.asByteBuffer()))
+                        .doOnTerminate(() -> writeResponse(null))
+                        .doOnCancel(() -> writeResponse(null)))
+                .build();
+    }
+
+    /**
+     * Writes attachments of the exchange that failed before the response is received.
+     */
+    void fail(final Throwable cause) {
+        writeRequest();
+        writeResponse(cause);
+    }
+
+    /**
+     * Writes attachments of the exchange that is cancelled before the response is received.
+     */
+    void cancel() {
+        if (!received.get()) {
+            fail(new CancellationException("Exchange is cancelled"));
+        }
+    }
+
+    /**
+     * Writes attachments with the parts of bodies recorded so far in the calling thread,
+     * when the test is stopped before the exchange is completed.
+     */
+    void finish() {
+        finishing.set(true);
+        writeRequest();
+        writeResponse(null);
+    }
+
+    private void writeRequest() {
+        if (!requestWritten.compareAndSet(false, true)) {
+            return;
+        }
+        if (!requestBody.isEmpty()) {
+            requestBuilder.setBody(requestBody.getBody(requestCharset));
+        }
+        write(requestSource, requestRenderer, requestBuilder.build());
+    }
+
+    private void writeResponse(final Throwable cause) {
+        if (!responseWritten.compareAndSet(false, true)) {
+            return;
+        }
+        if (Objects.nonNull(testUuid)) {
+            AllureWebClientListener.untrack(testUuid, this);
+        }
+        if (Objects.nonNull(cause)) {
+            responseBuilder.setBody(cause.toString());
+        } else if (!responseBody.isEmpty()) {
+            responseBuilder.setBody(responseBody.getBody(responseCharset.get()));
+        }
+        write(responseSource, responseRenderer, responseBuilder.build());
+    }
+
+    private void write(final String source,
+                       final AttachmentRenderer<AttachmentData> renderer,
+                       final AttachmentData data) {
+        final Executor target = finishing.get() ? Runnable::run : executor;
+        target.execute(() -> {
+            try {
+                final AttachmentContent content = renderer.render(data);
+                lifecycle.writeAttachment(source, new ByteArrayInputStream(
+                        content.getContent().getBytes(StandardCharsets.UTF_8)
+                ));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not write attachment {}", data.getName(), e);
+            }
+        });
+    }
+
+    private static Charset getCharset(final MediaType contentType) {
+        return Optional.ofNullable(contentType)
+                .map(MediaType::getCharset)
+                .orElse(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Request that records the written body.
+     */
+    private final class CapturingRequest extends ClientHttpRequestDecorator {
+
+        private CapturingRequest(final ClientHttpRequest delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(buffer -> requestBody.write(buffer.asByteBuffer())));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body)
+                    .map(part -> Flux.from(part).doOnNext(buffer -> requestBody.write(buffer.asByteBuffer()))));
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.springweb;
+
+import io.qameta.allure.model.Attachment;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.test.AllureResults;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static io.qameta.allure.test.RunUtils.runWithinTestContext;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AllureWebClientTest {
+
+    private static final String BODY_STRING = "Hello world!";
+    private static final String REQUEST_BODY_STRING = "Request body";
+    private static final String REQUEST_ATTACHMENT_NAME = "Request";
+    private static final String RESPONSE_ATTACHMENT_NAME = "Response";
+    private static final String HELLO_URL = "http://localhost/hello";
+    private static final String ERROR_URL = "http://localhost/error";
+    private static final String CONNECTION_ERROR = "Connection refused";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void shouldCreateRequestAndResponseAttachments() {
+        final AllureResults results = execute(new AllureWebClient(), client -> client.get()
+                .uri(HELLO_URL)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnNext(body -> assertThat(body).isEqualTo(BODY_STRING)));
+
+        assertThat(results.getTestResults())
+                .flatExtracting(TestResult::getAttachments)
+                .extracting(Attachment::getName)
+                .containsExactly(REQUEST_ATTACHMENT_NAME, RESPONSE_ATTACHMENT_NAME);
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Status code 200")
+                .contains(BODY_STRING);
+    }
+
+    @Test
+    void shouldCaptureRequestBody() {
+        final AllureResults results = execute(new AllureWebClient(), client -> client.post()
+                .uri(HELLO_URL)
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue(REQUEST_BODY_STRING)
+                .retrieve()
+                .bodyToMono(String.class));
+
+        assertThat(getAttachmentContent(results, REQUEST_ATTACHMENT_NAME))
+                .contains("POST")
+                .contains(REQUEST_BODY_STRING);
+    }
+
+    @Test
+    void shouldTruncateBodiesOverLimit() {
+        final AllureResults results = execute(new AllureWebClient().setBodyLimit(5), client -> client.get()
+                .uri(HELLO_URL)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnNext(body -> assertThat(body).isEqualTo(BODY_STRING)));
+
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Hello")
+                .contains("7 more bytes truncated")
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldAttachExchangesSubscribedOnOtherThreads() {
+        final AllureResults results = execute(new AllureWebClient(), client -> Mono.defer(() -> client.get()
+                        .uri(HELLO_URL)
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .subscribeOn(Schedulers.newSingle("no-allure-context", false))
+                .contextWrite(AllureWebClient.currentContext()));
+
+        assertThat(results.getTestResults())
+                .flatExtracting(TestResult::getAttachments)
+                .extracting(Attachment::getName)
+                .containsExactly(REQUEST_ATTACHMENT_NAME, RESPONSE_ATTACHMENT_NAME);
+    }
+
+    @Test
+    void shouldCaptureConcurrentExchanges() {
+        final int count = 50;
+        final AllureResults results = execute(new AllureWebClient(), client -> Flux.range(0, count)
+                .flatMap(index -> client.post()
+                        .uri(HELLO_URL)
+                        .bodyValue(REQUEST_BODY_STRING + index)
+                        .retrieve()
+                        .bodyToMono(String.class))
+                .collectList()
+                .doOnNext(bodies -> assertThat(bodies).hasSize(count)));
+
+        final List<Attachment> attachments = results.getTestResults().get(0).getAttachments();
+        assertThat(attachments)
+                .hasSize(count * 2);
+        assertThat(attachments)
+                .extracting(Attachment::getSource)
+                .allSatisfy(source -> assertThat(results.getAttachments()).containsKey(source));
+    }
+
+    @Test
+    void shouldCreateResponseAttachmentForFailedExchange() {
+        final AllureResults results = execute(new AllureWebClient(), client -> client.get()
+                .uri(ERROR_URL)
+                .retrieve()
+                .bodyToMono(String.class)
+                .onErrorResume(e -> Mono.empty()));
+
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains(CONNECTION_ERROR);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void shouldWriteResponseAttachmentWhenBodyIsNotConsumedBeforeTestStop() {
+        final AllureResults results = execute(new AllureWebClient(), client -> client.get()
+                .uri(HELLO_URL)
+                .exchange()
+                .doOnNext(response -> assertThat(response.rawStatusCode()).isEqualTo(200)));
+
+        assertThat(getAttachmentContent(results, RESPONSE_ATTACHMENT_NAME))
+                .contains("Status code 200")
+                .doesNotContain(BODY_STRING);
+    }
+
+    @Test
+    void shouldPassThroughExchangesOutsideOfTestContext() {
+        final WebClient client = WebClient.builder()
+                .exchangeFunction(AllureWebClientTest::exchange)
+                .filter(new AllureWebClient())
+                .build();
+
+        assertThat(client.get().uri(HELLO_URL).retrieve().bodyToMono(String.class).block(TIMEOUT))
+                .isEqualTo(BODY_STRING);
+        assertThatThrownBy(() -> client.get().uri(ERROR_URL).retrieve().bodyToMono(String.class)
+                .block(TIMEOUT))
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    private static AllureResults execute(final AllureWebClient filter,
+                                         final Function<WebClient, Mono<?>> call) {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        return runWithinTestContext(() -> {
+            final WebClient client = WebClient.builder()
+                    .exchangeFunction(AllureWebClientTest::exchange)
+                    .filter(filter.setRenderExecutor(executor))
+                    .build();
+            call.apply(client).block(TIMEOUT);
+            executor.shutdown();
+            try {
+                assertThat(executor.awaitTermination(TIMEOUT.getSeconds(), TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the request and responds from a reactor thread, same as network clients do.
+     */
+    private static Mono<ClientResponse> exchange(final ClientRequest request) {
+        final StubClientHttpRequest output = new StubClientHttpRequest(request.method(), request.url());
+        return request.writeTo(output, ExchangeStrategies.withDefaults())
+                .publishOn(Schedulers.parallel())
+                .then(Mono.defer(() -> request.url().getPath().endsWith("error")
+                        ? Mono.error(new IOException(CONNECTION_ERROR))
+                        : Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE)
+                        .body(Optional.ofNullable(output.body.get()).orElse(BODY_STRING))
+                        .build())));
+    }
+
+    private static String getAttachmentContent(final AllureResults results, final String name) {
+        final Attachment attachment = results.getTestResults().stream()
+                .flatMap(result -> result.getAttachments().stream())
+                .filter(item -> name.equals(item.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no attachment " + name));
+        assertThat(results.getAttachments())
+                .containsKey(attachment.getSource());
+        return new String(results.getAttachments().get(attachment.getSource()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Request that keeps the written body in memory.
+     */
+    private static final class StubClientHttpRequest extends AbstractClientHttpRequest {
+
+        private final HttpMethod method;
+
+        private final URI uri;
+
+        private final AtomicReference<String> body = new AtomicReference<>();
+
+        private StubClientHttpRequest(final HttpMethod method, final URI uri) {
+            this.method = method;
+            this.uri = uri;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public DataBufferFactory bufferFactory() {
+            return DefaultDataBufferFactory.sharedInstance;
+        }
+
+        @Override
+        public <T> T getNativeRequest() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .doOnNext(buffer -> {
+                        this.body.set(buffer.toString(StandardCharsets.UTF_8));
+                        DataBufferUtils.release(buffer);
+                    })
+                    .then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMap(Function.identity()));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+
+        @Override
+        protected void applyHeaders() {
+            // nothing to apply
+        }
+
+        @Override
+        protected void applyCookies() {
+            // nothing to apply
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import io.qameta.allure.util.PropertiesUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Directory to store test plan indexes and test history files in. Unlike temporary
+ * directory, it is not shared between users, so cache files can not be prepared
+ * by other users in advance.
+ */
+final class CacheDirectory {
+
+    static final String CACHE_DIRECTORY_PROPERTY_NAME = "allure.cache.directory";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheDirectory.class);
+
+    private static final String OWNER_ONLY = "rwx------";
+
+    private CacheDirectory() {
+        throw new IllegalStateException("do not instance");
+    }
+
+    /**
+     * Returns directory specified in {@code allure.cache.directory} property, or
+     * {@code .cache/allure} in user home directory. Missing directories are created
+     * accessible by owner only on POSIX file systems.
+     *
+     * @return the directory, or empty if it could not be created.
+     */
+    static Optional<Path> get() {
+        final String configured = PropertiesUtils.loadAllureProperties()
+                .getProperty(CACHE_DIRECTORY_PROPERTY_NAME);
+        try {
+            final Path directory = Objects.isNull(configured) || configured.isEmpty()
+                    ? Paths.get(System.getProperty("user.home"), ".cache", "allure")
+                    : Paths.get(configured);
+            if (!Files.isDirectory(directory)) {
+                if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                    Files.createDirectories(directory,
+                            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY)));
+                } else {
+                    Files.createDirectories(directory);
+                }
+            }
+            return Optional.of(directory);
+        } catch (IOException | InvalidPathException e) {
+            LOGGER.debug("could not create cache directory, cache files are not stored", e);
+            return Optional.empty();
+        }
+    }
+}
@@ -15,8 +15,9 @@
  */
 package io.qameta.allure.testfilter;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,13 +26,21 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@link TestPlanSupplier} that reads test plan from file, specified
  * in {@code ALLURE_TESTPLAN_PATH} environment variable.
+ * <p>
+ * Test plan is parsed in streaming way directly into {@link TestPlanIndex}. Loaded
+ * plans are cached per process, and the index is stored in cache directory of user,
+ * so other processes using the same test plan file map it instead of parsing.
  *
  * @author charlie (Dmitry Baev).
  */
@@ -44,8 +53,37 @@ public class FileTestPlanSupplier implements TestPlanSupplier {
      */
     private static final String[] ENV_TESTPLAN_PATH = {"ALLURE_TESTPLAN_PATH", "AS_TESTPLAN_PATH"};
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
-            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final String VERSION_1_0 = "1.0";
+
+    private static final String VERSION_FIELD = "version";
+
+    private static final String TESTS_FIELD = "tests";
+
+    private static final String ID_FIELD = "id";
+
+    private static final String SELECTOR_FIELD = "selector";
+
+    private static final String READ_ERROR_MESSAGE = "could not read test plan file {}";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Map<String, Optional<TestPlan>> CACHE = new ConcurrentHashMap<>();
+
+    private final Path indexDirectory;
+
+    public FileTestPlanSupplier() {
+        this(CacheDirectory.get().orElse(null));
+    }
+
+    /**
+     * Creates supplier that stores test plan indexes in given directory.
+     *
+     * @param indexDirectory the directory to store test plan indexes in, or null
+     *                       to parse test plan in each process.
+     */
+    FileTestPlanSupplier(final Path indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
 
     /**
      * Supply test plan.
@@ -67,15 +105,135 @@ public class FileTestPlanSupplier implements TestPlanSupplier {
                 .flatMap(this::readTestPlan);
     }
 
-    private Optional<TestPlan> readTestPlan(final Path path) {
-        try (InputStream stream = Files.newInputStream(path)) {
-            return Optional.of(OBJECT_MAPPER.readValue(stream, TestPlan.class));
+    /**
+     * Reads test plan from given file. Plans are cached by path, size and
+     * modification time of file, so changed plan files are read again.
+     *
+     * @param path the test plan file.
+     * @return the test plan, or empty if file could not be read.
+     */
+    Optional<TestPlan> readTestPlan(final Path path) {
+        try {
+            final String key = getCacheKey(path);
+            return CACHE.computeIfAbsent(key, k -> loadTestPlan(path, k));
+        } catch (IOException e) {
+            LOGGER.warn(READ_ERROR_MESSAGE, path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns file of stored index of test plan with given cache key.
+     *
+     * @param key the cache key of test plan.
+     * @return the index file.
+     */
+    Path getIndexFile(final String key) {
+        return indexDirectory.resolve("allure-testplan-" + key + ".idx");
+    }
+
+    /**
+     * Returns cache key of given test plan file.
+     *
+     * @param path the test plan file.
+     * @return the cache key.
+     * @throws IOException if file attributes could not be read.
+     */
+    static String getCacheKey(final Path path) throws IOException {
+        return Long.toHexString(TestPlanIndex.hash(String.format("%s:%d:%d",
+                path.toAbsolutePath(), Files.size(path), Files.getLastModifiedTime(path).toMillis()
+        )));
+    }
+
+    private Optional<TestPlan> loadTestPlan(final Path path, final String key) {
+        final Optional<Path> indexFile = Optional.ofNullable(indexDirectory).map(directory -> getIndexFile(key));
+        final Optional<TestPlan> stored = indexFile
+                .filter(Files::isRegularFile)
+                .flatMap(FileTestPlanSupplier::mapIndex);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        try (InputStream stream = Files.newInputStream(path);
+             JsonParser parser = JSON_FACTORY.createParser(stream)) {
+            final TestPlan testPlan = parseTestPlan(parser);
+            if (testPlan instanceof IndexedTestPlan) {
+                indexFile.ifPresent(file -> storeIndex(((IndexedTestPlan) testPlan).getIndex(), file));
+            }
+            return Optional.of(testPlan);
         } catch (IOException e) {
-            LOGGER.warn("could not read test plan file {}", path, e);
+            LOGGER.warn(READ_ERROR_MESSAGE, path, e);
             return Optional.empty();
         }
     }
 
+    private static Optional<TestPlan> mapIndex(final Path indexFile) {
+        try {
+            return Optional.of(new IndexedTestPlan(TestPlanIndex.map(indexFile)));
+        } catch (IOException e) {
+            LOGGER.debug("could not map test plan index {}", indexFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private TestPlan parseTestPlan(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("test plan should be json object");
+        }
+        String version = null;
+        TestPlanIndex index = TestPlanIndex.ALL;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (VERSION_FIELD.equals(field)) {
+                version = parser.getValueAsString();
+            } else if (TESTS_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                index = parseTests(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return VERSION_1_0.equals(version)
+                ? new IndexedTestPlan(index)
+                : new TestPlanUnknown();
+    }
+
+    private TestPlanIndex parseTests(final JsonParser parser) throws IOException {
+        final TestPlanIndex.Builder builder = new TestPlanIndex.Builder();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if (ID_FIELD.equals(field)) {
+                    builder.addId(parser.getValueAsString());
+                } else if (SELECTOR_FIELD.equals(field)) {
+                    builder.addSelector(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private void storeIndex(final TestPlanIndex index, final Path indexFile) {
+        final Path temp = indexFile.resolveSibling(indexFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            index.writeTo(temp);
+            Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.debug("could not store test plan index {}", indexFile, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                LOGGER.debug("could not remove temporary file {}", temp);
+            }
+        }
+    }
+
     private Optional<Path> tryGetPath(final String path) {
         try {
             return Optional.of(Paths.get(path));
@@ -0,0 +1,38 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import java.io.Serializable;
+
+/**
+ * Test plan of version 1.0 loaded directly into {@link TestPlanIndex}, without
+ * keeping the list of test cases in memory.
+ */
+public class IndexedTestPlan implements TestPlan, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TestPlanIndex index;
+
+    public IndexedTestPlan(final TestPlanIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public TestPlanIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+import io.qameta.allure.util.PropertiesUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static io.qameta.allure.util.ResultsUtils.ALLURE_ID_LABEL_NAME;
+
+/**
+ * Durations and statuses of tests from previous run, built from its allure-results directory.
+ * Each test is keyed by stable hash of its Allure id, or full name for tests without
+ * id, same as {@link TestShard} does. Durations of all the invocations of test are
+ * summed up, and for retried tests only the latest attempt is taken into account.
+ * Test is failed if any of its invocations is failed or broken, and flaky if any of
+ * its invocations is marked as flaky or changed status between attempts.
+ * <p>
+ * History is stored as sorted arrays of hashes, durations and flags, 17 bytes per test,
+ * and is cached in cache directory of user, so the results are parsed only once. The cache
+ * is keyed by names, sizes and modification times of result files, so listing results is
+ * enough to check the cache. Stored history has a checksum, that is verified when read.
+ */
+public final class TestHistory implements Serializable {
+
+    /**
+     * The history with no tests.
+     */
+    public static final TestHistory EMPTY = new TestHistory(new long[0], new long[0], new byte[0]);
+
+    public static final String HISTORY_PATH_PROPERTY_NAME = "allure.history.path";
+
+    private static final String HISTORY_PATH_ENV_NAME = "ALLURE_HISTORY_PATH";
+
+    private static final long serialVersionUID = 2L;
+
+    private static final int MAGIC = 0x414C4854;
+
+    private static final int VERSION = 3;
+
+    private static final int MAX_DEPTH = 3;
+
+    private static final byte FAILED = 1;
+
+    private static final byte FLAKY = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestHistory.class);
+
+    private static final String READ_ERROR_MESSAGE = "could not read test history from {}";
+
+    private static final Map<String, TestHistory> CACHE = new ConcurrentHashMap<>();
+
+    private final long[] keys;
+
+    private final long[] durations;
+
+    private final byte[] flags;
+
+    @SuppressWarnings("PMD.UseVarargs")
+    private TestHistory(final long[] keys, final long[] durations, final byte[] flags) {
+        this.keys = keys;
+        this.durations = durations;
+        this.flags = flags;
+    }
+
+    /**
+     * Loads history from results directory specified in {@code allure.history.path}
+     * property or {@code ALLURE_HISTORY_PATH} environment variable.
+     *
+     * @return the history, or {@link #EMPTY} if history is not configured or could not be read.
+     */
+    public static TestHistory load() {
+        final String path = Optional
+                .ofNullable(PropertiesUtils.loadAllureProperties().getProperty(HISTORY_PATH_PROPERTY_NAME))
+                .orElseGet(() -> System.getenv(HISTORY_PATH_ENV_NAME));
+        if (Objects.isNull(path) || path.isEmpty()) {
+            return EMPTY;
+        }
+        return load(Paths.get(path));
+    }
+
+    /**
+     * Loads history from given results directory. Loaded history is cached per process
+     * and stored in temporary directory, until results directory is changed.
+     *
+     * @param directory the allure-results directory of previous run.
+     * @return the history, or {@link #EMPTY} if history could not be read.
+     */
+    public static TestHistory load(final Path directory) {
+        if (!Files.isDirectory(directory)) {
+            LOGGER.warn("could not read test history: {} is not a directory", directory);
+            return EMPTY;
+        }
+        try {
+            final String key = getCacheKey(directory);
+            return CACHE.computeIfAbsent(key, k -> loadHistory(directory, k));
+        } catch (IOException e) {
+            LOGGER.warn(READ_ERROR_MESSAGE, directory, e);
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Builds history from JSON test results in given directory, written in either flat
+     * or sharded layout. Results written in binary formats are skipped.
+     *
+     * @param directory the allure-results directory.
+     * @return the history.
+     * @throws IOException if results could not be listed.
+     */
+    public static TestHistory fromResults(final Path directory) throws IOException {
+        final Builder builder = new Builder();
+        try (Stream<Path> files = Files.walk(directory, MAX_DEPTH)) {
+            files.filter(TestResultParser::isTestResult).forEach(file -> {
+                try {
+                    builder.add(TestResultParser.parse(file));
+                } catch (IOException e) {
+                    LOGGER.debug("could not read test result {}", file, e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads history stored by {@link #writeTo(Path)}.
+     *
+     * @param file the history file.
+     * @return the history.
+     * @throws IOException if file could not be read or is not a history file.
+     */
+    public static TestHistory readFrom(final Path file) throws IOException {
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (stream.readInt() != MAGIC || stream.readInt() != VERSION) {
+                throw new IOException("Not a test history file: " + file);
+            }
+            final int size = stream.readInt();
+            final long[] keys = new long[size];
+            final long[] durations = new long[size];
+            final byte[] flags = new byte[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = stream.readLong();
+                durations[i] = stream.readLong();
+                flags[i] = stream.readByte();
+            }
+            final TestHistory history = new TestHistory(keys, durations, flags);
+            if (stream.readLong() != history.checksum()) {
+                throw new IOException("Corrupted test history file: " + file);
+            }
+            return history;
+        }
+    }
+
+    /**
+     * Stores history to given file, that can be read by {@link #readFrom(Path)}.
+     *
+     * @param file the file to write to.
+     * @throws IOException if file could not be written.
+     */
+    public void writeTo(final Path file) throws IOException {
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                stream.writeLong(keys[i]);
+                stream.writeLong(durations[i]);
+                stream.writeByte(flags[i]);
+            }
+            stream.writeLong(checksum());
+        }
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns duration of test in previous run.
+     *
+     * @param allureId value of @AllureId annotation, if not set pass null value.
+     * @param selector selector of test, e.g. full name of test method.
+     * @return the duration in milliseconds, or -1 if test is unknown.
+     */
+    public long getDuration(final String allureId, final String selector) {
+        final int position = find(allureId, selector);
+        return position < 0 ? -1 : durations[position];
+    }
+
+    /**
+     * Checks if test was failed, broken or flaky in previous run.
+     *
+     * @param allureId value of @AllureId annotation, if not set pass null value.
+     * @param selector selector of test, e.g. full name of test method.
+     * @return true if test is known and was not stable.
+     */
+    public boolean isUnstable(final String allureId, final String selector) {
+        final int position = find(allureId, selector);
+        return position >= 0 && (flags[position] & (FAILED | FLAKY)) != 0;
+    }
+
+    /**
+     * Assigns given tests to shards. Tests missing in history are assigned by hash and
+     * are estimated by mean duration of known tests. Then known tests are assigned by
+     * longest processing time first heuristic: tests are taken from the longest one and
+     * each is put to the shard with the least total duration so far.
+     *
+     * @param tests the hashes of keys of all the tests to run, without duplicates.
+     * @param count the number of shards.
+     * @return the shard index of each test.
+     */
+    int[] assignShards(final long[] tests, final int count) {
+        final int[] positions = new int[tests.length];
+        for (int i = 0; i < tests.length; i++) {
+            positions[i] = Arrays.binarySearch(keys, tests[i]);
+        }
+        final long estimate = (long) Arrays.stream(positions)
+                .filter(position -> position >= 0)
+                .mapToLong(position -> durations[position])
+                .average()
+                .orElse(0);
+
+        final int[] result = new int[tests.length];
+        final long[] loads = new long[count];
+        final List<Integer> known = new ArrayList<>();
+        for (int i = 0; i < tests.length; i++) {
+            if (positions[i] < 0) {
+                result[i] = (int) Math.floorMod(tests[i], (long) count);
+                loads[result[i]] += estimate;
+            } else {
+                known.add(i);
+            }
+        }
+        known.sort((a, b) -> durations[positions[a]] == durations[positions[b]]
+                ? Long.compare(tests[a], tests[b])
+                : Long.compare(durations[positions[b]], durations[positions[a]]));
+
+        final PriorityQueue<Integer> queue = new PriorityQueue<>(count, (a, b) -> loads[a] == loads[b]
+                ? Integer.compare(a, b)
+                : Long.compare(loads[a], loads[b]));
+        for (int shard = 0; shard < count; shard++) {
+            queue.add(shard);
+        }
+        for (Integer test : known) {
+            final Integer shard = queue.poll();
+            result[test] = shard;
+            loads[shard] += durations[positions[test]];
+            queue.add(shard);
+        }
+        return result;
+    }
+
+    private int find(final String allureId, final String selector) {
+        final String key = Objects.nonNull(allureId) ? allureId : selector;
+        return Objects.isNull(key)
+                ? -1
+                : Arrays.binarySearch(keys, TestPlanIndex.hash(key));
+    }
+
+    private long checksum() {
+        long checksum = 0xcbf29ce484222325L;
+        for (int i = 0; i < keys.length; i++) {
+            checksum = (checksum ^ keys[i]) * 0x100000001b3L;
+            checksum = (checksum ^ durations[i]) * 0x100000001b3L;
+            checksum = (checksum ^ flags[i]) * 0x100000001b3L;
+        }
+        return checksum;
+    }
+
+    /**
+     * Returns cache key of results in given directory. Hashes of name, size and
+     * modification time of result files are summed up, so the key does not depend
+     * on listing order.
+     *
+     * @param directory the allure-results directory.
+     * @return the cache key.
+     * @throws IOException if results could not be listed.
+     */
+    static String getCacheKey(final Path directory) throws IOException {
+        long sum = 0;
+        long count = 0;
+        try (Stream<Path> files = Files.walk(directory, MAX_DEPTH)) {
+            for (Path file : (Iterable<Path>) files.filter(TestResultParser::isTestResult)::iterator) {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                sum += TestPlanIndex.hash(String.format("%s:%d:%d",
+                        directory.relativize(file), attributes.size(), attributes.lastModifiedTime().toMillis()
+                ));
+                count++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return Long.toHexString(TestPlanIndex.hash(String.format("%s:%d:%d:%d",
+                directory.toAbsolutePath(), count, sum, VERSION
+        )));
+    }
+
+    private static TestHistory loadHistory(final Path directory, final String key) {
+        final Optional<Path> file = CacheDirectory.get()
+                .map(cache -> cache.resolve("allure-history-" + key + ".bin"));
+        final Optional<TestHistory> stored = file
+                .filter(Files::isRegularFile)
+                .flatMap(TestHistory::readStored);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        try {
+            final TestHistory history = fromResults(directory);
+            file.ifPresent(path -> store(history, path));
+            return history;
+        } catch (IOException e) {
+            LOGGER.warn(READ_ERROR_MESSAGE, directory, e);
+            return EMPTY;
+        }
+    }
+
+    private static Optional<TestHistory> readStored(final Path file) {
+        try {
+            return Optional.of(readFrom(file));
+        } catch (IOException e) {
+            LOGGER.debug("could not read test history file {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private static void store(final TestHistory history, final Path file) {
+        final Path temp = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            history.writeTo(temp);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.debug("could not store test history file {}", file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                LOGGER.debug("could not remove temporary file {}", temp);
+            }
+        }
+    }
+
+    /**
+     * Collects durations and statuses of test results. Thread safe, so results can be added
+     * while they are parsed in parallel.
+     */
+    public static final class Builder {
+
+        private final Map<String, Attempt> attempts = new HashMap<>();
+
+        public Builder add(final TestResult result) {
+            final String key = Optional.ofNullable(getAllureId(result)).orElse(result.getFullName());
+            if (Objects.isNull(key) || Objects.isNull(result.getStart()) || Objects.isNull(result.getStop())) {
+                return this;
+            }
+            final Attempt attempt = new Attempt(
+                    TestPlanIndex.hash(key),
+                    Math.max(0, result.getStop() - result.getStart()),
+                    result.getStop(),
+                    result.getStatus(),
+                    isFlaky(result) ? FLAKY : 0
+            );
+            final String historyId = Optional.ofNullable(result.getHistoryId()).orElse(result.getUuid());
+            synchronized (attempts) {
+                attempts.merge(historyId, attempt, Attempt::merge);
+            }
+            return this;
+        }
+
+        public TestHistory build() {
+            final Map<Long, long[]> tests = new HashMap<>();
+            synchronized (attempts) {
+                for (Attempt attempt : attempts.values()) {
+                    final long[] test = tests.computeIfAbsent(attempt.key, key -> new long[2]);
+                    test[0] += attempt.duration;
+                    test[1] |= attempt.getFlags();
+                }
+            }
+            final long[] keys = tests.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            final long[] durations = new long[keys.length];
+            final byte[] flags = new byte[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                final long[] test = tests.get(keys[i]);
+                durations[i] = test[0];
+                flags[i] = (byte) test[1];
+            }
+            return new TestHistory(keys, durations, flags);
+        }
+
+        private static boolean isFlaky(final TestResult result) {
+            return Objects.nonNull(result.getStatusDetails()) && result.getStatusDetails().isFlaky();
+        }
+
+        private static String getAllureId(final TestResult result) {
+            return Optional.ofNullable(result.getLabels())
+                    .flatMap(labels -> labels.stream()
+                            .filter(Objects::nonNull)
+                            .filter(label -> ALLURE_ID_LABEL_NAME.equals(label.getName()))
+                            .map(Label::getValue)
+                            .filter(Objects::nonNull)
+                            .findFirst())
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * The latest attempt of test invocation.
+     */
+    private static final class Attempt {
+
+        private final long key;
+
+        private final long duration;
+
+        private final long stop;
+
+        private final Status status;
+
+        private final byte flags;
+
+        private Attempt(final long key, final long duration, final long stop,
+                        final Status status, final byte flags) {
+            this.key = key;
+            this.duration = duration;
+            this.stop = stop;
+            this.status = status;
+            this.flags = flags;
+        }
+
+        private byte getFlags() {
+            return status == Status.FAILED || status == Status.BROKEN
+                    ? (byte) (flags | FAILED)
+                    : flags;
+        }
+
+        private Attempt merge(final Attempt other) {
+            final Attempt latest = stop >= other.stop ? this : other;
+            final boolean flaky = status != other.status;
+            return new Attempt(latest.key, latest.duration, latest.stop, latest.status,
+                    (byte) (flags | other.flags | (flaky ? FLAKY : 0)));
+        }
+    }
+}
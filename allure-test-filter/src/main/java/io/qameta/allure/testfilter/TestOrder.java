@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import io.qameta.allure.AllureId;
+import io.qameta.allure.util.PropertiesUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.lang.Boolean.parseBoolean;
+
+/**
+ * Order of tests for fail fast feedback, driven by {@link TestHistory} of previous run.
+ * Tests that were failed, broken or flaky run first, then the tests that are missing
+ * in history, as new tests are the most likely to fail, and then the rest of the tests.
+ * Within each group faster tests run first.
+ * <p>
+ * Enabled by {@code allure.history.order} property, tests are kept in their original
+ * order otherwise.
+ */
+public final class TestOrder {
+
+    /**
+     * The order that keeps tests in their original order.
+     */
+    public static final TestOrder NONE = new TestOrder(TestHistory.EMPTY);
+
+    public static final String ORDER_ENABLED_PROPERTY_NAME = "allure.history.order";
+
+    private static final int UNSTABLE = 0;
+
+    private static final int UNKNOWN = 1;
+
+    private static final int STABLE = 2;
+
+    private static final int GROUP_SHIFT = 56;
+
+    private static final long MAX_DURATION = (1L << GROUP_SHIFT) - 1;
+
+    private final TestHistory history;
+
+    public TestOrder(final TestHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Loads order configured by {@code allure.history.order} property.
+     *
+     * @return the order, or {@link #NONE} if ordering is disabled.
+     */
+    public static TestOrder load() {
+        final String enabled = PropertiesUtils.loadAllureProperties().getProperty(ORDER_ENABLED_PROPERTY_NAME);
+        return parseBoolean(enabled)
+                ? new TestOrder(TestHistory.load())
+                : NONE;
+    }
+
+    public boolean isEnabled() {
+        return !history.isEmpty();
+    }
+
+    /**
+     * Returns rank of test, tests with lower rank should run first.
+     *
+     * @param allureId value of @AllureId annotation, if not set pass null value.
+     * @param fullName full name of test, e.g. class name and method name separated by dot.
+     * @return the rank.
+     */
+    public long getRank(final String allureId, final String fullName) {
+        final long duration = history.getDuration(allureId, fullName);
+        if (duration < 0) {
+            return rank(UNKNOWN, 0);
+        }
+        return history.isUnstable(allureId, fullName)
+                ? rank(UNSTABLE, duration)
+                : rank(STABLE, duration);
+    }
+
+    /**
+     * Returns rank of test method.
+     *
+     * @param testClass the test class, that may be a subclass of method declaring class.
+     * @param method    the test method.
+     * @return the rank.
+     */
+    public long getRank(final Class<?> testClass, final Method method) {
+        return getRank(getAllureId(method), getFullName(testClass, method));
+    }
+
+    /**
+     * Returns rank of test class. Class is unstable if any of its tests is unstable,
+     * and its duration is the total duration of its known tests.
+     *
+     * @param testClass the test class.
+     * @return the rank.
+     */
+    public long getRank(final Class<?> testClass) {
+        boolean known = false;
+        boolean unstable = false;
+        long total = 0;
+        for (Method method : getMethods(testClass)) {
+            final String allureId = getAllureId(method);
+            final String fullName = getFullName(testClass, method);
+            final long duration = history.getDuration(allureId, fullName);
+            if (duration >= 0) {
+                known = true;
+                unstable |= history.isUnstable(allureId, fullName);
+                total += duration;
+            }
+        }
+        if (!known) {
+            return rank(UNKNOWN, 0);
+        }
+        return unstable
+                ? rank(UNSTABLE, total)
+                : rank(STABLE, total);
+    }
+
+    private static long rank(final int group, final long duration) {
+        return (long) group << GROUP_SHIFT | Math.min(duration, MAX_DURATION);
+    }
+
+    private static String getAllureId(final Method method) {
+        return Optional.ofNullable(method.getAnnotation(AllureId.class))
+                .map(AllureId::value)
+                .orElse(null);
+    }
+
+    private static String getFullName(final Class<?> testClass, final Method method) {
+        return testClass.getName() + "." + method.getName();
+    }
+
+    private static List<Method> getMethods(final Class<?> testClass) {
+        final List<Method> methods = new ArrayList<>();
+        Class<?> current = testClass;
+        while (Objects.nonNull(current) && !Object.class.equals(current)) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (!method.isSynthetic()) {
+                    methods.add(method);
+                }
+            }
+            current = current.getSuperclass();
+        }
+        return methods;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.qameta.allure.testfilter;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -32,4 +33,15 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
         @JsonSubTypes.Type(TestPlanV1_0.class)
 })
 public interface TestPlan {
+
+    /**
+     * Returns index of tests selected by this plan. Plans of unknown version select all the tests.
+     *
+     * @return the index.
+     */
+    @JsonIgnore
+    default TestPlanIndex getIndex() {
+        return TestPlanIndex.ALL;
+    }
+
 }
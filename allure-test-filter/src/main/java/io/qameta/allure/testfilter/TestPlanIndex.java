@@ -0,0 +1,295 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Index of test plan ids and selectors. Ids and selectors are stored as sorted arrays
+ * of their 64-bit hashes, that takes 8 bytes per test case regardless of selector
+ * length, and checking a test against the plan takes logarithmic time. Hash collisions
+ * are possible in theory, so a test that is not in the plan may be selected with
+ * negligible probability, but a test from the plan is never skipped. Index can be
+ * stored to a file and memory mapped, so processes can share one copy of it. Stored
+ * index has a checksum of its hashes, that is verified when the index is mapped.
+ */
+public final class TestPlanIndex implements Serializable {
+
+    /**
+     * The index that selects all the tests.
+     */
+    public static final TestPlanIndex ALL = new TestPlanIndex(
+            true, LongBuffer.allocate(0), LongBuffer.allocate(0)
+    );
+
+    private static final long serialVersionUID = 2L;
+
+    private static final long MAGIC = 0x414C4C5552455450L;
+
+    private static final int HEADER_LONGS = 5;
+
+    private static final String CORRUPTED_MESSAGE = "Corrupted test plan index: ";
+
+    private final boolean all;
+
+    private transient LongBuffer ids;
+
+    private transient LongBuffer selectors;
+
+    private TestPlanIndex(final boolean all, final LongBuffer ids, final LongBuffer selectors) {
+        this.all = all;
+        this.ids = ids;
+        this.selectors = selectors;
+    }
+
+    /**
+     * Creates index of given test cases. Null list selects all the tests.
+     *
+     * @param tests the test plan test cases.
+     * @return the index.
+     */
+    public static TestPlanIndex of(final Collection<TestPlanV1_0.TestCase> tests) {
+        if (Objects.isNull(tests)) {
+            return ALL;
+        }
+        final Builder builder = new Builder();
+        for (TestPlanV1_0.TestCase test : tests) {
+            if (Objects.nonNull(test)) {
+                builder.addId(test.getId());
+                builder.addSelector(test.getSelector());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Maps index stored by {@link #writeTo(Path)}.
+     *
+     * @param file the index file.
+     * @return the index.
+     * @throws IOException if file could not be mapped or is not an index.
+     */
+    public static TestPlanIndex map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final LongBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asLongBuffer();
+            if (buffer.remaining() < HEADER_LONGS || buffer.get(0) != MAGIC) {
+                throw new IOException("Not a test plan index: " + file);
+            }
+            final int idsCount = (int) buffer.get(2);
+            final int selectorsCount = (int) buffer.get(3);
+            if (buffer.remaining() != HEADER_LONGS + idsCount + selectorsCount) {
+                throw new IOException(CORRUPTED_MESSAGE + file);
+            }
+            final LongBuffer ids = slice(buffer, HEADER_LONGS, idsCount);
+            final LongBuffer selectors = slice(buffer, HEADER_LONGS + idsCount, selectorsCount);
+            if (buffer.get(4) != checksum(ids, selectors)) {
+                throw new IOException(CORRUPTED_MESSAGE + file);
+            }
+            return new TestPlanIndex(buffer.get(1) != 0, ids, selectors);
+        }
+    }
+
+    /**
+     * Stores index to given file, that can be mapped by {@link #map(Path)}.
+     *
+     * @param file the file to write to.
+     * @throws IOException if file could not be written.
+     */
+    public void writeTo(final Path file) throws IOException {
+        final int size = HEADER_LONGS + ids.limit() + selectors.limit();
+        final ByteBuffer bytes = ByteBuffer.allocate(size * Long.BYTES);
+        bytes.asLongBuffer()
+                .put(MAGIC)
+                .put(all ? 1 : 0)
+                .put(ids.limit())
+                .put(selectors.limit())
+                .put(checksum(ids, selectors))
+                .put(ids.duplicate())
+                .put(selectors.duplicate());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    public boolean isSelectingAll() {
+        return all;
+    }
+
+    /**
+     * Checks if test is selected by the plan.
+     *
+     * @param allureId  value of @AllureId annotation, if not set pass null value.
+     * @param selectors the selectors of test, e.g. unique id or full name. Nulls are ignored.
+     * @return true if plan contains test case with given id, or with any of given selectors.
+     */
+    public boolean isSelected(final String allureId, final String... selectors) {
+        if (all || containsHash(ids, allureId)) {
+            return true;
+        }
+        for (String selector : selectors) {
+            if (containsHash(this.selectors, selector)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if plan contains test case with given value as either id or selector.
+     *
+     * @param value the id or selector.
+     * @return true if value is known to the plan.
+     */
+    public boolean contains(final String value) {
+        return all || containsHash(ids, value) || containsHash(selectors, value);
+    }
+
+    /**
+     * Stable 64-bit hash of given value, FNV-1a over UTF-16 chars followed by
+     * murmur3 finalizer.
+     */
+    static long hash(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long checksum(final LongBuffer... buffers) {
+        long checksum = 0xcbf29ce484222325L;
+        for (LongBuffer buffer : buffers) {
+            for (int i = 0; i < buffer.limit(); i++) {
+                checksum = (checksum ^ buffer.get(i)) * 0x100000001b3L;
+            }
+        }
+        return checksum;
+    }
+
+    private static boolean containsHash(final LongBuffer hashes, final String value) {
+        if (Objects.isNull(value)) {
+            return false;
+        }
+        final long key = hash(value);
+        int low = 0;
+        int high = hashes.limit() - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long current = hashes.get(middle);
+            if (current < key) {
+                low = middle + 1;
+            } else if (current > key) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static LongBuffer slice(final LongBuffer buffer, final int position, final int length) {
+        final LongBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+
+    private static long[] toArray(final LongBuffer buffer) {
+        final long[] result = new long[buffer.limit()];
+        buffer.duplicate().get(result);
+        return result;
+    }
+
+    private void writeObject(final ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+        stream.writeObject(toArray(ids));
+        stream.writeObject(toArray(selectors));
+    }
+
+    private void readObject(final ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        ids = LongBuffer.wrap((long[]) stream.readObject());
+        selectors = LongBuffer.wrap((long[]) stream.readObject());
+    }
+
+    /**
+     * Collects ids and selectors one by one, so index can be built without
+     * keeping test cases in memory.
+     */
+    public static final class Builder {
+
+        private long[] ids = new long[16];
+
+        private int idsCount;
+
+        private long[] selectors = new long[16];
+
+        private int selectorsCount;
+
+        public Builder addId(final String id) {
+            if (Objects.nonNull(id)) {
+                if (idsCount == ids.length) {
+                    ids = Arrays.copyOf(ids, idsCount * 2);
+                }
+                ids[idsCount++] = hash(id);
+            }
+            return this;
+        }
+
+        public Builder addSelector(final String selector) {
+            if (Objects.nonNull(selector)) {
+                if (selectorsCount == selectors.length) {
+                    selectors = Arrays.copyOf(selectors, selectorsCount * 2);
+                }
+                selectors[selectorsCount++] = hash(selector);
+            }
+            return this;
+        }
+
+        public TestPlanIndex build() {
+            return new TestPlanIndex(
+                    false,
+                    LongBuffer.wrap(sorted(ids, idsCount)),
+                    LongBuffer.wrap(sorted(selectors, selectorsCount))
+            );
+        }
+
+        private static long[] sorted(final long[] values, final int count) {
+            final long[] result = Arrays.copyOf(values, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
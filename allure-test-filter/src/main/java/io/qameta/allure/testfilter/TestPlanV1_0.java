@@ -15,10 +15,10 @@
  */
 package io.qameta.allure.testfilter;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 
 import java.io.Serializable;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -36,6 +36,11 @@ public class TestPlanV1_0 implements TestPlan, Serializable {
      */
     private List<TestCase> tests;
 
+    /**
+     * Index of tests, created on first use.
+     */
+    private transient TestPlanIndex index;
+
     /**
      * Gets the value of the tests property.
      *
@@ -52,19 +57,38 @@ public class TestPlanV1_0 implements TestPlan, Serializable {
      * @return current instance.
      */
     public TestPlanV1_0 setTests(final List<TestCase> tests) {
-        this.tests = tests;
+        synchronized (this) {
+            this.tests = tests;
+            this.index = null;
+        }
         return this;
     }
 
+    /**
+     * Returns index of tests. Index is created once, so changes in list of tests
+     * made after the first call are not visible unless {@link #setTests(List)} is called.
+     *
+     * @return the index.
+     */
+    @JsonIgnore
+    @Override
+    public TestPlanIndex getIndex() {
+        synchronized (this) {
+            if (Objects.isNull(index)) {
+                index = TestPlanIndex.of(tests);
+            }
+            return index;
+        }
+    }
+
     /**
      * @param allureId value of @AllureId annotation, if not set pass null value
      * @param selector selector of test method
      * @return true if test case with given allureId or selection is selected, false otherwise.
      */
     public boolean isSelected(final String allureId, final String selector) {
-        return getTests().stream().map(test -> new String[]{test.getId(), test.getSelector()})
-                .flatMap(array -> Arrays.stream(array).filter(Objects::nonNull))
-                .anyMatch(item -> item.equals(selector) || item.equals(allureId));
+        final TestPlanIndex testPlanIndex = getIndex();
+        return testPlanIndex.contains(selector) || testPlanIndex.contains(allureId);
     }
 
     /**
@@ -0,0 +1,159 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.StatusDetails;
+import io.qameta.allure.model.TestResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Streaming parser of JSON test results, that reads only the fields {@link TestHistory}
+ * needs and skips steps, attachments and parameters.
+ */
+final class TestResultParser {
+
+    private static final String RESULT_SUFFIX = "-result.json";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private TestResultParser() {
+        throw new IllegalStateException("Do not instance");
+    }
+
+    static boolean isTestResult(final Path file) {
+        return file.getFileName().toString().endsWith(RESULT_SUFFIX) && Files.isRegularFile(file);
+    }
+
+    static TestResult parse(final Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             JsonParser parser = JSON_FACTORY.createParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("test result should be json object: " + file);
+            }
+            final TestResult result = new TestResult();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                parseField(parser, field, result);
+            }
+            return result;
+        }
+    }
+
+    private static void parseField(final JsonParser parser, final String field,
+                                   final TestResult result) throws IOException {
+        switch (field) {
+            case "uuid":
+                result.setUuid(parser.getValueAsString());
+                break;
+            case "historyId":
+                result.setHistoryId(parser.getValueAsString());
+                break;
+            case "fullName":
+                result.setFullName(parser.getValueAsString());
+                break;
+            case "start":
+                result.setStart(getLong(parser));
+                break;
+            case "stop":
+                result.setStop(getLong(parser));
+                break;
+            case "status":
+                result.setStatus(getStatus(parser.getValueAsString()));
+                break;
+            case "statusDetails":
+                result.setStatusDetails(parseStatusDetails(parser));
+                break;
+            case "labels":
+                parseLabels(parser, result);
+                break;
+            default:
+                parser.skipChildren();
+                break;
+        }
+    }
+
+    private static StatusDetails parseStatusDetails(final JsonParser parser) throws IOException {
+        final StatusDetails details = new StatusDetails();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return details;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("flaky".equals(field)) {
+                details.setFlaky(parser.getValueAsBoolean());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return details;
+    }
+
+    private static void parseLabels(final JsonParser parser, final TestResult result) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            final Label label = new Label();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("name".equals(field)) {
+                    label.setName(parser.getValueAsString());
+                } else if ("value".equals(field)) {
+                    label.setValue(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            result.getLabels().add(label);
+        }
+    }
+
+    private static Long getLong(final JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                ? parser.getLongValue()
+                : null;
+    }
+
+    private static Status getStatus(final String value) {
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        try {
+            return Status.fromValue(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import io.qameta.allure.util.PropertiesUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Deterministic shard of tests. Each test is assigned to a shard by stable hash of
+ * its Allure id, or selector for tests without id, so every node of a CI run gets
+ * disjoint subset of tests with no external tooling, whatever test framework is used.
+ * <p>
+ * Configured by {@code allure.shard.index} and {@code allure.shard.count} properties,
+ * or {@code ALLURE_SHARD_INDEX} and {@code ALLURE_SHARD_COUNT} environment variables.
+ * Shard index is zero based.
+ * <p>
+ * If {@link TestHistory} of previous run is available, {@link #select(Collection)} balances
+ * the discovered tests between shards by their durations, and only the tests that are
+ * missing in history are hashed. Every node discovers the same tests, so the assignment
+ * is the same on every node.
+ * <p>
+ * Selector passed to {@link #contains(String, String)} should be the full name of test,
+ * as it is stored in test results, so the history of previous run can be matched.
+ * Every test is sharded independently, so dependencies between tests, such as TestNG
+ * {@code dependsOnMethods}, are not supported across shards.
+ */
+public final class TestShard implements Serializable {
+
+    /**
+     * The shard containing all the tests.
+     */
+    public static final TestShard ALL = new TestShard(0, 1, TestHistory.EMPTY);
+
+    public static final String SHARD_INDEX_PROPERTY_NAME = "allure.shard.index";
+
+    public static final String SHARD_COUNT_PROPERTY_NAME = "allure.shard.count";
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestShard.class);
+
+    private final int index;
+
+    private final int count;
+
+    private final TestHistory history;
+
+    private TestShard(final int index, final int count, final TestHistory history) {
+        this.index = index;
+        this.count = count;
+        this.history = history;
+    }
+
+    /**
+     * Creates shard with given index.
+     *
+     * @param index the zero based index of shard.
+     * @param count the number of shards.
+     * @return the shard.
+     */
+    public static TestShard of(final int index, final int count) {
+        if (count <= 0 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid shard %d of %d, shard index should be in [0, count)", index, count
+            ));
+        }
+        return new TestShard(index, count, TestHistory.EMPTY);
+    }
+
+    /**
+     * Loads shard from allure properties or environment variables. Returns {@link #ALL}
+     * if shard is not configured or configuration is invalid. Tests are balanced
+     * by durations from {@link TestHistory#load()}, if configured.
+     *
+     * @return the shard.
+     */
+    public static TestShard load() {
+        final Properties properties = PropertiesUtils.loadAllureProperties();
+        final String index = getValue(properties, SHARD_INDEX_PROPERTY_NAME, "ALLURE_SHARD_INDEX");
+        final String count = getValue(properties, SHARD_COUNT_PROPERTY_NAME, "ALLURE_SHARD_COUNT");
+        if (Objects.isNull(index) || Objects.isNull(count)) {
+            return ALL;
+        }
+        try {
+            final TestShard shard = of(Integer.parseInt(index.trim()), Integer.parseInt(count.trim()));
+            return shard.isSelectingAll() ? shard : shard.withHistory(TestHistory.load());
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid shard configuration {} of {}, running all the tests", index, count, e);
+            return ALL;
+        }
+    }
+
+    /**
+     * Returns the same shard that balances tests by durations from given history.
+     *
+     * @param history the history of previous run.
+     * @return the shard.
+     */
+    public TestShard withHistory(final TestHistory history) {
+        return new TestShard(index, count, Objects.requireNonNull(history));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isSelectingAll() {
+        return count == ALL.count;
+    }
+
+    /**
+     * Returns the key test is sharded by.
+     *
+     * @param allureId value of @AllureId annotation, if not set pass null value.
+     * @param selector full name of test, same as in test results.
+     * @return the key of test, or null if both values are not set.
+     */
+    public static String getKey(final String allureId, final String selector) {
+        return Objects.nonNull(allureId) ? allureId : selector;
+    }
+
+    /**
+     * Checks if test belongs to this shard by hash of its key only. Use
+     * {@link #select(Collection)} when all the tests to run are known,
+     * so tests are balanced by history.
+     *
+     * @param allureId value of @AllureId annotation, if not set pass null value.
+     * @param selector full name of test, same as in test results.
+     * @return true if test belongs to this shard.
+     */
+    public boolean contains(final String allureId, final String selector) {
+        if (isSelectingAll()) {
+            return true;
+        }
+        final String key = getKey(allureId, selector);
+        return Objects.isNull(key)
+                ? index == 0
+                : Math.floorMod(TestPlanIndex.hash(key), (long) count) == index;
+    }
+
+    /**
+     * Selects tests of this shard among all the tests to run. Tests are balanced
+     * by durations from history, and tests missing in history are assigned by hash,
+     * same as {@link #contains(String, String)} does, and are estimated by mean
+     * duration of known tests. Null keys are ignored, tests without key belong
+     * to the first shard.
+     *
+     * @param keys the keys of all the tests to run, see {@link #getKey(String, String)}.
+     * @return the keys of tests that belong to this shard.
+     */
+    public Set<String> select(final Collection<String> keys) {
+        final List<String> tests = keys.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (isSelectingAll()) {
+            return new HashSet<>(tests);
+        }
+        final long[] hashes = tests.stream().mapToLong(TestPlanIndex::hash).toArray();
+        final int[] shards = history.assignShards(hashes, count);
+        final Set<String> selected = new HashSet<>();
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i] == index) {
+                selected.add(tests.get(i));
+            }
+        }
+        return selected;
+    }
+
+    private static String getValue(final Properties properties, final String property, final String env) {
+        final String value = properties.getProperty(property);
+        return Objects.nonNull(value) ? value : System.getenv(env);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileTestPlanSupplierTest {
+
+    private static final String PLAN_FILE = "testplan.json";
+
+    private static final String FIRST_SELECTOR = "com.example.FirstTest.test";
+
+    private static final String SECOND_SELECTOR = "com.example.SecondTest.test";
+
+    private static final String FIRST_ID = "1";
+
+    @Test
+    void shouldParseIdsAndSelectors(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, "{\"version\":\"1.0\",\"unknown\":{\"tests\":[1]},\"tests\":["
+                + "{\"id\":\"1\",\"selector\":\"" + FIRST_SELECTOR + "\",\"extra\":{\"id\":\"2\"}},"
+                + "{\"id\":3,\"labels\":[{\"selector\":\"nested\"}]},"
+                + "{\"selector\":\"" + SECOND_SELECTOR + "\"},"
+                + "\"not a test case\",[\"nested\"]"
+                + "]}");
+
+        final TestPlanIndex index = read(folder, plan).getIndex();
+        assertThat(index.isSelectingAll()).isFalse();
+        assertThat(index.isSelected(FIRST_ID)).isTrue();
+        assertThat(index.isSelected("3")).isTrue();
+        assertThat(index.isSelected(null, FIRST_SELECTOR)).isTrue();
+        assertThat(index.isSelected(null, null, SECOND_SELECTOR)).isTrue();
+        assertThat(index.isSelected("2")).isFalse();
+        assertThat(index.isSelected(null, "nested")).isFalse();
+    }
+
+    @Test
+    void shouldReadEmptyPlan(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, "{\"version\":\"1.0\",\"tests\":[]}");
+
+        final TestPlanIndex index = read(folder, plan).getIndex();
+        assertThat(index.isSelectingAll()).isFalse();
+        assertThat(index.isSelected(FIRST_ID, FIRST_SELECTOR)).isFalse();
+    }
+
+    @Test
+    void shouldSelectAllTestsByPlanWithoutTests(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, "{\"tests\":null,\"version\":\"1.0\"}");
+
+        assertThat(read(folder, plan))
+                .isInstanceOf(IndexedTestPlan.class)
+                .extracting(TestPlan::getIndex)
+                .isSameAs(TestPlanIndex.ALL);
+    }
+
+    @Test
+    void shouldReadPlanOfUnknownVersion(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, "{\"version\":\"2.0\",\"tests\":[{\"id\":\"1\"}]}");
+
+        assertThat(read(folder, plan)).isInstanceOf(TestPlanUnknown.class);
+    }
+
+    @Test
+    void shouldNotReadInvalidPlan(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, "[{\"version\":\"1.0\"}]");
+
+        assertThat(new FileTestPlanSupplier(folder).readTestPlan(plan)).isEmpty();
+    }
+
+    @Test
+    void shouldStoreIndexToShareItBetweenProcesses(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, planOf(FIRST_SELECTOR));
+        final FileTestPlanSupplier supplier = new FileTestPlanSupplier(folder);
+        supplier.readTestPlan(plan);
+
+        final Path indexFile = supplier.getIndexFile(FileTestPlanSupplier.getCacheKey(plan));
+        assertThat(indexFile).isRegularFile();
+        final TestPlanIndex mapped = TestPlanIndex.map(indexFile);
+        assertThat(mapped.isSelected(null, FIRST_SELECTOR)).isTrue();
+        assertThat(mapped.isSelected(null, SECOND_SELECTOR)).isFalse();
+    }
+
+    @Test
+    void shouldMapStoredIndexInsteadOfParsing(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, planOf(FIRST_SELECTOR));
+        final FileTestPlanSupplier supplier = new FileTestPlanSupplier(folder);
+        new TestPlanIndex.Builder()
+                .addSelector(SECOND_SELECTOR)
+                .build()
+                .writeTo(supplier.getIndexFile(FileTestPlanSupplier.getCacheKey(plan)));
+
+        final TestPlanIndex index = read(folder, plan).getIndex();
+        assertThat(index.isSelected(null, SECOND_SELECTOR)).isTrue();
+        assertThat(index.isSelected(null, FIRST_SELECTOR)).isFalse();
+    }
+
+    @Test
+    void shouldParsePlanWithoutIndexDirectory(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, planOf(FIRST_SELECTOR));
+        assertThat(read(null, plan).getIndex().isSelected(null, FIRST_SELECTOR)).isTrue();
+        try (Stream<Path> files = Files.list(folder)) {
+            assertThat(files).containsExactly(plan);
+        }
+    }
+
+    @Test
+    void shouldCreateCacheDirectoryForOwnerOnly(@TempDir final Path folder) throws IOException {
+        final Path directory = folder.resolve("cache").resolve("allure");
+        System.setProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY_NAME, directory.toString());
+        try {
+            assertThat(CacheDirectory.get()).contains(directory);
+        } finally {
+            System.clearProperty(CacheDirectory.CACHE_DIRECTORY_PROPERTY_NAME);
+        }
+        assertThat(directory).isDirectory();
+        if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)))
+                    .isEqualTo("rwx------");
+        }
+    }
+
+    @Test
+    void shouldReadChangedPlanAgain(@TempDir final Path folder) throws IOException {
+        final Path plan = write(folder, planOf(FIRST_SELECTOR));
+        final FileTime modified = Files.getLastModifiedTime(plan);
+        assertThat(read(folder, plan).getIndex().isSelected(null, FIRST_SELECTOR)).isTrue();
+        assertThat(read(folder, plan)).isSameAs(read(folder, plan));
+
+        write(folder, planOf(SECOND_SELECTOR));
+        Files.setLastModifiedTime(plan, FileTime.fromMillis(modified.toMillis() + 1000));
+
+        final TestPlanIndex index = read(folder, plan).getIndex();
+        assertThat(index.isSelected(null, SECOND_SELECTOR)).isTrue();
+        assertThat(index.isSelected(null, FIRST_SELECTOR)).isFalse();
+    }
+
+    private static TestPlan read(final Path folder, final Path plan) {
+        final Optional<TestPlan> testPlan = new FileTestPlanSupplier(folder).readTestPlan(plan);
+        assertThat(testPlan).isPresent();
+        return testPlan.get();
+    }
+
+    private static String planOf(final String selector) {
+        return "{\"version\":\"1.0\",\"tests\":[{\"selector\":\"" + selector + "\"}]}";
+    }
+
+    private static Path write(final Path folder, final String content) throws IOException {
+        return Files.write(folder.resolve(PLAN_FILE), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import io.qameta.allure.model.TestResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestHistoryTest {
+
+    private static final String FIRST = "first";
+
+    private static final String SECOND = "second";
+
+    private static final String THIRD = "third";
+
+    private static final String UNKNOWN = "unknown";
+
+    @Test
+    void shouldReadJsonResultsOfBothLayouts(@TempDir final Path folder) throws IOException {
+        write(folder.resolve("a1-result.json"), "{\"uuid\":\"a1\",\"historyId\":\"h1\",\"fullName\":\"first\","
+                + "\"start\":0,\"stop\":100,\"status\":\"passed\",\"steps\":[{\"status\":\"failed\",\"stop\":1}],"
+                + "\"labels\":[{\"name\":\"AS_ID\",\"value\":\"10\"},{\"name\":\"suite\",\"value\":\"x\"}]}");
+        write(folder.resolve("ab/cd/abcd1-result.json"), "{\"uuid\":\"abcd1\",\"historyId\":\"h2\","
+                + "\"fullName\":\"second\",\"start\":0,\"stop\":60,\"status\":\"failed\"}");
+        write(folder.resolve("ab/cd/abcd2-result.json"), "{\"uuid\":\"abcd2\",\"historyId\":\"h2\","
+                + "\"fullName\":\"second\",\"start\":100,\"stop\":140,\"status\":\"passed\"}");
+        write(folder.resolve("b1-container.json"), "{\"uuid\":\"b1\",\"start\":0,\"stop\":1000}");
+        write(folder.resolve("c1-result.json"), "{\"uuid\":");
+
+        final TestHistory history = TestHistory.fromResults(folder);
+
+        assertThat(history.size()).isEqualTo(2);
+        assertThat(history.getDuration("10", FIRST)).isEqualTo(100);
+        assertThat(history.isUnstable("10", FIRST)).isFalse();
+        assertThat(history.getDuration(null, SECOND)).isEqualTo(40);
+        assertThat(history.isUnstable(null, SECOND)).isTrue();
+        assertThat(history.getDuration(null, THIRD)).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldChangeCacheKeyOnResultChangesInShards(@TempDir final Path folder) throws IOException {
+        final Path result = folder.resolve("ab/cd/abcd1-result.json");
+        write(result, "{\"uuid\":\"abcd1\",\"fullName\":\"first\",\"start\":0,\"stop\":60}");
+        final String key = TestHistory.getCacheKey(folder);
+        final FileTime modified = Files.getLastModifiedTime(folder);
+
+        write(result, "{\"uuid\":\"abcd1\",\"fullName\":\"first\",\"start\":0,\"stop\":600}");
+        Files.setLastModifiedTime(folder, modified);
+        final String changed = TestHistory.getCacheKey(folder);
+        assertThat(changed).isNotEqualTo(key);
+
+        write(folder.resolve("ab/ef/abef1-result.json"), "{\"uuid\":\"abef1\"}");
+        Files.setLastModifiedTime(folder, modified);
+        assertThat(TestHistory.getCacheKey(folder)).isNotEqualTo(changed);
+    }
+
+    @Test
+    void shouldNotReadCorruptedHistoryFile(@TempDir final Path folder) throws IOException {
+        final Path file = folder.resolve("history.bin");
+        new TestHistory.Builder()
+                .add(testResult(FIRST, 100))
+                .add(testResult(SECOND, 200))
+                .build()
+                .writeTo(file);
+        assertThat(TestHistory.readFrom(file).getDuration(null, SECOND)).isEqualTo(200);
+
+        final byte[] content = Files.readAllBytes(file);
+        content[content.length - Long.BYTES - 2] ^= 1;
+        Files.write(file, content);
+        assertThatThrownBy(() -> TestHistory.readFrom(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupted");
+    }
+
+    @Test
+    void shouldBalanceOnlyGivenTests() {
+        final TestHistory history = new TestHistory.Builder()
+                .add(testResult("removed", 1000))
+                .add(testResult(FIRST, 100))
+                .add(testResult(SECOND, 60))
+                .add(testResult(THIRD, 50))
+                .build();
+        final List<String> tests = Arrays.asList(FIRST, SECOND, THIRD, SECOND);
+
+        assertThat(TestShard.of(0, 2).withHistory(history).select(tests))
+                .containsExactly(FIRST);
+        assertThat(TestShard.of(1, 2).withHistory(history).select(tests))
+                .containsExactlyInAnyOrder(SECOND, THIRD);
+    }
+
+    @Test
+    void shouldAssignEveryTestToSingleShard() {
+        final TestHistory history = new TestHistory.Builder()
+                .add(testResult(FIRST, 100))
+                .add(testResult(SECOND, 60))
+                .build();
+        final List<String> tests = Arrays.asList(FIRST, SECOND, THIRD, UNKNOWN, null);
+        final int count = 3;
+
+        final Set<String> selected = new HashSet<>();
+        int total = 0;
+        for (int index = 0; index < count; index++) {
+            final Set<String> shard = TestShard.of(index, count).withHistory(history).select(tests);
+            total += shard.size();
+            selected.addAll(shard);
+        }
+
+        assertThat(total).isEqualTo(4);
+        assertThat(selected).containsExactlyInAnyOrder(FIRST, SECOND, THIRD, UNKNOWN);
+        assertThat(TestShard.of(0, count).select(tests))
+                .allMatch(test -> TestShard.of(0, count).contains(null, test));
+    }
+
+    private static TestResult testResult(final String fullName, final long duration) {
+        return new TestResult()
+                .setUuid(fullName)
+                .setFullName(fullName)
+                .setStart(0L)
+                .setStop(duration);
+    }
+
+    private static void write(final Path file, final String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testfilter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestPlanIndexTest {
+
+    private static final String INDEX_FILE = "index.idx";
+
+    private static final String SELECTOR = "com.example.Test.test";
+
+    private static final String FIRST_ID = "1";
+
+    private static final String SECOND_ID = "2";
+
+    @Test
+    void shouldLookUpIdsAndSelectors() {
+        final TestPlanIndex.Builder builder = new TestPlanIndex.Builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.addId(String.valueOf(i)).addSelector(SELECTOR + i);
+        }
+        final TestPlanIndex index = builder.addId(null).addSelector(null).build();
+
+        assertThat(index.isSelectingAll()).isFalse();
+        assertThat(index.isSelected("999")).isTrue();
+        assertThat(index.isSelected("1000")).isFalse();
+        assertThat(index.isSelected(null, null, SELECTOR + 0)).isTrue();
+        assertThat(index.isSelected(null, SELECTOR)).isFalse();
+        assertThat(index.contains("42")).isTrue();
+        assertThat(index.contains(SELECTOR + 42)).isTrue();
+        assertThat(index.contains(null)).isFalse();
+    }
+
+    @Test
+    void shouldCreateIndexOfTestCases() {
+        final TestPlanIndex index = TestPlanIndex.of(Arrays.asList(
+                new TestPlanV1_0.TestCase().setId(FIRST_ID),
+                null,
+                new TestPlanV1_0.TestCase().setSelector(SELECTOR)
+        ));
+
+        assertThat(index.isSelected(FIRST_ID)).isTrue();
+        assertThat(index.isSelected(null, SELECTOR)).isTrue();
+        assertThat(index.isSelected(SECOND_ID)).isFalse();
+        assertThat(TestPlanIndex.of(null)).isSameAs(TestPlanIndex.ALL);
+        assertThat(TestPlanIndex.ALL.isSelected(null)).isTrue();
+    }
+
+    @Test
+    void shouldMapStoredIndex(@TempDir final Path folder) throws IOException {
+        final Path file = folder.resolve(INDEX_FILE);
+        new TestPlanIndex.Builder().addId(FIRST_ID).addSelector(SELECTOR).build().writeTo(file);
+
+        final TestPlanIndex index = TestPlanIndex.map(file);
+        assertThat(index.isSelectingAll()).isFalse();
+        assertThat(index.isSelected(FIRST_ID)).isTrue();
+        assertThat(index.isSelected(null, SELECTOR)).isTrue();
+        assertThat(index.isSelected(SECOND_ID, SELECTOR + 1)).isFalse();
+    }
+
+    @Test
+    void shouldNotMapUnknownFiles(@TempDir final Path folder) throws IOException {
+        final Path file = folder.resolve(INDEX_FILE);
+        Files.write(file, "not an index file, but long enough".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> TestPlanIndex.map(file))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldNotMapTruncatedIndex(@TempDir final Path folder) throws IOException {
+        final Path file = folder.resolve(INDEX_FILE);
+        new TestPlanIndex.Builder().addId(FIRST_ID).addSelector(SELECTOR).build().writeTo(file);
+        final byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - Long.BYTES));
+
+        assertThatThrownBy(() -> TestPlanIndex.map(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupted");
+    }
+
+    @Test
+    void shouldNotMapIndexWithWrongChecksum(@TempDir final Path folder) throws IOException {
+        final Path file = folder.resolve(INDEX_FILE);
+        new TestPlanIndex.Builder().addId(FIRST_ID).addSelector(SELECTOR).build().writeTo(file);
+        final byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 1;
+        Files.write(file, content);
+
+        assertThatThrownBy(() -> TestPlanIndex.map(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupted");
+    }
+}
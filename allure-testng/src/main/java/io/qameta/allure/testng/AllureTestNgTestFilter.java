@@ -17,9 +17,12 @@ package io.qameta.allure.testng;
 
 import io.qameta.allure.AllureId;
 import io.qameta.allure.testfilter.FileTestPlanSupplier;
+import io.qameta.allure.testfilter.TestOrder;
 import io.qameta.allure.testfilter.TestPlan;
+import io.qameta.allure.testfilter.TestPlanIndex;
 import io.qameta.allure.testfilter.TestPlanUnknown;
 import io.qameta.allure.testfilter.TestPlanV1_0;
+import io.qameta.allure.testfilter.TestShard;
 import org.testng.IMethodInstance;
 import org.testng.IMethodInterceptor;
 import org.testng.ITestContext;
@@ -29,31 +32,67 @@ import org.testng.internal.ConstructorOrMethod;
 import java.lang.reflect.Method;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Filters test methods by test plan and {@link TestShard}, and orders them by {@link TestOrder}.
+ * Methods selected by test plan are sharded at once, so shards are balanced among them.
+ * Shards and ranks are keyed by Allure id, or by full name of test method, that is name of
+ * the real test class followed by method name, same as full name of the test result.
+ * <p>
+ * Methods are sharded independently, so {@code dependsOnMethods} and {@code dependsOnGroups}
+ * across shards are not supported: dependency that is run in another shard is missing
+ * in this one, and dependent test is failed or skipped by TestNG.
+ */
 public class AllureTestNgTestFilter implements IMethodInterceptor {
 
     private final TestPlan testPlan;
 
+    private final TestShard shard;
+
+    private final TestOrder order;
+
     public AllureTestNgTestFilter() {
-        this.testPlan = new FileTestPlanSupplier().supply().orElse(new TestPlanUnknown());
+        this(
+                new FileTestPlanSupplier().supply().orElse(new TestPlanUnknown()),
+                TestShard.load(),
+                TestOrder.load()
+        );
     }
 
     public AllureTestNgTestFilter(final TestPlan testPlan) {
+        this(testPlan, TestShard.ALL, TestOrder.NONE);
+    }
+
+    public AllureTestNgTestFilter(final TestPlan testPlan, final TestShard shard, final TestOrder order) {
         this.testPlan = testPlan;
+        this.shard = shard;
+        this.order = order;
     }
 
     @Override
     public List<IMethodInstance> intercept(final List<IMethodInstance> methods,
                                            final ITestContext context) {
-        return methods.stream()
-                .filter(this::isSelected)
+        final Comparator<ITestNGMethod> byPriority = Comparator.comparingInt(ITestNGMethod::getPriority);
+        final Comparator<ITestNGMethod> comparator = order.isEnabled()
+                ? byPriority.thenComparingLong(this::getRank)
+                : byPriority;
+        final List<IMethodInstance> planned = methods.stream()
+                .filter(instance -> isInTestPlan(instance.getMethod()))
+                .collect(Collectors.toList());
+        final Set<String> selected = shard.select(planned.stream()
+                .map(IMethodInstance::getMethod)
+                .map(this::getShardKey)
+                .collect(Collectors.toList()));
+        return planned.stream()
+                .filter(instance -> isInShard(instance.getMethod(), selected))
                 .sorted(Comparator.comparing(
                         IMethodInstance::getMethod,
-                        Comparator.nullsFirst(Comparator.comparingInt(
-                                ITestNGMethod::getPriority
-                        ))))
+                        Comparator.nullsFirst(comparator)
+                ))
                 .collect(Collectors.toList());
     }
 
@@ -61,30 +100,76 @@ public class AllureTestNgTestFilter implements IMethodInterceptor {
         return isSelected(instance.getMethod());
     }
 
+    /**
+     * Checks if method is selected by test plan and belongs to shard by hash of its key,
+     * see {@link TestShard#contains(String, String)}. Used for methods that are not run,
+     * e.g. disabled ones, so they are reported by single shard.
+     *
+     * @param method the test method.
+     * @return true if method is selected.
+     */
     public boolean isSelected(final ITestNGMethod method) {
-        if (testPlan instanceof TestPlanV1_0) {
-            return isSelected(method, (TestPlanV1_0) testPlan);
-        } else {
-            return true;
-        }
+        return isInTestPlan(method) && shard.contains(null, getShardKey(method));
     }
 
     public boolean isSelected(final ITestNGMethod testNGMethod, final TestPlanV1_0 testPlan) {
-        final Optional<Method> method = Optional.ofNullable(testNGMethod)
-                .map(ITestNGMethod::getConstructorOrMethod)
-                .map(ConstructorOrMethod::getMethod);
+        return isSelected(testNGMethod, testPlan.getIndex());
+    }
+
+    private boolean isSelected(final ITestNGMethod testNGMethod, final TestPlanIndex index) {
+        final Optional<Method> method = getMethod(testNGMethod);
 
         if (method.isPresent()) {
             final String selector = getSelector(method.get());
-            final String allureId = method
-                    .filter(m -> m.isAnnotationPresent(AllureId.class))
-                    .map(m -> m.getAnnotation(AllureId.class))
-                    .map(AllureId::value).orElse(null);
-            return testPlan.isSelected(allureId, selector);
+            final String allureId = getAllureId(method.get());
+            return index.contains(selector) || index.contains(allureId);
         }
         return false;
     }
 
+    private boolean isInTestPlan(final ITestNGMethod method) {
+        if (Objects.isNull(testPlan)) {
+            return true;
+        }
+        final TestPlanIndex index = testPlan.getIndex();
+        return index.isSelectingAll() || isSelected(method, index);
+    }
+
+    private boolean isInShard(final ITestNGMethod testNGMethod, final Set<String> selected) {
+        final String key = getShardKey(testNGMethod);
+        return Objects.isNull(key)
+                ? shard.contains(null, null)
+                : selected.contains(key);
+    }
+
+    private String getShardKey(final ITestNGMethod testNGMethod) {
+        return getMethod(testNGMethod)
+                .map(method -> TestShard.getKey(getAllureId(method), getFullName(testNGMethod)))
+                .orElse(null);
+    }
+
+    private long getRank(final ITestNGMethod testNGMethod) {
+        return getMethod(testNGMethod)
+                .map(method -> order.getRank(getAllureId(method), getFullName(testNGMethod)))
+                .orElse(Long.MAX_VALUE);
+    }
+
+    private Optional<Method> getMethod(final ITestNGMethod testNGMethod) {
+        return Optional.ofNullable(testNGMethod)
+                .map(ITestNGMethod::getConstructorOrMethod)
+                .map(ConstructorOrMethod::getMethod);
+    }
+
+    private String getAllureId(final Method method) {
+        return Optional.ofNullable(method.getAnnotation(AllureId.class))
+                .map(AllureId::value)
+                .orElse(null);
+    }
+
+    private String getFullName(final ITestNGMethod testNGMethod) {
+        return testNGMethod.getRealClass().getName() + "." + testNGMethod.getMethodName();
+    }
+
     private String getSelector(final Method method) {
         return String.format("%s.%s",
                 method.getDeclaringClass().getCanonicalName(),
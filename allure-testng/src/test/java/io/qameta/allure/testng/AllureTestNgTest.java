@@ -32,9 +32,14 @@ import io.qameta.allure.model.WithSteps;
 import io.qameta.allure.test.AllureFeatures;
 import io.qameta.allure.test.AllureResults;
 import io.qameta.allure.test.RunUtils;
+import io.qameta.allure.testfilter.TestHistory;
+import io.qameta.allure.testfilter.TestOrder;
 import io.qameta.allure.testfilter.TestPlan;
+import io.qameta.allure.testfilter.TestPlanUnknown;
 import io.qameta.allure.testfilter.TestPlanV1_0;
+import io.qameta.allure.testfilter.TestShard;
 import io.qameta.allure.testng.config.AllureTestNgConfig;
+import io.qameta.allure.testng.samples.HistoryOrderTests;
 import io.qameta.allure.testng.samples.PriorityTests;
 import io.qameta.allure.testng.samples.TestsWithIdForFilter;
 import org.assertj.core.api.Condition;
@@ -46,16 +51,19 @@ import org.testng.annotations.Test;
 import org.testng.xml.XmlSuite;
 
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import static io.qameta.allure.util.ResultsUtils.ALLURE_ID_LABEL_NAME;
 import static io.qameta.allure.util.ResultsUtils.ALLURE_SEPARATE_LINES_SYSPROP;
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
@@ -1502,9 +1510,93 @@ public class AllureTestNgTest {
                 );
     }
 
+    @Test
+    @AllureFeatures.Filtration
+    public void shouldSplitTestsIntoDisjointShards() {
+        final int count = 3;
+        final List<String> all = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            final AllureTestNgTestFilter filter = new AllureTestNgTestFilter(
+                    new TestPlanUnknown(), TestShard.of(index, count), TestOrder.NONE
+            );
+            all.addAll(getTestNames(runWithFilter(filter, TestsWithIdForFilter.class)));
+        }
+
+        assertThat(all)
+                .containsExactlyInAnyOrder("test1", "test2", "test3", "test4", "skipped", "test6");
+    }
+
+    @Test
+    @AllureFeatures.Filtration
+    public void shouldBalanceShardsByHistoryDurations() {
+        final String className = TestsWithIdForFilter.class.getName();
+        final TestHistory history = new TestHistory.Builder()
+                .add(historyResult("1", null, 1000, Status.PASSED))
+                .add(historyResult("2", null, 10, Status.PASSED))
+                .add(historyResult(null, className + ".test3", 10, Status.PASSED))
+                .add(historyResult("4", null, 10, Status.PASSED))
+                .add(historyResult("6", null, 10, Status.FAILED))
+                .build();
+        final List<List<String>> shards = new ArrayList<>();
+        for (int index = 0; index < 2; index++) {
+            final AllureTestNgTestFilter filter = new AllureTestNgTestFilter(
+                    new TestPlanUnknown(), TestShard.of(index, 2).withHistory(history), TestOrder.NONE
+            );
+            shards.add(getTestNames(runWithFilter(filter, TestsWithIdForFilter.class)).stream()
+                    .filter(name -> !"skipped".equals(name))
+                    .collect(Collectors.toList()));
+        }
+
+        assertThat(shards.get(0))
+                .containsExactly("test1");
+        assertThat(shards.get(1))
+                .containsExactlyInAnyOrder("test2", "test3", "test4", "test6");
+    }
+
+    @Test
+    @AllureFeatures.Ordering
+    public void shouldRunPreviouslyFailedTestsFirst() {
+        final String className = HistoryOrderTests.class.getName();
+        final TestHistory history = new TestHistory.Builder()
+                .add(historyResult(null, className + ".aTest", 10, Status.PASSED))
+                .add(historyResult(null, className + ".bTest", 5, Status.PASSED))
+                .add(historyResult(null, className + ".cTest", 100, Status.FAILED))
+                .build();
+        final AllureTestNgTestFilter filter = new AllureTestNgTestFilter(
+                new TestPlanUnknown(), TestShard.ALL, new TestOrder(history)
+        );
+
+        final AllureResults results = runWithFilter(filter, HistoryOrderTests.class);
+
+        assertThat(getOrderedTestNames(results))
+                .containsExactly("cTest", "bTest", "aTest");
+    }
+
+    @Test
+    @AllureFeatures.Ordering
+    public void shouldOrderTestsByPriorityBeforeHistory() {
+        final String className = PriorityTests.class.getName();
+        final TestHistory history = new TestHistory.Builder()
+                .add(historyResult(null, className + ".vTest", 10, Status.FAILED))
+                .add(historyResult(null, className + ".zTest", 100, Status.PASSED))
+                .build();
+        final AllureTestNgTestFilter filter = new AllureTestNgTestFilter(
+                new TestPlanUnknown(), TestShard.ALL, new TestOrder(history)
+        );
+
+        final AllureResults results = runWithFilter(filter, PriorityTests.class);
+
+        assertThat(getOrderedTestNames(results))
+                .containsExactly("zTest", "yTest", "xTest", "wTest", "vTest", "vTest");
+    }
+
     public AllureResults runTestPlan(final TestPlan plan, final Class<?>... testClasses) {
+        return runWithFilter(new AllureTestNgTestFilter(plan), testClasses);
+    }
+
+    private AllureResults runWithFilter(final AllureTestNgTestFilter filter, final Class<?>... testClasses) {
         return RunUtils.runTests(lifecycle -> {
-            final AllureTestNg adapter = new AllureTestNg(lifecycle, new AllureTestNgTestFilter(plan));
+            final AllureTestNg adapter = new AllureTestNg(lifecycle, filter);
             final TestNG testNG = new TestNG(false);
             testNG.addListener((ITestNGListener) adapter);
             testNG.setTestClasses(testClasses);
@@ -1513,6 +1605,33 @@ public class AllureTestNgTest {
         });
     }
 
+    private static TestResult historyResult(final String allureId, final String fullName,
+                                            final long duration, final Status status) {
+        final TestResult result = new TestResult()
+                .setUuid(UUID.randomUUID().toString())
+                .setFullName(fullName)
+                .setStart(0L)
+                .setStop(duration)
+                .setStatus(status);
+        if (Objects.nonNull(allureId)) {
+            result.getLabels().add(new Label().setName(ALLURE_ID_LABEL_NAME).setValue(allureId));
+        }
+        return result;
+    }
+
+    private static List<String> getTestNames(final AllureResults results) {
+        return results.getTestResults().stream()
+                .map(TestResult::getName)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> getOrderedTestNames(final AllureResults results) {
+        return results.getTestResults().stream()
+                .sorted(Comparator.comparing(this::getOrderParameter))
+                .map(TestResult::getName)
+                .collect(Collectors.toList());
+    }
+
     private Integer getOrderParameter(final TestResult result) {
         return result.getParameters().stream()
                 .filter(p -> p.getName().equals("order"))
@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2016-2024 Qameta Software Inc
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.qameta.allure.testng.samples;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.qameta.allure.Allure.parameter;
+
+public class HistoryOrderTests {
+
+    private final static String ORDER_PARAMETER = "order";
+
+    private final AtomicInteger cnt = new AtomicInteger();
+
+    @Test
+    public void aTest() {
+        parameter(ORDER_PARAMETER, cnt.incrementAndGet());
+    }
+
+    @Test
+    public void bTest() {
+        parameter(ORDER_PARAMETER, cnt.incrementAndGet());
+    }
+
+    @Test
+    public void cTest() {
+        parameter(ORDER_PARAMETER, cnt.incrementAndGet());
+    }
+
+}